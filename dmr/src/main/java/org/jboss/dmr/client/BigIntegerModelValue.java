@@ -37,7 +37,9 @@ final class BigIntegerModelValue extends ModelValue {
 
     @Override
     void writeExternal(final DataOutput out) throws IOException {
-        out.write(value.toByteArray());
+        final byte[] bytes = value.toByteArray();
+        out.writeInt(bytes.length);
+        out.write(bytes);
     }
 
     @Override
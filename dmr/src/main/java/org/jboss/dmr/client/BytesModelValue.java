@@ -43,6 +43,7 @@ final class BytesModelValue extends ModelValue {
 
     @Override
     void writeExternal(final DataOutput out) throws IOException {
+        out.writeInt(bytes.length);
         out.write(bytes);
     }
 
@@ -0,0 +1,226 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+
+package org.jboss.dmr.client;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Insertion ordered map for the children of {@link ObjectModelValue}s. Most objects of the management model
+ * (e.g. the attribute descriptions of a resource description) have only a handful of keys. Up to
+ * {@link #THRESHOLD} entries are kept in two parallel arrays and looked up linearly, which is a lot cheaper
+ * memory-wise than a {@link LinkedHashMap} (especially in compiled GWT code). Larger maps switch to a
+ * {@code LinkedHashMap}.
+ */
+final class CompactMap<V> extends AbstractMap<String, V> {
+
+    static final int THRESHOLD = 8;
+
+    private String[] keys;
+    private Object[] values;
+    private int size;
+    private LinkedHashMap<String, V> hashed;
+
+    CompactMap() {
+        this(4);
+    }
+
+    CompactMap(final int expectedSize) {
+        if (expectedSize > THRESHOLD) {
+            hashed = new LinkedHashMap<String, V>();
+        } else {
+            keys = new String[Math.max(expectedSize, 1)];
+            values = new Object[keys.length];
+        }
+    }
+
+    @Override
+    public int size() {
+        return hashed != null ? hashed.size() : size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return hashed != null ? hashed.containsKey(key) : indexOf(key) != -1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(final Object key) {
+        if (hashed != null) {
+            return hashed.get(key);
+        }
+        final int index = indexOf(key);
+        return index == -1 ? null : (V) values[index];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(final String key, final V value) {
+        if (hashed != null) {
+            return hashed.put(key, value);
+        }
+        final int index = indexOf(key);
+        if (index != -1) {
+            final V old = (V) values[index];
+            values[index] = value;
+            return old;
+        }
+        if (size == THRESHOLD) {
+            hashed = new LinkedHashMap<String, V>();
+            for (int i = 0; i < size; i++) {
+                hashed.put(keys[i], (V) values[i]);
+            }
+            keys = null;
+            values = null;
+            size = 0;
+            return hashed.put(key, value);
+        }
+        if (size == keys.length) {
+            final int capacity = Math.min(size * 2, THRESHOLD);
+            final String[] newKeys = new String[capacity];
+            final Object[] newValues = new Object[capacity];
+            System.arraycopy(keys, 0, newKeys, 0, size);
+            System.arraycopy(values, 0, newValues, 0, size);
+            keys = newKeys;
+            values = newValues;
+        }
+        keys[size] = key;
+        values[size] = value;
+        size++;
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(final Object key) {
+        if (hashed != null) {
+            return hashed.remove(key);
+        }
+        final int index = indexOf(key);
+        if (index == -1) {
+            return null;
+        }
+        final V old = (V) values[index];
+        removeAt(index);
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        if (hashed != null) {
+            hashed.clear();
+        } else {
+            for (int i = 0; i < size; i++) {
+                keys[i] = null;
+                values[i] = null;
+            }
+            size = 0;
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<String, V>> entrySet() {
+        if (hashed != null) {
+            return hashed.entrySet();
+        }
+        return new AbstractSet<Map.Entry<String, V>>() {
+            @Override
+            public Iterator<Map.Entry<String, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return CompactMap.this.size();
+            }
+        };
+    }
+
+    private int indexOf(final Object key) {
+        for (int i = 0; i < size; i++) {
+            // keys read from the wire are interned, so the identity check usually suffices
+            if (keys[i] == key || keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeAt(final int index) {
+        final int moved = size - index - 1;
+        if (moved > 0) {
+            System.arraycopy(keys, index + 1, keys, index, moved);
+            System.arraycopy(values, index + 1, values, index, moved);
+        }
+        size--;
+        keys[size] = null;
+        values[size] = null;
+    }
+
+
+    private class EntryIterator implements Iterator<Map.Entry<String, V>> {
+
+        private int next;
+        private int current = -1;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<String, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            current = next++;
+            final int index = current;
+            return new AbstractMap.SimpleEntry<String, V>(keys[index], (V) values[index]) {
+                @Override
+                public V setValue(final V value) {
+                    values[index] = value;
+                    return super.setValue(value);
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (current == -1) {
+                throw new IllegalStateException();
+            }
+            removeAt(current);
+            next = current;
+            current = -1;
+        }
+    }
+}
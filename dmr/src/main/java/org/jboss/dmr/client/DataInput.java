@@ -19,24 +19,76 @@
 
 package org.jboss.dmr.client;
 
+import com.google.gwt.typedarrays.shared.DataView;
+import com.google.gwt.typedarrays.shared.TypedArrays;
+import com.google.gwt.typedarrays.shared.Uint8Array;
+
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
+ * Reads the binary DMR format from a typed array. Multi byte values are read through a big endian
+ * {@link DataView} on the same buffer, so no intermediate byte arrays are allocated per value.
+ * <p/>
  * see also http://quake2-gwt-port.googlecode.com/hg/src/com/google/gwt/corp/emul/java/io/DataInputStream.java?r=5c7c4b545ff4a8875b4cab5d77492d37e150d46b
  */
 public class DataInput {
+
+    /**
+     * Short strings are interned: Keys like "type", "description" or "nillable" and values like "STRING" or
+     * "read-write" are repeated thousands of times in resource descriptions.
+     */
+    private static final int MAX_INTERNED_LENGTH = 48;
+    private static final int MAX_INTERNED = 8192;
+    private static final Map<String, String> INTERNED = new HashMap<String, String>();
+
     private int pos = 0;
-    private byte[] bytes;
+    private final Uint8Array bytes;
+    private final DataView view;
+    private final int length;
 
     public DataInput(byte[] bytes) {
+        this(copyOf(bytes));
+    }
+
+    public DataInput(Uint8Array bytes) {
         this.bytes = bytes;
+        this.length = bytes.length();
+        this.view = TypedArrays.createDataView(bytes.buffer(), bytes.byteOffset(), length);
+    }
+
+    /**
+     * Decodes a binary string (one char per byte, as returned by {@code atob()}) into a typed array.
+     */
+    public static Uint8Array fromBinaryString(String binary) {
+        int length = binary.length();
+        Uint8Array array = TypedArrays.createUint8Array(length);
+        for (int i = 0; i < length; i++) {
+            array.set(i, binary.charAt(i) & 0xFF);
+        }
+        return array;
+    }
+
+    private static Uint8Array copyOf(byte[] bytes) {
+        Uint8Array array = TypedArrays.createUint8Array(bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            array.set(i, bytes[i] & 0xFF);
+        }
+        return array;
+    }
+
+    private void require(int n) {
+        if (pos + n > length) {
+            throw new RuntimeException("EOF");
+        }
     }
 
     public int read() throws IOException {
-        if (pos >= bytes.length)
+        if (pos >= length)
             return -1;
 
-        return bytes[pos++] & 0xFF;
+        return bytes.get(pos++);
     }
 
     public boolean readBoolean() throws IOException {
@@ -44,46 +96,37 @@ public class DataInput {
     }
 
     public byte readByte() throws IOException {
-        int i = read();
-        if (i == -1) {
-            throw new RuntimeException("EOF");
-        }
-        return (byte) i;
+        require(1);
+        return (byte) bytes.get(pos++);
     }
 
     public char readChar() throws IOException {
-        int a = readUnsignedByte();
-        int b = readUnsignedByte();
-        return (char) ((a << 8) | b);
+        require(2);
+        char c = (char) view.getUint16(pos);
+        pos += 2;
+        return c;
     }
 
     public double readDouble() throws IOException {
         // See  https://issues.jboss.org/browse/AS7-4126
-        //return IEEE754.toDouble(bytes[pos++], bytes[pos++], bytes[pos++], bytes[pos++], bytes[pos++], bytes[pos++], bytes[pos++], bytes[pos++]);
-        byte doubleBytes[] = new byte[8];
-        readFully(doubleBytes);
-
-        return IEEE754.toDouble(
-                doubleBytes[0],
-                doubleBytes[1],
-                doubleBytes[2],
-                doubleBytes[3],
-                doubleBytes[4],
-                doubleBytes[5],
-                doubleBytes[6],
-                doubleBytes[7]);
+        require(8);
+        double d = view.getFloat64(pos);
+        pos += 8;
+        return d;
     }
 
     public float readFloat() throws IOException {
-        return IEEE754.toFloat(bytes[pos++], bytes[pos++], bytes[pos++], bytes[pos++]);
+        require(4);
+        float f = view.getFloat32(pos);
+        pos += 4;
+        return f;
     }
 
     public int readInt() throws IOException {
-        int a = readUnsignedByte();
-        int b = readUnsignedByte();
-        int c = readUnsignedByte();
-        int d = readUnsignedByte();
-        return (a << 24) | (b << 16) | (c << 8) | d;
+        require(4);
+        int i = view.getInt32(pos);
+        pos += 4;
+        return i;
     }
 
     public String readLine() throws IOException {
@@ -92,35 +135,59 @@ public class DataInput {
 
     public long readLong() throws IOException
     {
-        byte longBytes[] = new byte[8];
-        readFully(longBytes);
-
-        return (((long)longBytes[0] << 56) +
-                ((long)(longBytes[1] & 255) << 48) +
-                ((long)(longBytes[2] & 255) << 40) +
-                ((long)(longBytes[3] & 255) << 32) +
-                ((long)(longBytes[4] & 255) << 24) +
-                ((longBytes[5] & 255) << 16) +
-                ((longBytes[6] & 255) <<  8) +
-                ((longBytes[7] & 255) <<  0));
-
+        require(8);
+        long high = view.getInt32(pos);
+        long low = view.getInt32(pos + 4) & 0xFFFFFFFFL;
+        pos += 8;
+        return (high << 32) | low;
     }
 
     public short readShort() throws IOException {
-        int a = readUnsignedByte();
-        int b = readUnsignedByte();
-        return (short) ((a << 8) | b);
+        require(2);
+        short s = view.getInt16(pos);
+        pos += 2;
+        return s;
     }
 
     public String readUTF() throws IOException {
         int bytes = readUnsignedShort();
-        StringBuilder sb = new StringBuilder();
+        require(bytes);
 
+        // fast path for plain ASCII, which is what most keys and values are made of
+        int end = pos + bytes;
+        int i = pos;
+        while (i < end && this.bytes.get(i) < 0x80) {
+            i++;
+        }
+        if (i == end) {
+            char[] chars = new char[bytes];
+            for (int j = 0; j < bytes; j++) {
+                chars[j] = (char) this.bytes.get(pos + j);
+            }
+            pos = end;
+            return intern(new String(chars));
+        }
+
+        StringBuilder sb = new StringBuilder(bytes);
         while (bytes > 0) {
             bytes -= readUtfChar(sb);
         }
 
-        return sb.toString();
+        return intern(sb.toString());
+    }
+
+    private static String intern(String value) {
+        if (value.length() > MAX_INTERNED_LENGTH) {
+            return value;
+        }
+        String interned = INTERNED.get(value);
+        if (interned != null) {
+            return interned;
+        }
+        if (INTERNED.size() < MAX_INTERNED) {
+            INTERNED.put(value, value);
+        }
+        return value;
     }
 
     private int readUtfChar(StringBuilder sb) throws IOException {
@@ -172,20 +239,37 @@ public class DataInput {
     }
 
     public int readUnsignedShort() throws IOException {
-        int a = readUnsignedByte();
-        int b = readUnsignedByte();
-        return ((a << 8) | b);
+        require(2);
+        int i = view.getUint16(pos);
+        pos += 2;
+        return i;
     }
 
     public int skipBytes(int n) throws IOException {
-        // note: This is actually a valid implementation of this method, rendering it quite useless...
-        return 0;
+        int skipped = Math.max(0, Math.min(n, length - pos));
+        pos += skipped;
+        return skipped;
+    }
+
+    public void skipUTF() throws IOException {
+        int bytes = readUnsignedShort();
+        require(bytes);
+        pos += bytes;
     }
 
     public void readFully(byte[] b) {
+        require(b.length);
         for (int i = 0; i < b.length; i++) {
-            b[i] = bytes[pos++];
+            b[i] = (byte) bytes.get(pos++);
         }
     }
 
+    public int position() {
+        return pos;
+    }
+
+    public int length() {
+        return length;
+    }
+
 }
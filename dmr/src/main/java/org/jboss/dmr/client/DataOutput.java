@@ -19,134 +19,150 @@
 
 package org.jboss.dmr.client;
 
-import com.google.gwt.core.client.JsArrayInteger;
+import com.google.gwt.typedarrays.shared.DataView;
+import com.google.gwt.typedarrays.shared.TypedArrays;
+import com.google.gwt.typedarrays.shared.Uint8Array;
 
 import java.io.IOException;
 
+/**
+ * Writes the binary DMR format into a typed array. The buffer grows geometrically and multi byte values
+ * are written through a big endian {@link DataView}.
+ */
 public class DataOutput {
 
-    private byte[] bytes;
+    private static final int INITIAL_SIZE = 256;
+
+    private Uint8Array bytes;
+    private DataView view;
     private int pos;
 
     public DataOutput() {
-        bytes = new byte[50];
+        bytes = TypedArrays.createUint8Array(INITIAL_SIZE);
+        view = TypedArrays.createDataView(bytes.buffer());
     }
 
     public String getEncoded() {
-        return Base64.encodeBytes(bytes, 0, pos);
+        return Base64.encodeBytes(getBytes());
     }
 
     public byte[] getBytes() {
         byte[] array = new byte[pos];
         for (int i = 0; i < pos; i++)
-            array[i] = bytes[i];
+            array[i] = (byte) bytes.get(i);
 
         return array;
     }
 
+    /**
+     * @return a view on the written bytes (not a copy)
+     */
+    public Uint8Array getArray() {
+        return bytes.subarray(0, pos);
+    }
+
+    public int size() {
+        return pos;
+    }
+
     private void growToFit(int size) {
-        if (pos + size >= bytes.length) {
-            byte[] array = new byte[bytes.length + size];
-            for (int i = 0; i < bytes.length; i++) {
-                array[i] = bytes[i];
+        int required = pos + size;
+        if (required > bytes.length()) {
+            int capacity = bytes.length() * 2;
+            while (capacity < required) {
+                capacity *= 2;
             }
-
+            Uint8Array array = TypedArrays.createUint8Array(capacity);
+            array.set(bytes.subarray(0, pos));
             bytes = array;
+            view = TypedArrays.createDataView(bytes.buffer());
         }
     }
 
     public void writeBoolean(boolean v) throws IOException {
         growToFit(1);
-        bytes[pos++] = v ? (byte)1 : (byte)0;
+        bytes.set(pos++, v ? 1 : 0);
     }
 
     public void writeByte(int v) throws IOException {
         growToFit(1);
-        bytes[pos++] = (byte)v;
+        bytes.set(pos++, v & 0xFF);
 
     }
 
     public void writeShort(int v) throws IOException {
         growToFit(2);
-        bytes[pos++] = (byte)(v >>> 8);
-        bytes[pos++] = (byte)(v & 0xFF);
-
+        view.setUint16(pos, v & 0xFFFF);
+        pos += 2;
     }
 
     public void writeChar(int v) throws IOException {
         growToFit(2);
-        bytes[pos++] = (byte)(v >>> 8);
-        bytes[pos++] = (byte)(v & 0xFF);
+        view.setUint16(pos, v & 0xFFFF);
+        pos += 2;
     }
 
     public void writeInt(int v) throws IOException {
         growToFit(4);
-        bytes[pos++] = (byte) (v >>> 24);
-        bytes[pos++] = (byte)((v >>> 16) & 0xFF);
-        bytes[pos++] = (byte)((v >>> 8) & 0xFF);
-        bytes[pos++] = (byte) (v & 0xFF);
+        view.setInt32(pos, v);
+        pos += 4;
     }
 
     public void writeLong(long v) throws IOException {
         growToFit(8);
-        bytes[pos++] = (byte) (v >>> 56);
-        bytes[pos++] = (byte)((v >>> 48) & 0xFF);
-        bytes[pos++] = (byte)((v >>> 40) & 0xFF);
-        bytes[pos++] = (byte)((v >>> 32) & 0xFF);
-        bytes[pos++] = (byte)((v >>> 24) & 0xFF);
-        bytes[pos++] = (byte)((v >>> 16) & 0xFF);
-        bytes[pos++] = (byte)((v >>> 8) & 0xFF);
-        bytes[pos++] = (byte) (v & 0xFF);
+        view.setInt32(pos, (int) (v >>> 32));
+        view.setInt32(pos + 4, (int) v);
+        pos += 8;
     }
 
     public void writeFloat(float v) throws IOException {
         growToFit(4);
-        JsArrayInteger bytes = IEEE754.fromFloat(v);
-        for (int i = 0; i < 4; i++) {
-            this.bytes[pos++] = (byte)bytes.get(i);
-        }
+        view.setFloat32(pos, v);
+        pos += 4;
     }
 
     public void writeDouble(double v) throws IOException {
         growToFit(8);
-        JsArrayInteger bytes = IEEE754.fromDoubleClosure(v);
-        for (int i = 0; i < 8; i++) {
-            this.bytes[pos++] = (byte)bytes.get(i);
-        }
+        view.setFloat64(pos, v);
+        pos += 8;
     }
 
     public void writeUTF(String s) throws IOException {
         final int length = s.length();
-        final byte[] bytes = new byte[length * 3];
-        int bl = 0;
+        // reserve the length prefix and the worst case of three bytes per char
+        growToFit(2 + length * 3);
+        final int start = pos;
+        pos += 2;
         char c;
         for (int i = 0; i < length; i ++) {
             c = s.charAt(i);
             if (c > 0 && c <= 0x7f) {
-                bytes[bl ++] = (byte) c;
+                bytes.set(pos++, c);
             } else if (c <= 0x07ff) {
-                bytes[bl ++] = (byte)(0xc0 | 0x1f & c >> 6);
-                bytes[bl ++] = (byte)(0x80 | 0x3f & c);
+                bytes.set(pos++, 0xc0 | 0x1f & c >> 6);
+                bytes.set(pos++, 0x80 | 0x3f & c);
             } else {
-                bytes[bl ++] = (byte)(0xe0 | 0x0f & c >> 12);
-                bytes[bl ++] = (byte)(0x80 | 0x3f & c >> 6);
-                bytes[bl ++] = (byte)(0x80 | 0x3f & c);
+                bytes.set(pos++, 0xe0 | 0x0f & c >> 12);
+                bytes.set(pos++, 0x80 | 0x3f & c >> 6);
+                bytes.set(pos++, 0x80 | 0x3f & c);
             }
         }
-        writeShort(bl);
-        write(bytes, 0, bl);
+        final int encoded = pos - start - 2;
+        if (encoded > 0xFFFF) {
+            pos = start;
+            throw new IOException("Encoded string too long: " + encoded + " bytes");
+        }
+        view.setUint16(start, encoded);
     }
 
     public void write(byte[] bits) {
-        growToFit(bits.length);
-        for (int i = 0; i < bits.length; i++)
-            bytes[pos++] = bits[i];
+        write(bits, 0, bits.length);
     }
 
     public void write(byte[] b, int off, int len) {
         growToFit(len);
         for (int i = 0; i < len; i ++) {
-            bytes[pos++] = b[off + i];
+            bytes.set(pos++, b[off + i] & 0xFF);
         }
     }
 }
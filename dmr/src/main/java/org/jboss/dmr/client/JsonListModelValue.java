@@ -0,0 +1,54 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+
+package org.jboss.dmr.client;
+
+import com.google.gwt.core.client.JavaScriptObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A list value backed by a parsed JSON array. The items of this list are created on first access.
+ */
+final class JsonListModelValue extends LazyModelValue {
+
+    private JavaScriptObject array;
+
+    JsonListModelValue(final JavaScriptObject array) {
+        super(ModelType.LIST);
+        this.array = array;
+    }
+
+    @Override
+    ModelValue lazyCopy() {
+        return new JsonListModelValue(array);
+    }
+
+    @Override
+    ModelValue materialize() {
+        final int length = JsonValues.length(array);
+        final List<ModelNode> list = new ArrayList<ModelNode>(length);
+        for (int i = 0; i < length; i++) {
+            list.add(new ModelNode(JsonValues.valueOf(array, String.valueOf(i))));
+        }
+        array = null;
+        return new ListModelValue(list);
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+
+package org.jboss.dmr.client;
+
+import com.google.gwt.core.client.JavaScriptObject;
+
+/**
+ * An object value backed by a parsed JSON object. The children of this object are created on first access.
+ */
+final class JsonObjectModelValue extends LazyModelValue {
+
+    private JavaScriptObject object;
+
+    JsonObjectModelValue(final JavaScriptObject object) {
+        super(ModelType.OBJECT);
+        this.object = object;
+    }
+
+    @Override
+    ModelValue lazyCopy() {
+        return new JsonObjectModelValue(object);
+    }
+
+    @Override
+    ModelValue materialize() {
+        final ModelValue value = new ObjectModelValue(JsonValues.children(object));
+        object = null;
+        return value;
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+
+package org.jboss.dmr.client;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayString;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Turns the result of the browser's native {@code JSON.parse()} into model values. Objects and lists are wrapped
+ * in lazy values, which create their children only when they are accessed for the first time. Scalar values are
+ * converted right away.
+ * <p/>
+ * The following type hints used by the DMR JSON format are understood: {@value ExpressionValue#TYPE_KEY},
+ * {@value BytesModelValue#TYPE_KEY}, {@value TypeModelValue#TYPE_KEY} and {@value PropertyModelValue#TYPE_KEY}.
+ * <p/>
+ * The DMR JSON format writes all numbers as plain JSON numbers, so the numeric type of a value can't be restored.
+ * Numbers are typed by their shape instead:
+ * <ul>
+ * <li>integral numbers in the int range: {@link ModelType#INT}</li>
+ * <li>integral numbers in the long range: {@link ModelType#LONG}</li>
+ * <li>integral numbers beyond the long range: {@link ModelType#BIG_INTEGER}</li>
+ * <li>fractional numbers: {@link ModelType#BIG_DECIMAL}</li>
+ * <li>{@code NaN} and infinity: {@link ModelType#DOUBLE}</li>
+ * </ul>
+ * Thus a {@code LONG} attribute with a small value is parsed as {@code INT} and a {@code DOUBLE} attribute as
+ * {@code BIG_DECIMAL}. Code which has to work with both wire formats must not depend on the {@link ModelType} of
+ * a numeric value, but use the type from the resource description and the {@code asXxx()} conversions. For the
+ * same reason a node parsed from JSON is not {@linkplain ModelNode#equals(ModelNode) equal} to the same node read
+ * from the binary format if it contains such numbers. Please note that integral values beyond 2^53 lose precision
+ * when parsed by the browser.
+ */
+final class JsonValues {
+
+    private JsonValues() {
+    }
+
+    static ModelNode parse(final String json) {
+        // the parsed value is wrapped in an array, so that the root is accessed like any other child
+        final JavaScriptObject root = nativeParse(json);
+        return new ModelNode(valueOf(root, "0"));
+    }
+
+    static ModelValue valueOf(final JavaScriptObject holder, final String key) {
+        final String type = typeOf(holder, key);
+        if ("string".equals(type)) {
+            return new StringModelValue(getString(holder, key));
+        } else if ("boolean".equals(type)) {
+            return BooleanModelValue.valueOf(getBoolean(holder, key));
+        } else if ("number".equals(type)) {
+            return number(getNumber(holder, key));
+        } else if ("array".equals(type)) {
+            return new JsonListModelValue(getObject(holder, key));
+        } else if ("object".equals(type)) {
+            final JavaScriptObject object = getObject(holder, key);
+            final ModelValue hinted = typeHint(object);
+            return hinted != null ? hinted : new JsonObjectModelValue(object);
+        }
+        return ModelValue.UNDEFINED;
+    }
+
+    static ModelValue number(final double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return new DoubleModelValue(value);
+        }
+        if (value == Math.floor(value)) {
+            if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                return new IntModelValue((int) value);
+            } else if (value >= Long.MIN_VALUE && value < Long.MAX_VALUE) {
+                return new LongModelValue((long) value);
+            }
+            return new BigIntegerModelValue(BigDecimal.valueOf(value).toBigInteger());
+        }
+        return new BigDecimalModelValue(BigDecimal.valueOf(value));
+    }
+
+    private static ModelValue typeHint(final JavaScriptObject object) {
+        final JsArrayString keys = keys(object);
+        if (keys.length() != 1) {
+            return null;
+        }
+        final String key = keys.get(0);
+        if (PropertyModelValue.TYPE_KEY.equals(key)) {
+            final JavaScriptObject property = getObject(object, key);
+            final JsArrayString names = keys(property);
+            if (names.length() == 1) {
+                return new PropertyModelValue(names.get(0), new ModelNode(valueOf(property, names.get(0))));
+            }
+        } else if (ExpressionValue.TYPE_KEY.equals(key) || BytesModelValue.TYPE_KEY.equals(key)
+                || TypeModelValue.TYPE_KEY.equals(key)) {
+            return typeHint(key, getString(object, key));
+        }
+        return null;
+    }
+
+    /**
+     * @return the value for a type hint which holds a string or {@code null} if the key is not such a type hint
+     */
+    static ModelValue typeHint(final String key, final String value) {
+        if (ExpressionValue.TYPE_KEY.equals(key)) {
+            return new ExpressionValue(value);
+        } else if (BytesModelValue.TYPE_KEY.equals(key)) {
+            try {
+                return new BytesModelValue(Base64.decode(value));
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Invalid " + key + ": " + e.getMessage());
+            }
+        } else if (TypeModelValue.TYPE_KEY.equals(key)) {
+            return TypeModelValue.of(ModelType.valueOf(value));
+        }
+        return null;
+    }
+
+    static CompactMap<ModelNode> children(final JavaScriptObject object) {
+        final JsArrayString keys = keys(object);
+        final CompactMap<ModelNode> map = new CompactMap<ModelNode>(keys.length());
+        for (int i = 0; i < keys.length(); i++) {
+            final String key = keys.get(i);
+            map.put(key, new ModelNode(valueOf(object, key)));
+        }
+        return map;
+    }
+
+
+    // ------------------------------------------------------ native helpers
+
+    static native JavaScriptObject nativeParse(String json) /*-{
+        return [JSON.parse(json)];
+    }-*/;
+
+    static native JsArrayString keys(JavaScriptObject object) /*-{
+        return Object.keys(object);
+    }-*/;
+
+    static native int length(JavaScriptObject array) /*-{
+        return array.length;
+    }-*/;
+
+    private static native String typeOf(JavaScriptObject holder, String key) /*-{
+        var value = holder[key];
+        if (value === null || value === undefined) {
+            return "null";
+        }
+        return Array.isArray(value) ? "array" : typeof value;
+    }-*/;
+
+    private static native String getString(JavaScriptObject holder, String key) /*-{
+        return String(holder[key]);
+    }-*/;
+
+    private static native boolean getBoolean(JavaScriptObject holder, String key) /*-{
+        return holder[key];
+    }-*/;
+
+    private static native double getNumber(JavaScriptObject holder, String key) /*-{
+        return holder[key];
+    }-*/;
+
+    private static native JavaScriptObject getObject(JavaScriptObject holder, String key) /*-{
+        return holder[key];
+    }-*/;
+}
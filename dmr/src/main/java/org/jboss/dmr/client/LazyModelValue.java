@@ -0,0 +1,235 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+
+package org.jboss.dmr.client;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A model value which is created on first access. All operations are delegated to the materialized value.
+ */
+abstract class LazyModelValue extends ModelValue {
+
+    private ModelValue delegate;
+
+    protected LazyModelValue(final ModelType type) {
+        super(type);
+    }
+
+    /**
+     * Creates the actual value. Called at most once.
+     */
+    abstract ModelValue materialize();
+
+    /**
+     * Creates a copy which is still not materialized. Called only as long as this value wasn't materialized.
+     */
+    abstract ModelValue lazyCopy();
+
+    final ModelValue delegate() {
+        if (delegate == null) {
+            delegate = materialize();
+        }
+        return delegate;
+    }
+
+    static ModelValue unwrap(final Object value) {
+        return value instanceof LazyModelValue ? ((LazyModelValue) value).delegate() : (ModelValue) value;
+    }
+
+    @Override
+    long asLong() {
+        return delegate().asLong();
+    }
+
+    @Override
+    long asLong(final long defVal) {
+        return delegate().asLong(defVal);
+    }
+
+    @Override
+    int asInt() {
+        return delegate().asInt();
+    }
+
+    @Override
+    int asInt(final int defVal) {
+        return delegate().asInt(defVal);
+    }
+
+    @Override
+    boolean asBoolean() {
+        return delegate().asBoolean();
+    }
+
+    @Override
+    boolean asBoolean(final boolean defVal) {
+        return delegate().asBoolean(defVal);
+    }
+
+    @Override
+    double asDouble() {
+        return delegate().asDouble();
+    }
+
+    @Override
+    double asDouble(final double defVal) {
+        return delegate().asDouble(defVal);
+    }
+
+    @Override
+    byte[] asBytes() {
+        return delegate().asBytes();
+    }
+
+    @Override
+    BigDecimal asBigDecimal() {
+        return delegate().asBigDecimal();
+    }
+
+    @Override
+    BigInteger asBigInteger() {
+        return delegate().asBigInteger();
+    }
+
+    @Override
+    String asString() {
+        return delegate().asString();
+    }
+
+    @Override
+    Property asProperty() {
+        return delegate().asProperty();
+    }
+
+    @Override
+    List<Property> asPropertyList() {
+        return delegate().asPropertyList();
+    }
+
+    @Override
+    ModelNode asObject() {
+        return delegate().asObject();
+    }
+
+    @Override
+    ModelNode getChild(final String name) {
+        return delegate().getChild(name);
+    }
+
+    @Override
+    ModelNode removeChild(final String name) {
+        return delegate().removeChild(name);
+    }
+
+    @Override
+    ModelNode getChild(final int index) {
+        return delegate().getChild(index);
+    }
+
+    @Override
+    ModelNode addChild() {
+        return delegate().addChild();
+    }
+
+    @Override
+    Set<String> getKeys() {
+        return delegate().getKeys();
+    }
+
+    @Override
+    List<ModelNode> asList() {
+        return delegate().asList();
+    }
+
+    @Override
+    ModelType asType() {
+        return delegate().asType();
+    }
+
+    @Override
+    ModelValue protect() {
+        return delegate().protect();
+    }
+
+    @Override
+    ModelValue copy() {
+        return delegate == null ? lazyCopy() : delegate.copy();
+    }
+
+    @Override
+    ModelValue resolve() {
+        return delegate().resolve();
+    }
+
+    @Override
+    void format(final StringBuilder builder, final int indent, final boolean multiLine) {
+        delegate().format(builder, indent, multiLine);
+    }
+
+    @Override
+    void formatAsJSON(final StringBuilder builder, final int indent, final boolean multiLine) {
+        delegate().formatAsJSON(builder, indent, multiLine);
+    }
+
+    @Override
+    public String toJSONString(final boolean compact) {
+        return delegate().toJSONString(compact);
+    }
+
+    @Override
+    void writeExternal(final DataOutput out) throws IOException {
+        delegate().writeExternal(out);
+    }
+
+    @Override
+    boolean has(final int index) {
+        return delegate().has(index);
+    }
+
+    @Override
+    boolean has(final String key) {
+        return delegate().has(key);
+    }
+
+    @Override
+    ModelNode requireChild(final String name) throws NoSuchElementException {
+        return delegate().requireChild(name);
+    }
+
+    @Override
+    ModelNode requireChild(final int index) throws NoSuchElementException {
+        return delegate().requireChild(index);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+        return other instanceof ModelValue && delegate().equals(unwrap(other));
+    }
+
+    @Override
+    public int hashCode() {
+        return delegate().hashCode();
+    }
+}
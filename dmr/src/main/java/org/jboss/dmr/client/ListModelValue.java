@@ -27,23 +27,24 @@ import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
+ * List values are copied on write, following the same rules as {@link ObjectModelValue}.
+ *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
 final class ListModelValue extends ModelValue {
 
     public static final ModelNode[] NO_NODES = new ModelNode[0];
-    private final List<ModelNode> list;
+    private List<ModelNode> list;
+    /** Whether the list is shared with other values and needs to be copied before it's modified or exposed. */
+    private boolean shared;
+    /** Whether any child node has been handed out. */
+    private boolean exposed;
 
     ListModelValue() {
         super(ModelType.LIST);
         list = new ArrayList<ModelNode>();
     }
 
-    private ListModelValue(final ListModelValue orig) {
-        super(ModelType.LIST);
-        list = new ArrayList<ModelNode>(orig.list);
-    }
-
     ListModelValue(final List<ModelNode> list) {
         super(ModelType.LIST);
         this.list = list;
@@ -73,9 +74,17 @@ final class ListModelValue extends ModelValue {
 
     @Override
     ModelValue protect() {
+        if (isProtected()) {
+            return this;
+        }
+        own();
         final List<ModelNode> list = this.list;
-        for (final ModelNode node : list) {
-            node.protect();
+        for (int i = 0; i < list.size(); i++) {
+            // don't protect nodes which are still referenced by copies of this value
+            if (list.get(i).shared) {
+                list.set(i, list.get(i).clone());
+            }
+            list.get(i).protect();
         }
         return list.getClass() == ArrayList.class ? new ListModelValue(Collections.unmodifiableList(list)) : this;
     }
@@ -121,15 +130,17 @@ final class ListModelValue extends ModelValue {
 
     @Override
     List<Property> asPropertyList() {
+        own();
         final List<Property> propertyList = new ArrayList<Property>();
-        final Iterator<ModelNode> i = list.iterator();
-        while (i.hasNext()) {
-            final ModelNode node = i.next();
+        final int size = list.size();
+        for (int i = 0; i < size; i++) {
+            final ModelNode node = list.get(i);
             if (node.getType() == ModelType.PROPERTY) {
-                propertyList.add(node.asProperty());
+                // the property is part of the child node
+                propertyList.add(expose(i).asProperty());
             }
-            else if (i.hasNext()) {
-                final ModelNode value = i.next();
+            else if (i + 1 < size) {
+                final ModelNode value = list.get(++i);
                 propertyList.add(new Property(node.asString(), value));
             }
         }
@@ -155,6 +166,7 @@ final class ListModelValue extends ModelValue {
 
     @Override
     ModelNode getChild(final int index) {
+        own();
         final List<ModelNode> list = this.list;
         final int size = list.size();
         if (size <= index) {
@@ -162,24 +174,46 @@ final class ListModelValue extends ModelValue {
                 list.add(new ModelNode());
             }
         }
-        return list.get(index);
+        return expose(index);
     }
 
     @Override
     ModelNode addChild() {
-        final ModelNode node = new ModelNode();
-        list.add(node);
-        return node;
+        own();
+        list.add(new ModelNode());
+        return expose(list.size() - 1);
     }
 
     @Override
     List<ModelNode> asList() {
+        own();
+        for (int i = 0; i < list.size(); i++) {
+            expose(i);
+        }
         return Collections.unmodifiableList(list);
     }
 
     @Override
     ModelValue copy() {
-        return new ListModelValue(this);
+        if (!exposed) {
+            // share the list until the first modification
+            if (!isProtected()) {
+                shared = true;
+            }
+            final ListModelValue copy = new ListModelValue(list);
+            copy.shared = true;
+            return copy;
+        }
+        final ArrayList<ModelNode> copy = new ArrayList<ModelNode>(list.size());
+        for (final ModelNode node : list) {
+            if (node.exposed) {
+                copy.add(node.clone());
+            } else {
+                node.shared = true;
+                copy.add(node);
+            }
+        }
+        return new ListModelValue(copy);
     }
 
     @Override
@@ -201,7 +235,6 @@ final class ListModelValue extends ModelValue {
     @Override
     void format(final StringBuilder builder, final int indent, final boolean multiLineRequested) {
         final boolean multiLine = multiLineRequested && list.size() > 1;
-        final List<ModelNode> list = asList();
         final Iterator<ModelNode> iterator = list.iterator();
         builder.append('[');
         if (multiLine) {
@@ -227,7 +260,6 @@ final class ListModelValue extends ModelValue {
     @Override
     void formatAsJSON(final StringBuilder builder, final int indent, final boolean multiLineRequested) {
         final boolean multiLine = multiLineRequested && list.size() > 1;
-        final List<ModelNode> list = asList();
         final Iterator<ModelNode> iterator = list.iterator();
         builder.append('[');
         if (multiLine) {
@@ -258,7 +290,8 @@ final class ListModelValue extends ModelValue {
      */
     @Override
     public boolean equals(final Object other) {
-        return other instanceof ListModelValue && equals((ListModelValue)other);
+        final Object value = other instanceof LazyModelValue ? LazyModelValue.unwrap(other) : other;
+        return value instanceof ListModelValue && equals((ListModelValue)value);
     }
 
     /**
@@ -283,10 +316,46 @@ final class ListModelValue extends ModelValue {
 
     @Override
     ModelNode requireChild(final int index) throws NoSuchElementException {
-        try {
-            return list.get(index);
-        } catch (final IndexOutOfBoundsException e) {
+        if (index < 0 || index >= list.size()) {
             return super.requireChild(index);
         }
+        own();
+        return expose(index);
+    }
+
+    private boolean isProtected() {
+        return !shared && list.getClass() != ArrayList.class;
+    }
+
+    /**
+     * Replaces a shared list with a private copy. The child nodes are not copied, but marked as shared.
+     */
+    private void own() {
+        if (shared) {
+            final ArrayList<ModelNode> newList = new ArrayList<ModelNode>(list.size());
+            for (final ModelNode node : list) {
+                node.shared = true;
+                newList.add(node);
+            }
+            list = newList;
+            shared = false;
+        }
+    }
+
+    /**
+     * Prepares the child node at the given index to be handed out. A shared node is replaced by a clone first.
+     */
+    private ModelNode expose(final int index) {
+        ModelNode node = list.get(index);
+        if (isProtected()) {
+            return node;
+        }
+        if (node.shared) {
+            node = node.clone();
+            list.set(index, node);
+        }
+        node.exposed = true;
+        exposed = true;
+        return node;
     }
 }
@@ -20,6 +20,7 @@
 package org.jboss.dmr.client;
 
 import com.google.gwt.core.client.GWT;
+import com.google.gwt.typedarrays.shared.Uint8Array;
 import org.timepedia.exporter.client.Export;
 import org.timepedia.exporter.client.ExportPackage;
 import org.timepedia.exporter.client.ExportStaticMethod;
@@ -27,7 +28,6 @@ import org.timepedia.exporter.client.Exportable;
 import org.timepedia.exporter.client.NoExport;
 
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
@@ -64,6 +64,18 @@ public class ModelNode implements Cloneable, Exportable {
     private boolean protect = false;
     private ModelValue value = ModelValue.UNDEFINED;
 
+    /**
+     * Maintained by the object and list value holding this node: Whether the node is referenced by copies of that
+     * value as well and needs to be cloned before it's handed out.
+     */
+    boolean shared;
+
+    /**
+     * Maintained by the object and list value holding this node: Whether the node has been handed out and might be
+     * modified by whoever holds it.
+     */
+    boolean exposed;
+
     private HashMap<String, Object> tags;
 
     public ModelNode() {
@@ -1238,7 +1250,7 @@ public class ModelNode implements Cloneable, Exportable {
             if(hasNativeBase64Support())
             {
                 String s = nativeDecode(encoded);
-                node.readExternal(new DataInput(toBytes(s)));
+                node.readExternal(new DataInput(DataInput.fromBinaryString(s)));
             }
             else
             {
@@ -1250,6 +1262,46 @@ public class ModelNode implements Cloneable, Exportable {
         return node;
     }
 
+    /**
+     * Get a model node from its base64 encoded binary representation, decoding only the given paths. Segments
+     * of a path are separated by '/', list items are addressed by their index, e.g. {@code "result/step-3"}.
+     * The bytes of anything not on one of the paths are skipped. The returned node contains the selected sub
+     * trees at their original location.
+     *
+     * @param encoded the base64 encoded model
+     * @param paths the paths to decode
+     * @return the partially decoded model node
+     */
+    @NoExport
+    public static ModelNode fromBase64(String encoded, String... paths) {
+        ModelNode node = new ModelNode();
+        try {
+            DataInput in = hasNativeBase64Support() ?
+                    new DataInput(DataInput.fromBinaryString(nativeDecode(encoded))) :
+                    new DataInput(Base64.decode(encoded));
+            node.readExternal(in, PathFilter.of(paths));
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+        return node;
+    }
+
+    /**
+     * Get a model node from the DMR JSON representation. The JSON is parsed using the browser's native
+     * {@code JSON.parse()}. Objects and lists are materialized lazily as they are accessed.
+     * <p/>
+     * The JSON representation doesn't carry the numeric types: integral numbers are parsed as {@code INT},
+     * {@code LONG} or {@code BIG_INTEGER} depending on their range and fractional numbers as {@code BIG_DECIMAL}.
+     * Don't rely on {@link #getType()} for numeric values of the parsed node.
+     *
+     * @param json the JSON string
+     * @return the model node
+     */
+    @NoExport
+    public static ModelNode fromJSONString(String json) {
+        return JsonValues.parse(json);
+    }
+
     @Export()
     public String toBase64String() {
         DataOutput out = new DataOutput();
@@ -1261,11 +1313,7 @@ public class ModelNode implements Cloneable, Exportable {
 
         if(hasNativeBase64Support())
         {
-            try {
-                return nativeEncode(new String(out.getBytes(), "ISO-8859-1"));
-            } catch (UnsupportedEncodingException e) {
-                throw new RuntimeException("Failed to encode string:"+e.getMessage());
-            }
+            return nativeEncode(toBinaryString(out.getArray()));
         }
         else
         {
@@ -1297,6 +1345,23 @@ public class ModelNode implements Cloneable, Exportable {
 
     }-*/;
 
+    /**
+     * Converts the bytes into a binary string as expected by {@code btoa()}. The conversion is done in chunks
+     * to stay below the argument limit of {@code String.fromCharCode.apply()}.
+     */
+    @NoExport
+    public static native String toBinaryString(Uint8Array bytes) /*-{
+
+        var chunks = [];
+        var chunkSize = 0x2000;
+        for (var i = 0; i < bytes.length; i += chunkSize)
+        {
+            chunks.push(String.fromCharCode.apply(null, bytes.subarray(i, i + chunkSize)));
+        }
+        return chunks.join('');
+
+    }-*/;
+
     public static native byte[] toBytes(String str) /*-{
 
         var bytes = [];
@@ -1468,7 +1533,7 @@ public class ModelNode implements Cloneable, Exportable {
                 case BIG_DECIMAL: value = new BigDecimalModelValue(in); return;
                 case BIG_INTEGER: b = new byte[in.readInt()]; in.readFully(b); value = new BigIntegerModelValue(new BigInteger(b)); return;
                 case BOOLEAN: value = BooleanModelValue.valueOf(in.readBoolean()); return;
-                case BYTES: b = new byte[in.readInt()]; in.readFully(b); new BytesModelValue(b); return;
+                case BYTES: b = new byte[in.readInt()]; in.readFully(b); value = new BytesModelValue(b); return;
                 case DOUBLE: value = new DoubleModelValue(in.readDouble()); return;
                 case EXPRESSION: value = new ExpressionValue(in.readUTF()); return;
                 case INT: value = new IntModelValue(in.readInt()); return;
@@ -1487,6 +1552,84 @@ public class ModelNode implements Cloneable, Exportable {
         }
     }
 
+    void readExternal(final DataInput in, final PathFilter filter) throws IOException {
+        if (filter.selectsAll()) {
+            readExternal(in);
+            return;
+        }
+        checkProtect();
+        final ModelType type = ModelType.forChar((char) (in.readByte() & 0xff));
+        if (type == ModelType.OBJECT) {
+            final int count = in.readInt();
+            final CompactMap<ModelNode> map = new CompactMap<ModelNode>();
+            for (int i = 0; i < count; i++) {
+                final String key = in.readUTF();
+                final PathFilter child = filter.child(key);
+                if (child != null) {
+                    final ModelNode node = new ModelNode();
+                    node.readExternal(in, child);
+                    map.put(key, node);
+                } else {
+                    skipExternal(in);
+                }
+            }
+            value = new ObjectModelValue(map);
+        } else if (type == ModelType.LIST) {
+            final int count = in.readInt();
+            final List<ModelNode> list = new ArrayList<ModelNode>(count);
+            for (int i = 0; i < count; i++) {
+                final PathFilter child = filter.child(String.valueOf(i));
+                final ModelNode node = new ModelNode();
+                if (child != null) {
+                    node.readExternal(in, child);
+                } else {
+                    skipExternal(in);
+                }
+                list.add(node);
+            }
+            value = new ListModelValue(list);
+        } else {
+            // no children to select from: skip the value
+            skipValue(type, in);
+        }
+    }
+
+    /**
+     * Skips the next node in binary format without creating any model values.
+     */
+    static void skipExternal(final DataInput in) throws IOException {
+        skipValue(ModelType.forChar((char) (in.readByte() & 0xff)), in);
+    }
+
+    private static void skipValue(final ModelType type, final DataInput in) throws IOException {
+        int count;
+        switch (type) {
+            case UNDEFINED: return;
+            case BOOLEAN: in.skipBytes(1); return;
+            case TYPE: in.skipBytes(1); return;
+            case INT: in.skipBytes(4); return;
+            case LONG: in.skipBytes(8); return;
+            case DOUBLE: in.skipBytes(8); return;
+            case BIG_DECIMAL: case EXPRESSION: case STRING: in.skipUTF(); return;
+            case BIG_INTEGER: case BYTES: in.skipBytes(in.readInt()); return;
+            case PROPERTY: in.skipUTF(); skipExternal(in); return;
+            case LIST:
+                count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    skipExternal(in);
+                }
+                return;
+            case OBJECT:
+                count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    in.skipUTF();
+                    skipExternal(in);
+                }
+                return;
+            default: throw new IllegalStateException("Invalid type read: " + type);
+        }
+    }
+
     private void checkProtect() {
         if (protect) {
             throw new UnsupportedOperationException();
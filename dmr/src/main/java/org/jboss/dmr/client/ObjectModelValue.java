@@ -23,24 +23,36 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
+ * Object values are copied on write: A copy shares the map (and thus the child nodes) with the original value
+ * until either of them is modified or hands out one of its child nodes. Only then the map is copied, but not the
+ * child nodes: They're marked as {@linkplain ModelNode#shared shared} and cloned only when they're handed out
+ * themselves. Since child nodes are cloned the same way, only the path which is actually touched gets copied.
+ * <p/>
+ * Child nodes which have been handed out are marked as {@linkplain ModelNode#exposed exposed}: Whoever holds them
+ * might still modify them, so a copy gets its own clone of these nodes. All other child nodes remain shared. Reading
+ * a child doesn't affect the sharing of its siblings. Protected values are always shared.
+ *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
 final class ObjectModelValue extends ModelValue {
-    private final Map<String, ModelNode> map;
+    private Map<String, ModelNode> map;
+    /** Whether the map is shared with other values and needs to be copied before it's modified or exposed. */
+    private boolean shared;
+    /** Whether any child node has been handed out. */
+    private boolean exposed;
 
     protected ObjectModelValue() {
         super(ModelType.OBJECT);
-        map = new LinkedHashMap<String, ModelNode>();
+        map = new CompactMap<ModelNode>();
     }
 
-    private ObjectModelValue(final Map<String, ModelNode> map) {
+    ObjectModelValue(final Map<String, ModelNode> map) {
         super(ModelType.OBJECT);
         this.map = map;
     }
@@ -48,7 +60,7 @@ final class ObjectModelValue extends ModelValue {
     ObjectModelValue(final DataInput in) throws IOException {
         super(ModelType.OBJECT);
         final int count = in.readInt();
-        final LinkedHashMap<String, ModelNode> map = new LinkedHashMap<String, ModelNode>();
+        final CompactMap<ModelNode> map = new CompactMap<ModelNode>(count);
         for (int i = 0; i < count; i ++) {
             final String key = in.readUTF();
             final ModelNode value = new ModelNode();
@@ -71,11 +83,18 @@ final class ObjectModelValue extends ModelValue {
 
     @Override
     ModelValue protect() {
-        final Map<String, ModelNode> map = this.map;
-        for (final ModelNode node : map.values()) {
-            node.protect();
+        if (isProtected()) {
+            return this;
         }
-        return map.getClass() == LinkedHashMap.class ? new ObjectModelValue(Collections.unmodifiableMap(map)) : this;
+        own();
+        for (final Map.Entry<String, ModelNode> entry : map.entrySet()) {
+            // don't protect nodes which are still referenced by copies of this value
+            if (entry.getValue().shared) {
+                entry.setValue(entry.getValue().clone());
+            }
+            entry.getValue().protect();
+        }
+        return map instanceof CompactMap ? new ObjectModelValue(Collections.unmodifiableMap(map)) : this;
     }
 
     @Override
@@ -88,13 +107,14 @@ final class ObjectModelValue extends ModelValue {
         if (name == null) {
             return null;
         }
+        own();
         final ModelNode node = map.get(name);
         if (node != null) {
-            return node;
+            return expose(name, node);
         }
         final ModelNode newNode = new ModelNode();
         map.put(name, newNode);
-        return newNode;
+        return expose(name, newNode);
     }
 
     @Override
@@ -102,7 +122,10 @@ final class ObjectModelValue extends ModelValue {
         if (name == null) {
             return null;
         }
-        return map.remove(name);
+        own();
+        final ModelNode node = map.remove(name);
+        // the node might still be referenced by a copy of this value
+        return node != null && node.shared ? node.clone() : node;
     }
 
     @Override
@@ -146,6 +169,7 @@ final class ObjectModelValue extends ModelValue {
 
     @Override
     List<Property> asPropertyList() {
+        // properties hold clones of the child nodes: there's no need to expose them
         final List<Property> propertyList = new ArrayList<Property>();
         for (final Map.Entry<String, ModelNode> entry : map.entrySet()) {
             propertyList.add(new Property(entry.getKey(), entry.getValue()));
@@ -164,9 +188,26 @@ final class ObjectModelValue extends ModelValue {
     }
 
     ModelValue copy(final boolean resolve) {
-        final LinkedHashMap<String, ModelNode> newMap = new LinkedHashMap<String, ModelNode>();
+        if (!resolve && !exposed) {
+            // share the map until the first modification
+            if (!isProtected()) {
+                shared = true;
+            }
+            final ObjectModelValue copy = new ObjectModelValue(map);
+            copy.shared = true;
+            return copy;
+        }
+        final CompactMap<ModelNode> newMap = new CompactMap<ModelNode>(map.size());
         for (final Map.Entry<String, ModelNode> entry : map.entrySet()) {
-            newMap.put(entry.getKey(), resolve ? entry.getValue().resolve() : entry.getValue().clone());
+            final ModelNode node = entry.getValue();
+            if (resolve) {
+                newMap.put(entry.getKey(), node.resolve());
+            } else if (node.exposed) {
+                newMap.put(entry.getKey(), node.clone());
+            } else {
+                node.shared = true;
+                newMap.put(entry.getKey(), node);
+            }
         }
         return new ObjectModelValue(newMap);
     }
@@ -258,7 +299,8 @@ final class ObjectModelValue extends ModelValue {
      */
     @Override
     public boolean equals(final Object other) {
-        return other instanceof ObjectModelValue && equals((ObjectModelValue)other);
+        final Object value = other instanceof LazyModelValue ? LazyModelValue.unwrap(other) : other;
+        return value instanceof ObjectModelValue && equals((ObjectModelValue)value);
     }
 
     /**
@@ -283,10 +325,48 @@ final class ObjectModelValue extends ModelValue {
 
     @Override
     ModelNode requireChild(final String name) throws NoSuchElementException {
+        own();
         final ModelNode node = map.get(name);
         if (node != null) {
-            return node;
+            return expose(name, node);
         }
         return super.requireChild(name);
     }
+
+    private boolean isProtected() {
+        return !shared && !(map instanceof CompactMap);
+    }
+
+    /**
+     * Replaces a shared map with a private copy. The child nodes are not copied, but marked as shared.
+     */
+    private void own() {
+        if (shared) {
+            final CompactMap<ModelNode> newMap = new CompactMap<ModelNode>(map.size());
+            for (final Map.Entry<String, ModelNode> entry : map.entrySet()) {
+                final ModelNode node = entry.getValue();
+                node.shared = true;
+                newMap.put(entry.getKey(), node);
+            }
+            map = newMap;
+            shared = false;
+        }
+    }
+
+    /**
+     * Prepares a child node to be handed out. A shared node is replaced by a clone first.
+     */
+    private ModelNode expose(final String name, final ModelNode node) {
+        if (isProtected()) {
+            return node;
+        }
+        ModelNode exposedNode = node;
+        if (node.shared) {
+            exposedNode = node.clone();
+            map.put(name, exposedNode);
+        }
+        exposedNode.exposed = true;
+        exposed = true;
+        return exposedNode;
+    }
 }
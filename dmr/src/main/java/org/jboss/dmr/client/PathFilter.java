@@ -0,0 +1,82 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+
+package org.jboss.dmr.client;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A tree of path segments used to decode only selected parts of a binary model. A filter without children
+ * selects the complete sub tree.
+ */
+final class PathFilter {
+
+    private Map<String, PathFilter> children;
+    private boolean all;
+
+    /**
+     * Creates a filter for the given paths. Segments are separated by '/', list items are addressed by their
+     * index.
+     */
+    static PathFilter of(final String... paths) {
+        final PathFilter root = new PathFilter();
+        for (final String path : paths) {
+            PathFilter current = root;
+            for (final String segment : path.split("/")) {
+                if (current.all) {
+                    break;
+                }
+                if (segment.length() != 0) {
+                    current = current.add(segment);
+                }
+            }
+            // a shorter path selects everything below it
+            current.all = true;
+            current.children = null;
+        }
+        return root;
+    }
+
+    private PathFilter add(final String segment) {
+        if (children == null) {
+            children = new HashMap<String, PathFilter>();
+        }
+        PathFilter child = children.get(segment);
+        if (child == null) {
+            child = new PathFilter();
+            children.put(segment, child);
+        }
+        return child;
+    }
+
+    boolean selectsAll() {
+        return all;
+    }
+
+    /**
+     * @return the filter for the given child or {@code null} if the child is not selected
+     */
+    PathFilter child(final String segment) {
+        if (all) {
+            return this;
+        }
+        return children == null ? null : children.get(segment);
+    }
+}
@@ -1,39 +1,358 @@
 package org.jboss.dmr.client.dispatch;
 
+import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.Scheduler;
+import org.jboss.dmr.client.ModelNode;
+import org.jboss.dmr.client.ModelType;
+import org.jboss.dmr.client.Property;
 import org.jboss.dmr.client.dispatch.impl.DMRResponse;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+import static org.jboss.dmr.client.ModelDescriptionConstants.*;
+
 /**
+ * Read-through cache for responses of read-only DMR operations.
+ * <p/>
+ * Entries are keyed by the normalized operation (object keys sorted, so the order in which
+ * the operation has been assembled doesn't matter), expire after a fixed time to live and are
+ * evicted in LRU order once the cache reaches its size limit. Any write operation invalidates
+ * all entries which read from the same or an overlapping address.
+ * <p/>
+ * Expired entries are removed by a single periodic sweep which only runs as long as the
+ * cache contains entries. Lookups check the expiry themselves, so the sweep is merely a
+ * means to release memory.
+ *
  * @author Heiko Braun
  * @date 8/29/12
  */
 public class DMRCache {
 
-    private static Map<String, DMRResponse> values = new HashMap<String, DMRResponse>();
-    private static int expiryTimeMs = 5*1000;
+    static final int DEFAULT_EXPIRY_TIME_MS = 5 * 1000;
+    static final int DEFAULT_MAX_SIZE = 250;
+
+    /**
+     * Read-only operations. Writes invalidate the cache, these operations don't.
+     */
+    private static final String[] READ_ONLY_OPS = {
+            READ_RESOURCE_OPERATION,
+            READ_ATTRIBUTE_OPERATION,
+            READ_CHILDREN_NAMES_OPERATION,
+            READ_CHILDREN_TYPES_OPERATION,
+            READ_CHILDREN_RESOURCES_OPERATION,
+            READ_RESOURCE_DESCRIPTION_OPERATION,
+            READ_OPERATION_NAMES_OPERATION,
+            READ_OPERATION_DESCRIPTION_OPERATION
+    };
+
+    private final int expiryTimeMs;
+    private final int maxSize;
+    private final Map<String, Entry> values;
+    private boolean sweeping;
+    private int generation;
+    private int hits;
+    private int misses;
+
+    public DMRCache() {
+        this(DEFAULT_EXPIRY_TIME_MS, DEFAULT_MAX_SIZE);
+    }
 
-    public void put(final String key, DMRResponse response)
-    {
-        values.put(key, response);
-        Scheduler.get().scheduleFixedPeriod(
-                new Scheduler.RepeatingCommand() {
-                    @Override
-                    public boolean execute() {
-                        values.remove(key);
-                        return false;
-                    }
-                }, expiryTimeMs
-        );
+    public DMRCache(int expiryTimeMs, final int maxSize) {
+        this.expiryTimeMs = expiryTimeMs;
+        this.maxSize = maxSize;
+        this.values = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+
+    // ------------------------------------------------------ cache access
+
+    public void put(final String key, ModelNode operation, DMRResponse response) {
+        values.put(key, new Entry(response, addressesOf(operation), System.currentTimeMillis() + expiryTimeMs));
+        scheduleSweep();
+    }
+
+    /**
+     * Adds the response unless the cache has been invalidated since the given generation. Reads use this method
+     * with the generation taken when the read was sent: a write which is executed while the read is in flight
+     * might not be reflected in the response.
+     *
+     * @return {@code true} if the response has been added
+     */
+    public boolean put(final String key, ModelNode operation, DMRResponse response, int generation) {
+        if (generation != this.generation) {
+            return false;
+        }
+        put(key, operation, response);
+        return true;
     }
 
     public DMRResponse get(String key) {
-      return values.get(key);
+        Entry entry = values.get(key);
+        if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+            values.remove(key);
+            entry = null;
+        }
+        if (entry != null) {
+            hits++;
+            return entry.response;
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Removes all entries which read from an address that overlaps with one of the addresses
+     * touched by the given (write) operation.
+     */
+    public void invalidate(ModelNode operation) {
+        generation++;
+        List<List<String>> written = addressesOf(operation);
+        for (Iterator<Entry> iterator = values.values().iterator(); iterator.hasNext(); ) {
+            Entry entry = iterator.next();
+            if (overlaps(entry.addresses, written)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public void clear() {
+        generation++;
+        values.clear();
+    }
+
+    /**
+     * @return a counter which is incremented whenever the cache is invalidated or cleared
+     */
+    public int getGeneration() {
+        return generation;
     }
 
     public int size() {
         return values.size();
     }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getHits() {
+        return hits;
+    }
+
+    public int getMisses() {
+        return misses;
+    }
+
+    public void resetStatistics() {
+        hits = 0;
+        misses = 0;
+    }
+
+
+    // ------------------------------------------------------ expiry
+
+    private void scheduleSweep() {
+        if (sweeping || !GWT.isClient()) {
+            return;
+        }
+        sweeping = true;
+        Scheduler.get().scheduleFixedPeriod(new Scheduler.RepeatingCommand() {
+            @Override
+            public boolean execute() {
+                sweep();
+                sweeping = !values.isEmpty();
+                return sweeping;
+            }
+        }, expiryTimeMs);
+    }
+
+    void sweep() {
+        long now = System.currentTimeMillis();
+        for (Iterator<Entry> iterator = values.values().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().isExpired(now)) {
+                iterator.remove();
+            }
+        }
+    }
+
+
+    // ------------------------------------------------------ operation helpers
+
+    /**
+     * An operation is read-only if it's one of the well known read operations or a composite
+     * consisting only of read-only steps.
+     */
+    public static boolean isReadOnly(ModelNode operation) {
+        return isReadOnly(operation, false);
+    }
+
+    /**
+     * An operation is cachable if it's read-only and doesn't read volatile data: reads which include
+     * runtime attributes or metrics are not cached. Neither are single attribute reads: they're mostly
+     * used to poll values like file sizes or server states, which change without a write operation.
+     */
+    public static boolean isCachable(ModelNode operation) {
+        return isReadOnly(operation, true);
+    }
+
+    private static boolean isReadOnly(ModelNode operation, boolean excludeVolatile) {
+        String name = operation.get(OP).asString();
+        if (COMPOSITE.equals(name)) {
+            if (!operation.hasDefined(STEPS)) {
+                return false;
+            }
+            for (ModelNode step : operation.get(STEPS).asList()) {
+                if (!isReadOnly(step, excludeVolatile)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (excludeVolatile && (READ_ATTRIBUTE_OPERATION.equals(name) ||
+                (operation.hasDefined(INCLUDE_RUNTIME) && operation.get(INCLUDE_RUNTIME).asBoolean()))) {
+            return false;
+        }
+        for (String op : READ_ONLY_OPS) {
+            if (op.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds a cache key for the given operation. The key is independent of the order in which
+     * the attributes of the operation have been added. Additional properties (e.g. the run-as
+     * role) are part of the key as well.
+     */
+    public static String key(ModelNode operation, Map<String, String> properties) {
+        StringBuilder builder = new StringBuilder();
+        normalize(operation, builder);
+        if (properties != null && !properties.isEmpty()) {
+            List<String> names = new ArrayList<String>(properties.keySet());
+            Collections.sort(names);
+            for (String name : names) {
+                builder.append('|').append(name).append('=').append(properties.get(name));
+            }
+        }
+        return builder.toString();
+    }
+
+    private static void normalize(ModelNode node, StringBuilder builder) {
+        ModelType type = node.getType();
+        if (type == ModelType.OBJECT) {
+            List<String> keys = new ArrayList<String>(node.keys());
+            Collections.sort(keys);
+            builder.append('{');
+            for (String key : keys) {
+                builder.append(key).append('=');
+                normalize(node.get(key), builder);
+                builder.append(',');
+            }
+            builder.append('}');
+        } else if (type == ModelType.LIST) {
+            builder.append('[');
+            for (ModelNode item : node.asList()) {
+                normalize(item, builder);
+                builder.append(',');
+            }
+            builder.append(']');
+        } else if (type == ModelType.PROPERTY) {
+            Property property = node.asProperty();
+            builder.append('(').append(property.getName()).append('=');
+            normalize(property.getValue(), builder);
+            builder.append(')');
+        } else if (type == ModelType.UNDEFINED) {
+            builder.append('~');
+        } else {
+            builder.append(type).append(':').append(node.asString());
+        }
+    }
+
+    static List<List<String>> addressesOf(ModelNode operation) {
+        List<List<String>> addresses = new ArrayList<List<String>>();
+        collectAddresses(operation, addresses);
+        return addresses;
+    }
+
+    private static void collectAddresses(ModelNode operation, List<List<String>> addresses) {
+        if (COMPOSITE.equals(operation.get(OP).asString()) && operation.hasDefined(STEPS)) {
+            for (ModelNode step : operation.get(STEPS).asList()) {
+                collectAddresses(step, addresses);
+            }
+        } else {
+            List<String> segments = new ArrayList<String>();
+            if (operation.hasDefined(ADDRESS)) {
+                for (Property property : operation.get(ADDRESS).asPropertyList()) {
+                    segments.add(property.getName() + "=" + property.getValue().asString());
+                }
+            }
+            addresses.add(segments);
+        }
+    }
+
+    /**
+     * Two sets of addresses overlap if one address is a prefix of the other one.
+     * Wildcards match any name of the same type.
+     */
+    static boolean overlaps(List<List<String>> read, List<List<String>> written) {
+        for (List<String> r : read) {
+            for (List<String> w : written) {
+                if (isPrefix(r, w)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPrefix(List<String> a, List<String> b) {
+        int length = Math.min(a.size(), b.size());
+        for (int i = 0; i < length; i++) {
+            if (!segmentMatches(a.get(i), b.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean segmentMatches(String a, String b) {
+        if (a.equals(b)) {
+            return true;
+        }
+        int ia = a.indexOf('=');
+        int ib = b.indexOf('=');
+        if (ia == -1 || ib == -1 || !a.substring(0, ia).equals(b.substring(0, ib))) {
+            return false;
+        }
+        return "*".equals(a.substring(ia + 1)) || "*".equals(b.substring(ib + 1));
+    }
+
+
+    private static class Entry {
+
+        final DMRResponse response;
+        final List<List<String>> addresses;
+        final long expires;
+
+        Entry(DMRResponse response, List<List<String>> addresses, long expires) {
+            this.response = response;
+            this.addresses = addresses;
+            this.expires = expires;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expires;
+        }
+    }
 }
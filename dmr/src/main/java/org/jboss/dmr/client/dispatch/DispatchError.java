@@ -1,18 +1,33 @@
 package org.jboss.dmr.client.dispatch;
 
+import org.jboss.dmr.client.ModelNode;
+
 /**
  * @author Heiko Braun
  * @date 9/17/13
  */
 public class DispatchError extends Exception {
     private int statusCode;
+    private ModelNode response;
 
     public DispatchError(String message, int statusCode) {
+        this(message, statusCode, null);
+    }
+
+    public DispatchError(String message, int statusCode, ModelNode response) {
         super(message);
         this.statusCode = statusCode;
+        this.response = response;
     }
 
     public int getStatusCode() {
         return statusCode;
     }
+
+    /**
+     * @return the decoded response payload or null if the server didn't send one
+     */
+    public ModelNode getResponse() {
+        return response;
+    }
 }
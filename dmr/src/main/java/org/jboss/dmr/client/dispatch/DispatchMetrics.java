@@ -0,0 +1,366 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.dmr.client.dispatch;
+
+import org.jboss.dmr.client.ModelNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.jboss.dmr.client.ModelDescriptionConstants.COMPOSITE;
+import static org.jboss.dmr.client.ModelDescriptionConstants.OP;
+import static org.jboss.dmr.client.ModelDescriptionConstants.STEPS;
+
+/**
+ * Collects timings and payload sizes of DMR operations grouped by operation name. For each operation the time
+ * spent in the different {@link Phase}s is kept in a {@link Histogram}, along with the number of requests, cache
+ * hits and the request and response bytes.
+ * <p/>
+ * Unlike {@link Diagnostics} the metrics don't depend on any external tooling. They can be queried at runtime and
+ * exported as JSON using {@link #toJSON()}.
+ * <p/>
+ * Composite operations (including the ones created by the {@link RequestBatcher}) are attributed to their steps:
+ * Each step counts as one request and records the timings of the composite, since it had to wait for the whole
+ * composite. The request and response bytes are split evenly between the steps.
+ */
+public class DispatchMetrics {
+
+    public enum Phase {
+        /** Encoding the operation */
+        SERIALIZE,
+        /** From sending the request until the response has been received */
+        NETWORK,
+        /** Decoding the response */
+        DECODE,
+        /** Processing the response by the callback (not including decoding) */
+        CALLBACK
+    }
+
+
+    /**
+     * Histogram with fixed, roughly exponential bucket boundaries in milliseconds.
+     */
+    public static class Histogram {
+
+        static final long[] BOUNDARIES = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000};
+
+        private final int[] buckets = new int[BOUNDARIES.length + 1];
+        private int count;
+        private long sum;
+        private long min = Long.MAX_VALUE;
+        private long max;
+
+        void record(long millis) {
+            int index = 0;
+            while (index < BOUNDARIES.length && millis > BOUNDARIES[index]) {
+                index++;
+            }
+            buckets[index]++;
+            count++;
+            sum += millis;
+            min = Math.min(min, millis);
+            max = Math.max(max, millis);
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public long getMin() {
+            return count == 0 ? 0 : min;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * @param percentile a value between 0 and 100
+         * @return the upper boundary of the bucket containing the percentile (or the max value for the last bucket)
+         */
+        public long getPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long threshold = (long) Math.ceil(count * percentile / 100.0);
+            int seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= threshold) {
+                    return i < BOUNDARIES.length ? Math.min(BOUNDARIES[i], max) : max;
+                }
+            }
+            return max;
+        }
+
+        ModelNode toModelNode() {
+            ModelNode node = new ModelNode();
+            node.get("count").set(count);
+            node.get("sum").set(sum);
+            node.get("min").set(getMin());
+            node.get("max").set(max);
+            node.get("mean").set(getMean());
+            node.get("p50").set(getPercentile(50));
+            node.get("p90").set(getPercentile(90));
+            node.get("p99").set(getPercentile(99));
+            ModelNode histogram = node.get("buckets");
+            for (int i = 0; i < buckets.length; i++) {
+                String label = i < BOUNDARIES.length ? "<=" + BOUNDARIES[i] : ">" + BOUNDARIES[BOUNDARIES.length - 1];
+                histogram.get(label).set(buckets[i]);
+            }
+            return node;
+        }
+    }
+
+
+    /**
+     * The metrics of one operation name.
+     */
+    public static class OperationMetrics {
+
+        private final String operation;
+        private final Map<Phase, Histogram> histograms;
+        private int requests;
+        private int cacheHits;
+        private long requestBytes;
+        private long responseBytes;
+
+        OperationMetrics(String operation) {
+            this.operation = operation;
+            this.histograms = new HashMap<Phase, Histogram>();
+            for (Phase phase : Phase.values()) {
+                histograms.put(phase, new Histogram());
+            }
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public Histogram getHistogram(Phase phase) {
+            return histograms.get(phase);
+        }
+
+        public int getRequests() {
+            return requests;
+        }
+
+        public int getCacheHits() {
+            return cacheHits;
+        }
+
+        public long getRequestBytes() {
+            return requestBytes;
+        }
+
+        public long getResponseBytes() {
+            return responseBytes;
+        }
+
+        /**
+         * @return the overall time spent for this operation
+         */
+        public long getTotalTime() {
+            long total = 0;
+            for (Histogram histogram : histograms.values()) {
+                total += histogram.getSum();
+            }
+            return total;
+        }
+
+        ModelNode toModelNode() {
+            ModelNode node = new ModelNode();
+            node.get("requests").set(requests);
+            node.get("cache-hits").set(cacheHits);
+            node.get("request-bytes").set(requestBytes);
+            node.get("response-bytes").set(responseBytes);
+            for (Phase phase : Phase.values()) {
+                node.get(phase.name().toLowerCase()).set(histograms.get(phase).toModelNode());
+            }
+            return node;
+        }
+    }
+
+
+    private final Map<String, OperationMetrics> operations;
+    private boolean enabled;
+
+    public DispatchMetrics() {
+        this.operations = new HashMap<String, OperationMetrics>();
+        this.enabled = true;
+    }
+
+
+    // ------------------------------------------------------ recording
+
+    public void recordRequest(ModelNode operation, int requestBytes) {
+        if (enabled) {
+            List<OperationMetrics> steps = metricsOf(operation);
+            for (int i = 0; i < steps.size(); i++) {
+                OperationMetrics metrics = steps.get(i);
+                metrics.requests++;
+                metrics.requestBytes += share(requestBytes, i, steps.size());
+            }
+        }
+    }
+
+    public void recordResponse(ModelNode operation, int responseBytes) {
+        if (enabled) {
+            List<OperationMetrics> steps = metricsOf(operation);
+            for (int i = 0; i < steps.size(); i++) {
+                steps.get(i).responseBytes += share(responseBytes, i, steps.size());
+            }
+        }
+    }
+
+    public void recordCacheHit(ModelNode operation) {
+        if (enabled) {
+            for (OperationMetrics metrics : metricsOf(operation)) {
+                metrics.cacheHits++;
+            }
+        }
+    }
+
+    public void record(ModelNode operation, Phase phase, long millis) {
+        if (enabled) {
+            for (OperationMetrics metrics : metricsOf(operation)) {
+                metrics.histograms.get(phase).record(millis);
+            }
+        }
+    }
+
+    /**
+     * @return the metrics of each step of a composite operation or the metrics of the operation itself
+     */
+    private List<OperationMetrics> metricsOf(ModelNode operation) {
+        List<OperationMetrics> steps = new ArrayList<OperationMetrics>();
+        collectMetrics(operation, steps);
+        return steps;
+    }
+
+    private void collectMetrics(ModelNode operation, List<OperationMetrics> steps) {
+        String name = operation.get(OP).asString();
+        if (COMPOSITE.equals(name) && operation.hasDefined(STEPS)) {
+            for (ModelNode step : operation.get(STEPS).asList()) {
+                collectMetrics(step, steps);
+            }
+            return;
+        }
+        OperationMetrics metrics = operations.get(name);
+        if (metrics == null) {
+            metrics = new OperationMetrics(name);
+            operations.put(name, metrics);
+        }
+        steps.add(metrics);
+    }
+
+    /**
+     * @return the part of {@code bytes} attributed to step {@code index} of {@code count} steps. The remainder goes
+     * to the first steps, so that the parts sum up to {@code bytes}.
+     */
+    private static long share(int bytes, int index, int count) {
+        return bytes / count + (index < bytes % count ? 1 : 0);
+    }
+
+
+    // ------------------------------------------------------ query
+
+    public OperationMetrics getOperation(String name) {
+        return operations.get(name);
+    }
+
+    /**
+     * @return the metrics of all operations, the most expensive (by overall time) first
+     */
+    public List<OperationMetrics> getOperations() {
+        List<OperationMetrics> result = new ArrayList<OperationMetrics>(operations.values());
+        Collections.sort(result, new Comparator<OperationMetrics>() {
+            @Override
+            public int compare(OperationMetrics o1, OperationMetrics o2) {
+                long t1 = o1.getTotalTime();
+                long t2 = o2.getTotalTime();
+                return t1 < t2 ? 1 : (t1 == t2 ? 0 : -1);
+            }
+        });
+        return result;
+    }
+
+    public int getRequests() {
+        int requests = 0;
+        for (OperationMetrics metrics : operations.values()) {
+            requests += metrics.requests;
+        }
+        return requests;
+    }
+
+    public int getCacheHits() {
+        int hits = 0;
+        for (OperationMetrics metrics : operations.values()) {
+            hits += metrics.cacheHits;
+        }
+        return hits;
+    }
+
+    public long getResponseBytes() {
+        long bytes = 0;
+        for (OperationMetrics metrics : operations.values()) {
+            bytes += metrics.responseBytes;
+        }
+        return bytes;
+    }
+
+    /**
+     * Exports all metrics as JSON object with one entry per operation name.
+     */
+    public String toJSON() {
+        ModelNode node = new ModelNode();
+        node.setEmptyObject();
+        for (OperationMetrics metrics : getOperations()) {
+            node.get(metrics.getOperation()).set(metrics.toModelNode());
+        }
+        return node.toJSONString(false);
+    }
+
+    public void reset() {
+        operations.clear();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+}
@@ -0,0 +1,417 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.dmr.client.dispatch;
+
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+import org.jboss.dmr.client.ModelNode;
+import org.jboss.dmr.client.dispatch.impl.DMRAction;
+import org.jboss.dmr.client.dispatch.impl.DMRResponse;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.jboss.dmr.client.ModelDescriptionConstants.*;
+
+/**
+ * Collects read operations which are issued within the same event loop turn (or within a configurable
+ * window) and executes them as one composite operation. Identical operations are executed only once.
+ * The step results are handed back to the callbacks of the original operations, so that each callback
+ * receives the same response it would have received for an individual call.
+ * <p/>
+ * The composite is executed with {@code rollback-on-runtime-failure=false}: A failing step doesn't affect
+ * the outcome of the other steps. However the server reports the composite as failed (HTTP 500) as soon as
+ * one step fails. In that case the step results are taken from the failure response: successful steps are
+ * handed back as usual, failed steps are reported as {@link DispatchError} with the step result as response.
+ * Steps which have not been executed at all (e.g. because the composite was rejected as a whole or the
+ * failure response can't be read) are retried as individual operations, unless the composite has been
+ * cancelled as stale.
+ */
+public class RequestBatcher {
+
+    /**
+     * Executes an operation without batching.
+     */
+    public interface Sender {
+        DispatchRequest send(DMRAction action, AsyncCallback<DMRResponse> callback);
+    }
+
+    static final int DEFAULT_MAX_BATCH_SIZE = 50;
+
+    private static final String ROLLBACK_ON_RUNTIME_FAILURE = "rollback-on-runtime-failure";
+
+    /**
+     * Read operations which can be part of a batch. Descriptions are excluded on purpose: they're read
+     * using GET requests, which can be cached by the browser.
+     */
+    private static final String[] BATCHABLE_OPS = {
+            READ_RESOURCE_OPERATION,
+            READ_ATTRIBUTE_OPERATION,
+            READ_CHILDREN_NAMES_OPERATION,
+            READ_CHILDREN_TYPES_OPERATION,
+            READ_CHILDREN_RESOURCES_OPERATION,
+            READ_OPERATION_NAMES_OPERATION,
+            READ_OPERATION_DESCRIPTION_OPERATION
+    };
+
+    private final Sender sender;
+    private final Scheduler scheduler;
+    private final Map<String, Step> pending;
+    private boolean enabled;
+    private int windowMs;
+    private int maxBatchSize;
+    private boolean scheduled;
+    private int batches;
+    private int batchedOperations;
+
+    public RequestBatcher(Sender sender) {
+        this(sender, GWT.isClient() ? Scheduler.get() : null);
+    }
+
+    public RequestBatcher(Sender sender, Scheduler scheduler) {
+        this.sender = sender;
+        this.scheduler = scheduler;
+        this.pending = new LinkedHashMap<String, Step>();
+        this.enabled = GWT.isClient();
+        this.windowMs = 0;
+        this.maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    }
+
+
+    // ------------------------------------------------------ public API
+
+    /**
+     * An operation can be batched if it's a plain (non-composite) read without custom operation headers.
+     */
+    public static boolean isBatchable(ModelNode operation) {
+        if (operation.has(OPERATION_HEADERS)) {
+            return false;
+        }
+        String name = operation.get(OP).asString();
+        for (String op : BATCHABLE_OPS) {
+            if (op.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the action to the current batch. If batching is disabled or the operation can't be batched,
+     * the action is executed right away. Pending operations are sent first, so that operations are sent
+     * in the order they have been issued (e.g. a read issued before a write sees the state before the write).
+     */
+    public DispatchRequest execute(DMRAction action, AsyncCallback<DMRResponse> callback) {
+        ModelNode operation = action.getOperation();
+        if (!enabled || !isBatchable(operation)) {
+            flush();
+            return sender.send(action, callback);
+        }
+
+        String key = DMRCache.key(operation, null);
+        Step step = pending.get(key);
+        if (step == null) {
+            step = new Step(action);
+            pending.put(key, step);
+        }
+        BatchedRequest request = new BatchedRequest(step, callback);
+        step.requests.add(request);
+
+        if (pending.size() >= maxBatchSize) {
+            flush();
+        } else {
+            schedule();
+        }
+        return request;
+    }
+
+    /**
+     * Sends all pending operations.
+     */
+    public void flush() {
+        List<Step> steps = new ArrayList<Step>();
+        for (Step step : pending.values()) {
+            if (!step.isCancelled()) {
+                steps.add(step);
+            }
+        }
+        pending.clear();
+
+        if (steps.size() == 1) {
+            send(steps.get(0));
+        } else if (steps.size() > 1) {
+            sendComposite(steps);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            flush();
+        }
+    }
+
+    /**
+     * @param windowMs the time in milliseconds to collect operations. If 0 operations are collected until
+     *                 the end of the current event loop turn.
+     */
+    public void setWindow(int windowMs) {
+        this.windowMs = windowMs;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * @return the number of composite operations sent so far
+     */
+    public int getBatches() {
+        return batches;
+    }
+
+    /**
+     * @return the number of operations which have been sent as part of a composite operation
+     */
+    public int getBatchedOperations() {
+        return batchedOperations;
+    }
+
+
+    // ------------------------------------------------------ internals
+
+    private void schedule() {
+        if (scheduled) {
+            return;
+        }
+        scheduled = true;
+        if (windowMs > 0) {
+            scheduler.scheduleFixedDelay(new Scheduler.RepeatingCommand() {
+                @Override
+                public boolean execute() {
+                    scheduled = false;
+                    flush();
+                    return false;
+                }
+            }, windowMs);
+        } else {
+            scheduler.scheduleFinally(new Scheduler.ScheduledCommand() {
+                @Override
+                public void execute() {
+                    scheduled = false;
+                    flush();
+                }
+            });
+        }
+    }
+
+    private void send(final Step step) {
+        step.sent = sender.send(step.action, new AsyncCallback<DMRResponse>() {
+            @Override
+            public void onFailure(Throwable caught) {
+                step.onFailure(caught);
+            }
+
+            @Override
+            public void onSuccess(DMRResponse result) {
+                step.onSuccess(result);
+            }
+        });
+    }
+
+    private void sendComposite(final List<Step> steps) {
+        ModelNode composite = new ModelNode();
+        composite.get(OP).set(COMPOSITE);
+        composite.get(ADDRESS).setEmptyList();
+        composite.get(OPERATION_HEADERS).get(ROLLBACK_ON_RUNTIME_FAILURE).set(false);
+        List<ModelNode> operations = new ArrayList<ModelNode>(steps.size());
+        // the composite is as urgent as its most urgent step
+        Priority priority = Priority.BACKGROUND;
+        boolean keepOnNavigation = false;
+        for (Step step : steps) {
+            operations.add(step.action.getOperation());
+            if (step.action.getPriority().ordinal() < priority.ordinal()) {
+                priority = step.action.getPriority();
+            }
+            keepOnNavigation |= step.action.isKeepOnNavigation();
+        }
+        composite.get(STEPS).set(operations);
+
+        batches++;
+        batchedOperations += steps.size();
+
+        DMRAction action = new DMRAction(composite, false).setPriority(priority).setKeepOnNavigation(keepOnNavigation);
+        DispatchRequest sent = sender.send(action, new AsyncCallback<DMRResponse>() {
+            @Override
+            public void onFailure(Throwable caught) {
+                if (caught instanceof CancelledException) {
+                    // the composite became stale before it was sent: so did its steps
+                    for (Step step : steps) {
+                        step.onFailure(caught);
+                    }
+                    return;
+                }
+                // a single failing step fails the whole composite: use the step results if there are any
+                ModelNode response = caught instanceof DispatchError ? ((DispatchError) caught).getResponse() : null;
+                if (response != null && response.hasDefined(RESULT)) {
+                    int statusCode = ((DispatchError) caught).getStatusCode();
+                    ModelNode results = response.get(RESULT);
+                    for (int i = 0; i < steps.size(); i++) {
+                        Step step = steps.get(i);
+                        ModelNode stepResult = stepResult(results, i);
+                        if (stepResult != null && SUCCESS.equals(stepResult.get(OUTCOME).asString())) {
+                            step.onSuccess(new DMRResponse(stepResult));
+                        } else if (stepResult != null && stepResult.hasDefined(FAILURE_DESCRIPTION)) {
+                            step.onFailure(new DispatchError(stepResult.get(FAILURE_DESCRIPTION).asString(),
+                                    statusCode, stepResult));
+                        } else if (!step.isCancelled()) {
+                            send(step);
+                        }
+                    }
+                } else {
+                    for (Step step : steps) {
+                        if (!step.isCancelled()) {
+                            send(step);
+                        }
+                    }
+                }
+            }
+
+            @Override
+            public void onSuccess(DMRResponse result) {
+                ModelNode results = result.get().get(RESULT);
+                for (int i = 0; i < steps.size(); i++) {
+                    Step step = steps.get(i);
+                    ModelNode stepResult = stepResult(results, i);
+                    if (stepResult != null) {
+                        // response headers have already been processed as part of the composite response
+                        step.onSuccess(new DMRResponse(stepResult));
+                    } else if (!step.isCancelled()) {
+                        // not executed as part of the composite: fall back to an individual call
+                        send(step);
+                    }
+                }
+            }
+        });
+        for (Step step : steps) {
+            if (step.sent == null) {
+                step.sent = sent;
+            }
+        }
+    }
+
+    /**
+     * @return the result of the step with the given (zero based) index or null if the step hasn't been executed
+     */
+    private static ModelNode stepResult(ModelNode results, int index) {
+        String stepKey = "step-" + (index + 1);
+        if (results.hasDefined(stepKey) && results.get(stepKey).hasDefined(OUTCOME)) {
+            return results.get(stepKey);
+        }
+        return null;
+    }
+
+
+    /**
+     * An unique operation of a batch and the requests waiting for its result.
+     */
+    private static class Step {
+
+        final DMRAction action;
+        final List<BatchedRequest> requests;
+        DispatchRequest sent;
+
+        Step(DMRAction action) {
+            this.action = action;
+            this.requests = new ArrayList<BatchedRequest>();
+        }
+
+        boolean isCancelled() {
+            for (BatchedRequest request : requests) {
+                if (request.isWaiting()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void onSuccess(DMRResponse response) {
+            boolean first = true;
+            for (BatchedRequest request : requests) {
+                if (request.isWaiting()) {
+                    request.done = true;
+                    // callbacks of de-duplicated operations get their own copy
+                    request.callback.onSuccess(first ? response : response.copy());
+                    first = false;
+                }
+            }
+        }
+
+        void onFailure(Throwable caught) {
+            for (BatchedRequest request : requests) {
+                if (request.isWaiting()) {
+                    request.done = true;
+                    request.callback.onFailure(caught);
+                }
+            }
+        }
+    }
+
+
+    private static class BatchedRequest implements DispatchRequest {
+
+        final Step step;
+        final AsyncCallback<DMRResponse> callback;
+        boolean done;
+        boolean cancelled;
+
+        BatchedRequest(Step step, AsyncCallback<DMRResponse> callback) {
+            this.step = step;
+            this.callback = callback;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * Whether the callback still needs to be notified.
+         */
+        boolean isWaiting() {
+            return !done && !cancelled;
+        }
+
+        @Override
+        public boolean isPending() {
+            // the request which has been sent might have been cancelled as well (e.g. because it became stale)
+            return isWaiting() && (step.sent == null || step.sent.isPending());
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.dmr.client.dispatch;
+
+import com.google.gwt.user.client.rpc.AsyncCallback;
+import org.jboss.dmr.client.dispatch.impl.DMRResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Makes sure that identical read operations are in flight only once. An operation which is issued while an
+ * identical operation is still pending doesn't cause another request, but is attached to the pending one.
+ * <p/>
+ * Cancellation is reference counted: The underlying request is cancelled once all attached requests have been
+ * cancelled.
+ */
+public class SingleFlight {
+
+    /**
+     * Executes the operation for the first request of a flight.
+     */
+    public interface Sender {
+        DispatchRequest send(AsyncCallback<DMRResponse> callback);
+    }
+
+    private final Map<String, Flight> flights;
+    private int joined;
+
+    public SingleFlight() {
+        this.flights = new HashMap<String, Flight>();
+    }
+
+
+    // ------------------------------------------------------ public API
+
+    /**
+     * Attaches the callback to the pending flight for {@code key} or starts a new flight using the sender.
+     */
+    public DispatchRequest execute(String key, AsyncCallback<DMRResponse> callback, Sender sender) {
+        Flight flight = flights.get(key);
+        if (flight != null && flight.underlying != null && !flight.underlying.isPending()) {
+            // the underlying request has been cancelled without notice (e.g. because it became stale)
+            flights.remove(key);
+            flight = null;
+        }
+        if (flight != null) {
+            joined++;
+            return flight.attach(callback);
+        }
+
+        final Flight newFlight = new Flight(key);
+        flights.put(key, newFlight);
+        DispatchRequest request = newFlight.attach(callback);
+        DispatchRequest underlying = sender.send(new AsyncCallback<DMRResponse>() {
+            @Override
+            public void onFailure(Throwable caught) {
+                land(newFlight);
+                newFlight.onFailure(caught);
+            }
+
+            @Override
+            public void onSuccess(DMRResponse result) {
+                land(newFlight);
+                newFlight.onSuccess(result);
+            }
+        });
+        newFlight.underlying = underlying;
+        return request;
+    }
+
+    /**
+     * Pending flights still deliver their results to the attached callbacks, but subsequent operations
+     * no longer join them. Used after write operations, which might change the outcome of pending reads.
+     */
+    public void forget() {
+        flights.clear();
+    }
+
+    /**
+     * @return the number of flights currently pending
+     */
+    public int size() {
+        return flights.size();
+    }
+
+    /**
+     * @return the number of requests which have been attached to an already pending flight
+     */
+    public int getJoined() {
+        return joined;
+    }
+
+
+    // ------------------------------------------------------ internals
+
+    private void land(Flight flight) {
+        if (flights.get(flight.key) == flight) {
+            flights.remove(flight.key);
+        }
+    }
+
+
+    private class Flight {
+
+        final String key;
+        final List<Attachment> attachments;
+        DispatchRequest underlying;
+        int active;
+
+        Flight(String key) {
+            this.key = key;
+            this.attachments = new ArrayList<Attachment>();
+        }
+
+        Attachment attach(AsyncCallback<DMRResponse> callback) {
+            Attachment attachment = new Attachment(this, callback);
+            attachments.add(attachment);
+            active++;
+            return attachment;
+        }
+
+        void detach() {
+            active--;
+            if (active == 0) {
+                land(this);
+                if (underlying != null) {
+                    underlying.cancel();
+                }
+            }
+        }
+
+        void onSuccess(DMRResponse response) {
+            boolean first = true;
+            for (Attachment attachment : attachments) {
+                if (attachment.isPending()) {
+                    attachment.done = true;
+                    // attached requests get their own copy
+                    attachment.callback.onSuccess(first ? response : response.copy());
+                    first = false;
+                }
+            }
+        }
+
+        void onFailure(Throwable caught) {
+            for (Attachment attachment : attachments) {
+                if (attachment.isPending()) {
+                    attachment.done = true;
+                    attachment.callback.onFailure(caught);
+                }
+            }
+        }
+    }
+
+
+    private static class Attachment implements DispatchRequest {
+
+        final Flight flight;
+        final AsyncCallback<DMRResponse> callback;
+        boolean done;
+        boolean cancelled;
+
+        Attachment(Flight flight, AsyncCallback<DMRResponse> callback) {
+            this.flight = flight;
+            this.callback = callback;
+        }
+
+        @Override
+        public void cancel() {
+            if (isPending()) {
+                cancelled = true;
+                flight.detach();
+            }
+        }
+
+        @Override
+        public boolean isPending() {
+            return !done && !cancelled;
+        }
+    }
+}
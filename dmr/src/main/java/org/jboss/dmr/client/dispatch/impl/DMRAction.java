@@ -21,6 +21,7 @@ package org.jboss.dmr.client.dispatch.impl;
 
 import org.jboss.dmr.client.dispatch.Action;
 import org.jboss.dmr.client.dispatch.ActionType;
+import org.jboss.dmr.client.dispatch.Priority;
 import org.jboss.dmr.client.ModelNode;
 
 /**
@@ -31,6 +32,8 @@ public class DMRAction implements Action<DMRResponse> {
 
     private ModelNode operation;
     private boolean cachable = true;
+    private Priority priority = Priority.INTERACTIVE;
+    private boolean keepOnNavigation = false;
 
     public DMRAction(ModelNode operation) {
         this.operation = operation;
@@ -68,6 +71,28 @@ public class DMRAction implements Action<DMRResponse> {
     public boolean isCachable() {
         return cachable;
     }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public DMRAction setPriority(Priority priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    public boolean isKeepOnNavigation() {
+        return keepOnNavigation;
+    }
+
+    /**
+     * Whether the request should still be sent if it's queued when the user navigates to another place.
+     * Only relevant for {@link Priority#NAVIGATION} and {@link Priority#BACKGROUND} requests.
+     */
+    public DMRAction setKeepOnNavigation(boolean keepOnNavigation) {
+        this.keepOnNavigation = keepOnNavigation;
+        return this;
+    }
 }
 
 
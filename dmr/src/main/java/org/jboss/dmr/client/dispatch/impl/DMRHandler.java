@@ -25,11 +25,14 @@ import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.http.client.*;
 import com.google.gwt.user.client.Window;
 import com.google.gwt.user.client.rpc.AsyncCallback;
+import com.google.inject.Inject;
 import org.jboss.as.console.client.rbac.ResourceAccessLog;
 import org.jboss.dmr.client.ModelNode;
 import org.jboss.dmr.client.Property;
 import org.jboss.dmr.client.dispatch.ActionHandler;
+import org.jboss.dmr.client.dispatch.CancelledException;
 import org.jboss.dmr.client.dispatch.Diagnostics;
+import org.jboss.dmr.client.dispatch.DispatchMetrics;
 import org.jboss.dmr.client.dispatch.DispatchError;
 import org.jboss.dmr.client.dispatch.DispatchRequest;
 
@@ -47,6 +50,7 @@ public class DMRHandler implements ActionHandler<DMRAction, DMRResponse> {
     private static final String HEADER_CONTENT_TYPE = "Content-Type";
     private static final String HEADER_ACCEPT = "Accept";
     private static final String DMR_ENCODED = "application/dmr-encoded";
+    private static final String APPLICATION_JSON = "application/json";
     private static final String HEADER_CONNECTION = "Connection";
     private static final String KEEP_ALIVE = "Keep-Alive";
 
@@ -59,13 +63,33 @@ public class DMRHandler implements ActionHandler<DMRAction, DMRResponse> {
     private static final String[] READ_RESOURCE_DESCRIPTION_OPTIONAL_PARAMETERS = new String[] {
             RECURSIVE, PROXIES, OPERATIONS, INHERITED, LOCALE};
 
+    /**
+     * Dispatcher property to select the wire format. Set it to {@link #WIRE_FORMAT_JSON} to exchange operations
+     * and responses as JSON rather than base64 encoded DMR.
+     */
+    public static final String WIRE_FORMAT = "wire_format";
+    public static final String WIRE_FORMAT_JSON = "json";
+
     private static long idCounter = 0;
 
     private RequestBuilder prb;
+    private RequestBuilder jsonPrb;
     private Diagnostics diagnostics = GWT.create(Diagnostics.class);
     private boolean trackInvocations = diagnostics.isEnabled();
     private DMREndpointConfig endpointConfig = GWT.create(DMREndpointConfig.class);
     private ResourceAccessLog resourceLog = ResourceAccessLog.INSTANCE;
+    private final DispatchMetrics metrics;
+    private final RequestQueue queue;
+
+    @Inject
+    public DMRHandler(DispatchMetrics metrics) {
+        this.metrics = metrics;
+        this.queue = new RequestQueue();
+    }
+
+    public RequestQueue getQueue() {
+        return queue;
+    }
 
     private RequestBuilder postRequestBuilder() {
         // lazy init, because endpointConfig.getUrl() is not initialized at construction time
@@ -77,6 +101,16 @@ public class DMRHandler implements ActionHandler<DMRAction, DMRResponse> {
         }
         return prb;
     }
+
+    private RequestBuilder postJsonRequestBuilder() {
+        if (jsonPrb == null) {
+            jsonPrb = new RequestBuilder(RequestBuilder.POST, endpointConfig.getUrl());
+            jsonPrb.setHeader(HEADER_ACCEPT, APPLICATION_JSON);
+            jsonPrb.setHeader(HEADER_CONTENT_TYPE, APPLICATION_JSON);
+            jsonPrb.setIncludeCredentials(true);
+        }
+        return jsonPrb;
+    }
     private static native void redirect(String url)/*-{
         $wnd.location = url;
     }-*/;
@@ -137,8 +171,19 @@ public class DMRHandler implements ActionHandler<DMRAction, DMRResponse> {
 
         //Request request = executeRequest(resultCallback, GWT.isScript() ? operation : runAsRole(operation));
         // TODO: https://issues.jboss.org/browse/HAL-100
-        Request request = executeRequest(resultCallback, runAsRole(operation, properties));
-        return new DispatchRequestHandle(request);
+        final boolean json = WIRE_FORMAT_JSON.equals(properties.get(WIRE_FORMAT));
+        final ModelNode effectiveOperation = runAsRole(operation, properties);
+        return queue.enqueue(action.getPriority(), action.isKeepOnNavigation(), new RequestQueue.Task() {
+            @Override
+            public Request start(RequestQueue.QueuedRequest queued) {
+                return executeRequest(resultCallback, effectiveOperation, json, queued);
+            }
+
+            @Override
+            public void stale(CancelledException reason) {
+                resultCallback.onFailure(reason);
+            }
+        });
     }
 
     private ModelNode runAsRole(final ModelNode operation, final Map<String, String> properties) {
@@ -187,7 +232,8 @@ public class DMRHandler implements ActionHandler<DMRAction, DMRResponse> {
         throw new RuntimeException("Not implemented yet.");
     }
 
-    private Request executeRequest(final AsyncCallback<DMRResponse> resultCallback, final ModelNode operation)
+    private Request executeRequest(final AsyncCallback<DMRResponse> resultCallback, final ModelNode operation,
+            final boolean json, final RequestQueue.QueuedRequest queued)
     {
         if (idCounter == Long.MAX_VALUE)
         {
@@ -200,26 +246,48 @@ public class DMRHandler implements ActionHandler<DMRAction, DMRResponse> {
             final String id = String.valueOf(idCounter++);
             trace(Type.BEGIN, id, operation);
 
-            final RequestBuilder requestBuilder = chooseRequestBuilder(operation);
+            final long serializeStart = System.currentTimeMillis();
+            final RequestBuilder requestBuilder = chooseRequestBuilder(operation, json);
             trace(Type.SERIALIZED, id, operation);
+            metrics.record(operation, DispatchMetrics.Phase.SERIALIZE, System.currentTimeMillis() - serializeStart);
+            final String requestData = requestBuilder.getRequestData();
+            metrics.recordRequest(operation, requestData != null ? requestData.length() : 0);
+            final long[] sent = new long[1];
 
             final RequestCallback requestCallback = new RequestCallback()
             {
                 @Override
                 public void onResponseReceived(Request request, Response response)
                 {
+                    queued.finish();
                     trace(Type.RECEIVE, id, operation);
+                    metrics.record(operation, DispatchMetrics.Phase.NETWORK, System.currentTimeMillis() - sent[0]);
+                    metrics.recordResponse(operation, response.getText().length());
 
                     int statusCode = response.getStatusCode();
                     if (200 == statusCode)
                     {
-                        resultCallback.onSuccess(
-                                new DMRResponse(
-                                        requestBuilder.getHTTPMethod(),
-                                        response.getText(),
-                                        response.getHeader(HEADER_CONTENT_TYPE)
-                                )
+                        DMRResponse dmrResponse = new DMRResponse(
+                                requestBuilder.getHTTPMethod(),
+                                response.getText(),
+                                response.getHeader(HEADER_CONTENT_TYPE)
                         );
+                        // the payload is decoded lazily by the callback
+                        final long[] decodeTime = new long[1];
+                        dmrResponse.setDecodeListener(new DMRResponse.DecodeListener()
+                        {
+                            @Override
+                            public void onDecoded(long millis)
+                            {
+                                decodeTime[0] = millis;
+                                trace(Type.DESERIALIZED, id, operation);
+                                metrics.record(operation, DispatchMetrics.Phase.DECODE, millis);
+                            }
+                        });
+                        long callbackStart = System.currentTimeMillis();
+                        resultCallback.onSuccess(dmrResponse);
+                        metrics.record(operation, DispatchMetrics.Phase.CALLBACK,
+                                System.currentTimeMillis() - callbackStart - decodeTime[0]);
                     }
                     else if (401 == statusCode || 0 == statusCode)
                     {
@@ -249,10 +317,10 @@ public class DMRHandler implements ActionHandler<DMRAction, DMRResponse> {
                         sb.append(operation.toString());
                         sb.append("\n\nResponse\n\n");
                         sb.append(response.getStatusText()).append("\n");
-                        String payload = response.getText().equals("") ? "No details" :
-                                ModelNode.fromBase64(response.getText()).toString();
-                        sb.append(payload);
-                        resultCallback.onFailure(new DispatchError(sb.toString(), statusCode));
+                        ModelNode payload = response.getText().equals("") ? null :
+                                DMRResponse.decode(response.getText(), response.getHeader(HEADER_CONTENT_TYPE));
+                        sb.append(payload == null ? "No details" : payload.toString());
+                        resultCallback.onFailure(new DispatchError(sb.toString(), statusCode, payload));
                     }
                     trace(Type.END, id, operation);
                 }
@@ -260,17 +328,20 @@ public class DMRHandler implements ActionHandler<DMRAction, DMRResponse> {
                 @Override
                 public void onError(Request request, Throwable e)
                 {
+                    queued.finish();
                     trace(Type.RECEIVE, id, operation);
                     resultCallback.onFailure(e);
                     trace(Type.END, id, operation);
                 }
             };
             requestBuilder.setCallback(requestCallback);
+            sent[0] = System.currentTimeMillis();
             request = requestBuilder.send();
             trace(Type.SEND, id, operation);
         }
         catch (RequestException e)
         {
+            queued.finish();
             resultCallback.onFailure(e);
         }
         return request;
@@ -292,10 +363,11 @@ public class DMRHandler implements ActionHandler<DMRAction, DMRResponse> {
         return false;
     }
 
-    private RequestBuilder chooseRequestBuilder(final ModelNode operation)
+    private RequestBuilder chooseRequestBuilder(final ModelNode operation, final boolean json)
     {
         RequestBuilder requestBuilder;
         final String op = operation.get(OP).asString();
+        final String mediaType = json ? APPLICATION_JSON : DMR_ENCODED;
         if (READ_RESOURCE_DESCRIPTION_OPERATION.equals(op))
         {
             String endpoint = endpointConfig.getUrl();
@@ -306,11 +378,16 @@ public class DMRHandler implements ActionHandler<DMRAction, DMRResponse> {
             String descriptionUrl = endpoint + descriptionOperationToUrl(operation);
             requestBuilder = new RequestBuilder(RequestBuilder.GET,
                     com.google.gwt.http.client.URL.encode(descriptionUrl));
-            requestBuilder.setHeader(HEADER_ACCEPT, DMR_ENCODED);
-            requestBuilder.setHeader(HEADER_CONTENT_TYPE, DMR_ENCODED);
+            requestBuilder.setHeader(HEADER_ACCEPT, mediaType);
+            requestBuilder.setHeader(HEADER_CONTENT_TYPE, mediaType);
             requestBuilder.setIncludeCredentials(true);
             requestBuilder.setRequestData(null);
         }
+        else if (json)
+        {
+            requestBuilder = postJsonRequestBuilder();
+            requestBuilder.setRequestData(operation.toJSONString(true));
+        }
         else
         {
             requestBuilder = postRequestBuilder();
@@ -372,30 +449,4 @@ public class DMRHandler implements ActionHandler<DMRAction, DMRResponse> {
             return classifier;
         }
     }
-
-
-    class DispatchRequestHandle implements DispatchRequest
-    {
-        private Request delegate;
-
-        DispatchRequestHandle(Request delegate)
-        {
-            this.delegate = delegate;
-        }
-
-        @Override
-        public void cancel()
-        {
-            if (delegate != null)
-            {
-                delegate.cancel();
-            }
-        }
-
-        @Override
-        public boolean isPending()
-        {
-            return delegate != null ? delegate.isPending() : false;
-        }
-    }
 }
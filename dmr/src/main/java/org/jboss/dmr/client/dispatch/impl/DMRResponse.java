@@ -22,6 +22,7 @@ package org.jboss.dmr.client.dispatch.impl;
 
 import org.jboss.as.console.client.shared.state.ResponseProcessorDelegate;
 import org.jboss.dmr.client.ModelNode;
+import org.jboss.dmr.client.ModelType;
 import org.jboss.dmr.client.dispatch.Result;
 
 import static org.jboss.dmr.client.ModelDescriptionConstants.*;
@@ -35,12 +36,16 @@ public class DMRResponse implements Result<ModelNode> {
     private static final String FILTERED_ATTRIBUTES = "filtered-attributes";
     private static final String ABSOLUTE_ADDRESS = "absolute-address";
     private static final String RELATIVE_ADDRESS = "relative-address";
+    private static final String APPLICATION_JSON = "application/json";
 
     private String method;
     private String responseText;
     private String contentType;
 
     private ResponseProcessorDelegate processor;
+    private ModelNode decoded;
+    private boolean processed;
+    private DecodeListener decodeListener;
 
     public DMRResponse(String method, String responseText, String contentType) {
         this.method = method;
@@ -50,12 +55,68 @@ public class DMRResponse implements Result<ModelNode> {
         this.processor = new ResponseProcessorDelegate();
     }
 
+    /**
+     * Creates a response for an already decoded model.
+     */
+    public DMRResponse(ModelNode response) {
+        this("POST", null, null);
+        this.decoded = response;
+    }
+
+    /**
+     * Returns the decoded response. The payload is decoded on first access, subsequent calls return the same
+     * instance.
+     */
     @Override
     public ModelNode get() {
+        if (decoded == null) {
+            long start = System.currentTimeMillis();
+            decoded = decodeResponse();
+            onDecoded(decoded, System.currentTimeMillis() - start);
+        }
+        return decoded;
+    }
+
+    /**
+     * Returns a new response for the same payload. If this response has already been decoded, the copy
+     * gets a clone of the decoded model and the response processors are not run again.
+     */
+    public DMRResponse copy() {
+        DMRResponse copy = new DMRResponse(method, responseText, contentType);
+        if (decoded != null) {
+            copy.decoded = decoded.clone();
+        }
+        copy.processed = processed;
+        return copy;
+    }
+
+    /**
+     * @return the length of the raw response text or 0 if this response was created for an already decoded model
+     */
+    public int getPayloadSize() {
+        return responseText != null ? responseText.length() : 0;
+    }
+
+    void setDecodeListener(DecodeListener decodeListener) {
+        this.decodeListener = decodeListener;
+    }
+
+    private void onDecoded(ModelNode response, long millis) {
+        if (decodeListener != null) {
+            decodeListener.onDecoded(millis);
+            decodeListener = null;
+        }
+        if (!processed) {
+            processed = true;
+            processor.process(response);
+        }
+    }
+
+    private ModelNode decodeResponse() {
 
         ModelNode response = null;
         try {
-            response = ModelNode.fromBase64(responseText);
+            response = decode(responseText, contentType);
 
             /*if(response.hasDefined("response-headers"))
             {
@@ -103,20 +164,32 @@ public class DMRResponse implements Result<ModelNode> {
             }
 
         } catch (Throwable e) {
-
-            ModelNode err = new ModelNode();
-            err.get("outcome").set("failed");
-            err.get("failure-description").set(
-                    "Failed to decode response: "+
-                            e.getClass().getName() +": "+e.getMessage());
-            response = err;
+            response = decodingFailed(e);
         }
 
-        processor.process(response);
-
         return response;
     }
 
+    private static ModelNode decodingFailed(Throwable e) {
+        ModelNode err = new ModelNode();
+        err.get("outcome").set("failed");
+        err.get("failure-description").set(
+                "Failed to decode response: "+
+                        e.getClass().getName() +": "+e.getMessage());
+        return err;
+    }
+
+    /**
+     * Decodes the response payload depending on the content type: JSON payloads are parsed using the
+     * browser's native JSON parser, anything else is treated as base64 encoded DMR.
+     */
+    static ModelNode decode(String payload, String contentType) {
+        if (contentType != null && contentType.startsWith(APPLICATION_JSON)) {
+            return ModelNode.fromJSONString(payload);
+        }
+        return ModelNode.fromBase64(payload);
+    }
+
     /*private void inlineAccessControlMetaData(List<ModelNode> accessHeader, ModelNode payload) {
 
         if(accessHeader.isEmpty())
@@ -182,4 +255,11 @@ public class DMRResponse implements Result<ModelNode> {
             s.add(n.asString());
         return s;
     }  */
+
+    /**
+     * Notified once the payload has been decoded for the first time.
+     */
+    interface DecodeListener {
+        void onDecoded(long millis);
+    }
 }
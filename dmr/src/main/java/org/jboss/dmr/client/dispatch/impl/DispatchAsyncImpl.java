@@ -19,14 +19,21 @@
 
 package org.jboss.dmr.client.dispatch.impl;
 
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.user.client.rpc.AsyncCallback;
 import com.google.inject.Inject;
+import org.jboss.dmr.client.ModelNode;
 import org.jboss.dmr.client.dispatch.Action;
 import org.jboss.dmr.client.dispatch.ActionHandler;
+import org.jboss.dmr.client.dispatch.DMRCache;
 import org.jboss.dmr.client.dispatch.DispatchAsync;
+import org.jboss.dmr.client.dispatch.DispatchMetrics;
 import org.jboss.dmr.client.dispatch.DispatchRequest;
 import org.jboss.dmr.client.dispatch.HandlerMapping;
+import org.jboss.dmr.client.dispatch.RequestBatcher;
 import org.jboss.dmr.client.dispatch.Result;
+import org.jboss.dmr.client.dispatch.SingleFlight;
 
 import java.util.Collections;
 import java.util.HashMap;
@@ -41,12 +48,39 @@ public class DispatchAsyncImpl implements DispatchAsync {
     private static HandlerMapping registry;
     private static Map<String, String> properties = new HashMap<String,String>();
 
+    private final DMRCache cache;
+    private final RequestBatcher batcher;
+    private final SingleFlight inFlight;
+    private final DispatchMetrics metrics;
+    private final Scheduler scheduler;
+
     @Inject
-    public DispatchAsyncImpl(HandlerMapping registry) {
+    public DispatchAsyncImpl(HandlerMapping registry, DMRCache cache, DispatchMetrics metrics) {
+        this(registry, cache, metrics, GWT.isClient() ? Scheduler.get() : null);
+    }
+
+    /**
+     * @param scheduler used to call back cache hits and to flush batches. If null, cache hits are called back
+     *                  synchronously.
+     */
+    public DispatchAsyncImpl(HandlerMapping registry, DMRCache cache, DispatchMetrics metrics, Scheduler scheduler) {
         this.registry = registry;
+        this.cache = cache;
+        this.metrics = metrics;
+        this.scheduler = scheduler;
+        this.inFlight = new SingleFlight();
+        this.batcher = new RequestBatcher(new RequestBatcher.Sender() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public DispatchRequest send(DMRAction action, AsyncCallback<DMRResponse> callback) {
+                ActionHandler<DMRAction, DMRResponse> handler = DispatchAsyncImpl.registry.resolve(action);
+                return handler.execute(action, callback, Collections.unmodifiableMap(properties));
+            }
+        }, scheduler);
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public <A extends Action<R>, R extends Result> DispatchRequest execute(A action, AsyncCallback<R> callback) {
 
         ActionHandler<A,R> handler = registry.resolve(action);
@@ -54,9 +88,118 @@ public class DispatchAsyncImpl implements DispatchAsync {
         if(null==handler)
             callback.onFailure(new IllegalStateException("No handler for type "+action.getType()));
 
+        if(action instanceof DMRAction)
+        {
+            return executeCached((DMRAction) action, (ActionHandler<DMRAction, DMRResponse>) handler,
+                    (AsyncCallback<DMRResponse>) callback);
+        }
+
         return handler.execute(action, callback, Collections.unmodifiableMap(properties));
     }
 
+    private DispatchRequest executeCached(final DMRAction action, ActionHandler<DMRAction, DMRResponse> handler,
+            final AsyncCallback<DMRResponse> callback) {
+
+        final ModelNode operation = action.getOperation();
+        final Map<String, String> props = Collections.unmodifiableMap(properties);
+
+        if(!DMRCache.isReadOnly(operation))
+        {
+            // writes invalidate before and after execution: reads which are still in flight
+            // while the write is executed must not leave stale entries behind
+            cache.invalidate(operation);
+            inFlight.forget();
+            return handler.execute(action, new AsyncCallback<DMRResponse>() {
+                @Override
+                public void onFailure(Throwable caught) {
+                    callback.onFailure(caught);
+                }
+
+                @Override
+                public void onSuccess(DMRResponse result) {
+                    cache.invalidate(operation);
+                    callback.onSuccess(result);
+                }
+            }, props);
+        }
+
+        final String key = DMRCache.key(operation, props);
+        final boolean cachable = action.isCachable() && DMRCache.isCachable(operation);
+        if(cachable)
+        {
+            DMRResponse cached = cache.get(key);
+            if(cached != null)
+            {
+                metrics.recordCacheHit(operation);
+                return callback(cached.copy(), callback);
+            }
+        }
+
+        // a write which is executed while the read is in flight invalidates the cache: don't add the response then
+        final int generation = cache.getGeneration();
+
+        // identical reads which are still pending are not sent again
+        return inFlight.execute(key, callback, new SingleFlight.Sender() {
+            @Override
+            public DispatchRequest send(final AsyncCallback<DMRResponse> flightCallback) {
+                if(!cachable)
+                {
+                    return batcher.execute(action, flightCallback);
+                }
+                return batcher.execute(action, new AsyncCallback<DMRResponse>() {
+                    @Override
+                    public void onFailure(Throwable caught) {
+                        flightCallback.onFailure(caught);
+                    }
+
+                    @Override
+                    public void onSuccess(DMRResponse result) {
+                        cache.put(key, operation, result.copy(), generation);
+                        flightCallback.onSuccess(result);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Cache hits are called back in a deferred command: callers must not see a difference between cached and
+     * uncached responses.
+     */
+    private DispatchRequest callback(final DMRResponse response, final AsyncCallback<DMRResponse> callback) {
+        if (scheduler == null) {
+            callback.onSuccess(response);
+            return COMPLETED;
+        }
+        final CachedRequest request = new CachedRequest();
+        scheduler.scheduleDeferred(new Scheduler.ScheduledCommand() {
+            @Override
+            public void execute() {
+                if (request.pending) {
+                    request.pending = false;
+                    callback.onSuccess(response);
+                }
+            }
+        });
+        return request;
+    }
+
+    public DMRCache getCache() {
+        return cache;
+    }
+
+    public RequestBatcher getBatcher() {
+        return batcher;
+    }
+
+    public SingleFlight getInFlight() {
+        return inFlight;
+    }
+
+    public DispatchMetrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public <A extends Action<R>, R extends Result> DispatchRequest undo(A action, R result, AsyncCallback<Void> callback) {
         return null;
@@ -65,10 +208,38 @@ public class DispatchAsyncImpl implements DispatchAsync {
     @Override
     public void setProperty(String key, String value) {
         properties.put(key, value);
+        cache.clear();
     }
 
     @Override
     public void clearProperty(String key) {
         properties.remove(key);
+        cache.clear();
     }
+
+    private static class CachedRequest implements DispatchRequest {
+
+        boolean pending = true;
+
+        @Override
+        public void cancel() {
+            pending = false;
+        }
+
+        @Override
+        public boolean isPending() {
+            return pending;
+        }
+    }
+
+    private static final DispatchRequest COMPLETED = new DispatchRequest() {
+        @Override
+        public void cancel() {
+        }
+
+        @Override
+        public boolean isPending() {
+            return false;
+        }
+    };
 }
@@ -0,0 +1,225 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.dmr.client.dispatch.impl;
+
+import com.google.gwt.http.client.Request;
+import org.jboss.dmr.client.dispatch.CancelledException;
+import org.jboss.dmr.client.dispatch.DispatchRequest;
+import org.jboss.dmr.client.dispatch.Priority;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Limits the number of concurrent DMR requests. Browsers only open a handful of connections per host, so
+ * sending every request right away lets background work like harvesting the search index compete with
+ * requests the user is waiting for. Requests which exceed the limit are queued per {@link Priority} and sent
+ * in the order of their priority as soon as a running request finishes.
+ */
+public class RequestQueue {
+
+    /**
+     * Sends a queued request.
+     */
+    interface Task {
+        Request start(QueuedRequest request);
+
+        /**
+         * Called if the request has been dropped from the queue because it became stale.
+         */
+        void stale(CancelledException reason);
+    }
+
+    static final int DEFAULT_MAX_CONCURRENT = 4;
+
+    private final LinkedList<QueuedRequest>[] queues;
+    private int maxConcurrent;
+    private int running;
+    private int cancelled;
+
+    @SuppressWarnings("unchecked")
+    public RequestQueue() {
+        this.queues = new LinkedList[Priority.values().length];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new LinkedList<QueuedRequest>();
+        }
+        this.maxConcurrent = DEFAULT_MAX_CONCURRENT;
+    }
+
+
+    // ------------------------------------------------------ public API
+
+    /**
+     * Cancels all queued requests which have become stale because the user navigated to another place.
+     * Requests which have already been sent are not affected. The callbacks of the cancelled requests are
+     * notified with a {@link CancelledException}, so nobody waits for a response which never comes.
+     *
+     * @return the number of cancelled requests
+     */
+    public int cancelStale() {
+        List<QueuedRequest> stale = new ArrayList<QueuedRequest>();
+        for (Priority priority : new Priority[]{Priority.NAVIGATION, Priority.BACKGROUND}) {
+            for (Iterator<QueuedRequest> iterator = queues[priority.ordinal()].iterator(); iterator.hasNext(); ) {
+                QueuedRequest request = iterator.next();
+                if (!request.keepOnNavigation) {
+                    iterator.remove();
+                    request.state = State.CANCELLED;
+                    stale.add(request);
+                }
+            }
+        }
+        cancelled += stale.size();
+        // notify after the queues have been cleaned up: callbacks might enqueue new requests
+        for (QueuedRequest request : stale) {
+            request.task.stale(new CancelledException("Request cancelled: the user navigated to another place"));
+        }
+        return stale.size();
+    }
+
+    /**
+     * @return the number of queued requests which have not been sent yet
+     */
+    public int getDepth() {
+        int depth = 0;
+        for (LinkedList<QueuedRequest> queue : queues) {
+            depth += queue.size();
+        }
+        return depth;
+    }
+
+    public int getDepth(Priority priority) {
+        return queues[priority.ordinal()].size();
+    }
+
+    /**
+     * @return the number of requests which have been sent, but not yet finished
+     */
+    public int getRunning() {
+        return running;
+    }
+
+    /**
+     * @return the number of requests which were cancelled because they became stale
+     */
+    public int getCancelled() {
+        return cancelled;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public void setMaxConcurrent(int maxConcurrent) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        next();
+    }
+
+
+    // ------------------------------------------------------ internals
+
+    QueuedRequest enqueue(Priority priority, boolean keepOnNavigation, Task task) {
+        QueuedRequest request = new QueuedRequest(priority, keepOnNavigation, task);
+        queues[priority.ordinal()].add(request);
+        next();
+        return request;
+    }
+
+    private void next() {
+        while (running < maxConcurrent) {
+            QueuedRequest request = poll();
+            if (request == null) {
+                break;
+            }
+            running++;
+            request.state = State.RUNNING;
+            Request delegate = request.task.start(request);
+            if (request.state == State.RUNNING) {
+                request.delegate = delegate;
+            }
+        }
+    }
+
+    private QueuedRequest poll() {
+        for (LinkedList<QueuedRequest> queue : queues) {
+            if (!queue.isEmpty()) {
+                return queue.removeFirst();
+            }
+        }
+        return null;
+    }
+
+    private void release() {
+        running--;
+        next();
+    }
+
+
+    enum State {QUEUED, RUNNING, DONE, CANCELLED}
+
+
+    class QueuedRequest implements DispatchRequest {
+
+        final Priority priority;
+        final boolean keepOnNavigation;
+        final Task task;
+        State state;
+        Request delegate;
+
+        QueuedRequest(Priority priority, boolean keepOnNavigation, Task task) {
+            this.priority = priority;
+            this.keepOnNavigation = keepOnNavigation;
+            this.task = task;
+            this.state = State.QUEUED;
+        }
+
+        /**
+         * Must be called once the response of a running request has been received (or sending failed).
+         */
+        void finish() {
+            if (state == State.RUNNING) {
+                state = State.DONE;
+                release();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (state == State.QUEUED) {
+                queues[priority.ordinal()].remove(this);
+                state = State.CANCELLED;
+            } else if (state == State.RUNNING) {
+                state = State.CANCELLED;
+                if (delegate != null) {
+                    delegate.cancel();
+                }
+                release();
+            }
+        }
+
+        @Override
+        public boolean isPending() {
+            return state == State.QUEUED || state == State.RUNNING;
+        }
+    }
+}
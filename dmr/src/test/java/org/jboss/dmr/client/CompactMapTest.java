@@ -0,0 +1,187 @@
+package org.jboss.dmr.client;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class CompactMapTest {
+
+    // ------------------------------------------------------ test methods
+
+    @Test
+    public void putAndGet() {
+        CompactMap<String> map = new CompactMap<String>();
+        assertTrue(map.isEmpty());
+        assertNull(map.put("a", "1"));
+        assertNull(map.put("b", "2"));
+
+        assertEquals(2, map.size());
+        assertEquals("1", map.get("a"));
+        assertEquals("2", map.get("b"));
+        assertNull(map.get("c"));
+        assertTrue(map.containsKey("a"));
+        assertFalse(map.containsKey("c"));
+    }
+
+    @Test
+    public void lookupByEquality() {
+        CompactMap<String> map = new CompactMap<String>();
+        map.put("type", "STRING");
+        // a key which is not interned
+        String key = new String("type");
+        assertEquals("STRING", map.get(key));
+        assertTrue(map.containsKey(key));
+    }
+
+    @Test
+    public void replace() {
+        CompactMap<String> map = new CompactMap<String>();
+        map.put("a", "1");
+        map.put("b", "2");
+        assertEquals("1", map.put("a", "3"));
+
+        // replacing a value keeps the position
+        assertEquals(2, map.size());
+        assertEquals(Arrays.asList("a", "b"), keys(map));
+        assertEquals("3", map.get("a"));
+    }
+
+    @Test
+    public void insertionOrder() {
+        CompactMap<Integer> map = new CompactMap<Integer>(1);
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < CompactMap.THRESHOLD; i++) {
+            String key = "key-" + (CompactMap.THRESHOLD - i);
+            map.put(key, i);
+            expected.add(key);
+        }
+        assertEquals(expected, keys(map));
+    }
+
+    @Test
+    public void switchToHashed() {
+        CompactMap<Integer> map = new CompactMap<Integer>();
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i <= CompactMap.THRESHOLD * 2; i++) {
+            String key = "key-" + (CompactMap.THRESHOLD * 2 - i);
+            map.put(key, i);
+            expected.add(key);
+        }
+
+        // the order survives the switch to the linked hash map
+        assertEquals(CompactMap.THRESHOLD * 2 + 1, map.size());
+        assertEquals(expected, keys(map));
+        assertEquals(Integer.valueOf(0), map.get("key-" + CompactMap.THRESHOLD * 2));
+        assertEquals(Integer.valueOf(1), map.remove("key-" + (CompactMap.THRESHOLD * 2 - 1)));
+        assertEquals(CompactMap.THRESHOLD * 2, map.size());
+    }
+
+    @Test
+    public void largeExpectedSize() {
+        CompactMap<Integer> map = new CompactMap<Integer>(CompactMap.THRESHOLD + 1);
+        map.put("b", 1);
+        map.put("a", 2);
+        assertEquals(Arrays.asList("b", "a"), keys(map));
+    }
+
+    @Test
+    public void remove() {
+        CompactMap<String> map = new CompactMap<String>();
+        map.put("a", "1");
+        map.put("b", "2");
+        map.put("c", "3");
+
+        assertEquals("2", map.remove("b"));
+        assertNull(map.remove("b"));
+        assertEquals(2, map.size());
+        assertEquals(Arrays.asList("a", "c"), keys(map));
+        assertEquals("3", map.get("c"));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get("a"));
+    }
+
+    @Test
+    public void iteratorRemove() {
+        CompactMap<String> map = new CompactMap<String>();
+        map.put("a", "1");
+        map.put("b", "2");
+        map.put("c", "3");
+
+        Iterator<Map.Entry<String, String>> iterator = map.entrySet().iterator();
+        iterator.next();
+        iterator.next();
+        iterator.remove();
+        try {
+            iterator.remove();
+            fail("IllegalStateException expected");
+        } catch (IllegalStateException expected) {
+            // ok
+        }
+        // the iteration continues with the entry after the removed one
+        assertEquals("c", iterator.next().getKey());
+        assertFalse(iterator.hasNext());
+        assertEquals(Arrays.asList("a", "c"), keys(map));
+    }
+
+    @Test
+    public void entrySetValue() {
+        CompactMap<String> map = new CompactMap<String>();
+        map.put("a", "1");
+        map.put("b", "2");
+
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            if ("b".equals(entry.getKey())) {
+                assertEquals("2", entry.setValue("3"));
+            }
+        }
+        assertEquals("3", map.get("b"));
+    }
+
+    @Test
+    public void equalsOtherMaps() {
+        CompactMap<String> map = new CompactMap<String>();
+        map.put("a", "1");
+        map.put("b", "2");
+        Map<String, String> other = new HashMap<String, String>();
+        other.put("b", "2");
+        other.put("a", "1");
+
+        assertEquals(other, map);
+        assertEquals(map, other);
+        assertEquals(other.hashCode(), map.hashCode());
+    }
+
+    @Test
+    public void objectModelNode() {
+        ModelNode node = new ModelNode();
+        for (int i = 0; i <= CompactMap.THRESHOLD; i++) {
+            node.get("key-" + (CompactMap.THRESHOLD - i)).set(i);
+        }
+
+        List<Property> properties = node.asPropertyList();
+        assertEquals(CompactMap.THRESHOLD + 1, properties.size());
+        assertEquals("key-" + CompactMap.THRESHOLD, properties.get(0).getName());
+        assertEquals("key-0", properties.get(CompactMap.THRESHOLD).getName());
+        assertEquals(CompactMap.THRESHOLD, node.get("key-0").asInt());
+    }
+
+
+    // ------------------------------------------------------ helper methods
+
+    private List<String> keys(Map<String, ?> map) {
+        List<String> keys = new ArrayList<String>();
+        for (Map.Entry<String, ?> entry : map.entrySet()) {
+            keys.add(entry.getKey());
+        }
+        return keys;
+    }
+}
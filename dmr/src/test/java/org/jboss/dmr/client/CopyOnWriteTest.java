@@ -0,0 +1,180 @@
+package org.jboss.dmr.client;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class CopyOnWriteTest {
+
+    private ModelNode original;
+
+    @Before
+    public void setUp() {
+        ModelNode node = new ModelNode();
+        node.get("a", "x").set(1);
+        node.get("b", "y").set(2);
+        node.get("list").add().get("z").set(3);
+        node.get("list").add().get("z").set(4);
+        // building the node hands out all children, its clone hasn't handed out any
+        original = node.clone();
+    }
+
+
+    // ------------------------------------------------------ test methods
+
+    @Test
+    public void shareUntouchedChildren() throws Exception {
+        ModelNode copy = original.clone();
+        assertSame(stored(original, "a"), stored(copy, "a"));
+        assertSame(stored(original, "b"), stored(copy, "b"));
+    }
+
+    @Test
+    public void readKeepsSiblingsShared() throws Exception {
+        ModelNode copy = original.clone();
+        assertEquals(1, copy.get("a", "x").asInt());
+
+        // only the child which has been handed out is cloned
+        assertNotSame(stored(original, "a"), stored(copy, "a"));
+        assertSame(stored(original, "b"), stored(copy, "b"));
+
+        // a copy of the copy still shares the untouched child
+        ModelNode copyOfCopy = copy.clone();
+        assertNotSame(stored(copy, "a"), stored(copyOfCopy, "a"));
+        assertSame(stored(original, "b"), stored(copyOfCopy, "b"));
+    }
+
+    @Test
+    public void propertiesDontExposeChildren() throws Exception {
+        ModelNode copy = original.clone();
+        List<Property> properties = copy.asPropertyList();
+        assertEquals(3, properties.size());
+        copy.asList();
+
+        assertSame(stored(original, "a"), stored(copy, "a"));
+        assertSame(stored(original, "b"), stored(copy, "b"));
+
+        // properties hold clones
+        properties.get(0).getValue().get("x").set(42);
+        assertEquals(1, original.get("a", "x").asInt());
+        assertEquals(1, copy.get("a", "x").asInt());
+    }
+
+    @Test
+    public void modifyCopy() {
+        ModelNode copy = original.clone();
+        copy.get("a", "x").set(42);
+        copy.get("c").set(true);
+
+        assertEquals(1, original.get("a", "x").asInt());
+        assertFalse(original.has("c"));
+        assertEquals(42, copy.get("a", "x").asInt());
+        assertEquals(2, copy.get("b", "y").asInt());
+    }
+
+    @Test
+    public void modifyOriginal() {
+        ModelNode copy = original.clone();
+        original.get("b", "y").set(42);
+        original.remove("a");
+
+        assertEquals(2, copy.get("b", "y").asInt());
+        assertEquals(1, copy.get("a", "x").asInt());
+    }
+
+    @Test
+    public void modifyExposedChild() {
+        // the child is handed out before the copy is made
+        ModelNode a = original.get("a");
+        ModelNode copy = original.clone();
+        a.get("x").set(42);
+
+        assertEquals(42, original.get("a", "x").asInt());
+        assertEquals(1, copy.get("a", "x").asInt());
+    }
+
+    @Test
+    public void modifyRemovedChild() {
+        ModelNode copy = original.clone();
+        ModelNode removed = copy.remove("a");
+        removed.get("x").set(42);
+
+        assertEquals(1, original.get("a", "x").asInt());
+        assertFalse(copy.has("a"));
+    }
+
+    @Test
+    public void modifyListElement() {
+        ModelNode copy = original.clone();
+        copy.get("list").asList().get(0).get("z").set(42);
+        copy.get("list").add().get("z").set(5);
+
+        assertEquals(3, original.get("list").get(0).get("z").asInt());
+        assertEquals(2, original.get("list").asInt());
+        assertEquals(42, copy.get("list").get(0).get("z").asInt());
+        assertEquals(4, copy.get("list").get(1).get("z").asInt());
+        assertEquals(3, copy.get("list").asInt());
+    }
+
+    @Test
+    public void modifyExposedListElement() {
+        List<ModelNode> elements = original.get("list").asList();
+        ModelNode copy = original.clone();
+        elements.get(1).get("z").set(42);
+
+        assertEquals(42, original.get("list").get(1).get("z").asInt());
+        assertEquals(4, copy.get("list").get(1).get("z").asInt());
+    }
+
+    @Test
+    public void protectCopy() {
+        ModelNode copy = original.clone();
+        copy.protect();
+
+        // the original is still modifiable
+        original.get("a", "x").set(42);
+        assertEquals(1, copy.get("a", "x").asInt());
+    }
+
+    @Test
+    public void modifyCopyOfProtected() {
+        original.protect();
+        ModelNode copy = original.clone();
+        copy.get("a", "x").set(42);
+        copy.get("list").add();
+
+        assertEquals(1, original.get("a", "x").asInt());
+        assertEquals(2, original.get("list").asInt());
+        assertEquals(42, copy.get("a", "x").asInt());
+    }
+
+    @Test
+    public void equalCopies() {
+        ModelNode copy = original.clone();
+        assertEquals(original, copy);
+        copy.get("a", "x");
+        assertEquals(original, copy);
+        copy.get("a", "x").set(42);
+        assertNotEquals(original, copy);
+    }
+
+
+    // ------------------------------------------------------ helper methods
+
+    /**
+     * @return the child node as stored in the object value without handing it out
+     */
+    @SuppressWarnings("unchecked")
+    private ModelNode stored(ModelNode node, String name) throws Exception {
+        Field value = ModelNode.class.getDeclaredField("value");
+        value.setAccessible(true);
+        Field map = ObjectModelValue.class.getDeclaredField("map");
+        map.setAccessible(true);
+        return ((Map<String, ModelNode>) map.get(value.get(node))).get(name);
+    }
+}
@@ -0,0 +1,259 @@
+package org.jboss.dmr.client;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class DataInputOutputTest {
+
+    // ------------------------------------------------------ test methods
+
+    @Test
+    public void integers() throws IOException {
+        int[] ints = {0, 1, -1, 255, 256, -256, Short.MIN_VALUE, Short.MAX_VALUE, Integer.MIN_VALUE,
+                Integer.MAX_VALUE};
+        DataOutput out = new DataOutput();
+        for (int i : ints) {
+            out.writeInt(i);
+        }
+        assertEquals(ints.length * 4, out.size());
+
+        DataInput in = input(out);
+        for (int i : ints) {
+            assertEquals(i, in.readInt());
+        }
+        assertEquals(in.length(), in.position());
+    }
+
+    @Test
+    public void longs() throws IOException {
+        // the low word is written as signed int: values with its sign bit set must not be sign extended
+        long[] longs = {0, 1, -1, 0xFFFFFFFFL, 0x80000000L, -0x80000000L, 0x100000000L, -0x100000001L,
+                Integer.MIN_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, 0x123456789ABCDEF0L};
+        DataOutput out = new DataOutput();
+        for (long l : longs) {
+            out.writeLong(l);
+        }
+
+        DataInput in = input(out);
+        for (long l : longs) {
+            assertEquals(l, in.readLong());
+        }
+    }
+
+    @Test
+    public void doubles() throws IOException {
+        double[] doubles = {0.0, -0.0, 1.5, -1.5, 0.1, Double.MIN_VALUE, -Double.MAX_VALUE, Double.NaN,
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        DataOutput out = new DataOutput();
+        for (double d : doubles) {
+            out.writeDouble(d);
+        }
+        out.writeFloat(-2.5f);
+
+        DataInput in = input(out);
+        for (double d : doubles) {
+            // compare the bits to tell -0.0 from 0.0
+            assertEquals(Double.doubleToLongBits(d), Double.doubleToLongBits(in.readDouble()));
+        }
+        assertEquals(-2.5f, in.readFloat(), 0);
+    }
+
+    @Test
+    public void shortsAndBytes() throws IOException {
+        DataOutput out = new DataOutput();
+        out.writeShort(-2);
+        out.writeShort(0xFFFF);
+        out.writeChar('\u20ac');
+        out.writeByte(-1);
+        out.writeByte(0x80);
+        out.writeBoolean(true);
+        out.writeBoolean(false);
+
+        DataInput in = input(out);
+        assertEquals(-2, in.readShort());
+        assertEquals(0xFFFF, in.readUnsignedShort());
+        assertEquals('\u20ac', in.readChar());
+        assertEquals(-1, in.readByte());
+        assertEquals(0x80, in.readUnsignedByte());
+        assertTrue(in.readBoolean());
+        assertFalse(in.readBoolean());
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void utf() throws IOException {
+        String[] strings = {
+                "",
+                "subsystem",
+                "\u0000", // encoded in two bytes
+                "caf\u00e9", // ASCII followed by a two byte char
+                "\u20ac 100", // three byte char followed by ASCII
+                "\ud83d\ude00", // surrogate pair: two chars of three bytes each
+                "\u007f\u0080\u07ff\u0800\uffff" // boundaries of the one, two and three byte encodings
+        };
+        DataOutput out = new DataOutput();
+        for (String s : strings) {
+            out.writeUTF(s);
+        }
+
+        DataInput in = input(out);
+        for (String s : strings) {
+            assertEquals(s, in.readUTF());
+        }
+    }
+
+    @Test
+    public void utfLength() throws IOException {
+        DataOutput out = new DataOutput();
+        out.writeUTF("\u00e9\u20ac");
+        // the length prefix counts bytes, not chars
+        assertEquals(2 + 2 + 3, out.size());
+        assertEquals(5, input(out).readUnsignedShort());
+    }
+
+    @Test
+    public void longestUtf() throws IOException {
+        String longest = repeat('a', 0xFFFF);
+        DataOutput out = new DataOutput();
+        out.writeUTF(longest);
+        assertEquals(longest, input(out).readUTF());
+    }
+
+    @Test
+    public void utfTooLong() throws IOException {
+        DataOutput out = new DataOutput();
+        out.writeInt(42);
+        try {
+            // fits in chars, but not in bytes
+            out.writeUTF(repeat('\u20ac', 0x6000));
+            fail("IOException expected");
+        } catch (IOException expected) {
+            // nothing was written
+            assertEquals(4, out.size());
+        }
+    }
+
+    @Test
+    public void skipUtf() throws IOException {
+        DataOutput out = new DataOutput();
+        out.writeUTF("caf\u00e9");
+        out.writeInt(42);
+
+        DataInput in = input(out);
+        in.skipUTF();
+        assertEquals(42, in.readInt());
+    }
+
+    @Test
+    public void bytes() throws IOException {
+        byte[] bytes = new byte[1000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (i * 7);
+        }
+        DataOutput out = new DataOutput();
+        out.writeByte(1);
+        // more than the initial buffer size
+        out.write(bytes);
+        out.write(bytes, 10, 5);
+        assertEquals(1 + bytes.length + 5, out.size());
+
+        DataInput in = input(out);
+        assertEquals(1, in.readByte());
+        byte[] read = new byte[bytes.length];
+        in.readFully(read);
+        assertArrayEquals(bytes, read);
+        read = new byte[5];
+        in.readFully(read);
+        assertArrayEquals(Arrays.copyOfRange(bytes, 10, 15), read);
+    }
+
+    @Test
+    public void binaryString() throws IOException {
+        DataOutput out = new DataOutput();
+        out.writeInt(-1);
+        StringBuilder binary = new StringBuilder();
+        for (byte b : out.getBytes()) {
+            binary.append((char) (b & 0xFF));
+        }
+        assertEquals(-1, new DataInput(DataInput.fromBinaryString(binary.toString())).readInt());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void readBeyondEnd() throws IOException {
+        DataOutput out = new DataOutput();
+        out.writeShort(1);
+        input(out).readInt();
+    }
+
+    @Test
+    public void modelNode() throws IOException {
+        ModelNode node = new ModelNode();
+        node.get("int").set(Integer.MIN_VALUE);
+        node.get("long").set(-1L);
+        node.get("double").set(-0.5);
+        node.get("boolean").set(true);
+        node.get("string").set("\u20ac caf\u00e9");
+        node.get("big-decimal").set(new BigDecimal("-123456789.000000001"));
+        node.get("big-integer").set(new BigInteger("-123456789012345678901234567890"));
+        node.get("bytes").set(new byte[]{0, -1, 127, -128});
+        node.get("empty-bytes").set(new byte[0]);
+        node.get("expression").setExpression("${jboss.bind.address:127.0.0.1}");
+        node.get("type").set(ModelType.LONG);
+        node.get("property").set("name", "value");
+        node.get("list").add(1).add("two").add(new byte[]{3});
+        node.get("undefined");
+
+        ModelNode read = new ModelNode();
+        read.readExternal(input(node));
+        assertEquals(node, read);
+        assertArrayEquals(new byte[]{0, -1, 127, -128}, read.get("bytes").asBytes());
+        assertEquals(new BigInteger("-123456789012345678901234567890"), read.get("big-integer").asBigInteger());
+    }
+
+    @Test
+    public void partialModelNode() throws IOException {
+        ModelNode node = new ModelNode();
+        node.get("result", "step-1", "bytes").set(new byte[]{1, 2, 3});
+        node.get("result", "step-1", "big-integer").set(BigInteger.TEN.pow(30));
+        node.get("result", "step-2", "string").set("\u20ac");
+
+        // the sizes of the skipped values must be read correctly
+        ModelNode read = new ModelNode();
+        read.readExternal(input(node), PathFilter.of("result/step-2"));
+        assertFalse(read.get("result").has("step-1"));
+        assertEquals("\u20ac", read.get("result", "step-2", "string").asString());
+    }
+
+    @Test
+    public void base64() {
+        ModelNode node = new ModelNode();
+        node.get("bytes").set(new byte[]{-1, 0, 1});
+        node.get("string").set("\ud83d\ude00");
+        assertEquals(node, ModelNode.fromBase64(node.toBase64String()));
+    }
+
+
+    // ------------------------------------------------------ helper methods
+
+    private DataInput input(DataOutput out) {
+        return new DataInput(out.getBytes());
+    }
+
+    private DataInput input(ModelNode node) throws IOException {
+        DataOutput out = new DataOutput();
+        node.writeExternal(out);
+        return input(out);
+    }
+
+    private String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,106 @@
+package org.jboss.dmr.client;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import static org.junit.Assert.*;
+
+public class JsonValuesTest {
+
+    // ------------------------------------------------------ test methods
+
+    @Test
+    public void integer() {
+        assertNumber(ModelType.INT, 0);
+        assertNumber(ModelType.INT, 42);
+        assertNumber(ModelType.INT, -42);
+        assertNumber(ModelType.INT, Integer.MAX_VALUE);
+        assertNumber(ModelType.INT, Integer.MIN_VALUE);
+        assertEquals(42, JsonValues.number(42).asInt());
+    }
+
+    @Test
+    public void longValue() {
+        assertNumber(ModelType.LONG, Integer.MAX_VALUE + 1d);
+        assertNumber(ModelType.LONG, Integer.MIN_VALUE - 1d);
+        assertNumber(ModelType.LONG, 1L << 53);
+        assertNumber(ModelType.LONG, (double) Long.MIN_VALUE);
+        assertEquals(1L << 53, JsonValues.number(1L << 53).asLong());
+    }
+
+    @Test
+    public void bigInteger() {
+        assertNumber(ModelType.BIG_INTEGER, 1e19);
+        assertEquals(new BigDecimal(1e19).toBigInteger(), JsonValues.number(1e19).asBigInteger());
+        assertTrue(JsonValues.number(1e19).asBigInteger().compareTo(BigInteger.valueOf(Long.MAX_VALUE)) > 0);
+    }
+
+    @Test
+    public void fractional() {
+        assertNumber(ModelType.BIG_DECIMAL, 0.5);
+        assertNumber(ModelType.BIG_DECIMAL, -1.25);
+        assertEquals(new BigDecimal("0.1"), JsonValues.number(0.1).asBigDecimal());
+    }
+
+    @Test
+    public void notANumber() {
+        assertNumber(ModelType.DOUBLE, Double.NaN);
+        assertNumber(ModelType.DOUBLE, Double.POSITIVE_INFINITY);
+    }
+
+    @Test
+    public void sameValueDifferentWireType() {
+        // a LONG or DOUBLE attribute read from JSON has another type than the one read from the binary format
+        ModelNode json = new ModelNode(JsonValues.number(42));
+        ModelNode binary = new ModelNode().set(42L);
+        assertFalse(binary.equals(json));
+        assertEquals(binary.asLong(), json.asLong());
+
+        json = new ModelNode(JsonValues.number(0.5));
+        binary = new ModelNode().set(0.5);
+        assertFalse(binary.equals(json));
+        assertEquals(binary.asDouble(), json.asDouble(), 0);
+    }
+
+    @Test
+    public void expressionHint() {
+        ModelValue value = JsonValues.typeHint(ExpressionValue.TYPE_KEY, "${jboss.home.dir}");
+        assertEquals(ModelType.EXPRESSION, value.getType());
+        assertEquals("${jboss.home.dir}", value.asString());
+    }
+
+    @Test
+    public void bytesHint() {
+        byte[] bytes = {0, 1, -1, 127, -128};
+        ModelValue value = JsonValues.typeHint(BytesModelValue.TYPE_KEY, Base64.encodeBytes(bytes));
+        assertEquals(ModelType.BYTES, value.getType());
+        assertArrayEquals(bytes, value.asBytes());
+    }
+
+    @Test
+    public void typeHint() {
+        ModelValue value = JsonValues.typeHint(TypeModelValue.TYPE_KEY, "LONG");
+        assertEquals(ModelType.TYPE, value.getType());
+        assertEquals(ModelType.LONG, value.asType());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidTypeHint() {
+        JsonValues.typeHint(TypeModelValue.TYPE_KEY, "FOO");
+    }
+
+    @Test
+    public void noTypeHint() {
+        assertNull(JsonValues.typeHint("name", "value"));
+        assertNull(JsonValues.typeHint(PropertyModelValue.TYPE_KEY, "value"));
+    }
+
+
+    // ------------------------------------------------------ helper methods
+
+    private void assertNumber(ModelType type, double value) {
+        assertEquals(type, JsonValues.number(value).getType());
+    }
+}
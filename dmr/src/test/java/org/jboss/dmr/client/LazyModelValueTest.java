@@ -0,0 +1,102 @@
+package org.jboss.dmr.client;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LazyModelValueTest {
+
+    // ------------------------------------------------------ test methods
+
+    @Test
+    public void materializeOnFirstAccess() {
+        Lazy lazy = new Lazy();
+        assertEquals(0, lazy.materialized);
+        assertEquals(ModelType.OBJECT, lazy.getType());
+        assertEquals(0, lazy.materialized);
+
+        ModelNode node = new ModelNode(lazy);
+        assertEquals("foo", node.get("name").asString());
+        assertEquals(8080, node.get("port").asInt());
+        assertEquals(1, lazy.materialized);
+    }
+
+    @Test
+    public void copyBeforeAccess() {
+        Lazy lazy = new Lazy();
+        ModelNode copy = new ModelNode(lazy).clone();
+        assertEquals(0, lazy.materialized);
+        assertEquals("foo", copy.get("name").asString());
+    }
+
+    @Test
+    public void copyAfterAccess() {
+        Lazy lazy = new Lazy();
+        ModelNode node = new ModelNode(lazy);
+        node.get("name");
+        ModelNode copy = node.clone();
+        copy.get("name").set("bar");
+
+        assertEquals(1, lazy.materialized);
+        assertEquals("foo", node.get("name").asString());
+    }
+
+    @Test
+    public void equalsIsSymmetric() {
+        ModelValue lazy = new Lazy();
+        ModelValue value = objectValue();
+
+        assertTrue(lazy.equals(value));
+        assertTrue(value.equals(lazy));
+        assertTrue(lazy.equals(new Lazy()));
+        assertEquals(value.hashCode(), lazy.hashCode());
+        assertEquals(new ModelNode(value), new ModelNode(lazy));
+        assertEquals(new ModelNode(lazy), new ModelNode(value));
+    }
+
+    @Test
+    public void notEqualToOtherTypes() {
+        ModelValue lazy = new Lazy();
+        assertFalse(lazy.equals(null));
+        assertFalse(lazy.equals("foo"));
+        assertFalse("foo".equals(lazy));
+        assertFalse(lazy.equals(new StringModelValue("foo")));
+        assertFalse(new StringModelValue("foo").equals(lazy));
+    }
+
+
+    // ------------------------------------------------------ helper methods
+
+    private static ModelValue objectValue() {
+        ObjectModelValue value = new ObjectModelValue();
+        value.getChild("name").set("foo");
+        value.getChild("port").set(8080);
+        return value;
+    }
+
+
+    // ------------------------------------------------------ helper classes
+
+    /**
+     * Lazy object value which counts how often it was materialized.
+     */
+    private static class Lazy extends LazyModelValue {
+
+        int materialized;
+
+        Lazy() {
+            super(ModelType.OBJECT);
+        }
+
+        @Override
+        ModelValue materialize() {
+            materialized++;
+            return objectValue();
+        }
+
+        @Override
+        ModelValue lazyCopy() {
+            return new Lazy();
+        }
+    }
+}
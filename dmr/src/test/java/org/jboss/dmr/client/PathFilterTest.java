@@ -0,0 +1,74 @@
+package org.jboss.dmr.client;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PathFilterTest {
+
+    // ------------------------------------------------------ test methods
+
+    @Test
+    public void singlePath() {
+        PathFilter filter = PathFilter.of("result/attributes");
+        assertFalse(filter.selectsAll());
+
+        PathFilter result = filter.child("result");
+        assertNotNull(result);
+        assertFalse(result.selectsAll());
+        assertNull(filter.child("outcome"));
+
+        PathFilter attributes = result.child("attributes");
+        assertNotNull(attributes);
+        assertTrue(attributes.selectsAll());
+        assertNull(result.child("operations"));
+
+        // everything below a selected node is selected
+        assertSame(attributes, attributes.child("name").child("type"));
+    }
+
+    @Test
+    public void multiplePaths() {
+        PathFilter filter = PathFilter.of("outcome", "result/step-1", "result/step-2/result");
+        assertTrue(filter.child("outcome").selectsAll());
+
+        PathFilter result = filter.child("result");
+        assertTrue(result.child("step-1").selectsAll());
+        assertFalse(result.child("step-2").selectsAll());
+        assertTrue(result.child("step-2").child("result").selectsAll());
+        assertNull(result.child("step-2").child("outcome"));
+        assertNull(result.child("step-3"));
+    }
+
+    @Test
+    public void shorterPathWins() {
+        PathFilter before = PathFilter.of("result", "result/attributes");
+        assertTrue(before.child("result").selectsAll());
+
+        PathFilter after = PathFilter.of("result/attributes", "result");
+        assertTrue(after.child("result").selectsAll());
+        assertNotNull(after.child("result").child("operations"));
+    }
+
+    @Test
+    public void listItems() {
+        PathFilter filter = PathFilter.of("result/0/address");
+        PathFilter item = filter.child("result").child("0");
+        assertNotNull(item);
+        assertTrue(item.child("address").selectsAll());
+        assertNull(filter.child("result").child("1"));
+    }
+
+    @Test
+    public void ignoreEmptySegments() {
+        PathFilter filter = PathFilter.of("/result//attributes/");
+        assertTrue(filter.child("result").child("attributes").selectsAll());
+    }
+
+    @Test
+    public void emptyPath() {
+        PathFilter filter = PathFilter.of("");
+        assertTrue(filter.selectsAll());
+        assertSame(filter, filter.child("anything"));
+    }
+}
@@ -0,0 +1,424 @@
+package org.jboss.dmr.client.dispatch;
+
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+import org.jboss.dmr.client.ModelNode;
+import org.jboss.dmr.client.dispatch.impl.DMRAction;
+import org.jboss.dmr.client.dispatch.impl.DMRResponse;
+import org.jboss.dmr.client.dispatch.impl.DispatchAsyncImpl;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.jboss.dmr.client.ModelDescriptionConstants.*;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class DMRCacheTest {
+
+    // ------------------------------------------------------ key
+
+    @Test
+    public void keyIgnoresOrder() {
+        ModelNode first = new ModelNode();
+        first.get(OP).set(READ_RESOURCE_OPERATION);
+        first.get(ADDRESS).add("subsystem", "datasources");
+        first.get(RECURSIVE).set(true);
+        first.get(INCLUDE_RUNTIME).set(false);
+
+        ModelNode second = new ModelNode();
+        second.get(INCLUDE_RUNTIME).set(false);
+        second.get(RECURSIVE).set(true);
+        second.get(ADDRESS).add("subsystem", "datasources");
+        second.get(OP).set(READ_RESOURCE_OPERATION);
+
+        assertEquals(DMRCache.key(first, null), DMRCache.key(second, null));
+    }
+
+    @Test
+    public void keyDistinguishesValues() {
+        ModelNode recursive = readResource("subsystem", "datasources");
+        recursive.get(RECURSIVE).set(true);
+        ModelNode flat = readResource("subsystem", "datasources");
+        flat.get(RECURSIVE).set(false);
+        ModelNode other = readResource("subsystem", "logging");
+
+        assertNotEquals(DMRCache.key(recursive, null), DMRCache.key(flat, null));
+        assertNotEquals(DMRCache.key(flat, null), DMRCache.key(other, null));
+    }
+
+    @Test
+    public void keyDistinguishesTypes() {
+        ModelNode string = readResource("subsystem", "foo");
+        string.get("depth").set("1");
+        ModelNode number = readResource("subsystem", "foo");
+        number.get("depth").set(1);
+
+        assertNotEquals(DMRCache.key(string, null), DMRCache.key(number, null));
+    }
+
+    @Test
+    public void keyIncludesProperties() {
+        ModelNode operation = readResource("subsystem", "foo");
+        Map<String, String> first = new HashMap<String, String>();
+        first.put("run_as", "Monitor");
+        first.put("wire-format", "dmr");
+        Map<String, String> second = new HashMap<String, String>();
+        second.put("wire-format", "dmr");
+        second.put("run_as", "Monitor");
+        Map<String, String> other = new HashMap<String, String>();
+        other.put("run_as", "Operator");
+
+        assertEquals(DMRCache.key(operation, first), DMRCache.key(operation, second));
+        assertNotEquals(DMRCache.key(operation, first), DMRCache.key(operation, other));
+        assertEquals(DMRCache.key(operation, null), DMRCache.key(operation, new HashMap<String, String>()));
+    }
+
+
+    // ------------------------------------------------------ read-only / cachable
+
+    @Test
+    public void cachableRead() {
+        ModelNode operation = readResource("subsystem", "foo");
+        assertTrue(DMRCache.isReadOnly(operation));
+        assertTrue(DMRCache.isCachable(operation));
+    }
+
+    @Test
+    public void includeRuntime() {
+        ModelNode operation = readResource("subsystem", "foo");
+        operation.get(INCLUDE_RUNTIME).set(true);
+        assertTrue(DMRCache.isReadOnly(operation));
+        assertFalse(DMRCache.isCachable(operation));
+    }
+
+    @Test
+    public void readAttribute() {
+        ModelNode operation = new ModelNode();
+        operation.get(OP).set(READ_ATTRIBUTE_OPERATION);
+        operation.get(ADDRESS).add("subsystem", "logging").add("log-file", "server.log");
+        operation.get(NAME).set("file-size");
+        assertTrue(DMRCache.isReadOnly(operation));
+        assertFalse(DMRCache.isCachable(operation));
+    }
+
+    @Test
+    public void write() {
+        ModelNode operation = writeAttribute("subsystem", "foo");
+        assertFalse(DMRCache.isReadOnly(operation));
+        assertFalse(DMRCache.isCachable(operation));
+    }
+
+    @Test
+    public void composite() {
+        ModelNode reads = composite(readResource("subsystem", "foo"), readResource("subsystem", "bar"));
+        assertTrue(DMRCache.isReadOnly(reads));
+        assertTrue(DMRCache.isCachable(reads));
+
+        ModelNode mixed = composite(readResource("subsystem", "foo"), writeAttribute("subsystem", "bar"));
+        assertFalse(DMRCache.isReadOnly(mixed));
+
+        ModelNode empty = new ModelNode();
+        empty.get(OP).set(COMPOSITE);
+        assertFalse(DMRCache.isReadOnly(empty));
+    }
+
+
+    // ------------------------------------------------------ cache access
+
+    @Test
+    public void hitAndMiss() {
+        DMRCache cache = new DMRCache();
+        ModelNode operation = readResource("subsystem", "foo");
+        String key = DMRCache.key(operation, null);
+
+        assertNull(cache.get(key));
+        cache.put(key, operation, response("foo"));
+        assertEquals("foo", cache.get(key).get().get(RESULT).asString());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        cache.resetStatistics();
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    public void expiry() {
+        DMRCache cache = new DMRCache(0, 10);
+        ModelNode operation = readResource("subsystem", "foo");
+        String key = DMRCache.key(operation, null);
+        cache.put(key, operation, response("foo"));
+
+        assertNull(cache.get(key));
+        assertEquals(0, cache.size());
+
+        cache.put(key, operation, response("foo"));
+        assertEquals(1, cache.size());
+        cache.sweep();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() {
+        DMRCache cache = new DMRCache(DMRCache.DEFAULT_EXPIRY_TIME_MS, 2);
+        String a = put(cache, readResource("subsystem", "a"));
+        String b = put(cache, readResource("subsystem", "b"));
+        assertNotNull(cache.get(a));
+        String c = put(cache, readResource("subsystem", "c"));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(a));
+        assertNull(cache.get(b));
+        assertNotNull(cache.get(c));
+    }
+
+
+    // ------------------------------------------------------ invalidation
+
+    @Test
+    public void invalidateSameAndChildAddress() {
+        DMRCache cache = new DMRCache();
+        String resource = put(cache, readResource("subsystem", "foo"));
+        String child = put(cache, readResource("subsystem", "foo", "bar", "baz"));
+        String other = put(cache, readResource("subsystem", "other"));
+
+        cache.invalidate(writeAttribute("subsystem", "foo"));
+
+        assertNull(cache.get(resource));
+        assertNull(cache.get(child));
+        assertNotNull(cache.get(other));
+    }
+
+    @Test
+    public void invalidateParentAddress() {
+        DMRCache cache = new DMRCache();
+        // a (recursive) read of the parent contains the written child
+        String parent = put(cache, readResource("subsystem", "foo"));
+        String sibling = put(cache, readResource("subsystem", "foo", "bar", "other"));
+
+        cache.invalidate(writeAttribute("subsystem", "foo", "bar", "baz"));
+
+        assertNull(cache.get(parent));
+        assertNotNull(cache.get(sibling));
+    }
+
+    @Test
+    public void invalidateWildcard() {
+        DMRCache cache = new DMRCache();
+        String wildcard = put(cache, readResource("subsystem", "*"));
+        String other = put(cache, readResource("interface", "public"));
+
+        cache.invalidate(writeAttribute("subsystem", "foo"));
+
+        assertNull(cache.get(wildcard));
+        assertNotNull(cache.get(other));
+    }
+
+    @Test
+    public void invalidateRoot() {
+        DMRCache cache = new DMRCache();
+        String root = put(cache, readResource());
+        put(cache, readResource("subsystem", "foo"));
+
+        cache.invalidate(writeAttribute("subsystem", "bar"));
+
+        // the root address is a prefix of every address
+        assertNull(cache.get(root));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void invalidateComposite() {
+        DMRCache cache = new DMRCache();
+        String composite = put(cache, composite(readResource("subsystem", "foo"), readResource("subsystem", "bar")));
+        String other = put(cache, readResource("subsystem", "other"));
+
+        cache.invalidate(writeAttribute("subsystem", "bar"));
+
+        assertNull(cache.get(composite));
+        assertNotNull(cache.get(other));
+    }
+
+
+    @Test
+    public void putAfterInvalidation() {
+        DMRCache cache = new DMRCache();
+        ModelNode operation = readResource("subsystem", "foo");
+        String key = DMRCache.key(operation, null);
+
+        int generation = cache.getGeneration();
+        cache.invalidate(writeAttribute("subsystem", "foo"));
+        assertFalse(cache.put(key, operation, response("stale"), generation));
+        assertEquals(0, cache.size());
+
+        generation = cache.getGeneration();
+        assertTrue(cache.put(key, operation, response("fresh"), generation));
+        cache.clear();
+        assertFalse(cache.put(key, operation, response("stale"), generation));
+    }
+
+
+    // ------------------------------------------------------ dispatcher
+
+    @Test
+    public void readOverlapsWrite() {
+        DMRCache cache = new DMRCache();
+        PendingHandler handler = new PendingHandler();
+        DispatchAsyncImpl dispatcher = new DispatchAsyncImpl(mapping(handler), cache, new DispatchMetrics(), null);
+        ModelNode read = readResource("subsystem", "foo");
+
+        // the read is sent before the write, but its response arrives after the write has been executed
+        dispatcher.execute(new DMRAction(read), new RecordingCallback());
+        dispatcher.execute(new DMRAction(writeAttribute("subsystem", "foo")), new RecordingCallback());
+        handler.respond(1, response("written"));
+        handler.respond(0, response("stale"));
+        assertEquals(0, cache.size());
+
+        // the next read is cached as usual
+        dispatcher.execute(new DMRAction(read), new RecordingCallback());
+        handler.respond(2, response("fresh"));
+        assertEquals("fresh", cache.get(DMRCache.key(read, null)).get().get(RESULT).asString());
+    }
+
+    @Test
+    public void deferCacheHit() {
+        DMRCache cache = new DMRCache();
+        Scheduler scheduler = mock(Scheduler.class);
+        DispatchAsyncImpl dispatcher = new DispatchAsyncImpl(mapping(new PendingHandler()), cache,
+                new DispatchMetrics(), scheduler);
+        ModelNode read = readResource("subsystem", "foo");
+        put(cache, read);
+
+        RecordingCallback callback = new RecordingCallback();
+        DispatchRequest request = dispatcher.execute(new DMRAction(read), callback);
+        assertTrue(request.isPending());
+        assertNull(callback.result);
+
+        ArgumentCaptor<Scheduler.ScheduledCommand> command = ArgumentCaptor.forClass(Scheduler.ScheduledCommand.class);
+        verify(scheduler).scheduleDeferred(command.capture());
+        command.getValue().execute();
+        assertFalse(request.isPending());
+        assertNotNull(callback.result);
+    }
+
+    @Test
+    public void cancelCacheHit() {
+        DMRCache cache = new DMRCache();
+        Scheduler scheduler = mock(Scheduler.class);
+        DispatchAsyncImpl dispatcher = new DispatchAsyncImpl(mapping(new PendingHandler()), cache,
+                new DispatchMetrics(), scheduler);
+        ModelNode read = readResource("subsystem", "foo");
+        put(cache, read);
+
+        RecordingCallback callback = new RecordingCallback();
+        dispatcher.execute(new DMRAction(read), callback).cancel();
+
+        ArgumentCaptor<Scheduler.ScheduledCommand> command = ArgumentCaptor.forClass(Scheduler.ScheduledCommand.class);
+        verify(scheduler).scheduleDeferred(command.capture());
+        command.getValue().execute();
+        assertNull(callback.result);
+    }
+
+
+    // ------------------------------------------------------ helper methods
+
+    @SuppressWarnings("unchecked")
+    private HandlerMapping mapping(PendingHandler handler) {
+        HandlerMapping mapping = mock(HandlerMapping.class);
+        when(mapping.resolve(any(Action.class))).thenReturn(handler);
+        return mapping;
+    }
+
+    private String put(DMRCache cache, ModelNode operation) {
+        String key = DMRCache.key(operation, null);
+        cache.put(key, operation, response(key));
+        return key;
+    }
+
+    private DMRResponse response(String result) {
+        ModelNode node = new ModelNode();
+        node.get(OUTCOME).set(SUCCESS);
+        node.get(RESULT).set(result);
+        return new DMRResponse(node);
+    }
+
+    private ModelNode readResource(String... address) {
+        ModelNode operation = new ModelNode();
+        operation.get(OP).set(READ_RESOURCE_OPERATION);
+        address(operation, address);
+        return operation;
+    }
+
+    private ModelNode writeAttribute(String... address) {
+        ModelNode operation = new ModelNode();
+        operation.get(OP).set(WRITE_ATTRIBUTE_OPERATION);
+        address(operation, address);
+        operation.get(NAME).set("enabled");
+        operation.get(VALUE).set(true);
+        return operation;
+    }
+
+    private void address(ModelNode operation, String... address) {
+        operation.get(ADDRESS).setEmptyList();
+        for (int i = 0; i < address.length; i += 2) {
+            operation.get(ADDRESS).add(address[i], address[i + 1]);
+        }
+    }
+
+    private ModelNode composite(ModelNode... steps) {
+        ModelNode operation = new ModelNode();
+        operation.get(OP).set(COMPOSITE);
+        operation.get(ADDRESS).setEmptyList();
+        for (ModelNode step : steps) {
+            operation.get(STEPS).add(step);
+        }
+        return operation;
+    }
+
+
+    /**
+     * Keeps the callbacks until the test responds.
+     */
+    private static class PendingHandler implements ActionHandler<DMRAction, DMRResponse> {
+
+        final List<AsyncCallback<DMRResponse>> callbacks = new ArrayList<AsyncCallback<DMRResponse>>();
+
+        void respond(int index, DMRResponse response) {
+            callbacks.get(index).onSuccess(response);
+        }
+
+        @Override
+        public DispatchRequest execute(DMRAction action, AsyncCallback<DMRResponse> callback,
+                Map<String, String> properties) {
+            callbacks.add(callback);
+            return null;
+        }
+
+        @Override
+        public DispatchRequest undo(DMRAction action, DMRResponse result, AsyncCallback<Void> callback) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+
+    private static class RecordingCallback implements AsyncCallback<DMRResponse> {
+
+        DMRResponse result;
+
+        @Override
+        public void onFailure(Throwable caught) {
+            fail("Unexpected failure: " + caught);
+        }
+
+        @Override
+        public void onSuccess(DMRResponse result) {
+            this.result = result;
+        }
+    }
+}
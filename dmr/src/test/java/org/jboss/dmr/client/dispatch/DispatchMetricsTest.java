@@ -0,0 +1,163 @@
+package org.jboss.dmr.client.dispatch;
+
+import org.jboss.dmr.client.ModelNode;
+import org.jboss.dmr.client.dispatch.DispatchMetrics.Phase;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.jboss.dmr.client.ModelDescriptionConstants.*;
+import static org.junit.Assert.*;
+
+public class DispatchMetricsTest {
+
+    private DispatchMetrics metrics;
+
+    @Before
+    public void setUp() {
+        metrics = new DispatchMetrics();
+    }
+
+
+    // ------------------------------------------------------ test methods
+
+    @Test
+    public void groupByOperation() {
+        metrics.recordRequest(operation(READ_RESOURCE_OPERATION), 10);
+        metrics.recordRequest(operation(READ_RESOURCE_OPERATION), 20);
+        metrics.recordRequest(operation(WRITE_ATTRIBUTE_OPERATION), 5);
+        metrics.recordResponse(operation(READ_RESOURCE_OPERATION), 100);
+        metrics.recordCacheHit(operation(READ_RESOURCE_OPERATION));
+
+        DispatchMetrics.OperationMetrics read = metrics.getOperation(READ_RESOURCE_OPERATION);
+        assertEquals(2, read.getRequests());
+        assertEquals(30, read.getRequestBytes());
+        assertEquals(100, read.getResponseBytes());
+        assertEquals(1, read.getCacheHits());
+        assertEquals(1, metrics.getOperation(WRITE_ATTRIBUTE_OPERATION).getRequests());
+
+        assertEquals(3, metrics.getRequests());
+        assertEquals(1, metrics.getCacheHits());
+        assertEquals(100, metrics.getResponseBytes());
+    }
+
+    @Test
+    public void attributeCompositeToSteps() {
+        ModelNode composite = composite(operation(READ_RESOURCE_OPERATION), operation(READ_RESOURCE_OPERATION),
+                operation(READ_CHILDREN_NAMES_OPERATION));
+        metrics.recordRequest(composite, 10);
+        metrics.recordResponse(composite, 100);
+        metrics.record(composite, Phase.NETWORK, 42);
+
+        assertNull(metrics.getOperation(COMPOSITE));
+        DispatchMetrics.OperationMetrics read = metrics.getOperation(READ_RESOURCE_OPERATION);
+        DispatchMetrics.OperationMetrics names = metrics.getOperation(READ_CHILDREN_NAMES_OPERATION);
+        assertEquals(2, read.getRequests());
+        assertEquals(1, names.getRequests());
+
+        // each step waited for the whole composite
+        assertEquals(2, read.getHistogram(Phase.NETWORK).getCount());
+        assertEquals(42, read.getHistogram(Phase.NETWORK).getMax());
+        assertEquals(1, names.getHistogram(Phase.NETWORK).getCount());
+
+        // bytes are split without losing the remainder
+        assertEquals(10, read.getRequestBytes() + names.getRequestBytes());
+        assertEquals(67, read.getResponseBytes());
+        assertEquals(33, names.getResponseBytes());
+    }
+
+    @Test
+    public void nestedComposite() {
+        ModelNode composite = composite(operation(READ_RESOURCE_OPERATION),
+                composite(operation(READ_CHILDREN_TYPES_OPERATION)));
+        metrics.recordCacheHit(composite);
+
+        assertEquals(1, metrics.getOperation(READ_RESOURCE_OPERATION).getCacheHits());
+        assertEquals(1, metrics.getOperation(READ_CHILDREN_TYPES_OPERATION).getCacheHits());
+    }
+
+    @Test
+    public void compositeWithoutSteps() {
+        ModelNode composite = operation(COMPOSITE);
+        metrics.recordRequest(composite, 10);
+        assertEquals(1, metrics.getOperation(COMPOSITE).getRequests());
+    }
+
+    @Test
+    public void histogram() {
+        DispatchMetrics.Histogram histogram = new DispatchMetrics.Histogram();
+        assertEquals(0, histogram.getMin());
+        assertEquals(0, histogram.getPercentile(50));
+
+        for (long millis : new long[]{1, 3, 3, 8, 40, 700}) {
+            histogram.record(millis);
+        }
+        assertEquals(6, histogram.getCount());
+        assertEquals(755, histogram.getSum());
+        assertEquals(1, histogram.getMin());
+        assertEquals(700, histogram.getMax());
+        assertEquals(755 / 6.0, histogram.getMean(), 0.001);
+        // percentiles are reported as upper bucket boundaries
+        assertEquals(5, histogram.getPercentile(50));
+        assertEquals(700, histogram.getPercentile(99));
+    }
+
+    @Test
+    public void sortByTotalTime() {
+        metrics.record(operation(READ_RESOURCE_OPERATION), Phase.NETWORK, 10);
+        metrics.record(operation(WRITE_ATTRIBUTE_OPERATION), Phase.NETWORK, 20);
+        metrics.record(operation(READ_RESOURCE_OPERATION), Phase.CALLBACK, 15);
+
+        List<DispatchMetrics.OperationMetrics> operations = metrics.getOperations();
+        assertEquals(READ_RESOURCE_OPERATION, operations.get(0).getOperation());
+        assertEquals(25, operations.get(0).getTotalTime());
+        assertEquals(WRITE_ATTRIBUTE_OPERATION, operations.get(1).getOperation());
+    }
+
+    @Test
+    public void disabled() {
+        metrics.setEnabled(false);
+        metrics.recordRequest(operation(READ_RESOURCE_OPERATION), 10);
+        metrics.record(operation(READ_RESOURCE_OPERATION), Phase.NETWORK, 10);
+        assertTrue(metrics.getOperations().isEmpty());
+    }
+
+    @Test
+    public void reset() {
+        metrics.recordRequest(operation(READ_RESOURCE_OPERATION), 10);
+        metrics.reset();
+        assertEquals(0, metrics.getRequests());
+        assertNull(metrics.getOperation(READ_RESOURCE_OPERATION));
+    }
+
+    @Test
+    public void json() {
+        metrics.recordRequest(operation(READ_RESOURCE_OPERATION), 10);
+        metrics.record(operation(READ_RESOURCE_OPERATION), Phase.NETWORK, 3);
+
+        assertTrue(metrics.toJSON().contains(READ_RESOURCE_OPERATION));
+        ModelNode read = metrics.getOperation(READ_RESOURCE_OPERATION).toModelNode();
+        assertEquals(1, read.get("requests").asInt());
+        assertEquals(1, read.get("network").get("count").asInt());
+        assertEquals(1, read.get("network").get("buckets").get("<=5").asInt());
+    }
+
+
+    // ------------------------------------------------------ helper methods
+
+    private ModelNode operation(String name) {
+        ModelNode operation = new ModelNode();
+        operation.get(OP).set(name);
+        operation.get(ADDRESS).setEmptyList();
+        return operation;
+    }
+
+    private ModelNode composite(ModelNode... steps) {
+        ModelNode operation = operation(COMPOSITE);
+        for (ModelNode step : steps) {
+            operation.get(STEPS).add(step);
+        }
+        return operation;
+    }
+}
@@ -0,0 +1,293 @@
+package org.jboss.dmr.client.dispatch;
+
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+import org.jboss.dmr.client.ModelNode;
+import org.jboss.dmr.client.dispatch.impl.DMRAction;
+import org.jboss.dmr.client.dispatch.impl.DMRResponse;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.jboss.dmr.client.ModelDescriptionConstants.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class RequestBatcherTest {
+
+    private RecordingSender sender;
+    private RequestBatcher batcher;
+
+    @Before
+    public void setUp() {
+        sender = new RecordingSender();
+        batcher = new RequestBatcher(sender, mock(Scheduler.class));
+        batcher.setEnabled(true);
+    }
+
+
+    // ------------------------------------------------------ test methods
+
+    @Test
+    public void singleOperation() {
+        RecordingCallback callback = new RecordingCallback();
+        batcher.execute(new DMRAction(readResource("foo")), callback);
+        batcher.flush();
+
+        assertEquals(1, sender.actions.size());
+        assertEquals(READ_RESOURCE_OPERATION, sender.operation(0).get(OP).asString());
+        assertEquals(0, batcher.getBatches());
+
+        sender.callbacks.get(0).onSuccess(new DMRResponse(success("foo")));
+        assertEquals("foo", callback.success.get(RESULT).asString());
+    }
+
+    @Test
+    public void writesAreNotBatched() {
+        batcher.execute(new DMRAction(writeAttribute("foo")), new RecordingCallback());
+
+        assertEquals(1, sender.actions.size());
+        batcher.flush();
+        assertEquals(1, sender.actions.size());
+    }
+
+    @Test
+    public void readsBeforeWrite() {
+        batcher.execute(new DMRAction(readResource("foo")), new RecordingCallback());
+        batcher.execute(new DMRAction(readResource("bar")), new RecordingCallback());
+        batcher.execute(new DMRAction(writeAttribute("foo")), new RecordingCallback());
+
+        // the pending reads are sent before the write
+        assertEquals(2, sender.actions.size());
+        assertEquals(COMPOSITE, sender.operation(0).get(OP).asString());
+        assertEquals(WRITE_ATTRIBUTE_OPERATION, sender.operation(1).get(OP).asString());
+
+        // reads issued after the write are batched again
+        batcher.execute(new DMRAction(readResource("foo")), new RecordingCallback());
+        assertEquals(2, sender.actions.size());
+        batcher.flush();
+        assertEquals(READ_RESOURCE_OPERATION, sender.operation(2).get(OP).asString());
+    }
+
+    @Test
+    public void compositeInOrder() {
+        RecordingCallback foo = new RecordingCallback();
+        RecordingCallback bar = new RecordingCallback();
+        batcher.execute(new DMRAction(readResource("foo")), foo);
+        batcher.execute(new DMRAction(readResource("bar")), bar);
+        batcher.flush();
+
+        assertEquals(1, sender.actions.size());
+        ModelNode composite = sender.operation(0);
+        assertEquals(COMPOSITE, composite.get(OP).asString());
+        List<ModelNode> steps = composite.get(STEPS).asList();
+        assertEquals(2, steps.size());
+        assertEquals("foo", steps.get(0).get(ADDRESS).asPropertyList().get(0).getValue().asString());
+        assertEquals("bar", steps.get(1).get(ADDRESS).asPropertyList().get(0).getValue().asString());
+
+        sender.callbacks.get(0).onSuccess(new DMRResponse(compositeResult(success("foo"), success("bar"))));
+        assertEquals("foo", foo.success.get(RESULT).asString());
+        assertEquals("bar", bar.success.get(RESULT).asString());
+        assertEquals(1, batcher.getBatches());
+        assertEquals(2, batcher.getBatchedOperations());
+    }
+
+    @Test
+    public void deduplicate() {
+        RecordingCallback first = new RecordingCallback();
+        RecordingCallback second = new RecordingCallback();
+        RecordingCallback other = new RecordingCallback();
+        batcher.execute(new DMRAction(readResource("foo")), first);
+        batcher.execute(new DMRAction(readResource("foo")), second);
+        batcher.execute(new DMRAction(readResource("bar")), other);
+        batcher.flush();
+
+        assertEquals(2, sender.operation(0).get(STEPS).asList().size());
+
+        sender.callbacks.get(0).onSuccess(new DMRResponse(compositeResult(success("foo"), success("bar"))));
+        assertEquals("foo", first.success.get(RESULT).asString());
+        assertEquals("foo", second.success.get(RESULT).asString());
+        // each callback gets its own copy
+        assertNotSame(first.success, second.success);
+        assertEquals("bar", other.success.get(RESULT).asString());
+    }
+
+    @Test
+    public void cancelled() {
+        RecordingCallback foo = new RecordingCallback();
+        RecordingCallback bar = new RecordingCallback();
+        RecordingCallback baz = new RecordingCallback();
+        DispatchRequest request = batcher.execute(new DMRAction(readResource("foo")), foo);
+        batcher.execute(new DMRAction(readResource("bar")), bar);
+        batcher.execute(new DMRAction(readResource("baz")), baz);
+        request.cancel();
+        assertFalse(request.isPending());
+        batcher.flush();
+
+        List<ModelNode> steps = sender.operation(0).get(STEPS).asList();
+        assertEquals(2, steps.size());
+        assertEquals("bar", steps.get(0).get(ADDRESS).asPropertyList().get(0).getValue().asString());
+
+        sender.callbacks.get(0).onSuccess(new DMRResponse(compositeResult(success("bar"), success("baz"))));
+        assertFalse(foo.called());
+        assertTrue(bar.called());
+        assertTrue(baz.called());
+    }
+
+    @Test
+    public void failingStep() {
+        RecordingCallback foo = new RecordingCallback();
+        RecordingCallback bar = new RecordingCallback();
+        RecordingCallback baz = new RecordingCallback();
+        batcher.execute(new DMRAction(readResource("foo")), foo);
+        batcher.execute(new DMRAction(readResource("bar")), bar);
+        batcher.execute(new DMRAction(readResource("baz")), baz);
+        batcher.flush();
+
+        // the server fails the composite as a whole if one step fails; "baz" has not been executed
+        ModelNode response = compositeResult(success("foo"), failed("bar not found"), new ModelNode());
+        response.get(OUTCOME).set(FAILED);
+        sender.callbacks.get(0).onFailure(new DispatchError("Unexpected HTTP response: 500", 500, response));
+
+        assertEquals("foo", foo.success.get(RESULT).asString());
+        assertNull(bar.success);
+        assertTrue(bar.failure instanceof DispatchError);
+        assertEquals("bar not found", bar.failure.getMessage());
+        assertEquals(500, ((DispatchError) bar.failure).getStatusCode());
+
+        // "baz" is retried as an individual operation
+        assertFalse(baz.called());
+        assertEquals(2, sender.actions.size());
+        assertEquals(READ_RESOURCE_OPERATION, sender.operation(1).get(OP).asString());
+        sender.callbacks.get(1).onSuccess(new DMRResponse(success("baz")));
+        assertEquals("baz", baz.success.get(RESULT).asString());
+    }
+
+    @Test
+    public void failureWithoutResponse() {
+        RecordingCallback foo = new RecordingCallback();
+        RecordingCallback bar = new RecordingCallback();
+        DispatchRequest cancelled = batcher.execute(new DMRAction(readResource("baz")), new RecordingCallback());
+        batcher.execute(new DMRAction(readResource("foo")), foo);
+        batcher.execute(new DMRAction(readResource("bar")), bar);
+        batcher.flush();
+        cancelled.cancel();
+
+        sender.callbacks.get(0).onFailure(new RuntimeException("Network error"));
+
+        // fall back to individual operations for the steps which are still waiting
+        assertEquals(3, sender.actions.size());
+        assertEquals(READ_RESOURCE_OPERATION, sender.operation(1).get(OP).asString());
+        assertEquals(READ_RESOURCE_OPERATION, sender.operation(2).get(OP).asString());
+        sender.callbacks.get(1).onSuccess(new DMRResponse(success("foo")));
+        sender.callbacks.get(2).onFailure(new RuntimeException("Network error"));
+        assertEquals("foo", foo.success.get(RESULT).asString());
+        assertNotNull(bar.failure);
+    }
+
+    @Test
+    public void staleComposite() {
+        RecordingCallback foo = new RecordingCallback();
+        RecordingCallback bar = new RecordingCallback();
+        batcher.execute(new DMRAction(readResource("foo")), foo);
+        batcher.execute(new DMRAction(readResource("bar")), bar);
+        batcher.flush();
+
+        sender.callbacks.get(0).onFailure(new CancelledException("stale"));
+
+        // stale steps must not be retried
+        assertEquals(1, sender.actions.size());
+        assertTrue(foo.failure instanceof CancelledException);
+        assertTrue(bar.failure instanceof CancelledException);
+    }
+
+
+    // ------------------------------------------------------ helper methods
+
+    private ModelNode readResource(String name) {
+        ModelNode op = new ModelNode();
+        op.get(OP).set(READ_RESOURCE_OPERATION);
+        op.get(ADDRESS).add("subsystem", name);
+        return op;
+    }
+
+    private ModelNode writeAttribute(String name) {
+        ModelNode op = new ModelNode();
+        op.get(OP).set(WRITE_ATTRIBUTE_OPERATION);
+        op.get(ADDRESS).add("subsystem", name);
+        return op;
+    }
+
+    private ModelNode success(String result) {
+        ModelNode node = new ModelNode();
+        node.get(OUTCOME).set(SUCCESS);
+        node.get(RESULT).set(result);
+        return node;
+    }
+
+    private ModelNode failed(String description) {
+        ModelNode node = new ModelNode();
+        node.get(OUTCOME).set(FAILED);
+        node.get(FAILURE_DESCRIPTION).set(description);
+        return node;
+    }
+
+    private ModelNode compositeResult(ModelNode... steps) {
+        ModelNode node = new ModelNode();
+        node.get(OUTCOME).set(SUCCESS);
+        for (int i = 0; i < steps.length; i++) {
+            node.get(RESULT).get("step-" + (i + 1)).set(steps[i]);
+        }
+        return node;
+    }
+
+
+    private static class RecordingSender implements RequestBatcher.Sender {
+
+        final List<DMRAction> actions = new ArrayList<DMRAction>();
+        final List<AsyncCallback<DMRResponse>> callbacks = new ArrayList<AsyncCallback<DMRResponse>>();
+
+        @Override
+        public DispatchRequest send(DMRAction action, AsyncCallback<DMRResponse> callback) {
+            actions.add(action);
+            callbacks.add(callback);
+            return new DispatchRequest() {
+                @Override
+                public void cancel() {
+                }
+
+                @Override
+                public boolean isPending() {
+                    return true;
+                }
+            };
+        }
+
+        ModelNode operation(int index) {
+            return actions.get(index).getOperation();
+        }
+    }
+
+
+    private static class RecordingCallback implements AsyncCallback<DMRResponse> {
+
+        ModelNode success;
+        Throwable failure;
+
+        @Override
+        public void onFailure(Throwable caught) {
+            failure = caught;
+        }
+
+        @Override
+        public void onSuccess(DMRResponse result) {
+            success = result.get();
+        }
+
+        boolean called() {
+            return success != null || failure != null;
+        }
+    }
+}
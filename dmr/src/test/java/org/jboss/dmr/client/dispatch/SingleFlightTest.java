@@ -0,0 +1,210 @@
+package org.jboss.dmr.client.dispatch;
+
+import com.google.gwt.user.client.rpc.AsyncCallback;
+import org.jboss.dmr.client.ModelNode;
+import org.jboss.dmr.client.dispatch.impl.DMRResponse;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.jboss.dmr.client.ModelDescriptionConstants.*;
+import static org.junit.Assert.*;
+
+public class SingleFlightTest {
+
+    private SingleFlight singleFlight;
+    private RecordingSender sender;
+
+    @Before
+    public void setUp() {
+        singleFlight = new SingleFlight();
+        sender = new RecordingSender();
+    }
+
+
+    // ------------------------------------------------------ test methods
+
+    @Test
+    public void deduplicate() {
+        RecordingCallback first = new RecordingCallback();
+        RecordingCallback second = new RecordingCallback();
+        RecordingCallback other = new RecordingCallback();
+        singleFlight.execute("foo", first, sender);
+        singleFlight.execute("foo", second, sender);
+        singleFlight.execute("bar", other, sender);
+
+        assertEquals(2, sender.callbacks.size());
+        assertEquals(2, singleFlight.size());
+        assertEquals(1, singleFlight.getJoined());
+
+        sender.callbacks.get(0).onSuccess(new DMRResponse(success("foo")));
+        assertEquals("foo", first.success.get(RESULT).asString());
+        assertEquals("foo", second.success.get(RESULT).asString());
+        // each callback gets its own copy
+        assertNotSame(first.success, second.success);
+        assertFalse(other.called());
+        assertEquals(1, singleFlight.size());
+    }
+
+    @Test
+    public void landed() {
+        RecordingCallback first = new RecordingCallback();
+        RecordingCallback second = new RecordingCallback();
+        singleFlight.execute("foo", first, sender);
+        sender.callbacks.get(0).onSuccess(new DMRResponse(success("foo")));
+
+        // a landed flight is not joined
+        singleFlight.execute("foo", second, sender);
+        assertEquals(2, sender.callbacks.size());
+        assertEquals(0, singleFlight.getJoined());
+        assertFalse(second.called());
+    }
+
+    @Test
+    public void failure() {
+        RecordingCallback first = new RecordingCallback();
+        RecordingCallback second = new RecordingCallback();
+        singleFlight.execute("foo", first, sender);
+        singleFlight.execute("foo", second, sender);
+
+        RuntimeException error = new RuntimeException("Network error");
+        sender.callbacks.get(0).onFailure(error);
+        assertSame(error, first.failure);
+        assertSame(error, second.failure);
+        assertEquals(0, singleFlight.size());
+    }
+
+    @Test
+    public void cancelAttached() {
+        RecordingCallback first = new RecordingCallback();
+        RecordingCallback second = new RecordingCallback();
+        DispatchRequest request = singleFlight.execute("foo", first, sender);
+        singleFlight.execute("foo", second, sender);
+
+        // the second request still needs the underlying request
+        request.cancel();
+        assertFalse(request.isPending());
+        assertTrue(sender.requests.get(0).isPending());
+
+        sender.callbacks.get(0).onSuccess(new DMRResponse(success("foo")));
+        assertFalse(first.called());
+        assertEquals("foo", second.success.get(RESULT).asString());
+    }
+
+    @Test
+    public void cancelAll() {
+        DispatchRequest first = singleFlight.execute("foo", new RecordingCallback(), sender);
+        DispatchRequest second = singleFlight.execute("foo", new RecordingCallback(), sender);
+
+        first.cancel();
+        first.cancel();
+        assertTrue(sender.requests.get(0).isPending());
+        second.cancel();
+        assertFalse(sender.requests.get(0).isPending());
+        assertEquals(0, singleFlight.size());
+
+        // a new request starts a new flight
+        RecordingCallback third = new RecordingCallback();
+        singleFlight.execute("foo", third, sender);
+        assertEquals(2, sender.callbacks.size());
+    }
+
+    @Test
+    public void cancelledWithoutNotice() {
+        RecordingCallback first = new RecordingCallback();
+        RecordingCallback second = new RecordingCallback();
+        singleFlight.execute("foo", first, sender);
+        // e.g. a stale request which was cancelled by the request queue
+        sender.requests.get(0).cancel();
+
+        singleFlight.execute("foo", second, sender);
+        assertEquals(2, sender.callbacks.size());
+        assertEquals(0, singleFlight.getJoined());
+        sender.callbacks.get(1).onSuccess(new DMRResponse(success("foo")));
+        assertEquals("foo", second.success.get(RESULT).asString());
+    }
+
+    @Test
+    public void forget() {
+        RecordingCallback first = new RecordingCallback();
+        RecordingCallback second = new RecordingCallback();
+        singleFlight.execute("foo", first, sender);
+        singleFlight.forget();
+        assertEquals(0, singleFlight.size());
+
+        // subsequent operations don't join, but the pending flight still delivers its result
+        singleFlight.execute("foo", second, sender);
+        assertEquals(2, sender.callbacks.size());
+        assertEquals(1, singleFlight.size());
+
+        sender.callbacks.get(0).onSuccess(new DMRResponse(success("old")));
+        assertEquals("old", first.success.get(RESULT).asString());
+        assertFalse(second.called());
+        // the old flight must not land the new one
+        assertEquals(1, singleFlight.size());
+
+        sender.callbacks.get(1).onSuccess(new DMRResponse(success("new")));
+        assertEquals("new", second.success.get(RESULT).asString());
+        assertEquals(0, singleFlight.size());
+    }
+
+
+    // ------------------------------------------------------ helper methods
+
+    private ModelNode success(String result) {
+        ModelNode node = new ModelNode();
+        node.get(OUTCOME).set(SUCCESS);
+        node.get(RESULT).set(result);
+        return node;
+    }
+
+
+    private static class RecordingSender implements SingleFlight.Sender {
+
+        final List<AsyncCallback<DMRResponse>> callbacks = new ArrayList<AsyncCallback<DMRResponse>>();
+        final List<DispatchRequest> requests = new ArrayList<DispatchRequest>();
+
+        @Override
+        public DispatchRequest send(AsyncCallback<DMRResponse> callback) {
+            callbacks.add(callback);
+            DispatchRequest request = new DispatchRequest() {
+                boolean pending = true;
+
+                @Override
+                public void cancel() {
+                    pending = false;
+                }
+
+                @Override
+                public boolean isPending() {
+                    return pending;
+                }
+            };
+            requests.add(request);
+            return request;
+        }
+    }
+
+
+    private static class RecordingCallback implements AsyncCallback<DMRResponse> {
+
+        ModelNode success;
+        Throwable failure;
+
+        @Override
+        public void onFailure(Throwable caught) {
+            failure = caught;
+        }
+
+        @Override
+        public void onSuccess(DMRResponse result) {
+            success = result.get();
+        }
+
+        boolean called() {
+            return success != null || failure != null;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package org.jboss.dmr.client.dispatch.impl;
+
+import com.google.gwt.http.client.Request;
+import org.jboss.dmr.client.dispatch.CancelledException;
+import org.jboss.dmr.client.dispatch.Priority;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.jboss.dmr.client.dispatch.Priority.*;
+import static org.junit.Assert.*;
+
+public class RequestQueueTest {
+
+    private RequestQueue queue;
+    private List<String> started;
+
+    @Before
+    public void setUp() {
+        queue = new RequestQueue();
+        queue.setMaxConcurrent(1);
+        started = new ArrayList<String>();
+    }
+
+
+    // ------------------------------------------------------ test methods
+
+    @Test
+    public void maxConcurrent() {
+        queue.setMaxConcurrent(2);
+        enqueue("a", INTERACTIVE);
+        enqueue("b", INTERACTIVE);
+        enqueue("c", INTERACTIVE);
+
+        assertEquals(2, queue.getRunning());
+        assertEquals(1, queue.getDepth());
+        assertEquals(asList("a", "b"), started);
+    }
+
+    @Test
+    public void priorityOrder() {
+        RecordingTask a = enqueue("a", BACKGROUND);
+        RecordingTask b = enqueue("b", BACKGROUND);
+        RecordingTask c = enqueue("c", NAVIGATION);
+        RecordingTask d = enqueue("d", INTERACTIVE);
+        assertEquals(asList("a"), started);
+
+        a.request.finish();
+        d.request.finish();
+        c.request.finish();
+        b.request.finish();
+
+        assertEquals(asList("a", "d", "c", "b"), started);
+        assertEquals(0, queue.getRunning());
+        assertEquals(0, queue.getDepth());
+    }
+
+    @Test
+    public void finishTwice() {
+        RecordingTask a = enqueue("a", INTERACTIVE);
+        enqueue("b", INTERACTIVE);
+        enqueue("c", INTERACTIVE);
+
+        a.request.finish();
+        a.request.finish();
+        assertEquals(asList("a", "b"), started);
+        assertEquals(1, queue.getRunning());
+    }
+
+    @Test
+    public void cancelQueued() {
+        enqueue("a", INTERACTIVE);
+        RecordingTask b = enqueue("b", INTERACTIVE);
+        b.request.cancel();
+
+        assertFalse(b.request.isPending());
+        assertEquals(0, queue.getDepth());
+        // explicitly cancelled requests are not reported as stale
+        assertNull(b.stale);
+    }
+
+    @Test
+    public void cancelRunning() {
+        RecordingTask a = enqueue("a", INTERACTIVE);
+        enqueue("b", INTERACTIVE);
+        a.request.cancel();
+
+        assertFalse(a.request.isPending());
+        assertEquals(asList("a", "b"), started);
+        assertEquals(1, queue.getRunning());
+    }
+
+    @Test
+    public void cancelStale() {
+        RecordingTask running = enqueue("running", NAVIGATION);
+        RecordingTask interactive = enqueue("interactive", INTERACTIVE);
+        RecordingTask navigation = enqueue("navigation", NAVIGATION);
+        RecordingTask background = enqueue("background", BACKGROUND);
+        RecordingTask kept = enqueue("kept", BACKGROUND, true);
+
+        assertEquals(2, queue.cancelStale());
+        assertEquals(2, queue.getCancelled());
+
+        // running and interactive requests are not affected
+        assertTrue(running.request.isPending());
+        assertNull(running.stale);
+        assertTrue(interactive.request.isPending());
+        assertNull(interactive.stale);
+        assertTrue(kept.request.isPending());
+        assertNull(kept.stale);
+
+        // stale requests are no longer pending and their callbacks have been notified
+        assertFalse(navigation.request.isPending());
+        assertNotNull(navigation.stale);
+        assertFalse(background.request.isPending());
+        assertNotNull(background.stale);
+        assertEquals(2, queue.getDepth());
+
+        running.request.finish();
+        interactive.request.finish();
+        assertEquals(asList("running", "interactive", "kept"), started);
+    }
+
+    @Test
+    public void enqueueWhenStale() {
+        enqueue("running", INTERACTIVE);
+        final RecordingTask[] retry = new RecordingTask[1];
+        enqueue("navigation", NAVIGATION, false, new Runnable() {
+            @Override
+            public void run() {
+                // a callback which reacts on the cancellation must be able to use the queue
+                retry[0] = enqueue("retry", NAVIGATION);
+            }
+        });
+
+        assertEquals(1, queue.cancelStale());
+        assertNotNull(retry[0]);
+        assertTrue(retry[0].request.isPending());
+        assertEquals(1, queue.getDepth(NAVIGATION));
+    }
+
+
+    // ------------------------------------------------------ helper methods
+
+    private RecordingTask enqueue(String name, Priority priority) {
+        return enqueue(name, priority, false);
+    }
+
+    private RecordingTask enqueue(String name, Priority priority, boolean keepOnNavigation) {
+        return enqueue(name, priority, keepOnNavigation, null);
+    }
+
+    private RecordingTask enqueue(String name, Priority priority, boolean keepOnNavigation, Runnable onStale) {
+        RecordingTask task = new RecordingTask(name, onStale);
+        task.request = queue.enqueue(priority, keepOnNavigation, task);
+        return task;
+    }
+
+    private static List<String> asList(String... names) {
+        List<String> list = new ArrayList<String>();
+        for (String name : names) {
+            list.add(name);
+        }
+        return list;
+    }
+
+
+    private class RecordingTask implements RequestQueue.Task {
+
+        final String name;
+        final Runnable onStale;
+        RequestQueue.QueuedRequest request;
+        CancelledException stale;
+
+        RecordingTask(String name, Runnable onStale) {
+            this.name = name;
+            this.onStale = onStale;
+        }
+
+        @Override
+        public Request start(RequestQueue.QueuedRequest request) {
+            started.add(name);
+            return null;
+        }
+
+        @Override
+        public void stale(CancelledException reason) {
+            stale = reason;
+            if (onStale != null) {
+                onStale.run();
+            }
+        }
+    }
+}
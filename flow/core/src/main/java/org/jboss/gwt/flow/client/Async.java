@@ -23,6 +23,10 @@ import com.google.gwt.core.client.Scheduler;
 /**
  * Flow control functions for GWT.
  * Integrates with the default GWT scheduling mechanism.
+ * <p/>
+ * The flows are event driven: The next function is executed as soon as the current function calls
+ * {@link Control#proceed()}. Nothing is polled while a function waits for I/O. All methods return a
+ * {@link Cancellable} which can be used to stop the flow.
  *
  * @author Heiko Braun
  */
@@ -30,28 +34,38 @@ public class Async<C> {
 
     private final static Object EMPTY_CONTEXT = new Object();
     private final Progress progress;
+    private final Scheduler scheduler;
+    private int timeout;
 
     public Async() {
         this(new Progress.Nop());
     }
 
     public Async(final Progress progress) {
+        this(progress, Scheduler.get());
+    }
+
+    Async(final Progress progress, final Scheduler scheduler) {
         this.progress = progress;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Sets a timeout in milliseconds for each function. If a function neither proceeds nor aborts within the
+     * timeout, it's treated as aborted. Use 0 (the default) for no timeout.
+     */
+    public Async<C> setTimeout(final int timeout) {
+        this.timeout = Math.max(0, timeout);
+        return this;
     }
 
     /**
      * Convenience method to executes a single function. Use this method if you have seperated your business logic
      * across different function, but just want to execute a single function.
      */
-    public void single(final C context, final Function<C> function, Outcome<C> outcome) {
-        SingletonControl ctrl = new SingletonControl(context, outcome);
-        progress.reset(1);
-        Scheduler.get().scheduleDeferred(new Scheduler.ScheduledCommand() {
-            @Override
-            public void execute() {
-                function.execute(ctrl);
-            }
-        });
+    @SuppressWarnings("unchecked")
+    public Cancellable single(final C context, final Function<C> function, Outcome<C> outcome) {
+        return start(new SequentialExecution(context, outcome, function));
     }
 
     /**
@@ -60,8 +74,8 @@ public class Async<C> {
      * no more functions are run and outcome for the series is immediately called with the value of the error.
      */
     @SuppressWarnings("unchecked")
-    public void series(final Outcome outcome, final Function... functions) {
-        _series(null, outcome, functions);  // generic signature problem, hence null
+    public Cancellable series(final Outcome outcome, final Function... functions) {
+        return start(new SequentialExecution(null, outcome, functions));  // generic signature problem, hence null
     }
 
     /**
@@ -70,50 +84,8 @@ public class Async<C> {
      * the next function is not executed and the outcome is immediately called with the error.
      */
     @SafeVarargs
-    public final void waterfall(final C context, final Outcome<C> outcome, final Function<C>... functions) {
-        _series(context, outcome, functions);
-    }
-
-    @SafeVarargs
-    @SuppressWarnings("unchecked")
-    private final void _series(C context, final Outcome<C> outcome, final Function<C>... functions) {
-        final C finalContext = context != null ? context : (C) EMPTY_CONTEXT;
-        final SequentialControl ctrl = new SequentialControl(finalContext, functions);
-
-        // reset progress
-        progress.reset(functions.length);
-
-        // select first function and start
-        ctrl.proceed();
-        Scheduler.get().scheduleIncremental(new Scheduler.RepeatingCommand() {
-            @Override
-            public boolean execute() {
-                if (ctrl.isDrained()) {
-                    // schedule deferred so that 'return false' executes first!
-                    Scheduler.get().scheduleDeferred(new Scheduler.ScheduledCommand() {
-                        @Override
-                        public void execute() {
-                            progress.finish();
-                            outcome.onSuccess(finalContext);
-                        }
-                    });
-                    return false;
-                } else if (ctrl.isAborted()) {
-                    // schedule deferred so that 'return false' executes first!
-                    Scheduler.get().scheduleDeferred(new Scheduler.ScheduledCommand() {
-                        @Override
-                        public void execute() {
-                            progress.finish();
-                            outcome.onFailure(finalContext);
-                        }
-                    });
-                    return false;
-                } else {
-                    ctrl.nextUnlessPending();
-                    return true;
-                }
-            }
-        });
+    public final Cancellable waterfall(final C context, final Outcome<C> outcome, final Function<C>... functions) {
+        return start(new SequentialExecution(context, outcome, functions));
     }
 
     /**
@@ -122,262 +94,422 @@ public class Async<C> {
      * error.
      */
     @SuppressWarnings("unchecked")
-    public void parallel(C context, final Outcome<C> outcome, final Function<C>... functions) {
-        final C finalContext = context != null ? context : (C) EMPTY_CONTEXT;
-        final CountingControl ctrl = new CountingControl(finalContext, functions);
-        progress.reset(functions.length);
-
-        Scheduler.get().scheduleIncremental(new Scheduler.RepeatingCommand() {
-            @Override
-            public boolean execute() {
-                if (ctrl.isAborted() || ctrl.allFinished()) {
-                    // schedule deferred so that 'return false' executes first!
-                    Scheduler.get().scheduleDeferred(new Scheduler.ScheduledCommand() {
-                        @Override
-                        @SuppressWarnings("unchecked")
-                        public void execute() {
-                            if (ctrl.isAborted()) {
-                                progress.finish();
-                                outcome.onFailure(finalContext);
-                            } else {
-                                progress.finish();
-                                outcome.onSuccess(finalContext);
-                            }
+    public Cancellable parallel(C context, final Outcome<C> outcome, final Function<C>... functions) {
+        return parallel(0, context, outcome, functions);
+    }
 
-                        }
-                    });
-                    return false;
-                } else {
-                    // one after the other until all are active
-                    ctrl.next();
-                    return true;
-                }
-            }
-        });
+    /**
+     * Same as {@link #parallel(Object, Outcome, Function[])}, but runs at most {@code limit} functions at the same
+     * time. The next function is started as soon as a running function has completed.
+     *
+     * @param limit the maximum number of concurrently running functions, 0 for no limit
+     */
+    @SuppressWarnings("unchecked")
+    public Cancellable parallel(int limit, C context, final Outcome<C> outcome, final Function<C>... functions) {
+        return start(new ParallelExecution(limit, context, outcome, functions));
     }
 
     /**
      * Repeatedly call function, while condition is met. Calls the callback when stopped, or an error occurs.
+     * The function is called again once it has called {@link Control#proceed()}.
      */
-    public void whilst(Precondition condition, final Outcome outcome, final Function function) {
-        whilst(condition, outcome, function, -1);
+    public Cancellable whilst(Precondition condition, final Outcome outcome, final Function function) {
+        return whilst(condition, outcome, function, -1);
     }
 
     /**
-     * Same as {@link #whilst(Precondition, Outcome, Function)} but waits {@code period} millis between calls to
-     * {@code function}.
+     * Same as {@link #whilst(Precondition, Outcome, Function)} but calls {@code function} every {@code period}
+     * millis. In this mode the function doesn't need to call {@link Control#proceed()}.
      *
      * @param period any value below 100 is ignored!
      */
-    public void whilst(Precondition condition, final Outcome outcome, final Function function, int period) {
-        final GuardedControl ctrl = new GuardedControl(condition);
-        progress.reset();
+    @SuppressWarnings("unchecked")
+    public Cancellable whilst(Precondition condition, final Outcome outcome, final Function function, int period) {
+        Execution execution = period > 100
+                ? new PeriodicExecution(condition, outcome, function, period)
+                : new GuardedExecution(condition, outcome, function);
+        return start(execution);
+    }
 
-        Scheduler.RepeatingCommand repeatingCommand = new Scheduler.RepeatingCommand() {
+    private Execution start(final Execution execution) {
+        execution.reset();
+        // the first function is always executed asynchronously
+        scheduler.scheduleDeferred(new Scheduler.ScheduledCommand() {
             @Override
-            @SuppressWarnings("unchecked")
-            public boolean execute() {
-                if (!ctrl.shouldProceed()) {
-                    // schedule deferred so that 'return false' executes first!
-                    Scheduler.get().scheduleDeferred(new Scheduler.ScheduledCommand() {
-                        @Override
-                        public void execute() {
-                            if (ctrl.isAborted()) {
-                                progress.finish();
-                                outcome.onFailure(EMPTY_CONTEXT);
-                            } else {
-                                progress.finish();
-                                outcome.onSuccess(EMPTY_CONTEXT);
-                            }
-                        }
-                    });
-                    return false;
-                } else {
-                    function.execute(ctrl);
-                    progress.tick();
-                    return true;
+            public void execute() {
+                if (!execution.isCancelled()) {
+                    execution.run();
                 }
             }
-        };
-
-        if (period > 100) {
-            Scheduler.get().scheduleFixedPeriod(repeatingCommand, period);
-        } else {
-            Scheduler.get().scheduleIncremental(repeatingCommand);
-        }
+        });
+        return execution;
     }
 
-    private class SingletonControl implements Control<C> {
 
-        private final C context;
-        private final Outcome<C> outcome;
+    // ------------------------------------------------------ executions
 
-        public SingletonControl(final C context, Outcome<C> outcome) {
-            this.context = context;
+    /**
+     * Base class for the different flow semantics. Subclasses decide what happens when a function proceeds or
+     * aborts. Functions which proceed synchronously are processed in a loop instead of recursively.
+     */
+    private abstract class Execution implements Cancellable {
+
+        final C context;
+        final Outcome<C> outcome;
+        private boolean finished;
+        private boolean cancelled;
+        private boolean looping;
+        private boolean again;
+
+        @SuppressWarnings("unchecked")
+        Execution(final C context, final Outcome<C> outcome) {
+            this.context = context != null ? context : (C) EMPTY_CONTEXT;
             this.outcome = outcome;
         }
 
-        @Override
-        public void proceed() {
-            progress.tick();
-            outcome.onSuccess(context);
+        abstract void reset();
+
+        /**
+         * Starts as many functions as possible. Must not be called recursively, use {@link #advance()} instead.
+         */
+        abstract void next();
+
+        abstract void onProceed(Step step);
+
+        abstract void onAbort(Step step);
+
+        void run() {
+            advance();
+        }
+
+        final void advance() {
+            if (looping) {
+                again = true;
+                return;
+            }
+            looping = true;
+            try {
+                do {
+                    again = false;
+                    if (isActive()) {
+                        next();
+                    }
+                } while (again);
+            } finally {
+                looping = false;
+            }
+        }
+
+        final void execute(Function<C> function) {
+            Step step = new Step(this);
+            if (timeout > 0 && isTimed()) {
+                step.startTimer();
+            }
+            function.execute(step);
+        }
+
+        boolean isTimed() {
+            return true;
+        }
+
+        final void succeed() {
+            finish(true);
+        }
+
+        final void fail() {
+            finish(false);
+        }
+
+        private void finish(final boolean success) {
+            if (isActive()) {
+                finished = true;
+                progress.finish();
+                // schedule deferred so that the current function returns first
+                scheduler.scheduleDeferred(new Scheduler.ScheduledCommand() {
+                    @Override
+                    public void execute() {
+                        if (success) {
+                            outcome.onSuccess(context);
+                        } else {
+                            outcome.onFailure(context);
+                        }
+                    }
+                });
+            }
+        }
+
+        final boolean isActive() {
+            return !finished && !cancelled;
         }
 
         @Override
-        public void abort() {
-            outcome.onFailure(context);
+        public void cancel() {
+            if (isActive()) {
+                cancelled = true;
+                progress.finish();
+            }
         }
 
         @Override
-        public C getContext() {
-            return context;
+        public boolean isCancelled() {
+            return cancelled;
         }
     }
 
-    private class SequentialControl implements Control<C> {
 
-        private final C context;
+    private class SequentialExecution extends Execution {
+
         private final Function<C>[] functions;
-        private Function<C> next;
         private int index;
-        private boolean drained;
-        private boolean aborted;
         private boolean pending;
 
         @SafeVarargs
-        SequentialControl(final C context, final Function<C>... functions) {
-            this.context = context;
+        SequentialExecution(final C context, final Outcome<C> outcome, final Function<C>... functions) {
+            super(context, outcome);
             this.functions = functions;
         }
 
         @Override
-        public C getContext() {
-            return context;
+        void reset() {
+            progress.reset(functions.length);
         }
 
         @Override
-        public void proceed() {
-            if (index > 0) {
-                // start ticking *after* the first function has finished
-                progress.tick();
-            }
-            if (index >= functions.length) {
-                next = null;
-                drained = true;
-            } else {
-                next = functions[index];
-                index++;
+        void next() {
+            if (!pending) {
+                if (index >= functions.length) {
+                    succeed();
+                } else {
+                    pending = true;
+                    execute(functions[index++]);
+                }
             }
-            this.pending = false;
         }
 
         @Override
-        public void abort() {
-            this.aborted = true;
-            this.pending = false;
-        }
-
-        public boolean isAborted() {
-            return aborted;
-        }
-
-        public boolean isDrained() {
-            return drained;
+        void onProceed(final Step step) {
+            pending = false;
+            progress.tick();
+            advance();
         }
 
-        public void nextUnlessPending() {
-            if (!pending) {
-                pending = true;
-                next.execute(this);
-            }
+        @Override
+        void onAbort(final Step step) {
+            pending = false;
+            fail();
         }
     }
 
-    private class CountingControl implements Control<C> {
 
-        private final C context;
+    private class ParallelExecution extends Execution {
+
+        private final int limit;
         private final Function<C>[] functions;
-        protected boolean aborted;
-        private int index;
-        private int finished;
+        private int started;
+        private int running;
+        private int completed;
 
         @SafeVarargs
-        CountingControl(final C context, Function<C>... functions) {
-            this.context = context;
+        ParallelExecution(final int limit, final C context, final Outcome<C> outcome,
+                final Function<C>... functions) {
+            super(context, outcome);
+            this.limit = limit;
             this.functions = functions;
         }
 
         @Override
-        public C getContext() {
-            return context;
+        void reset() {
+            progress.reset(functions.length);
         }
 
-        @SuppressWarnings("unchecked")
-        public void next() {
-            if (index < functions.length) {
-                functions[index].execute(this);
-                index++;
+        @Override
+        void next() {
+            if (completed >= functions.length) {
+                succeed();
+            } else {
+                while (isActive() && started < functions.length && (limit <= 0 || running < limit)) {
+                    running++;
+                    execute(functions[started++]);
+                }
             }
         }
 
         @Override
-        public void proceed() {
-            if (index > 0) {
-                // start ticking *after* the first function has finished
-                progress.tick();
-            }
-            increment();
+        void onProceed(final Step step) {
+            running--;
+            completed++;
+            progress.tick();
+            advance();
+        }
+
+        @Override
+        void onAbort(final Step step) {
+            running--;
+            fail();
         }
+    }
+
+
+    /**
+     * Calls the function again once it has proceeded and as long as the condition is met.
+     */
+    private class GuardedExecution extends Execution {
+
+        private final Precondition condition;
+        private final Function<C> function;
+        private boolean pending;
 
-        private void increment() {
-            ++finished;
+        GuardedExecution(final Precondition condition, final Outcome<C> outcome, final Function<C> function) {
+            super(null, outcome);
+            this.condition = condition;
+            this.function = function;
         }
 
         @Override
-        public void abort() {
-            increment();
-            aborted = true;
+        void reset() {
+            progress.reset();
         }
 
-        public boolean isAborted() {
-            return aborted;
+        @Override
+        void next() {
+            if (!pending) {
+                if (condition.isMet()) {
+                    pending = true;
+                    execute(function);
+                } else {
+                    succeed();
+                }
+            }
         }
 
-        public boolean allFinished() {
-            return finished >= functions.length;
+        @Override
+        void onProceed(final Step step) {
+            pending = false;
+            progress.tick();
+            advance();
+        }
+
+        @Override
+        void onAbort(final Step step) {
+            pending = false;
+            fail();
         }
     }
 
-    private class GuardedControl implements Control {
+
+    /**
+     * Calls the function every {@code period} ms as long as the condition is met, regardless whether the
+     * function proceeds.
+     */
+    private class PeriodicExecution extends Execution {
 
         private final Precondition condition;
-        private boolean aborted;
+        private final Function<C> function;
+        private final int period;
 
-        GuardedControl(Precondition condition) {
+        PeriodicExecution(final Precondition condition, final Outcome<C> outcome, final Function<C> function,
+                final int period) {
+            super(null, outcome);
             this.condition = condition;
+            this.function = function;
+            this.period = period;
         }
 
         @Override
-        public void proceed() {
+        void reset() {
+            progress.reset();
+        }
+
+        @Override
+        void run() {
+            scheduler.scheduleFixedPeriod(new Scheduler.RepeatingCommand() {
+                @Override
+                public boolean execute() {
+                    advance();
+                    return isActive();
+                }
+            }, period);
+        }
+
+        @Override
+        void next() {
+            if (condition.isMet()) {
+                execute(function);
+                progress.tick();
+            } else {
+                succeed();
+            }
+        }
+
+        @Override
+        boolean isTimed() {
+            // the function is not required to proceed
+            return false;
+        }
+
+        @Override
+        void onProceed(final Step step) {
             // ignore
         }
 
-        public boolean shouldProceed() {
-            return condition.isMet() && !aborted;
+        @Override
+        void onAbort(final Step step) {
+            fail();
+        }
+    }
+
+
+    /**
+     * The control passed to one function call. Only the first call to {@link #proceed()} or {@link #abort()} is
+     * taken into account, later calls (e.g. after a timeout) are ignored.
+     */
+    private class Step implements Control<C> {
+
+        private final Execution execution;
+        private boolean done;
+        private boolean timedOut;
+
+        Step(final Execution execution) {
+            this.execution = execution;
+        }
+
+        void startTimer() {
+            scheduler.scheduleFixedDelay(new Scheduler.RepeatingCommand() {
+                @Override
+                public boolean execute() {
+                    if (!done && execution.isActive()) {
+                        timedOut = true;
+                        abort();
+                    }
+                    return false;
+                }
+            }, timeout);
+        }
+
+        @Override
+        public void proceed() {
+            if (!done && execution.isActive()) {
+                done = true;
+                execution.onProceed(this);
+            }
         }
 
         @Override
         public void abort() {
-            this.aborted = true;
+            if (!done && execution.isActive()) {
+                done = true;
+                execution.onAbort(this);
+            }
         }
 
-        public boolean isAborted() {
-            return aborted;
+        @Override
+        public C getContext() {
+            return execution.context;
         }
 
         @Override
-        public Object getContext() {
-            return EMPTY_CONTEXT;
+        public boolean isCancelled() {
+            return timedOut || execution.isCancelled();
         }
     }
 }
@@ -1,6 +1,6 @@
 /*
  * JBoss, Home of Professional Open Source
- * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
  * as indicated by the @author tags. All rights reserved.
  * See the copyright.txt in the distribution for a
  * full listing of individual contributors.
@@ -16,25 +16,14 @@
  * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
  * MA  02110-1301, USA.
  */
-package org.jboss.as.console.client.search;
-
-import com.google.gwt.user.client.ui.MultiWordSuggestOracle;
+package org.jboss.gwt.flow.client;
 
 /**
- * A suggestion in {@link org.jboss.as.console.client.search.IndexSuggestOracle}.
- *
- * @author Harald Pehl
+ * Handle of a running flow. A cancelled flow doesn't execute any further functions and doesn't call its outcome.
  */
-public class DocumentSuggestion extends MultiWordSuggestOracle.MultiWordSuggestion {
-
-    private final Document document;
+public interface Cancellable {
 
-    public DocumentSuggestion(final Document documents, String replacementString, String displayString) {
-        super(replacementString, displayString);
-        this.document = documents;
-    }
+    void cancel();
 
-    public Document getDocument() {
-        return document;
-    }
+    boolean isCancelled();
 }
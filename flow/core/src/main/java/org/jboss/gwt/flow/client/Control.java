@@ -30,4 +30,10 @@ public interface Control<C> {
     void abort();
 
     C getContext();
+
+    /**
+     * @return {@code true} if the flow has been cancelled or the function ran into a timeout. Long running
+     * functions can use this to skip work nobody waits for anymore.
+     */
+    boolean isCancelled();
 }
@@ -0,0 +1,537 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2011 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.jboss.gwt.flow.client;
+
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of an asynchronous operation which is either fulfilled with a value, rejected with an error or
+ * cancelled. Other than flows, promises carry typed results and can be composed using {@link #map(Mapper)},
+ * {@link #flatMap(Mapper)} and the combinators {@link #all(List)}, {@link #any(List)} and {@link #race(List)}.
+ * <p/>
+ * Callbacks registered using {@link #then(AsyncCallback)} are called once the promise is settled (or immediately if
+ * it's already settled). Cancelling a promise cancels the operation it depends on (see
+ * {@link #onCancel(Cancellable)}) and settles its callbacks with a {@link CancelledException}.
+ * <p/>
+ * A promise can be shared: Each promise derived from it (using {@link #map(Mapper)}, {@link #flatMap(Mapper)},
+ * {@link #recover(Mapper)} or {@link #timeout(int)}) is counted as a dependent. Cancelling a derived promise
+ * cancels the promise it was derived from only if it was the last dependent. The combinators don't own the
+ * promises passed to them and never cancel them.
+ */
+public class Promise<T> implements Cancellable {
+
+    /**
+     * Transforms a value.
+     */
+    @FunctionalInterface
+    public interface Mapper<T, R> {
+        R apply(T value);
+    }
+
+
+    /**
+     * Starts an asynchronous operation. Used for lazy fan-out with a bounded number of running operations.
+     */
+    @FunctionalInterface
+    public interface Task<T> {
+        Promise<T> start();
+    }
+
+
+    /**
+     * The error of a cancelled promise.
+     */
+    public static class CancelledException extends RuntimeException {
+
+        public CancelledException(final String message) {
+            super(message);
+        }
+    }
+
+
+    /**
+     * The error of a promise which was not settled in time.
+     */
+    public static class TimeoutException extends RuntimeException {
+
+        public TimeoutException(final String message) {
+            super(message);
+        }
+    }
+
+
+    private enum State {PENDING, FULFILLED, REJECTED, CANCELLED}
+
+
+    // ------------------------------------------------------ factory methods
+
+    public static <T> Promise<T> resolved(T value) {
+        Promise<T> promise = new Promise<>();
+        promise.resolve(value);
+        return promise;
+    }
+
+    public static <T> Promise<T> rejected(Throwable error) {
+        Promise<T> promise = new Promise<>();
+        promise.reject(error);
+        return promise;
+    }
+
+    /**
+     * @return a promise which is fulfilled with the values of all promises (in the same order) or rejected with
+     * the first error. The given promises are not cancelled: they might be used elsewhere.
+     */
+    public static <T> Promise<List<T>> all(final List<Promise<T>> promises) {
+        final Promise<List<T>> result = new Promise<>();
+        final List<T> values = new ArrayList<>(Collections.<T>nCopies(promises.size(), null));
+        final int[] fulfilled = {0};
+        if (promises.isEmpty()) {
+            result.resolve(values);
+        }
+        for (int i = 0; i < promises.size(); i++) {
+            final int index = i;
+            promises.get(i).then(new AsyncCallback<T>() {
+                @Override
+                public void onFailure(final Throwable caught) {
+                    result.reject(caught);
+                }
+
+                @Override
+                public void onSuccess(final T value) {
+                    values.set(index, value);
+                    fulfilled[0]++;
+                    if (fulfilled[0] == promises.size()) {
+                        result.resolve(values);
+                    }
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Same as {@link #all(List)}, but starts the tasks lazily and keeps at most {@code limit} of them running.
+     * The promises returned by the tasks are owned by the result: If one of them is rejected or the result is
+     * cancelled, the running ones are cancelled.
+     */
+    public static <T> Promise<List<T>> all(final int limit, final List<Task<T>> tasks) {
+        final Promise<List<T>> result = new Promise<>();
+        final List<T> values = new ArrayList<>(Collections.<T>nCopies(tasks.size(), null));
+        final List<Promise<T>> running = new ArrayList<>();
+        final int[] counters = {0, 0}; // started, fulfilled
+        result.cancelOnCancel(running);
+
+        final Runnable[] next = new Runnable[1];
+        next[0] = new Runnable() {
+            @Override
+            public void run() {
+                while (result.isPending() && counters[0] < tasks.size()
+                        && (limit <= 0 || counters[0] - counters[1] < limit)) {
+                    final int index = counters[0]++;
+                    final Promise<T> promise = tasks.get(index).start();
+                    running.add(promise);
+                    promise.then(new AsyncCallback<T>() {
+                        @Override
+                        public void onFailure(final Throwable caught) {
+                            if (result.reject(caught)) {
+                                cancelAll(running);
+                            }
+                        }
+
+                        @Override
+                        public void onSuccess(final T value) {
+                            running.remove(promise);
+                            values.set(index, value);
+                            counters[1]++;
+                            if (counters[1] == tasks.size()) {
+                                result.resolve(values);
+                            } else {
+                                next[0].run();
+                            }
+                        }
+                    });
+                }
+            }
+        };
+        if (tasks.isEmpty()) {
+            result.resolve(values);
+        } else {
+            next[0].run();
+        }
+        return result;
+    }
+
+    /**
+     * @return a promise which is fulfilled with the first fulfilled promise or rejected with the last error if all
+     * promises are rejected. The given promises are not cancelled.
+     */
+    public static <T> Promise<T> any(final List<Promise<T>> promises) {
+        final Promise<T> result = new Promise<>();
+        final int[] rejected = {0};
+        if (promises.isEmpty()) {
+            result.reject(new IllegalArgumentException("No promises given"));
+        }
+        for (Promise<T> promise : promises) {
+            promise.then(new AsyncCallback<T>() {
+                @Override
+                public void onFailure(final Throwable caught) {
+                    rejected[0]++;
+                    if (rejected[0] == promises.size()) {
+                        result.reject(caught);
+                    }
+                }
+
+                @Override
+                public void onSuccess(final T value) {
+                    result.resolve(value);
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * @return a promise which is settled like the first settled promise. The given promises are not cancelled.
+     */
+    public static <T> Promise<T> race(final List<Promise<T>> promises) {
+        final Promise<T> result = new Promise<>();
+        for (Promise<T> promise : promises) {
+            promise.then(new AsyncCallback<T>() {
+                @Override
+                public void onFailure(final Throwable caught) {
+                    result.reject(caught);
+                }
+
+                @Override
+                public void onSuccess(final T value) {
+                    result.resolve(value);
+                }
+            });
+        }
+        return result;
+    }
+
+    @SafeVarargs
+    public static <T> Promise<List<T>> all(Promise<T>... promises) {
+        return all(Arrays.asList(promises));
+    }
+
+    private static <T> void cancelAll(List<Promise<T>> promises) {
+        for (Promise<T> promise : new ArrayList<>(promises)) {
+            promise.cancel();
+        }
+    }
+
+
+    // ------------------------------------------------------ instance
+
+    private State state;
+    private T value;
+    private Throwable error;
+    private List<AsyncCallback<T>> callbacks;
+    private List<Cancellable> dependencies;
+    private int dependents;
+
+    public Promise() {
+        this.state = State.PENDING;
+    }
+
+    /**
+     * Fulfills this promise unless it's already settled.
+     *
+     * @return {@code true} if this promise was fulfilled by this call
+     */
+    public boolean resolve(T value) {
+        if (state != State.PENDING) {
+            return false;
+        }
+        this.state = State.FULFILLED;
+        this.value = value;
+        notifyCallbacks();
+        return true;
+    }
+
+    /**
+     * Rejects this promise unless it's already settled.
+     *
+     * @return {@code true} if this promise was rejected by this call
+     */
+    public boolean reject(Throwable error) {
+        if (state != State.PENDING) {
+            return false;
+        }
+        this.state = State.REJECTED;
+        this.error = error;
+        notifyCallbacks();
+        return true;
+    }
+
+    /**
+     * Registers something which is cancelled together with this promise, e.g. the underlying request.
+     */
+    public Promise<T> onCancel(Cancellable cancellable) {
+        if (state == State.CANCELLED) {
+            cancellable.cancel();
+        } else if (state == State.PENDING) {
+            if (dependencies == null) {
+                dependencies = new ArrayList<>();
+            }
+            dependencies.add(cancellable);
+        }
+        return this;
+    }
+
+    /**
+     * Cancels this promise unless it's already settled. Callbacks are called with a {@link CancelledException}.
+     */
+    @Override
+    public void cancel() {
+        if (state == State.PENDING) {
+            state = State.CANCELLED;
+            error = new CancelledException("Promise has been cancelled");
+            if (dependencies != null) {
+                List<Cancellable> copy = dependencies;
+                dependencies = null;
+                for (Cancellable dependency : copy) {
+                    dependency.cancel();
+                }
+            }
+            notifyCallbacks();
+        }
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return state == State.CANCELLED;
+    }
+
+    public boolean isPending() {
+        return state == State.PENDING;
+    }
+
+    /**
+     * Registers a callback which is called once this promise is fulfilled, rejected or cancelled.
+     */
+    public Promise<T> then(AsyncCallback<T> callback) {
+        switch (state) {
+            case PENDING:
+                if (callbacks == null) {
+                    callbacks = new ArrayList<>();
+                }
+                callbacks.add(callback);
+                break;
+            case FULFILLED:
+                callback.onSuccess(value);
+                break;
+            case REJECTED:
+            case CANCELLED:
+                callback.onFailure(error);
+                break;
+        }
+        return this;
+    }
+
+    public <R> Promise<R> map(final Mapper<T, R> mapper) {
+        final Promise<R> result = derive();
+        then(new AsyncCallback<T>() {
+            @Override
+            public void onFailure(final Throwable caught) {
+                result.reject(caught);
+            }
+
+            @Override
+            public void onSuccess(final T value) {
+                R mapped;
+                try {
+                    mapped = mapper.apply(value);
+                } catch (RuntimeException e) {
+                    result.reject(e);
+                    return;
+                }
+                result.resolve(mapped);
+            }
+        });
+        return result;
+    }
+
+    public <R> Promise<R> flatMap(final Mapper<T, Promise<R>> mapper) {
+        final Promise<R> result = derive();
+        then(new AsyncCallback<T>() {
+            @Override
+            public void onFailure(final Throwable caught) {
+                result.reject(caught);
+            }
+
+            @Override
+            public void onSuccess(final T value) {
+                Promise<R> next;
+                try {
+                    next = mapper.apply(value);
+                } catch (RuntimeException e) {
+                    result.reject(e);
+                    return;
+                }
+                // the mapper might return a shared promise
+                result.onCancel(next.dependent());
+                next.then(new AsyncCallback<R>() {
+                    @Override
+                    public void onFailure(final Throwable caught) {
+                        result.reject(caught);
+                    }
+
+                    @Override
+                    public void onSuccess(final R mapped) {
+                        result.resolve(mapped);
+                    }
+                });
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @return a promise which is fulfilled with the value returned by {@code mapper} if this promise is rejected
+     */
+    public Promise<T> recover(final Mapper<Throwable, T> mapper) {
+        final Promise<T> result = derive();
+        then(new AsyncCallback<T>() {
+            @Override
+            public void onFailure(final Throwable caught) {
+                T recovered;
+                try {
+                    recovered = mapper.apply(caught);
+                } catch (RuntimeException e) {
+                    result.reject(e);
+                    return;
+                }
+                result.resolve(recovered);
+            }
+
+            @Override
+            public void onSuccess(final T value) {
+                result.resolve(value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @return a promise which is rejected with a {@link TimeoutException} if this promise isn't settled within
+     * {@code millis}. In that case this promise is cancelled, unless there are other dependents.
+     */
+    public Promise<T> timeout(final int millis) {
+        final Cancellable dependent = dependent();
+        final Promise<T> result = new Promise<>();
+        result.onCancel(dependent);
+        then(new AsyncCallback<T>() {
+            @Override
+            public void onFailure(final Throwable caught) {
+                result.reject(caught);
+            }
+
+            @Override
+            public void onSuccess(final T value) {
+                result.resolve(value);
+            }
+        });
+        Scheduler.get().scheduleFixedDelay(new Scheduler.RepeatingCommand() {
+            @Override
+            public boolean execute() {
+                if (result.reject(new TimeoutException("Timeout after " + millis + " ms"))) {
+                    dependent.cancel();
+                }
+                return false;
+            }
+        }, millis);
+        return result;
+    }
+
+    /**
+     * Creates a pending promise which is a dependent of this promise.
+     */
+    private <R> Promise<R> derive() {
+        Promise<R> derived = new Promise<>();
+        derived.onCancel(dependent());
+        return derived;
+    }
+
+    /**
+     * Registers a dependent of this promise. Cancelling the returned handle releases the dependent. Once the last
+     * dependent has been released, this promise is cancelled.
+     */
+    private Cancellable dependent() {
+        dependents++;
+        return new Cancellable() {
+            private boolean released;
+
+            @Override
+            public void cancel() {
+                if (!released) {
+                    released = true;
+                    dependents--;
+                    if (dependents == 0) {
+                        Promise.this.cancel();
+                    }
+                }
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return released;
+            }
+        };
+    }
+
+    private void cancelOnCancel(final List<? extends Cancellable> cancellables) {
+        onCancel(new Cancellable() {
+            @Override
+            public void cancel() {
+                for (Cancellable cancellable : new ArrayList<>(cancellables)) {
+                    cancellable.cancel();
+                }
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return false;
+            }
+        });
+    }
+
+    private void notifyCallbacks() {
+        dependencies = null;
+        if (callbacks != null) {
+            List<AsyncCallback<T>> copy = callbacks;
+            callbacks = null;
+            for (AsyncCallback<T> callback : copy) {
+                if (state == State.FULFILLED) {
+                    callback.onSuccess(value);
+                } else {
+                    callback.onFailure(error);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package org.jboss.gwt.flow.client;
+
+import com.google.gwt.core.client.Scheduler;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AsyncTest {
+
+    private ManualScheduler scheduler;
+    private Async<Object> async;
+    private Recorder outcome;
+
+    @Before
+    public void setUp() {
+        scheduler = new ManualScheduler();
+        async = new Async<>(new Progress.Nop(), scheduler);
+        outcome = new Recorder();
+    }
+
+
+    // ------------------------------------------------------ test methods
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void series() {
+        List<String> executed = new ArrayList<>();
+        async.series(outcome, proceed(executed, "a"), proceed(executed, "b"), proceed(executed, "c"));
+
+        // the first function is executed asynchronously
+        assertTrue(executed.isEmpty());
+        scheduler.runDeferred();
+        assertEquals(Arrays.asList("a", "b", "c"), executed);
+        assertTrue(outcome.succeeded);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void seriesStopsOnAbort() {
+        List<String> executed = new ArrayList<>();
+        async.series(outcome, proceed(executed, "a"), abort(executed, "b"), proceed(executed, "c"));
+
+        scheduler.runDeferred();
+        assertEquals(Arrays.asList("a", "b"), executed);
+        assertTrue(outcome.failed);
+        assertFalse(outcome.succeeded);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void waterfall() {
+        List<String> context = new ArrayList<>();
+        final List<List<String>> settled = new ArrayList<>();
+        new Async<List<String>>(new Progress.Nop(), scheduler).waterfall(context, new Outcome<List<String>>() {
+            @Override
+            public void onFailure(List<String> context) {}
+
+            @Override
+            public void onSuccess(List<String> context) {
+                settled.add(context);
+            }
+        }, new Function<List<String>>() {
+            @Override
+            public void execute(Control<List<String>> control) {
+                control.getContext().add("a");
+                control.proceed();
+            }
+        }, new Function<List<String>>() {
+            @Override
+            public void execute(Control<List<String>> control) {
+                control.getContext().add(control.getContext().get(0) + "b");
+                control.proceed();
+            }
+        });
+
+        scheduler.runDeferred();
+        assertEquals(1, settled.size());
+        assertSame(context, settled.get(0));
+        assertEquals(Arrays.asList("a", "ab"), context);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void waitForProceed() {
+        Pending first = new Pending();
+        Pending second = new Pending();
+        async.waterfall(null, outcome, first, second);
+
+        scheduler.runDeferred();
+        assertEquals(1, first.controls.size());
+        assertTrue(second.controls.isEmpty());
+
+        first.proceed(0);
+        assertEquals(1, second.controls.size());
+        assertFalse(outcome.settled());
+
+        second.proceed(0);
+        scheduler.runDeferred();
+        assertTrue(outcome.succeeded);
+    }
+
+    @Test
+    public void synchronousFunctions() {
+        // functions which proceed synchronously must not grow the stack
+        Function<Object>[] functions = functions(10000, new Function<Object>() {
+            @Override
+            public void execute(Control<Object> control) {
+                control.proceed();
+            }
+        });
+        async.waterfall(null, outcome, functions);
+
+        scheduler.runDeferred();
+        assertTrue(outcome.succeeded);
+    }
+
+    @Test
+    public void parallel() {
+        Pending pending = new Pending();
+        async.parallel(null, outcome, functions(5, pending));
+
+        scheduler.runDeferred();
+        assertEquals(5, pending.controls.size());
+        for (int i = 0; i < 5; i++) {
+            pending.proceed(i);
+        }
+        scheduler.runDeferred();
+        assertTrue(outcome.succeeded);
+    }
+
+    @Test
+    public void parallelWithLimit() {
+        Pending pending = new Pending();
+        async.parallel(2, null, outcome, functions(4, pending));
+
+        scheduler.runDeferred();
+        assertEquals(2, pending.controls.size());
+
+        // the next function starts as soon as a running function has completed
+        pending.proceed(1);
+        assertEquals(3, pending.controls.size());
+        pending.proceed(0);
+        assertEquals(4, pending.controls.size());
+        pending.proceed(2);
+        assertFalse(outcome.settled());
+
+        pending.proceed(3);
+        scheduler.runDeferred();
+        assertTrue(outcome.succeeded);
+    }
+
+    @Test
+    public void parallelStopsOnAbort() {
+        Pending pending = new Pending();
+        async.parallel(2, null, outcome, functions(4, pending));
+
+        scheduler.runDeferred();
+        pending.abort(0);
+        scheduler.runDeferred();
+        assertTrue(outcome.failed);
+        assertEquals(2, pending.controls.size());
+
+        // late results of running functions are ignored
+        pending.proceed(1);
+        scheduler.runDeferred();
+        assertEquals(2, pending.controls.size());
+        assertFalse(outcome.succeeded);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void timeout() {
+        Pending pending = new Pending();
+        async.setTimeout(1000).waterfall(null, outcome, pending, pending);
+
+        scheduler.runDeferred();
+        assertEquals(Collections.singletonList(1000), scheduler.delays);
+        Control<Object> control = pending.controls.get(0);
+        assertFalse(control.isCancelled());
+
+        scheduler.runTimers();
+        scheduler.runDeferred();
+        assertTrue(outcome.failed);
+        assertTrue(control.isCancelled());
+
+        // proceeding after the timeout is ignored
+        control.proceed();
+        scheduler.runDeferred();
+        assertEquals(1, pending.controls.size());
+        assertFalse(outcome.succeeded);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void noTimeoutWhenProceeded() {
+        Pending pending = new Pending();
+        async.setTimeout(1000).waterfall(null, outcome, pending);
+
+        scheduler.runDeferred();
+        pending.proceed(0);
+        scheduler.runTimers();
+        scheduler.runDeferred();
+        assertTrue(outcome.succeeded);
+        assertFalse(outcome.failed);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void cancelBeforeStart() {
+        Pending pending = new Pending();
+        Cancellable cancellable = async.waterfall(null, outcome, pending);
+        cancellable.cancel();
+
+        scheduler.runDeferred();
+        assertTrue(cancellable.isCancelled());
+        assertTrue(pending.controls.isEmpty());
+        assertFalse(outcome.settled());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void cancelRunning() {
+        Pending first = new Pending();
+        Pending second = new Pending();
+        Cancellable cancellable = async.waterfall(null, outcome, first, second);
+
+        scheduler.runDeferred();
+        cancellable.cancel();
+        assertTrue(first.controls.get(0).isCancelled());
+
+        // neither the next function nor the outcome is called
+        first.proceed(0);
+        scheduler.runDeferred();
+        assertTrue(second.controls.isEmpty());
+        assertFalse(outcome.settled());
+    }
+
+    @Test
+    public void whilst() {
+        final int[] counter = {0};
+        async.whilst(new Precondition() {
+            @Override
+            public boolean isMet() {
+                return counter[0] < 3;
+            }
+        }, outcome, new Function<Object>() {
+            @Override
+            public void execute(Control<Object> control) {
+                counter[0]++;
+                control.proceed();
+            }
+        });
+
+        scheduler.runDeferred();
+        assertEquals(3, counter[0]);
+        assertTrue(outcome.succeeded);
+    }
+
+    @Test
+    public void whilstWaitsForProceed() {
+        Pending pending = new Pending();
+        async.whilst(new Precondition() {
+            @Override
+            public boolean isMet() {
+                return true;
+            }
+        }, outcome, pending);
+
+        // without a period the function is called again only after it has proceeded
+        scheduler.runDeferred();
+        assertEquals(1, pending.controls.size());
+        pending.proceed(0);
+        assertEquals(2, pending.controls.size());
+        pending.abort(1);
+        scheduler.runDeferred();
+        assertTrue(outcome.failed);
+    }
+
+    @Test
+    public void whilstWithPeriod() {
+        Pending pending = new Pending();
+        async.setTimeout(1000).whilst(new Precondition() {
+            @Override
+            public boolean isMet() {
+                return pending.controls.size() < 3;
+            }
+        }, outcome, pending, 500);
+
+        scheduler.runDeferred();
+        assertEquals(Collections.singletonList(500), scheduler.periods);
+        assertTrue(pending.controls.isEmpty());
+
+        // the function is called every period, even though it doesn't proceed and there's a timeout
+        for (int i = 0; i < 4; i++) {
+            scheduler.runTimers();
+        }
+        scheduler.runDeferred();
+        assertEquals(3, pending.controls.size());
+        assertTrue(scheduler.delays.isEmpty());
+        assertTrue(outcome.succeeded);
+        assertTrue(scheduler.timers.isEmpty());
+    }
+
+
+    // ------------------------------------------------------ helper methods
+
+    private Function<Object> proceed(final List<String> executed, final String name) {
+        return new Function<Object>() {
+            @Override
+            public void execute(Control<Object> control) {
+                executed.add(name);
+                control.proceed();
+            }
+        };
+    }
+
+    private Function<Object> abort(final List<String> executed, final String name) {
+        return new Function<Object>() {
+            @Override
+            public void execute(Control<Object> control) {
+                executed.add(name);
+                control.abort();
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private Function<Object>[] functions(int count, Function<Object> function) {
+        Function<Object>[] functions = new Function[count];
+        Arrays.fill(functions, function);
+        return functions;
+    }
+
+
+    // ------------------------------------------------------ helper classes
+
+    /**
+     * Function which records its controls and waits until the test proceeds or aborts.
+     */
+    private static class Pending implements Function<Object> {
+
+        final List<Control<Object>> controls = new ArrayList<>();
+
+        @Override
+        public void execute(Control<Object> control) {
+            controls.add(control);
+        }
+
+        void proceed(int index) {
+            controls.get(index).proceed();
+        }
+
+        void abort(int index) {
+            controls.get(index).abort();
+        }
+    }
+
+
+    private static class Recorder implements Outcome<Object> {
+
+        boolean succeeded;
+        boolean failed;
+
+        @Override
+        public void onFailure(Object context) {
+            failed = true;
+        }
+
+        @Override
+        public void onSuccess(Object context) {
+            succeeded = true;
+        }
+
+        boolean settled() {
+            return succeeded || failed;
+        }
+    }
+
+
+    /**
+     * Scheduler which runs deferred commands and timers only when the test says so.
+     */
+    private static class ManualScheduler extends Scheduler {
+
+        final List<ScheduledCommand> deferred = new ArrayList<>();
+        final List<RepeatingCommand> timers = new ArrayList<>();
+        final List<Integer> delays = new ArrayList<>();
+        final List<Integer> periods = new ArrayList<>();
+
+        void runDeferred() {
+            while (!deferred.isEmpty()) {
+                deferred.remove(0).execute();
+            }
+        }
+
+        void runTimers() {
+            for (RepeatingCommand timer : new ArrayList<>(timers)) {
+                if (!timer.execute()) {
+                    timers.remove(timer);
+                }
+            }
+        }
+
+        @Override
+        public void scheduleDeferred(ScheduledCommand cmd) {
+            deferred.add(cmd);
+        }
+
+        @Override
+        public void scheduleFixedDelay(RepeatingCommand cmd, int delayMs) {
+            delays.add(delayMs);
+            timers.add(cmd);
+        }
+
+        @Override
+        public void scheduleFixedPeriod(RepeatingCommand cmd, int delayMs) {
+            periods.add(delayMs);
+            timers.add(cmd);
+        }
+
+        @Override
+        public void scheduleEntry(RepeatingCommand cmd) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void scheduleEntry(ScheduledCommand cmd) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void scheduleFinally(RepeatingCommand cmd) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void scheduleFinally(ScheduledCommand cmd) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void scheduleIncremental(RepeatingCommand cmd) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package org.jboss.gwt.flow.client;
+
+import com.google.gwt.user.client.rpc.AsyncCallback;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PromiseTest {
+
+    // ------------------------------------------------------ test methods
+
+    @Test
+    public void map() {
+        Promise<Integer> upstream = new Promise<>();
+        Recorder<String> recorder = new Recorder<>();
+        upstream.map(new Promise.Mapper<Integer, String>() {
+            @Override
+            public String apply(Integer value) {
+                return "#" + value;
+            }
+        }).then(recorder);
+
+        upstream.resolve(42);
+        assertEquals("#42", recorder.value);
+    }
+
+    @Test
+    public void cancelSettlesCallbacks() {
+        Promise<String> promise = new Promise<>();
+        Recorder<String> before = new Recorder<>();
+        promise.then(before);
+        promise.cancel();
+
+        assertTrue(promise.isCancelled());
+        assertTrue(before.error instanceof Promise.CancelledException);
+
+        // callbacks registered after the cancellation are settled immediately
+        Recorder<String> after = new Recorder<>();
+        promise.then(after);
+        assertTrue(after.error instanceof Promise.CancelledException);
+    }
+
+    @Test
+    public void cancelDependency() {
+        final boolean[] cancelled = {false};
+        Promise<String> promise = new Promise<>();
+        promise.onCancel(new Cancellable() {
+            @Override
+            public void cancel() {
+                cancelled[0] = true;
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return cancelled[0];
+            }
+        });
+        promise.cancel();
+        assertTrue(cancelled[0]);
+    }
+
+    @Test
+    public void cancelSiblingDerived() {
+        Promise<Integer> upstream = new Promise<>();
+        Promise<Integer> first = upstream.map(new Identity());
+        Promise<Integer> second = upstream.map(new Identity());
+        Recorder<Integer> recorder = new Recorder<>();
+        second.then(recorder);
+
+        // the upstream is still needed by the second derived promise
+        first.cancel();
+        assertTrue(first.isCancelled());
+        assertTrue(upstream.isPending());
+
+        upstream.resolve(42);
+        assertEquals(Integer.valueOf(42), recorder.value);
+    }
+
+    @Test
+    public void cancelLastDerived() {
+        Promise<Integer> upstream = new Promise<>();
+        Recorder<Integer> recorder = new Recorder<>();
+        upstream.then(recorder);
+        Promise<Integer> first = upstream.map(new Identity());
+        Promise<Integer> second = upstream.recover(new Promise.Mapper<Throwable, Integer>() {
+            @Override
+            public Integer apply(Throwable value) {
+                return -1;
+            }
+        });
+
+        first.cancel();
+        second.cancel();
+        first.cancel();
+        assertTrue(upstream.isCancelled());
+        assertTrue(recorder.error instanceof Promise.CancelledException);
+    }
+
+    @Test
+    public void cancelFlatMap() {
+        Promise<Integer> upstream = new Promise<>();
+        final Promise<Integer> shared = new Promise<>();
+        Promise<Integer> sibling = shared.map(new Identity());
+        Promise<Integer> result = upstream.flatMap(new Promise.Mapper<Integer, Promise<Integer>>() {
+            @Override
+            public Promise<Integer> apply(Integer value) {
+                return shared;
+            }
+        });
+        upstream.resolve(1);
+        result.cancel();
+
+        // the promise returned by the mapper is still used by another dependent
+        assertTrue(shared.isPending());
+        sibling.cancel();
+        assertTrue(shared.isCancelled());
+    }
+
+    @Test
+    public void raceWithSharedInput() {
+        Promise<String> shared = new Promise<>();
+        Promise<String> other = new Promise<>();
+        Recorder<String> consumer = new Recorder<>();
+        shared.then(consumer);
+
+        Recorder<String> winner = new Recorder<>();
+        Promise.race(Arrays.asList(other, shared)).then(winner);
+        other.resolve("other");
+        assertEquals("other", winner.value);
+
+        // the losing input is not owned by race() and must not be cancelled
+        assertTrue(shared.isPending());
+        shared.resolve("shared");
+        assertEquals("shared", consumer.value);
+    }
+
+    @Test
+    public void cancelRace() {
+        Promise<String> first = new Promise<>();
+        Promise<String> second = new Promise<>();
+        Promise<String> race = Promise.race(Arrays.asList(first, second));
+        Recorder<String> recorder = new Recorder<>();
+        race.then(recorder);
+
+        race.cancel();
+        assertTrue(recorder.error instanceof Promise.CancelledException);
+        assertTrue(first.isPending());
+        assertTrue(second.isPending());
+    }
+
+    @Test
+    public void allInOrder() {
+        Promise<String> first = new Promise<>();
+        Promise<String> second = new Promise<>();
+        Recorder<List<String>> recorder = new Recorder<>();
+        Promise.all(first, second).then(recorder);
+
+        second.resolve("b");
+        assertNull(recorder.value);
+        first.resolve("a");
+        assertEquals(Arrays.asList("a", "b"), recorder.value);
+    }
+
+    @Test
+    public void allRejectedKeepsInputs() {
+        Promise<String> first = new Promise<>();
+        Promise<String> second = new Promise<>();
+        Recorder<List<String>> recorder = new Recorder<>();
+        Promise.all(first, second).then(recorder);
+
+        first.reject(new RuntimeException("first"));
+        assertEquals("first", recorder.error.getMessage());
+        assertTrue(second.isPending());
+    }
+
+    @Test
+    public void anyFulfilled() {
+        Promise<String> first = new Promise<>();
+        Promise<String> second = new Promise<>();
+        Recorder<String> recorder = new Recorder<>();
+        Promise.any(Arrays.asList(first, second)).then(recorder);
+
+        first.reject(new RuntimeException("first"));
+        assertNull(recorder.error);
+        second.resolve("second");
+        assertEquals("second", recorder.value);
+    }
+
+    @Test
+    public void allWithLimit() {
+        final List<Promise<Integer>> started = new ArrayList<>();
+        List<Promise.Task<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            tasks.add(new Promise.Task<Integer>() {
+                @Override
+                public Promise<Integer> start() {
+                    Promise<Integer> promise = new Promise<>();
+                    started.add(promise);
+                    return promise;
+                }
+            });
+        }
+        Recorder<List<Integer>> recorder = new Recorder<>();
+        Promise.all(2, tasks).then(recorder);
+        assertEquals(2, started.size());
+
+        started.get(0).resolve(0);
+        assertEquals(3, started.size());
+        started.get(2).resolve(2);
+        started.get(1).resolve(1);
+        assertEquals(Arrays.asList(0, 1, 2), recorder.value);
+    }
+
+    @Test
+    public void cancelAllWithLimit() {
+        final List<Promise<Integer>> started = new ArrayList<>();
+        List<Promise.Task<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            tasks.add(new Promise.Task<Integer>() {
+                @Override
+                public Promise<Integer> start() {
+                    Promise<Integer> promise = new Promise<>();
+                    started.add(promise);
+                    return promise;
+                }
+            });
+        }
+        Promise<List<Integer>> all = Promise.all(2, tasks);
+        all.cancel();
+
+        // the started promises are owned by the result
+        assertEquals(2, started.size());
+        assertTrue(started.get(0).isCancelled());
+        assertTrue(started.get(1).isCancelled());
+    }
+
+
+    // ------------------------------------------------------ helper classes
+
+    private static class Identity implements Promise.Mapper<Integer, Integer> {
+
+        @Override
+        public Integer apply(Integer value) {
+            return value;
+        }
+    }
+
+
+    private static class Recorder<T> implements AsyncCallback<T> {
+
+        T value;
+        Throwable error;
+
+        @Override
+        public void onFailure(Throwable caught) {
+            error = caught;
+        }
+
+        @Override
+        public void onSuccess(T result) {
+            value = result;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.gwt.flow.client;
+
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.core.client.Scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Microbenchmark for {@link Async}. Since the flows depend on the browser's event loop, it has to run inside the
+ * demo application. Run it against different versions of the flow module to compare them.
+ * <p/>
+ * Each round consists of two windows of the same length: In the first window only a background counter runs, in
+ * the second window the counter competes with {@link #FLOWS} waterfalls whose functions wait for simulated I/O.
+ * The CPU time used by the flows is estimated from the number of counter slices they took away. The overhead of
+ * flows with synchronous functions is measured separately as wall clock time. Like JMH, the first rounds are
+ * used for warm-up and are not part of the result.
+ * <p/>
+ * The benchmark only measures. The behavior of the flows is verified by {@code AsyncTest} in the flow core module.
+ */
+public class FlowBenchmark {
+
+    public interface Report {
+        void println(String line);
+    }
+
+
+    static final int WARMUP_ROUNDS = 2;
+    static final int MEASURED_ROUNDS = 5;
+    static final int FLOWS = 20;
+    static final int FUNCTIONS = 5;
+    static final int IO_MILLIS = 50;
+    static final int SYNC_FLOWS = 1000;
+    static final int SYNC_FUNCTIONS = 10;
+
+    private final Report report;
+    private final List<Double> cpuPerFlow;
+    private final List<Double> overheadPerFlow;
+    private int round;
+
+    public FlowBenchmark(Report report) {
+        this.report = report;
+        this.cpuPerFlow = new ArrayList<>();
+        this.overheadPerFlow = new ArrayList<>();
+    }
+
+    public void run() {
+        round = 0;
+        cpuPerFlow.clear();
+        overheadPerFlow.clear();
+        nextRound();
+    }
+
+    private void nextRound() {
+        if (round >= WARMUP_ROUNDS + MEASURED_ROUNDS) {
+            report.println("CPU per I/O bound flow:  " + summary(cpuPerFlow));
+            report.println("Overhead per sync flow:  " + summary(overheadPerFlow));
+            return;
+        }
+        final boolean measured = round >= WARMUP_ROUNDS;
+        round++;
+
+        runSyncFlows(new Done() {
+            @Override
+            public void done(final double syncMillis) {
+                final double overhead = syncMillis / SYNC_FLOWS;
+                runFlows(new Done() {
+                    @Override
+                    public void done(final double wallMillis) {
+                        // baseline: the counter alone for the duration of the flows
+                        final Counter baseline = new Counter();
+                        baseline.start();
+                        Scheduler.get().scheduleFixedDelay(new Scheduler.RepeatingCommand() {
+                            @Override
+                            public boolean execute() {
+                                baseline.stop();
+                                final Counter competing = new Counter();
+                                competing.start();
+                                runFlows(new Done() {
+                                    @Override
+                                    public void done(final double ignore) {
+                                        competing.stop();
+                                        double share = baseline.slices == 0 ? 0 :
+                                                Math.max(0, 1.0 - (double) competing.slices / baseline.slices);
+                                        double cpu = share * wallMillis / FLOWS;
+                                        report.println((measured ? "Round " + (round - WARMUP_ROUNDS) : "Warm-up")
+                                                + ": cpu/flow " + format(cpu) + " ms, sync overhead/flow "
+                                                + format(overhead) + " ms");
+                                        if (measured) {
+                                            cpuPerFlow.add(cpu);
+                                            overheadPerFlow.add(overhead);
+                                        }
+                                        nextRound();
+                                    }
+                                });
+                                return false;
+                            }
+                        }, (int) Math.max(1, wallMillis));
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Runs {@link #SYNC_FLOWS} waterfalls with functions which proceed immediately.
+     */
+    private void runSyncFlows(final Done callback) {
+        @SuppressWarnings("unchecked")
+        Function<Object>[] functions = new Function[SYNC_FUNCTIONS];
+        for (int i = 0; i < functions.length; i++) {
+            functions[i] = new Function<Object>() {
+                @Override
+                public void execute(Control<Object> control) {
+                    control.proceed();
+                }
+            };
+        }
+        start(SYNC_FLOWS, functions, callback);
+    }
+
+    /**
+     * Runs {@link #FLOWS} waterfalls with functions which wait {@link #IO_MILLIS} for simulated I/O.
+     */
+    private void runFlows(final Done callback) {
+        @SuppressWarnings("unchecked")
+        Function<Object>[] functions = new Function[FUNCTIONS];
+        for (int i = 0; i < functions.length; i++) {
+            functions[i] = new Function<Object>() {
+                @Override
+                public void execute(final Control<Object> control) {
+                    Scheduler.get().scheduleFixedDelay(new Scheduler.RepeatingCommand() {
+                        @Override
+                        public boolean execute() {
+                            control.proceed();
+                            return false;
+                        }
+                    }, IO_MILLIS);
+                }
+            };
+        }
+        start(FLOWS, functions, callback);
+    }
+
+    private void start(final int flows, Function<Object>[] functions, final Done callback) {
+        final Duration duration = new Duration();
+        final int[] finished = {0};
+        Outcome<Object> outcome = new Outcome<Object>() {
+            @Override
+            public void onFailure(Object context) {
+                onSuccess(context);
+            }
+
+            @Override
+            public void onSuccess(Object context) {
+                finished[0]++;
+                if (finished[0] == flows) {
+                    callback.done(duration.elapsedMillis());
+                }
+            }
+        };
+        for (int i = 0; i < flows; i++) {
+            new Async<Object>().waterfall(null, outcome, functions);
+        }
+    }
+
+    private String summary(List<Double> values) {
+        double sum = 0;
+        for (Double value : values) {
+            sum += value;
+        }
+        double mean = values.isEmpty() ? 0 : sum / values.size();
+        double variance = 0;
+        for (Double value : values) {
+            variance += (value - mean) * (value - mean);
+        }
+        double deviation = values.isEmpty() ? 0 : Math.sqrt(variance / values.size());
+        return format(mean) + " ms +/- " + format(deviation) + " (n=" + values.size() + ")";
+    }
+
+    private String format(double value) {
+        return String.valueOf(Math.round(value * 1000) / 1000.0);
+    }
+
+
+    private interface Done {
+        void done(double elapsedMillis);
+    }
+
+
+    /**
+     * Background work which runs in small slices as long as it's not stopped. The more slices complete, the more
+     * CPU time was available.
+     */
+    private static class Counter {
+
+        private boolean running;
+        int slices;
+        private double sink;
+
+        void start() {
+            running = true;
+            Scheduler.get().scheduleIncremental(new Scheduler.RepeatingCommand() {
+                @Override
+                public boolean execute() {
+                    for (int i = 0; i < 1000; i++) {
+                        sink += Math.sqrt(i);
+                    }
+                    slices++;
+                    return running;
+                }
+            });
+        }
+
+        void stop() {
+            running = false;
+        }
+    }
+}
@@ -69,6 +69,23 @@ public class FlowDemo implements EntryPoint
             }
         }));
 
+        btns.add(new Button("Benchmark", new ClickHandler()
+        {
+            @Override
+            public void onClick(ClickEvent clickEvent)
+            {
+                clearOutput();
+                new FlowBenchmark(new FlowBenchmark.Report()
+                {
+                    @Override
+                    public void println(String line)
+                    {
+                        append(line);
+                    }
+                }).run();
+            }
+        }));
+
         RootLayoutPanel.get().add(btns);
     }
 
@@ -256,6 +273,7 @@ public class FlowDemo implements EntryPoint
         {
             append(counter + "");
             increment();
+            control.proceed();
 
         }
 
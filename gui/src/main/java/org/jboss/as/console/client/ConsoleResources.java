@@ -3,6 +3,7 @@ package org.jboss.as.console.client;
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.resources.client.ClientBundle;
 import com.google.gwt.resources.client.CssResource;
+import com.google.gwt.resources.client.ExternalTextResource;
 import com.google.gwt.resources.client.TextResource;
 
 /**
@@ -34,14 +35,20 @@ public interface ConsoleResources extends ClientBundle {
     @Source("org/jboss/as/console/public/prettyprint/prettify.js")
     TextResource prettifyJs();
 
+    /**
+     * Loaded on demand by the {@link ScriptLoader}
+     */
     @Source("org/jboss/as/console/public/lunr.js")
-    TextResource lunrJs();
+    ExternalTextResource lunrJs();
 
     @Source("org/jboss/as/console/public/mousetrap.js")
     TextResource mousetrapJs();
 
+    /**
+     * Loaded on demand by the {@link ScriptLoader}
+     */
     @Source("org/jboss/as/console/public/protovis-d3.2-PATCHED-COMPRESSED.js")
-    TextResource protovis();
+    ExternalTextResource protovis();
 
     @CssResource.NotStrict
     @Source("org/jboss/as/console/public/verticaltabs.css")
@@ -26,6 +26,9 @@ import com.google.inject.Inject;
 import org.jboss.as.console.client.widgets.progress.ProgressPolyfill;
 
 /**
+ * Injects the styles and scripts needed right from the start. Heavy scripts which are only used by some parts of the
+ * console are loaded on demand by the {@link ScriptLoader}.
+ *
  * @author Harald Pehl
  */
 public class ResourceLoader {
@@ -44,11 +47,7 @@ public class ResourceLoader {
         ProgressPolyfill.inject();
         ScriptInjector.fromString(resources.prettifyJs().getText()).setWindow(ScriptInjector.TOP_WINDOW)
                 .inject();
-        ScriptInjector.fromString(resources.lunrJs().getText()).setWindow(ScriptInjector.TOP_WINDOW)
-                .inject();
         ScriptInjector.fromString(resources.mousetrapJs().getText()).setWindow(
                 ScriptInjector.TOP_WINDOW).inject();
-        ScriptInjector.fromString(resources.protovis().getText()).setWindow(ScriptInjector.TOP_WINDOW)
-                .inject();
     }
 }
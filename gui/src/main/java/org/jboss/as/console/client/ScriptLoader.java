@@ -0,0 +1,142 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.console.client;
+
+import com.allen_sauer.gwt.log.client.Log;
+import com.google.gwt.core.client.ScriptInjector;
+import com.google.gwt.resources.client.ExternalTextResource;
+import com.google.gwt.resources.client.ResourceCallback;
+import com.google.gwt.resources.client.ResourceException;
+import com.google.gwt.resources.client.TextResource;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+import com.google.gwt.visualization.client.VisualizationUtils;
+import com.google.gwt.visualization.client.visualizations.OrgChart;
+import com.google.gwt.visualization.client.visualizations.corechart.LineChart;
+import com.google.inject.Inject;
+import org.jboss.gwt.flow.client.Promise;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Loads heavy third party scripts on demand. Unlike the scripts injected by the {@link ResourceLoader} these scripts
+ * are not part of the initial download, but fetched when they're used for the first time.
+ * <p/>
+ * Each script is loaded at most once: All callers share the same promise, so concurrent requests don't trigger
+ * additional downloads. Since the promise is shared, callers must not cancel it. If loading fails, the next call
+ * tries again.
+ */
+public class ScriptLoader {
+
+    public enum Script {
+        /**
+         * <a href="http://lunrjs.com/">lunr</a> used by the search index
+         */
+        LUNR,
+
+        /**
+         * Protovis used by the runtime charts
+         */
+        PROTOVIS,
+
+        /**
+         * The Google visualization API used by the MBUI tools
+         */
+        GOOGLE_VIZ
+    }
+
+
+    private final ConsoleResources resources;
+    private final Map<Script, Promise<Void>> promises;
+
+    @Inject
+    public ScriptLoader(ConsoleResources resources) {
+        this.resources = resources;
+        this.promises = new EnumMap<>(Script.class);
+    }
+
+    /**
+     * @return a promise which is fulfilled once the script is available
+     */
+    public Promise<Void> load(final Script script) {
+        Promise<Void> promise = promises.get(script);
+        if (promise == null) {
+            promise = new Promise<>();
+            promises.put(script, promise);
+            promise.then(new AsyncCallback<Void>() {
+                @Override
+                public void onFailure(Throwable caught) {
+                    Log.error("Unable to load " + script + ": " + caught.getMessage());
+                    promises.remove(script);
+                }
+
+                @Override
+                public void onSuccess(Void result) {
+                    Log.info("Loaded " + script);
+                }
+            });
+
+            switch (script) {
+                case LUNR:
+                    inject(resources.lunrJs(), promise);
+                    break;
+                case PROTOVIS:
+                    inject(resources.protovis(), promise);
+                    break;
+                case GOOGLE_VIZ:
+                    final Promise<Void> vizPromise = promise;
+                    VisualizationUtils.loadVisualizationApi(new Runnable() {
+                        @Override
+                        public void run() {
+                            vizPromise.resolve(null);
+                        }
+                    }, LineChart.PACKAGE, OrgChart.PACKAGE);
+                    break;
+            }
+        }
+        return promise;
+    }
+
+    public boolean isLoaded(final Script script) {
+        Promise<Void> promise = promises.get(script);
+        return promise != null && !promise.isPending();
+    }
+
+    private void inject(final ExternalTextResource resource, final Promise<Void> promise) {
+        try {
+            resource.getText(new ResourceCallback<TextResource>() {
+                @Override
+                public void onError(ResourceException e) {
+                    promise.reject(e);
+                }
+
+                @Override
+                public void onSuccess(TextResource text) {
+                    ScriptInjector.fromString(text.getText()).setWindow(ScriptInjector.TOP_WINDOW).inject();
+                    promise.resolve(null);
+                }
+            });
+        } catch (ResourceException e) {
+            promise.reject(e);
+        }
+    }
+}
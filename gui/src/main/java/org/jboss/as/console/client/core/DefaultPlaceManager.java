@@ -29,6 +29,7 @@ import com.gwtplatform.mvp.shared.proxy.TokenFormatter;
 import org.jboss.as.console.client.Console;
 import org.jboss.as.console.client.rbac.UnauthorizedEvent;
 import org.jboss.ballroom.client.layout.LHSHighlightEvent;
+import org.jboss.dmr.client.dispatch.CancelledException;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -69,6 +70,10 @@ public class DefaultPlaceManager extends PlaceManagerImpl {
             @Override
             public void onFailure(Throwable caught) {
                 unlock();
+                if (caught instanceof CancelledException) {
+                    // superseded by another navigation
+                    return;
+                }
                 revealDefaultPlace();
                 Console.error("Failed to create security context", caught.getMessage());
             }
@@ -24,6 +24,7 @@ import com.google.gwt.event.dom.client.ClickEvent;
 import com.google.gwt.event.dom.client.ClickHandler;
 import com.google.gwt.layout.client.Layout;
 import com.google.gwt.user.client.Command;
+import com.google.gwt.user.client.Window;
 import com.google.gwt.user.client.ui.HTML;
 import com.google.gwt.user.client.ui.HorizontalPanel;
 import com.google.gwt.user.client.ui.LayoutPanel;
@@ -44,6 +45,8 @@ import org.jboss.ballroom.client.widgets.window.DefaultWindow;
 import org.jboss.ballroom.client.widgets.window.DialogueOptions;
 import org.jboss.ballroom.client.widgets.window.WindowContentBuilder;
 import org.jboss.dmr.client.dispatch.Diagnostics;
+import org.jboss.dmr.client.dispatch.DispatchMetrics;
+import org.jboss.dmr.client.dispatch.impl.DMRHandler;
 import org.jboss.gwt.circuit.Dispatcher;
 
 import java.util.ArrayList;
@@ -58,6 +61,11 @@ public class Footer {
 
     public final static ProgressElement PROGRESS_ELEMENT = new ProgressElement();
 
+    /**
+     * URL parameter to show the dispatch diagnostics in compiled builds. In dev mode they're always shown.
+     */
+    public final static String DIAGNOSTICS_PARAMETER = "diagnostics";
+
     private final BootstrapContext context;
     private Widget diagWidget;
     private DiagnosticsView diag;
@@ -66,15 +74,20 @@ public class Footer {
     private Diagnostics diagnostics = GWT.create(Diagnostics.class);
 
     @Inject
-    public Footer(PlaceManager placeManager, ProductConfig prodConfig, BootstrapContext context, Dispatcher circuit) {
+    public Footer(PlaceManager placeManager, ProductConfig prodConfig, BootstrapContext context, Dispatcher circuit,
+            DispatchMetrics metrics, DMRHandler dmrHandler) {
         this.placeManager = placeManager;
         this.productConfig = prodConfig;
         this.context = context;
 
-        if(!GWT.isScript()) {
-            diag = new DiagnosticsView();
+        if(!GWT.isScript() || Window.Location.getParameter(DIAGNOSTICS_PARAMETER) != null) {
+            diag = new DiagnosticsView(metrics, dmrHandler.getQueue());
             diagWidget = diag.asWidget();
             circuit.addDiagnostics(diag);
+        } else {
+            // nobody looks at the metrics: don't collect them
+            metrics.setEnabled(false);
+            metrics.reset();
         }
 
     }
@@ -163,7 +176,7 @@ public class Footer {
         layout.add(PROGRESS_ELEMENT);
 
 
-        if(!GWT.isScript()) {
+        if(diagWidget != null) {
             layout.add(diagWidget);
         }
 
@@ -206,7 +219,7 @@ public class Footer {
         layout.setWidgetRightWidth(PROGRESS_ELEMENT, 200, PX, 150, PX);
         layout.setWidgetTopHeight(PROGRESS_ELEMENT, 12, PX, 32, PX);
 
-        if(!GWT.isScript())
+        if(diagWidget != null)
         {
             layout.setWidgetRightWidth(diagWidget, 400, PX, 300, PX);
             layout.setWidgetTopHeight(diagWidget, 12, PX, 32, PX);
@@ -0,0 +1,66 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.console.client.core;
+
+import org.jboss.ballroom.client.rbac.SecurityContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The security contexts of prefetched tokens which have not been revealed yet. At most {@code maxSize} contexts are
+ * kept: Adding another context drops the context of the least recently prefetched token.
+ */
+class PrefetchedContexts {
+
+    private final Map<String, SecurityContext> contexts;
+
+    PrefetchedContexts(final int maxSize) {
+        this.contexts = new LinkedHashMap<String, SecurityContext>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SecurityContext> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    void put(String token, SecurityContext context) {
+        // prefetching a token again makes it the most recent one
+        contexts.remove(token);
+        contexts.put(token, context);
+    }
+
+    /**
+     * Removes and returns the context of the token. Prefetched contexts are used once.
+     */
+    SecurityContext remove(String token) {
+        return contexts.remove(token);
+    }
+
+    boolean contains(String token) {
+        return contexts.containsKey(token);
+    }
+
+    int size() {
+        return contexts.size();
+    }
+}
@@ -27,6 +27,7 @@ import org.jboss.as.console.client.rbac.Constraints;
 import org.jboss.as.console.client.rbac.ResourceRef;
 import org.jboss.as.console.client.rbac.SecurityContextImpl;
 import org.jboss.as.console.client.v3.dmr.AddressTemplate;
+import org.jboss.as.console.client.v3.dmr.DescriptionStore;
 import org.jboss.as.console.mbui.dmr.ResourceAddress;
 import org.jboss.as.console.mbui.dmr.ResourceDefinition;
 import org.jboss.as.console.mbui.widgets.ResourceDescription;
@@ -34,6 +35,7 @@ import org.jboss.dmr.client.ModelNode;
 import org.jboss.dmr.client.ModelType;
 import org.jboss.dmr.client.Property;
 import org.jboss.dmr.client.dispatch.DispatchAsync;
+import org.jboss.dmr.client.dispatch.Priority;
 import org.jboss.dmr.client.dispatch.impl.DMRAction;
 import org.jboss.dmr.client.dispatch.impl.DMRResponse;
 import org.jboss.gwt.flow.client.Control;
@@ -56,14 +58,25 @@ public class ReadRequiredResources implements Function<RequiredResourcesContext>
     private static final String EXCEPTIONS = "exceptions";
     private static final String ACCESS_CONTROL = "access-control";
     private static final String COMBINED_DESCRIPTIONS = "combined-descriptions";
+    private static final String TRIM_DESCRIPTIONS = "trim-descriptions";
 
     private final DispatchAsync dispatcher;
     private final StatementContext statementContext;
+    private final Priority priority;
     private final List<Input> input;
 
     public ReadRequiredResources(DispatchAsync dispatcher, StatementContext statementContext) {
+        this(dispatcher, statementContext, Priority.INTERACTIVE);
+    }
+
+    /**
+     * @param priority the priority of the composite operations. Background reads are kept when the user navigates
+     *                 to another place: Another read for the same resources might have joined them in the meantime.
+     */
+    public ReadRequiredResources(DispatchAsync dispatcher, StatementContext statementContext, Priority priority) {
         this.dispatcher = dispatcher;
         this.statementContext = statementContext;
+        this.priority = priority;
         this.input = new ArrayList<>();
     }
 
@@ -84,22 +97,26 @@ public class ReadRequiredResources implements Function<RequiredResourcesContext>
         input.add(new Input(requiredResource, ref, address, description, operation));
     }
 
+    public int size() {
+        return input.size();
+    }
+
     @Override
     public void execute(Control<RequiredResourcesContext> control) {
-        ModelNode comp = new ModelNode();
-        comp.get(OP).set(COMPOSITE);
-        comp.get(ADDRESS).setEmptyList();
-
-        int index = 1;
-        List<ModelNode> steps = new ArrayList<>();
-        Map<String, Input> stepToInput = new HashMap<>();
-        for (Iterator<Input> iterator = input.iterator(); iterator.hasNext(); index++) {
-            Input in = iterator.next();
-            steps.add(in.operation);
-            stepToInput.put("step-" + index, in);
+        DescriptionStore store = control.getContext().getResourceDescriptionRegistry().getStore();
+        Parser parser = new Parser(control, store);
+        for (Input in : input) {
+            // descriptions which have been stored in an earlier session don't need to be read again,
+            // but the access control meta data isn't stored and is always read from the server
+            parser.addStep(in, store.get(in.operation));
+        }
+
+        if (parser.stepToInput.isEmpty()) {
+            control.proceed();
+        } else {
+            dispatcher.execute(new DMRAction(parser.composite()).setPriority(priority)
+                    .setKeepOnNavigation(priority == Priority.BACKGROUND), parser);
         }
-        comp.get(STEPS).set(steps);
-        dispatcher.execute(new DMRAction(comp), new Parser(control, steps, stepToInput));
     }
 
 
@@ -124,24 +141,60 @@ public class ReadRequiredResources implements Function<RequiredResourcesContext>
         }
     }
 
+    /**
+     * Each composite operation gets its own parser. The parser keeps the mapping between the step names of its
+     * composite and the inputs, so the results can be correlated even if several composites are executed in
+     * parallel (and all of them contain a "step-1").
+     */
     private class Parser implements AsyncCallback<DMRResponse> {
 
         private final Control<RequiredResourcesContext> control;
-        private final List<ModelNode> steps;
+        private final DescriptionStore store;
         private final Map<String, Input> stepToInput;
+        private final Map<String, ModelNode> stepToStored;
         private final Set<ResourceRef> references;
 
-        private Parser(Control<RequiredResourcesContext> control, List<ModelNode> steps, Map<String, Input> stepToInput) {
+        private Parser(Control<RequiredResourcesContext> control, DescriptionStore store) {
             this.control = control;
-            this.steps = steps;
-            this.stepToInput = stepToInput;
+            this.store = store;
+            this.stepToInput = new LinkedHashMap<>();
+            this.stepToStored = new HashMap<>();
 
             this.references = new HashSet<>();
-            for (Input in : stepToInput.values()) {
+            for (Input in : input) {
                 references.add(in.ref);
             }
         }
 
+        /**
+         * Adds a step for the given input. If there's a stored description, the step reads only the access control
+         * meta data.
+         */
+        void addStep(Input in, ModelNode stored) {
+            String step = "step-" + (stepToInput.size() + 1);
+            stepToInput.put(step, in);
+            if (stored != null) {
+                stepToStored.put(step, stored);
+            }
+        }
+
+        ModelNode composite() {
+            List<ModelNode> steps = new ArrayList<>();
+            for (Map.Entry<String, Input> entry : stepToInput.entrySet()) {
+                ModelNode operation = entry.getValue().operation;
+                if (stepToStored.containsKey(entry.getKey())) {
+                    operation = operation.clone();
+                    operation.get(ACCESS_CONTROL).set(TRIM_DESCRIPTIONS); // reduces the payload size
+                }
+                steps.add(operation);
+            }
+            ModelNode comp = new ModelNode();
+            comp.get(OP).set(COMPOSITE);
+            comp.get(ADDRESS).setEmptyList();
+            comp.get(STEPS).set(steps);
+            return comp;
+        }
+
         @Override
         public void onFailure(Throwable caught) {
             control.getContext().makeReadonly();
@@ -155,6 +208,7 @@ public class ReadRequiredResources implements Function<RequiredResourcesContext>
         @Override
         public void onSuccess(DMRResponse dmrResponse) {
             ModelNode response = dmrResponse.get();
+            control.getContext().recordPayload(stepToInput.size(), dmrResponse.getPayloadSize());
 
             if (response.isFailure()) {
                 Log.error("Failed to retrieve access control meta data, fallback to temporary read-only context: ",
@@ -163,55 +217,85 @@ public class ReadRequiredResources implements Function<RequiredResourcesContext>
 
             } else {
                 ModelNode compositeResult = response.get(RESULT);
-                for (int i = 1; i <= steps.size(); i++) {
-                    String step = "step-" + i;
+                for (Map.Entry<String, Input> entry : stepToInput.entrySet()) {
+                    String step = entry.getKey();
                     if (compositeResult.hasDefined(step)) {
-                        // The first part is identify the resource that has been requested.
-                        // Depending on whether you've requested a wildcard address or a
-                        // specific one we either get a ModelType.List or ModelType.Object
-                        // response. The former requires parsing the response to access control
-                        // meta data matching the inquiry.
-                        Input in = stepToInput.get(step);
-                        List<ModelNode> inquiryAddress = in.address.get(ADDRESS).asList();
-
-                        // it's a List response when asking for '<resourceType>=*"
-                        ModelNode payload = null;
+                        Input in = entry.getValue();
                         ModelNode stepResult = compositeResult.get(step).get(RESULT);
-                        if (stepResult.getType() == ModelType.LIST) {
-                            List<ModelNode> nodes = stepResult.asList();
-
-                            for (ModelNode node : nodes) {
-                                // matching the wildcard response
-                                List<ModelNode> responseAddress = node.get(ADDRESS).asList();
-
-                                // match the inquiry
-                                if (matchingAddress(responseAddress, inquiryAddress)) {
-                                    payload = node.get(RESULT);
-                                    break;
-                                }
-                            }
-                            if (payload == null) {
-                                throw new RuntimeException("Unexpected response format");
-                            }
+                        ModelNode stored = stepToStored.get(step);
+                        if (stored != null) {
+                            process(in, stored, stepResult);
                         } else {
-                            payload = stepResult;
+                            if (SUCCESS.equals(compositeResult.get(step).get(OUTCOME).asString())) {
+                                store.put(in.operation, stepResult);
+                            }
+                            process(in, stepResult, stepResult);
                         }
+                    }
+                }
+            }
+            control.proceed();
+        }
 
-                        // TODO extract the functions to parse and process the
-                        // resource descriptions and the security related metadata
+        /**
+         * Registers the resource description and parses the access control meta data.
+         *
+         * @param description the result containing the resource description
+         * @param accessControl the result containing the access control meta data
+         */
+        void process(Input in, ModelNode description, ModelNode accessControl) {
+            ModelNode payload = payload(in, description);
+            ModelNode accessControlPayload = payload;
+            if (accessControl != description) {
+                accessControlPayload = payload(in, accessControl);
+                if (accessControlPayload.hasDefined(ACCESS_CONTROL)) {
+                    payload.get(ACCESS_CONTROL).set(accessControlPayload.get(ACCESS_CONTROL));
+                }
+            }
+
+            // TODO extract the functions to parse and process the
+            // resource descriptions and the security related metadata
 
-                        // update & store description
-                        in.description.setDefinition(new ResourceDefinition(payload));
+            // update & store description
+            in.description.setDefinition(new ResourceDefinition(payload));
 //                        control.getContext().getResourceDescriptionRegistry().add(in.description);
-                        control.getContext().getResourceDescriptionRegistry().add(in.addressTemplate, new org.jboss.as.console.client.v3.dmr.ResourceDescription(payload));
+            control.getContext().getResourceDescriptionRegistry().add(in.addressTemplate, new org.jboss.as.console.client.v3.dmr.ResourceDescription(payload));
+
+            // break down into root resource and children
+            parseAccessControlChildren(in.ref, references, control.getContext().getSecurityContextImpl(),
+                    accessControlPayload);
+        }
 
-                        // break down into root resource and children
-                        parseAccessControlChildren(in.ref, references, control.getContext().getSecurityContextImpl(),
-                                payload);
+        private ModelNode payload(Input in, ModelNode stepResult) {
+            // The first part is identify the resource that has been requested.
+            // Depending on whether you've requested a wildcard address or a
+            // specific one we either get a ModelType.List or ModelType.Object
+            // response. The former requires parsing the response to access control
+            // meta data matching the inquiry.
+            List<ModelNode> inquiryAddress = in.address.get(ADDRESS).asList();
+
+            // it's a List response when asking for '<resourceType>=*"
+            ModelNode payload = null;
+            if (stepResult.getType() == ModelType.LIST) {
+                List<ModelNode> nodes = stepResult.asList();
+
+                for (ModelNode node : nodes) {
+                    // matching the wildcard response
+                    List<ModelNode> responseAddress = node.get(ADDRESS).asList();
+
+                    // match the inquiry
+                    if (matchingAddress(responseAddress, inquiryAddress)) {
+                        payload = node.get(RESULT);
+                        break;
                     }
                 }
+                if (payload == null) {
+                    throw new RuntimeException("Unexpected response format");
+                }
+            } else {
+                payload = stepResult;
             }
-            control.proceed();
+            return payload;
         }
 
         private boolean matchingAddress(List<ModelNode> responseAddress, List<ModelNode> inquiryAddress) {
@@ -40,6 +40,8 @@ public class RequiredResourcesContext {
     private final SecurityContextImpl securityContextImpl;
     private boolean readOnly;
     private Throwable error;
+    private int payloadResources;
+    private long payloadSize;
 
     public RequiredResourcesContext(String token, Set<String> requiredResources,
                                     ResourceDescriptionRegistry resourceDescriptionRegistry) {
@@ -65,6 +67,10 @@ public class RequiredResourcesContext {
         return securityContextImpl;
     }
 
+    boolean isReadOnly() {
+        return readOnly;
+    }
+
     void makeReadonly() {
         this.readOnly = true;
     }
@@ -80,4 +86,18 @@ public class RequiredResourcesContext {
     public Throwable getError() {
         return error;
     }
+
+    void recordPayload(int resources, int size) {
+        if (size > 0) {
+            payloadResources += resources;
+            payloadSize += size;
+        }
+    }
+
+    /**
+     * @return the average payload size per required resource read from the server or 0 if nothing was read
+     */
+    long getPayloadPerResource() {
+        return payloadResources == 0 ? 0 : payloadSize / payloadResources;
+    }
 }
@@ -0,0 +1,202 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.console.client.core;
+
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+import com.google.web.bindery.event.shared.EventBus;
+import com.gwtplatform.mvp.client.proxy.NavigationEvent;
+import com.gwtplatform.mvp.client.proxy.NavigationHandler;
+import org.jboss.as.console.client.plugins.RequiredResourcesRegistry;
+import org.jboss.dmr.client.dispatch.impl.DMRHandler;
+import org.jboss.dmr.client.dispatch.impl.RequestQueue;
+
+import javax.inject.Inject;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+
+/**
+ * Loads the security contexts and resource descriptions of name tokens which can be reached from the current
+ * selection (e.g. the subsystems listed in a finder column), so that revealing them doesn't need to wait for the
+ * required resources.
+ * <p/>
+ * Tokens are prefetched one after the other and only if the DMR request queue is idle. The number of pending tokens
+ * is bounded. Pending tokens are dropped once the user navigates to another place. Prefetching doesn't reveal a
+ * token: The {@link RequiredResourcesProcessor} keeps the security contexts of the most recently prefetched tokens
+ * until they're revealed.
+ */
+public class RequiredResourcesPrefetcher implements NavigationHandler {
+
+    /**
+     * Time in ms the request queue has to be idle before the next token is prefetched.
+     */
+    static final int IDLE_DELAY = 750;
+
+    /**
+     * Maximum number of tokens waiting to be prefetched. Older tokens are dropped.
+     */
+    static final int MAX_PENDING = 16;
+
+    private final RequiredResourcesProcessor processor;
+    private final RequiredResourcesRegistry requiredResourcesRegistry;
+    private final NameTokenRegistry nameTokenRegistry;
+    private final RequestQueue queue;
+    private final Scheduler scheduler;
+    private final LinkedHashSet<String> pending;
+    private boolean enabled;
+    private boolean scheduled;
+    private String running;
+    private int prefetched;
+
+    @Inject
+    public RequiredResourcesPrefetcher(EventBus eventBus, RequiredResourcesProcessor processor,
+            RequiredResourcesRegistry requiredResourcesRegistry, NameTokenRegistry nameTokenRegistry,
+            DMRHandler dmrHandler, Scheduler scheduler) {
+        this.processor = processor;
+        this.requiredResourcesRegistry = requiredResourcesRegistry;
+        this.nameTokenRegistry = nameTokenRegistry;
+        this.queue = dmrHandler.getQueue();
+        this.scheduler = scheduler;
+        this.pending = new LinkedHashSet<>();
+        this.enabled = true;
+        eventBus.addHandler(NavigationEvent.getType(), this);
+    }
+
+    /**
+     * Adds the tokens to the end of the list of tokens which should be prefetched. Tokens which were already
+     * revealed or prefetched or which don't have any required resources are ignored.
+     */
+    public void prefetch(Collection<String> tokens) {
+        for (String token : tokens) {
+            if (accept(token) && !pending.contains(token) && pending.size() < MAX_PENDING) {
+                pending.add(token);
+            }
+        }
+        schedule();
+    }
+
+    /**
+     * Moves a single token to the front of the list, e.g. if the user hovers over an item.
+     */
+    public void prefetch(String token) {
+        if (accept(token)) {
+            LinkedHashSet<String> reordered = new LinkedHashSet<>();
+            reordered.add(token);
+            reordered.addAll(pending);
+            pending.clear();
+            for (Iterator<String> iterator = reordered.iterator();
+                 iterator.hasNext() && pending.size() < MAX_PENDING; ) {
+                pending.add(iterator.next());
+            }
+            schedule();
+        }
+    }
+
+    /**
+     * Drops all pending tokens. A token which is currently loaded is finished, but nothing else is sent.
+     */
+    public void cancel() {
+        pending.clear();
+    }
+
+    @Override
+    public void onNavigation(NavigationEvent navigationEvent) {
+        // tokens reachable from the new place will be added by its columns
+        cancel();
+    }
+
+    public int getPending() {
+        return pending.size();
+    }
+
+    public int getPrefetched() {
+        return prefetched;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            cancel();
+        }
+    }
+
+    private boolean accept(String token) {
+        return enabled && token != null && !token.equals(running)
+                && !nameTokenRegistry.wasRevealed(token) && !processor.isPrefetched(token)
+                && !requiredResourcesRegistry.getResources(token).isEmpty();
+    }
+
+    private void schedule() {
+        if (!scheduled && running == null && !pending.isEmpty()) {
+            scheduled = true;
+            scheduler.scheduleFixedDelay(new Scheduler.RepeatingCommand() {
+                @Override
+                public boolean execute() {
+                    if (pending.isEmpty()) {
+                        scheduled = false;
+                        return false;
+                    }
+                    if (queue.getRunning() > 0 || queue.getDepth() > 0) {
+                        return true; // not idle, try again later
+                    }
+                    scheduled = false;
+                    next();
+                    return false;
+                }
+            }, IDLE_DELAY);
+        }
+    }
+
+    private void next() {
+        Iterator<String> iterator = pending.iterator();
+        final String token = iterator.next();
+        iterator.remove();
+        if (nameTokenRegistry.wasRevealed(token) || processor.isPrefetched(token)) {
+            schedule();
+            return;
+        }
+
+        running = token;
+        prefetched++;
+        processor.prefetch(token, new AsyncCallback<Void>() {
+            @Override
+            public void onFailure(Throwable caught) {
+                done();
+            }
+
+            @Override
+            public void onSuccess(Void result) {
+                done();
+            }
+        });
+    }
+
+    private void done() {
+        running = null;
+        schedule();
+    }
+}
@@ -30,13 +30,14 @@ import org.jboss.as.console.mbui.behaviour.CoreGUIContext;
 import org.jboss.as.console.client.v3.ResourceDescriptionRegistry;
 import org.jboss.ballroom.client.rbac.SecurityContext;
 import org.jboss.dmr.client.dispatch.DispatchAsync;
+import org.jboss.dmr.client.dispatch.Priority;
 import org.jboss.gwt.flow.client.Async;
 import org.jboss.gwt.flow.client.Outcome;
 import org.useware.kernel.gui.behaviour.FilteringStatementContext;
 import org.useware.kernel.gui.behaviour.StatementContext;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -46,9 +47,29 @@ import java.util.Set;
 public class RequiredResourcesProcessor {
 
     /**
-     * Number of required resources which are loaded as part of one composite operation.
+     * Number of required resources which are loaded as part of one composite operation as long as there are no
+     * measured payload sizes.
      */
-    private final static int BATCH_SIZE = 3;
+    final static int DEFAULT_BATCH_SIZE = 3;
+    final static int MAX_BATCH_SIZE = 10;
+
+    /**
+     * Upper bound for the payload of one composite operation (length of the response text). Larger payloads are
+     * split across more composites.
+     */
+    final static int MAX_PAYLOAD = 512 * 1024;
+
+    /**
+     * The number of composites which run in parallel. If the payload requires more composites, the remaining ones
+     * are started as soon as a running composite has completed.
+     */
+    final static int PARALLEL_REQUESTS = 4;
+
+    /**
+     * Maximum number of prefetched security contexts which are kept until their tokens are revealed. The contexts
+     * of the least recently prefetched tokens are dropped.
+     */
+    final static int MAX_PREFETCHED = 32;
 
     private final DispatchAsync dispatcher;
     private final RequiredResourcesRegistry requiredResourcesRegistry;
@@ -56,6 +77,11 @@ public class RequiredResourcesProcessor {
     private final ResourceDescriptionRegistry resourceDescriptionRegistry;
     private final SecurityFramework securityFramework;
     private final StatementContext statementContext;
+    private final PrefetchedContexts prefetched;
+
+    // measured payload size per required resource, separate for recursive and non-recursive reads
+    private long payloadPerResource;
+    private long recursivePayloadPerResource;
 
     @Inject
     protected RequiredResourcesProcessor(DispatchAsync dispatcher,
@@ -71,19 +97,75 @@ public class RequiredResourcesProcessor {
         this.resourceDescriptionRegistry = resourceDescriptionRegistry;
         this.securityFramework = securityFramework;
         this.statementContext = new FilteringStatementContext(statementContext, new RequiredResourcesFilter(bootstrap));
+        this.prefetched = new PrefetchedContexts(MAX_PREFETCHED);
+
+        // a prefetched context must not outlive the context it would replace
+        this.securityFramework.addFlushHandler(new SecurityFramework.FlushHandler() {
+            @Override
+            public void onFlush(String id) {
+                prefetched.remove(id);
+            }
+        });
     }
 
+    /**
+     * Loads the security context and resource descriptions of a token which is about to be revealed. The
+     * composite operations are sent with {@link Priority#NAVIGATION}: If the user navigates to another place
+     * before they're sent, they're cancelled and the callback is notified with a
+     * {@link org.jboss.dmr.client.dispatch.CancelledException}.
+     * <p/>
+     * If the token has been prefetched, the prefetched security context is used and nothing is loaded.
+     */
     public void process(final String token, final AsyncCallback<Void> callback) {
+        SecurityContext context = prefetched.remove(token);
+        if (context != null && !nameTokenRegistry.wasRevealed(token)) {
+            finishWithContext(token, context, callback);
+        } else {
+            load(token, Priority.NAVIGATION, new Async<RequiredResourcesContext>(Footer.PROGRESS_ELEMENT), callback);
+        }
+    }
+
+    /**
+     * Loads the security context and resource descriptions of a token the user is likely to visit next. The
+     * composite operations are sent with {@link Priority#BACKGROUND} and don't show any progress.
+     * <p/>
+     * Prefetching doesn't reveal the token: The security context is kept aside and only assigned when the token is
+     * {@linkplain #process(String, AsyncCallback) processed}. At most {@link #MAX_PREFETCHED} contexts are kept.
+     */
+    public void prefetch(final String token, final AsyncCallback<Void> callback) {
+        if (isPrefetched(token)) {
+            callback.onSuccess(null);
+        } else {
+            load(token, Priority.BACKGROUND, new Async<RequiredResourcesContext>(), callback);
+        }
+    }
+
+    /**
+     * @return whether there's a prefetched security context for the token which hasn't been used yet
+     */
+    public boolean isPrefetched(String token) {
+        return prefetched.contains(token);
+    }
+
+    private void load(final String token, final Priority priority, Async<RequiredResourcesContext> async,
+            final AsyncCallback<Void> callback) {
         if (!nameTokenRegistry.wasRevealed(token)) {
             Set<String> requiredResources = requiredResourcesRegistry.getResources(token);
-            boolean recursive = requiredResourcesRegistry.isRecursive(token);
+            final boolean recursive = requiredResourcesRegistry.isRecursive(token);
             if (requiredResources.isEmpty()) {
-                finishWithContext(token, new NoGatekeeperContext(), callback);
+                finish(token, priority, new NoGatekeeperContext(), callback);
 
             } else {
-                List<ReadRequiredResources> functions = partition(requiredResources, recursive, BATCH_SIZE);
-
-                System.out.println("Num partitions: "+functions.size());
+                long perResource = recursive ? recursivePayloadPerResource : payloadPerResource;
+                List<ReadRequiredResources> functions = new ArrayList<>();
+                for (List<String> batch : partition(requiredResources,
+                        batchSize(requiredResources.size(), perResource))) {
+                    ReadRequiredResources rrr = new ReadRequiredResources(dispatcher, statementContext, priority);
+                    for (String resource : batch) {
+                        rrr.add(resource, recursive);
+                    }
+                    functions.add(rrr);
+                }
 
                 RequiredResourcesContext context = new RequiredResourcesContext(token, requiredResources,
                         resourceDescriptionRegistry);
@@ -95,13 +177,21 @@ public class RequiredResourcesProcessor {
 
                     @Override
                     public void onSuccess(RequiredResourcesContext context) {
-                        finishWithContext(token, context.getSecurityContext(), callback);
+                        updatePayload(context, recursive);
+                        if (nameTokenRegistry.wasRevealed(token)) {
+                            // loaded in the meantime by a concurrent call (e.g. a prefetch)
+                            callback.onSuccess(null);
+                        } else if (priority == Priority.BACKGROUND && context.isReadOnly()) {
+                            // don't keep the temporary read-only fallback, the next reveal tries again
+                            callback.onFailure(new IllegalStateException(
+                                    "Unable to prefetch access control meta data for " + token));
+                        } else {
+                            finish(token, priority, context.getSecurityContext(), callback);
+                        }
                     }
                 };
                 //noinspection unchecked
-                // Unfortunately we cannot use Async.parallel() here unless someone finds a way
-                // to unambiguously map parallel r-r-d operations to their results (multiple "step-1" results)
-                new Async<RequiredResourcesContext>(Footer.PROGRESS_ELEMENT).waterfall(context, outcome,
+                async.parallel(PARALLEL_REQUESTS, context, outcome,
                         functions.toArray(new ReadRequiredResources[functions.size()]));
             }
         } else {
@@ -109,6 +199,17 @@ public class RequiredResourcesProcessor {
         }
     }
 
+    private void finish(String token, Priority priority, SecurityContext securityContext,
+            AsyncCallback<Void> callback) {
+        if (priority == Priority.BACKGROUND) {
+            // keep the context until the token is revealed
+            prefetched.put(token, securityContext);
+            callback.onSuccess(null);
+        } else {
+            finishWithContext(token, securityContext, callback);
+        }
+    }
+
     private void finishWithContext(String token, SecurityContext securityContext, AsyncCallback<Void> callback) {
         nameTokenRegistry.revealed(token);
         securityContext.seal();
@@ -116,20 +217,42 @@ public class RequiredResourcesProcessor {
         callback.onSuccess(null);
     }
 
-    private List<ReadRequiredResources> partition(Set<String> requiredResources, boolean recursive, int batchSize) {
-        int index = 0;
-        List<ReadRequiredResources> functions = new ArrayList<>();
+    /**
+     * Spreads the required resources across {@link #PARALLEL_REQUESTS} composites, unless the measured payload
+     * per resource would exceed {@link #MAX_PAYLOAD}. In that case smaller composites are used.
+     *
+     * @param perResource the measured payload per resource, 0 if nothing has been measured yet
+     */
+    static int batchSize(int resources, long perResource) {
+        int batchSize = (resources + PARALLEL_REQUESTS - 1) / PARALLEL_REQUESTS;
+        int limit = perResource == 0 ? DEFAULT_BATCH_SIZE : (int) Math.min(MAX_BATCH_SIZE, MAX_PAYLOAD / perResource);
+        return Math.max(1, Math.min(batchSize, limit));
+    }
+
+    private void updatePayload(RequiredResourcesContext context, boolean recursive) {
+        long measured = context.getPayloadPerResource();
+        if (measured > 0) {
+            // moving average which favours recent measurements
+            if (recursive) {
+                recursivePayloadPerResource = recursivePayloadPerResource == 0
+                        ? measured : (recursivePayloadPerResource + measured) / 2;
+            } else {
+                payloadPerResource = payloadPerResource == 0 ? measured : (payloadPerResource + measured) / 2;
+            }
+        }
+    }
 
-        ReadRequiredResources rrr = null;
-        for (Iterator<String> iterator = requiredResources.iterator(); iterator.hasNext(); index++) {
-            if (index % batchSize == 0) {
-                rrr = new ReadRequiredResources(dispatcher, statementContext);
-                functions.add(rrr);
+    static <T> List<List<T>> partition(Collection<T> items, int batchSize) {
+        List<List<T>> batches = new ArrayList<>();
+        List<T> batch = null;
+        for (T item : items) {
+            if (batch == null || batch.size() == batchSize) {
+                batch = new ArrayList<>(batchSize);
+                batches.add(batch);
             }
-            assert rrr != null;
-            rrr.add(iterator.next(), recursive);
+            batch.add(item);
         }
-        return functions;
+        return batches;
     }
 
 
@@ -0,0 +1,50 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.console.client.core;
+
+import com.google.web.bindery.event.shared.EventBus;
+import com.gwtplatform.mvp.client.proxy.NavigationEvent;
+import com.gwtplatform.mvp.client.proxy.NavigationHandler;
+import org.jboss.dmr.client.dispatch.impl.DMRHandler;
+
+import javax.inject.Inject;
+
+/**
+ * Cancels queued navigation and background DMR requests once the user navigates to another place. Requests
+ * which load the required resources of a place are sent as navigation requests, see
+ * {@link RequiredResourcesProcessor#process(String, com.google.gwt.user.client.rpc.AsyncCallback)}.
+ */
+public class StaleRequestHandler implements NavigationHandler {
+
+    private final DMRHandler dmrHandler;
+
+    @Inject
+    public StaleRequestHandler(EventBus eventBus, DMRHandler dmrHandler) {
+        this.dmrHandler = dmrHandler;
+        eventBus.addHandler(NavigationEvent.getType(), this);
+    }
+
+    @Override
+    public void onNavigation(NavigationEvent navigationEvent) {
+        dmrHandler.getQueue().cancelStale();
+    }
+}
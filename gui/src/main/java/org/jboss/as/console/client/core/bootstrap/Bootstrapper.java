@@ -29,7 +29,6 @@ import org.jboss.as.console.client.core.bootstrap.cors.BootstrapServerSetup;
 import org.jboss.as.console.client.core.bootstrap.hal.BootstrapSteps;
 import org.jboss.as.console.client.rbac.SecurityFramework;
 import org.jboss.ballroom.client.rbac.SecurityContext;
-import org.jboss.gwt.flow.client.Async;
 import org.jboss.gwt.flow.client.Outcome;
 
 import java.util.Collections;
@@ -61,7 +60,7 @@ public class Bootstrapper {
     public void go(final Outcome<BootstrapContext> outcome) {
         prepareSecurityContext(
                 () -> serverSetup.select(
-                        () -> new Async<BootstrapContext>().waterfall(bootstrapContext, outcome, bootstrapSteps.steps())));
+                        () -> bootstrapSteps.graph().execute(bootstrapContext, outcome)));
     }
 
     private void prepareSecurityContext(Scheduler.ScheduledCommand andThen) {
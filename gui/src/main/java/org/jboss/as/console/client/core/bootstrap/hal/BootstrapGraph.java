@@ -0,0 +1,230 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.console.client.core.bootstrap.hal;
+
+import com.allen_sauer.gwt.log.client.Log;
+import com.google.gwt.core.client.GWT;
+import org.jboss.as.console.client.core.BootstrapContext;
+import org.jboss.dmr.client.dispatch.Diagnostics;
+import org.jboss.gwt.flow.client.Control;
+import org.jboss.gwt.flow.client.Outcome;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Directed acyclic graph of bootstrap steps. Each step declares the steps it depends on. A step is executed as soon as
+ * all of its dependencies have finished, so independent steps run concurrently. If a step aborts, no further steps
+ * are started and the outcome fails.
+ * <p/>
+ * Dependencies have to be added before their dependents, which rules out cycles. The time spent in each step is
+ * logged and reported to the {@link Diagnostics}.
+ */
+public class BootstrapGraph {
+
+    static final String DIAGNOSTICS_MODULE = "bootstrap";
+
+    private final Map<BootstrapStep, Node> nodes;
+    private final Diagnostics diagnostics;
+
+    public BootstrapGraph() {
+        this(GWT.<Diagnostics>create(Diagnostics.class));
+    }
+
+    BootstrapGraph(Diagnostics diagnostics) {
+        this.nodes = new LinkedHashMap<>();
+        this.diagnostics = diagnostics;
+    }
+
+    /**
+     * Adds a step to the graph.
+     *
+     * @param name         the name of the step used for diagnostics
+     * @param step         the step
+     * @param dependencies the steps which must finish before this step is executed. Must be already part of the
+     *                     graph.
+     *
+     * @throws IllegalArgumentException if the step was already added or a dependency is unknown
+     */
+    public BootstrapGraph add(String name, BootstrapStep step, BootstrapStep... dependencies) {
+        if (nodes.containsKey(step)) {
+            throw new IllegalArgumentException("Bootstrap step " + name + " already added");
+        }
+        Node node = new Node(name, step);
+        for (BootstrapStep dependency : dependencies) {
+            Node dependencyNode = nodes.get(dependency);
+            if (dependencyNode == null) {
+                throw new IllegalArgumentException("Unknown dependency of bootstrap step " + name +
+                        ": Dependencies have to be added first");
+            }
+            node.dependencies.add(dependencyNode);
+            dependencyNode.dependents.add(node);
+        }
+        nodes.put(step, node);
+        return this;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Executes all steps and calls the outcome once all steps have finished or one step aborted.
+     */
+    public void execute(BootstrapContext context, Outcome<BootstrapContext> outcome) {
+        new Execution(context, outcome).start();
+    }
+
+
+    private static class Node {
+
+        final String name;
+        final BootstrapStep step;
+        final List<Node> dependencies;
+        final List<Node> dependents;
+
+        Node(String name, BootstrapStep step) {
+            this.name = name;
+            this.step = step;
+            this.dependencies = new ArrayList<>();
+            this.dependents = new ArrayList<>();
+        }
+    }
+
+
+    /**
+     * State of one execution of the graph.
+     */
+    private class Execution {
+
+        private final BootstrapContext context;
+        private final Outcome<BootstrapContext> outcome;
+        private final Map<Node, Integer> pendingDependencies;
+        private final long start;
+        private int finished;
+        private boolean aborted;
+
+        Execution(BootstrapContext context, Outcome<BootstrapContext> outcome) {
+            this.context = context;
+            this.outcome = outcome;
+            this.pendingDependencies = new HashMap<>();
+            this.start = System.currentTimeMillis();
+        }
+
+        void start() {
+            List<Node> roots = new ArrayList<>();
+            for (Node node : nodes.values()) {
+                pendingDependencies.put(node, node.dependencies.size());
+                if (node.dependencies.isEmpty()) {
+                    roots.add(node);
+                }
+            }
+            if (nodes.isEmpty()) {
+                outcome.onSuccess(context);
+            }
+            for (Node root : roots) {
+                run(root);
+            }
+        }
+
+        void run(final Node node) {
+            if (aborted) {
+                return;
+            }
+            final long stepStart = System.currentTimeMillis();
+            if (diagnostics.isEnabled()) {
+                diagnostics.logEvent(DIAGNOSTICS_MODULE, node.name, DIAGNOSTICS_MODULE, System.currentTimeMillis(),
+                        "begin");
+            }
+            node.step.execute(new Control<BootstrapContext>() {
+                private boolean done;
+
+                @Override
+                public void proceed() {
+                    if (!done) {
+                        done = true;
+                        timing(node, stepStart, "end");
+                        onFinish(node);
+                    }
+                }
+
+                @Override
+                public void abort() {
+                    if (!done) {
+                        done = true;
+                        timing(node, stepStart, "error");
+                        onAbort(node);
+                    }
+                }
+
+                @Override
+                public BootstrapContext getContext() {
+                    return context;
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return aborted;
+                }
+            });
+        }
+
+        void onFinish(Node node) {
+            if (aborted) {
+                return;
+            }
+            finished++;
+            if (finished == nodes.size()) {
+                Log.info("Bootstrap finished in " + (System.currentTimeMillis() - start) + " ms");
+                outcome.onSuccess(context);
+            } else {
+                for (Node dependent : node.dependents) {
+                    int pending = pendingDependencies.get(dependent) - 1;
+                    pendingDependencies.put(dependent, pending);
+                    if (pending == 0) {
+                        run(dependent);
+                    }
+                }
+            }
+        }
+
+        void onAbort(Node node) {
+            if (!aborted) {
+                aborted = true;
+                Log.error("Bootstrap step " + node.name + " failed after " + (System.currentTimeMillis() - start) +
+                        " ms");
+                outcome.onFailure(context);
+            }
+        }
+
+        private void timing(Node node, long stepStart, String type) {
+            Log.info("Bootstrap step " + node.name + " took " + (System.currentTimeMillis() - stepStart) + " ms");
+            if (diagnostics.isEnabled()) {
+                diagnostics.logEvent(DIAGNOSTICS_MODULE, node.name, DIAGNOSTICS_MODULE, System.currentTimeMillis(),
+                        type);
+            }
+        }
+    }
+}
@@ -24,13 +24,14 @@ package org.jboss.as.console.client.core.bootstrap.hal;
 import com.google.inject.Inject;
 
 /**
- * Simple wrapper around an ordered array of HAL's bootstrap steps.
+ * Declares HAL's bootstrap steps and their dependencies. Steps which don't depend on each other (e.g. loading the
+ * compatibility matrix and reading the execution mode, or loading the profiles and the server groups) are executed
+ * concurrently.
  *
  * @author Harald Pehl
  */
 public class BootstrapSteps {
 
-    private final LoadGoogleViz loadGoogleViz;
     private final ExecutionMode executionMode;
     private final TrackExecutionMode trackExecutionMode;
     private final LoadCompatMatrix loadCompatMatrix;
@@ -41,8 +42,7 @@ public class BootstrapSteps {
     private final EagerLoadGroups eagerLoadGroups;
 
     @Inject
-    public BootstrapSteps(LoadGoogleViz loadGoogleViz,
-                          ExecutionMode executionMode,
+    public BootstrapSteps(ExecutionMode executionMode,
                           TrackExecutionMode trackExecutionMode,
                           LoadCompatMatrix loadCompatMatrix,
                           RegisterSubsystems registerSubsystems,
@@ -51,7 +51,6 @@ public class BootstrapSteps {
                           ServerStoreInit serverStoreInit,
                           EagerLoadGroups eagerLoadGroups) {
 
-        this.loadGoogleViz = loadGoogleViz;
         this.executionMode = executionMode;
         this.trackExecutionMode = trackExecutionMode;
         this.loadCompatMatrix = loadCompatMatrix;
@@ -62,17 +61,19 @@ public class BootstrapSteps {
         this.eagerLoadGroups = eagerLoadGroups;
     }
 
-    public BootstrapStep[] steps() {
-        return new BootstrapStep[] {
-                loadGoogleViz,
-                executionMode,
-                trackExecutionMode,
-                loadCompatMatrix,
-                registerSubsystems,
-                eagerLoadProfiles,
-                hostStoreInit,
-                serverStoreInit,
-                eagerLoadGroups
-        };
+    public BootstrapGraph graph() {
+        return graph(new BootstrapGraph());
+    }
+
+    BootstrapGraph graph(BootstrapGraph graph) {
+        return graph
+                .add("load-compat-matrix", loadCompatMatrix)
+                .add("register-subsystems", registerSubsystems)
+                .add("execution-mode", executionMode)
+                .add("track-execution-mode", trackExecutionMode, executionMode)
+                .add("eager-load-profiles", eagerLoadProfiles, executionMode)
+                .add("host-store-init", hostStoreInit, executionMode)
+                .add("server-store-init", serverStoreInit, hostStoreInit)
+                .add("eager-load-groups", eagerLoadGroups, executionMode);
     }
 }
@@ -23,10 +23,12 @@ import com.allen_sauer.gwt.log.client.Log;
 import com.google.gwt.user.client.rpc.AsyncCallback;
 import com.google.inject.Inject;
 import org.jboss.as.console.client.core.BootstrapContext;
+import org.jboss.as.console.client.core.settings.ModelVersions;
 import org.jboss.as.console.client.shared.Preferences;
 import org.jboss.dmr.client.ModelNode;
 import org.jboss.dmr.client.dispatch.DispatchAsync;
 import org.jboss.dmr.client.dispatch.impl.DMRAction;
+import org.jboss.dmr.client.dispatch.impl.DMRHandler;
 import org.jboss.dmr.client.dispatch.impl.DMRResponse;
 import org.jboss.gwt.flow.client.Control;
 import org.jboss.gwt.flow.client.Function;
@@ -45,10 +47,12 @@ import static org.jboss.dmr.client.ModelDescriptionConstants.*;
 public class ExecutionMode implements BootstrapStep {
 
     private final  DispatchAsync dispatcher;
+    private final ModelVersions modelVersions;
 
     @Inject
-    public ExecutionMode(DispatchAsync dispatcher) {
+    public ExecutionMode(DispatchAsync dispatcher, ModelVersions modelVersions) {
         this.dispatcher = dispatcher;
+        this.modelVersions = modelVersions;
     }
 
     @Override
@@ -56,6 +60,10 @@ public class ExecutionMode implements BootstrapStep {
 
         final BootstrapContext context = control.getContext();
 
+        if (Boolean.valueOf(Preferences.get(Preferences.Key.JSON_WIRE_FORMAT, "false"))) {
+            dispatcher.setProperty(DMRHandler.WIRE_FORMAT, DMRHandler.WIRE_FORMAT_JSON);
+        }
+
         final ModelNode operation = new ModelNode();
         operation.get(OP).set(COMPOSITE);
         operation.get(ADDRESS).setEmptyList();
@@ -112,6 +120,16 @@ public class ExecutionMode implements BootstrapStep {
         step.get(ADDRESS).setEmptyList();
         steps.add(step);
 
+        // management model version
+        for (String attribute : new String[]{"management-major-version", "management-minor-version",
+                "management-micro-version"}) {
+            step = new ModelNode();
+            step.get(OP).set(READ_ATTRIBUTE_OPERATION);
+            step.get(NAME).set(attribute);
+            step.get(ADDRESS).setEmptyList();
+            steps.add(step);
+        }
+
         operation.get(STEPS).set(steps);
 
         dispatcher.execute(new DMRAction(operation), new AsyncCallback<DMRResponse>() {
@@ -153,6 +171,18 @@ public class ExecutionMode implements BootstrapStep {
                     } else if (releaseVersion.get(RESULT).isDefined()) {
                         context.setProductVersion(releaseVersion.get(RESULT).asString());
                     }
+                    if (releaseVersion.get(RESULT).isDefined()) {
+                        modelVersions.put(ModelVersions.SERVER_RELEASE_VERSION, releaseVersion.get(RESULT).asString());
+                    }
+
+                    // management model version
+                    ModelNode major = response.get(RESULT).get("step-8").get(RESULT);
+                    ModelNode minor = response.get(RESULT).get("step-9").get(RESULT);
+                    ModelNode micro = response.get(RESULT).get("step-10").get(RESULT);
+                    if (major.isDefined() && minor.isDefined()) {
+                        modelVersions.put(ModelVersions.SERVER_MANAGEMENT_VERSION, major.asString() + "." +
+                                minor.asString() + "." + (micro.isDefined() ? micro.asString() : "0"));
+                    }
 
                     ModelNode whoami = response.get(RESULT).get("step-6");
                     ModelNode whoamiResult = whoami.get(RESULT);
@@ -28,6 +28,7 @@ import com.gwtplatform.mvp.client.googleanalytics.GoogleAnalytics;
 import com.gwtplatform.mvp.client.proxy.Gatekeeper;
 import com.gwtplatform.mvp.client.proxy.PlaceManager;
 import com.gwtplatform.mvp.shared.proxy.TokenFormatter;
+import org.jboss.as.console.client.ScriptLoader;
 import org.jboss.as.console.client.administration.AdministrationPresenter;
 import org.jboss.as.console.client.administration.audit.AuditLogPresenter;
 import org.jboss.as.console.client.administration.role.RoleAssignmentPresenter;
@@ -154,6 +155,8 @@ import org.jboss.as.console.client.v3.deployment.StandaloneDeploymentFinder;
 import org.jboss.as.console.client.widgets.forms.ApplicationMetaData;
 import org.jboss.as.console.mbui.behaviour.CoreGUIContext;
 import org.jboss.as.console.spi.GinExtension;
+import org.jboss.dmr.client.dispatch.DMRCache;
+import org.jboss.dmr.client.dispatch.DispatchMetrics;
 import org.jboss.dmr.client.dispatch.DispatchAsync;
 import org.jboss.dmr.client.dispatch.HandlerMapping;
 import org.jboss.dmr.client.dispatch.impl.DMRHandler;
@@ -221,6 +224,8 @@ public interface CoreUI {
     DispatchAsync getDispatchAsync();
     HandlerMapping getDispatcherHandlerRegistry();
     DMRHandler getDMRHandler();
+    DMRCache getDMRCache();
+    DispatchMetrics getDispatchMetrics();
 
     ApplicationMetaData getApplicationMetaData();
 
@@ -384,6 +389,8 @@ public interface CoreUI {
 
     RequiredResourcesProcessor getRequiredResourcesProcessor();
 
+    ScriptLoader getScriptLoader();
+
     PreviewContentFactory getPreviewContentFactory();
 
     Bootstrapper getBootstrapper();
@@ -33,6 +33,7 @@ import com.gwtplatform.mvp.client.proxy.Gatekeeper;
 import com.gwtplatform.mvp.client.proxy.PlaceManager;
 import com.gwtplatform.mvp.shared.proxy.TokenFormatter;
 import org.jboss.as.console.client.ResourceLoader;
+import org.jboss.as.console.client.ScriptLoader;
 import org.jboss.as.console.client.administration.AdministrationPresenter;
 import org.jboss.as.console.client.administration.AdministrationView;
 import org.jboss.as.console.client.administration.audit.AuditLogPresenter;
@@ -54,7 +55,9 @@ import org.jboss.as.console.client.core.MainLayoutPresenter;
 import org.jboss.as.console.client.core.MainLayoutViewImpl;
 import org.jboss.as.console.client.core.NameTokenRegistry;
 import org.jboss.as.console.client.core.NewTokenFormatter;
+import org.jboss.as.console.client.core.RequiredResourcesPrefetcher;
 import org.jboss.as.console.client.core.RequiredResourcesProcessor;
+import org.jboss.as.console.client.core.StaleRequestHandler;
 import org.jboss.as.console.client.core.ToplevelTabs;
 import org.jboss.as.console.client.core.bootstrap.Bootstrapper;
 import org.jboss.as.console.client.core.bootstrap.cors.BootstrapServerSetup;
@@ -64,7 +67,6 @@ import org.jboss.as.console.client.core.bootstrap.hal.EagerLoadProfiles;
 import org.jboss.as.console.client.core.bootstrap.hal.ExecutionMode;
 import org.jboss.as.console.client.core.bootstrap.hal.HostStoreInit;
 import org.jboss.as.console.client.core.bootstrap.hal.LoadCompatMatrix;
-import org.jboss.as.console.client.core.bootstrap.hal.LoadGoogleViz;
 import org.jboss.as.console.client.core.bootstrap.hal.RegisterSubsystems;
 import org.jboss.as.console.client.core.bootstrap.hal.ServerStoreInit;
 import org.jboss.as.console.client.core.bootstrap.hal.TrackExecutionMode;
@@ -275,6 +277,8 @@ import org.jboss.as.console.client.v3.deployment.StandaloneDeploymentFinderView;
 import org.jboss.as.console.client.widgets.forms.ApplicationMetaData;
 import org.jboss.as.console.mbui.behaviour.CoreGUIContext;
 import org.jboss.as.console.spi.GinExtensionBinding;
+import org.jboss.dmr.client.dispatch.DMRCache;
+import org.jboss.dmr.client.dispatch.DispatchMetrics;
 import org.jboss.dmr.client.dispatch.DispatchAsync;
 import org.jboss.dmr.client.dispatch.HandlerMapping;
 import org.jboss.dmr.client.dispatch.impl.DMRHandler;
@@ -758,7 +762,6 @@ public class CoreUIModule extends AbstractPresenterModule {
         // bootstrapping
         bind(BootstrapContext.class).in(Singleton.class);
         bind(BootstrapServerSetup.class).in(Singleton.class);
-        bind(LoadGoogleViz.class).in(Singleton.class);
         bind(ExecutionMode.class).in(Singleton.class);
         bind(TrackExecutionMode.class).in(Singleton.class);
         bind(LoadCompatMatrix.class).in(Singleton.class);
@@ -776,6 +779,7 @@ public class CoreUIModule extends AbstractPresenterModule {
 
         bind(StandaloneEndpointStrategy.class).in(Singleton.class);
         bind(RequiredResourcesProcessor.class).in(Singleton.class);
+        bind(RequiredResourcesPrefetcher.class).in(Singleton.class);
 
         /* use this to test against 6.x until the RBAC facilities are available */
         //bind(SecurityFramework.class).to(MockSecurityFramework.class).in(Singleton.class);
@@ -784,6 +788,8 @@ public class CoreUIModule extends AbstractPresenterModule {
         bind(Index.class).toProvider(IndexProvider.class).in(Singleton.class);
 
         bind(DMRHandler.class).in(Singleton.class);
+        bind(DMRCache.class).in(Singleton.class);
+        bind(DispatchMetrics.class).in(Singleton.class);
         bind(DispatchAsync.class).to(DispatchAsyncImpl.class).in(Singleton.class);
         bind(HandlerMapping.class).to(HandlerRegistry.class).in(Singleton.class);
 
@@ -812,6 +818,7 @@ public class CoreUIModule extends AbstractPresenterModule {
         bindConstant().annotatedWith(GaAccount.class).to("UA-35829315-1");
         bind(GoogleAnalytics.class).toProvider(AnalyticsProvider.class).in(Singleton.class);
         bind(NavigationTracker.class).asEagerSingleton();
+        bind(StaleRequestHandler.class).asEagerSingleton();
 
         bind(ModelVersions.class).in(Singleton.class);
         bind(FeatureSet.class).in(Singleton.class);
@@ -838,6 +845,7 @@ public class CoreUIModule extends AbstractPresenterModule {
 
         // Load and inject CSS resources
         bind(ResourceLoader.class).asEagerSingleton();
+        bind(ScriptLoader.class).in(Singleton.class);
     }
 
     @Provides Scheduler provideScheduler() {
@@ -34,4 +34,7 @@ public interface CommonSettings {
     boolean isSecurityCache();
     void setSecurityCache(boolean b);
 
+    boolean isJsonWireFormat();
+    void setJsonWireFormat(boolean b);
+
 }
@@ -3,9 +3,21 @@ package org.jboss.as.console.client.core.settings;
 import java.util.HashMap;
 
 /**
+ * Holds the model versions the console was built against (see {@code LoadCompatMatrix}) and the management model
+ * version of the server (see {@code ExecutionMode}).
+ *
  * @author Heiko Braun
  * @date 12/12/12
  */
 public class ModelVersions extends HashMap<String,String> {
 
+    /**
+     * The management model version of the server as "major.minor.micro".
+     */
+    public static final String SERVER_MANAGEMENT_VERSION = "server-management-version";
+
+    /**
+     * The release version of the server.
+     */
+    public static final String SERVER_RELEASE_VERSION = "server-release-version";
 }
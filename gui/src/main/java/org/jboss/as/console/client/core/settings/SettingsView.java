@@ -84,6 +84,10 @@ public class SettingsView extends PopupViewImpl implements SettingsPresenterWidg
                 Preferences.Key.ANALYTICS.getTitle());
         fields.add(enableAnalytics);
 
+        CheckBoxItem jsonWireFormat = new CheckBoxItem(Preferences.Key.JSON_WIRE_FORMAT.getToken(),
+                Preferences.Key.JSON_WIRE_FORMAT.getTitle());
+        fields.add(jsonWireFormat);
+
         if (featureSet.isSearchEnabled()) {
             clear = new ButtonItem("clear-search-index", Console.CONSTANTS.search_index_reset(),
                     Console.CONSTANTS.common_label_reset());
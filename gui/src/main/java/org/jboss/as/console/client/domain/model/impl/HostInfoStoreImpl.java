@@ -22,7 +22,6 @@ package org.jboss.as.console.client.domain.model.impl;
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.user.client.Command;
 import com.google.gwt.user.client.rpc.AsyncCallback;
-import com.google.gwt.user.client.ui.HTMLPanel;
 import com.google.inject.Inject;
 import org.jboss.as.console.client.domain.model.Host;
 import org.jboss.as.console.client.domain.model.HostInformationStore;
@@ -37,6 +36,7 @@ import org.jboss.as.console.client.shared.model.ModelAdapter;
 import org.jboss.as.console.client.shared.properties.PropertyRecord;
 import org.jboss.as.console.client.widgets.forms.ApplicationMetaData;
 import org.jboss.as.console.client.widgets.forms.EntityAdapter;
+import org.jboss.as.console.client.v3.dmr.PromiseDispatcher;
 import org.jboss.as.console.client.widgets.forms.PropertyBinding;
 import org.jboss.dmr.client.ModelDescriptionConstants;
 import org.jboss.dmr.client.ModelNode;
@@ -44,6 +44,7 @@ import org.jboss.dmr.client.Property;
 import org.jboss.dmr.client.dispatch.DispatchAsync;
 import org.jboss.dmr.client.dispatch.impl.DMRAction;
 import org.jboss.dmr.client.dispatch.impl.DMRResponse;
+import org.jboss.gwt.flow.client.Promise;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -62,6 +63,7 @@ import static org.jboss.dmr.client.ModelDescriptionConstants.*;
 public class HostInfoStoreImpl implements HostInformationStore {
 
     private DispatchAsync dispatcher;
+    private PromiseDispatcher promiseDispatcher;
     private BeanFactory factory;
     private ApplicationMetaData propertyMetaData;
     private EntityAdapter<Server> serverAdapter;
@@ -69,8 +71,10 @@ public class HostInfoStoreImpl implements HostInformationStore {
     private EntityAdapter<PropertyRecord> propertyAdapter;
 
     @Inject
-    public HostInfoStoreImpl(DispatchAsync dispatcher, BeanFactory factory, ApplicationMetaData propertyMeta) {
+    public HostInfoStoreImpl(DispatchAsync dispatcher, PromiseDispatcher promiseDispatcher, BeanFactory factory,
+            ApplicationMetaData propertyMeta) {
         this.dispatcher = dispatcher;
+        this.promiseDispatcher = promiseDispatcher;
         this.factory = factory;
         this.propertyMetaData = propertyMeta;
         serverAdapter = new EntityAdapter<Server>(Server.class, propertyMeta);
@@ -391,205 +395,155 @@ public class HostInfoStoreImpl implements HostInformationStore {
 
 
     @Override
-    public void getServerInstances(final String host, final AsyncCallback<List<ServerInstance>> callbackReference) {
-
-
-        final Command cmd = new Command() {
-
-            private int numRequests = 0;
-            private int numResponses = 0;
-            private final AsyncCallback<List<ServerInstance>> cb = callbackReference;
-            private final String id = HTMLPanel.createUniqueId();
+    public void getServerInstances(final String host, final AsyncCallback<List<ServerInstance>> callback) {
 
+        Scheduler.get().scheduleDeferred(new Scheduler.ScheduledCommand() {
             @Override
             public void execute() {
-                final List<ServerInstance> instanceList = new LinkedList<ServerInstance>();
-
-                //System.out.println("*** ["+id+"] attempt to fetch server instances *** ");
-
                 getServerConfigurations(host, new SimpleCallback<List<Server>>() {
                     @Override
                     public void onSuccess(final List<Server> serverConfigs) {
 
-
-                        if(serverConfigs.isEmpty())
-                        {
-                            callbackReference.onSuccess(new ArrayList<ServerInstance>());
-                            return;
-                        }
-
+                        // one request per server, a failed request results in a stopped instance
+                        List<Promise<ServerInstance>> instances = new ArrayList<Promise<ServerInstance>>();
                         for(final Server handle : serverConfigs)
                         {
-
-                            ModelNode operation = new ModelNode();
-                            operation.get(OP).set(COMPOSITE);
-                            operation.get(ADDRESS).setEmptyList();
-
-                            List<ModelNode> steps = new ArrayList<ModelNode>();
-
-                            final ModelNode coreData = new ModelNode();
-                            coreData.get(OP).set(READ_RESOURCE_OPERATION);
-                            coreData.get(INCLUDE_RUNTIME).set(true);
-                            coreData.get(ADDRESS).setEmptyList();
-                            coreData.get(ADDRESS).add("host", host);
-                            coreData.get(ADDRESS).add("server", handle.getName());
-                            steps.add(coreData);
-
-                            final ModelNode interfaces = new ModelNode();
-                            interfaces.get(OP).set(READ_CHILDREN_RESOURCES_OPERATION);
-                            interfaces.get(INCLUDE_RUNTIME).set(true);
-                            interfaces.get(ADDRESS).add("host", host);
-                            interfaces.get(ADDRESS).add("server", handle.getName());
-                            interfaces.get(CHILD_TYPE).set("interface");
-                            steps.add(interfaces);
-
-
-                            final ModelNode socketBinding = new ModelNode();
-                            socketBinding.get(OP).set(READ_CHILDREN_RESOURCES_OPERATION);
-                            socketBinding.get(INCLUDE_RUNTIME).set(true);
-                            socketBinding.get(ADDRESS).add("host", host);
-                            socketBinding.get(ADDRESS).add("server", handle.getName());
-                            socketBinding.get(CHILD_TYPE).set("socket-binding-group");
-                            steps.add(socketBinding);
-
-                           /* final ModelNode groupProfile = new ModelNode();
-                            groupProfile.get(OP).set(READ_RESOURCE_OPERATION);
-                            groupProfile.get(ADDRESS).add("server-group", handle.getGroup());
-                            steps.add(groupProfile);*/
-
-                            operation.get(STEPS).set(steps);
-
-                            numRequests++;
-
-                            dispatcher.execute(new DMRAction(operation, false), new SimpleCallback<DMRResponse>() {
-
-
-                                @Override
-                                public void onFailure(Throwable caught) {
-                                    numResponses++;
-
-                                    ServerInstance instance = createInstanceModel(handle);
-                                    instance.setHost(host);
-                                    instance.setRunning(false);
-                                    instance.setInterfaces(new HashMap<String, String>());
-                                    instance.setSocketBindings(new HashMap<String, String>());
-                                    instanceList.add(instance);
-
-                                    checkComplete(instanceList, cb);
-                                }
-
-                                @Override
-                                public void onSuccess(DMRResponse result) {
-
-                                    numResponses++;
-
-                                    ModelNode response = result.get();
-                                    ModelNode compositeResponse = response.get(RESULT);
-
-                                    ServerInstance instance = createInstanceModel(handle);
-                                    instance.setHost(host);
-                                    instance.setInterfaces(new HashMap<String, String>());
-                                    instance.setSocketBindings(new HashMap<String, String>());
-                                    instanceList.add(instance);
-
-                                    if(response.isFailure())
-                                    {
-                                        instance.setRunning(false);
-                                    }
-                                    else
-                                    {
-
-                                        ModelNode instanceModel = compositeResponse.get("step-1").get(RESULT);
-                                        instance.setRunning(handle.isStarted());
-
-                                        //instance.setProfile(instanceModel.get("profile-name").asString());
-
-                                        if(instanceModel.hasDefined("server-state"))
-                                        {
-                                            String state = instanceModel.get("server-state").asString();
-                                            if(state.equals("reload-required"))
-                                            {
-                                                instance.setFlag(ServerFlag.RELOAD_REQUIRED);
-                                            }
-                                            else if (state.equals("restart-required"))
-                                            {
-                                                instance.setFlag(ServerFlag.RESTART_REQUIRED);
-                                            }
+                            DMRAction action = new DMRAction(serverInstanceOperation(host, handle), false);
+                            instances.add(promiseDispatcher.execute(action)
+                                    .map(new Promise.Mapper<ModelNode, ServerInstance>() {
+                                        @Override
+                                        public ServerInstance apply(ModelNode response) {
+                                            return createServerInstance(host, handle, response.get(RESULT));
                                         }
-
-                                        // ---- interfaces
-
-                                        List<Property> interfaces = new ArrayList<Property>();
-
-                                        if(compositeResponse.hasDefined("step-2"))
-                                        {
-                                            interfaces = compositeResponse.get("step-2").get(RESULT).asPropertyList();
-
-                                            for(Property intf : interfaces)
-                                            {
-                                                if(intf.getValue().hasDefined("resolved-address"))
-                                                {
-                                                    instance.getInterfaces().put(
-                                                            intf.getName(),
-                                                            intf.getValue().get("resolved-address").asString()
-                                                    );
-                                                }
-                                            }
+                                    })
+                                    .recover(new Promise.Mapper<Throwable, ServerInstance>() {
+                                        @Override
+                                        public ServerInstance apply(Throwable caught) {
+                                            return createServerInstance(host, handle, null);
                                         }
+                                    }));
+                        }
 
-                                        // ---- socket binding
-                                        List<Property> sockets = new ArrayList<Property>();
-                                        if(compositeResponse.hasDefined("step-3"))
-                                        {
-                                            sockets = compositeResponse.get("step-3").get(RESULT).asPropertyList();
-
-                                            for(Property socket : sockets)
-                                            {
-                                                instance.getSocketBindings().put(
-                                                        socket.getName(),
-                                                        socket.getValue().get("port-offset").asString()
-                                                );
-
-                                            }
-                                        }
+                        Promise.all(instances).then(new AsyncCallback<List<ServerInstance>>() {
+                            @Override
+                            public void onFailure(Throwable caught) {
+                                callback.onFailure(caught);
+                            }
+
+                            @Override
+                            public void onSuccess(List<ServerInstance> instanceList) {
+                                Collections.sort(instanceList, new Comparator<ServerInstance>() {
+                                    @Override
+                                    public int compare(ServerInstance a, ServerInstance b) {
+                                        return a.getName().compareTo(b.getName());
                                     }
-
-                                    checkComplete(instanceList, cb);
-                                }
-                            });
-
-                        }
+                                });
+                                callback.onSuccess(instanceList);
+                            }
+                        });
                     }
                 });
             }
+        });
+    }
 
-            private void checkComplete(List<ServerInstance> instanceList, AsyncCallback<List<ServerInstance>> callback) {
-                if(numRequests==numResponses)
-                {
+    private ModelNode serverInstanceOperation(String host, Server handle) {
+        ModelNode operation = new ModelNode();
+        operation.get(OP).set(COMPOSITE);
+        operation.get(ADDRESS).setEmptyList();
 
-                    Collections.sort(instanceList, new Comparator<ServerInstance>() {
-                        @Override
-                        public int compare(ServerInstance a, ServerInstance b) {
-                            return a.getName().compareTo(b.getName());
-                        }
-                    });
+        List<ModelNode> steps = new ArrayList<ModelNode>();
+
+        final ModelNode coreData = new ModelNode();
+        coreData.get(OP).set(READ_RESOURCE_OPERATION);
+        coreData.get(INCLUDE_RUNTIME).set(true);
+        coreData.get(ADDRESS).setEmptyList();
+        coreData.get(ADDRESS).add("host", host);
+        coreData.get(ADDRESS).add("server", handle.getName());
+        steps.add(coreData);
+
+        final ModelNode interfaces = new ModelNode();
+        interfaces.get(OP).set(READ_CHILDREN_RESOURCES_OPERATION);
+        interfaces.get(INCLUDE_RUNTIME).set(true);
+        interfaces.get(ADDRESS).add("host", host);
+        interfaces.get(ADDRESS).add("server", handle.getName());
+        interfaces.get(CHILD_TYPE).set("interface");
+        steps.add(interfaces);
+
+        final ModelNode socketBinding = new ModelNode();
+        socketBinding.get(OP).set(READ_CHILDREN_RESOURCES_OPERATION);
+        socketBinding.get(INCLUDE_RUNTIME).set(true);
+        socketBinding.get(ADDRESS).add("host", host);
+        socketBinding.get(ADDRESS).add("server", handle.getName());
+        socketBinding.get(CHILD_TYPE).set("socket-binding-group");
+        steps.add(socketBinding);
 
+        operation.get(STEPS).set(steps);
+        return operation;
+    }
 
-                    //System.out.println("*** ["+id+"] complete roundtrips  *** ");
+    /**
+     * @param compositeResponse the result of {@link #serverInstanceOperation(String, Server)} or {@code null} if
+     *                          the operation failed
+     */
+    private ServerInstance createServerInstance(String host, Server handle, ModelNode compositeResponse) {
+        ServerInstance instance = createInstanceModel(handle);
+        instance.setHost(host);
+        instance.setInterfaces(new HashMap<String, String>());
+        instance.setSocketBindings(new HashMap<String, String>());
+
+        if(compositeResponse == null)
+        {
+            instance.setRunning(false);
+        }
+        else
+        {
+            ModelNode instanceModel = compositeResponse.get("step-1").get(RESULT);
+            instance.setRunning(handle.isStarted());
 
-                    callback.onSuccess(instanceList);
+            if(instanceModel.hasDefined("server-state"))
+            {
+                String state = instanceModel.get("server-state").asString();
+                if(state.equals("reload-required"))
+                {
+                    instance.setFlag(ServerFlag.RELOAD_REQUIRED);
+                }
+                else if (state.equals("restart-required"))
+                {
+                    instance.setFlag(ServerFlag.RESTART_REQUIRED);
                 }
             }
-        };
-
 
-        Scheduler.get().scheduleDeferred(new Scheduler.ScheduledCommand() {
-            @Override
-            public void execute() {
-                cmd.execute();
+            // ---- interfaces
+            if(compositeResponse.hasDefined("step-2"))
+            {
+                List<Property> interfaces = compositeResponse.get("step-2").get(RESULT).asPropertyList();
+                for(Property intf : interfaces)
+                {
+                    if(intf.getValue().hasDefined("resolved-address"))
+                    {
+                        instance.getInterfaces().put(
+                                intf.getName(),
+                                intf.getValue().get("resolved-address").asString()
+                        );
+                    }
+                }
             }
-        });
 
+            // ---- socket binding
+            if(compositeResponse.hasDefined("step-3"))
+            {
+                List<Property> sockets = compositeResponse.get("step-3").get(RESULT).asPropertyList();
+                for(Property socket : sockets)
+                {
+                    instance.getSocketBindings().put(
+                            socket.getName(),
+                            socket.getValue().get("port-offset").asString()
+                    );
+                }
+            }
+        }
+        return instance;
     }
 
 
@@ -0,0 +1,171 @@
+package org.jboss.as.console.client.rbac;
+
+import com.google.gwt.core.client.Scheduler;
+import org.jboss.ballroom.client.rbac.SecurityContext;
+import org.jboss.ballroom.client.rbac.SecurityContextAware;
+import org.jboss.ballroom.client.rbac.SecurityContextChangedEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Registered {@link SecurityContextAware} widgets indexed by their token. Security context changes are collected
+ * and applied once at the end of the current event loop: A burst of changes for the same token and address results
+ * in a single update of the related widgets.
+ * <p/>
+ * The index is brought up to date before the changes are applied, since the token of a widget might not be known
+ * at registration time or might change later on.
+ */
+class ContextAwareWidgets {
+
+    /**
+     * Resolves the security context for a change which doesn't carry its own context.
+     */
+    interface ContextResolver {
+
+        SecurityContext resolve(String token, SecurityContextChangedEvent event);
+    }
+
+
+    private final Scheduler scheduler;
+    private final ContextResolver resolver;
+    private final Map<String, SecurityContextAware> widgets;
+    private final Map<String, Set<String>> widgetsByToken;
+    private final Map<String, String> widgetTokens;
+    /**
+     * The latest change per token and address which was not yet applied
+     */
+    private final Map<String, ContextChange> pendingChanges;
+    private boolean updateScheduled;
+
+    ContextAwareWidgets(final Scheduler scheduler, final ContextResolver resolver) {
+        this.scheduler = scheduler;
+        this.resolver = resolver;
+        this.widgets = new HashMap<>();
+        this.widgetsByToken = new HashMap<>();
+        this.widgetTokens = new HashMap<>();
+        this.pendingChanges = new LinkedHashMap<>();
+    }
+
+    void register(final String id, final SecurityContextAware widget) {
+        widgets.put(id, widget);
+    }
+
+    void unregister(final String id) {
+        widgets.remove(id);
+        unindex(id);
+    }
+
+    /**
+     * @return the IDs of the registered widgets for the given token
+     */
+    Set<String> lookup(final String token) {
+        index();
+        Set<String> ids = widgetsByToken.get(token);
+        return ids == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(ids);
+    }
+
+    void onChange(final String token, final SecurityContextChangedEvent event) {
+        // only the latest change per token and address matters
+        pendingChanges.put(token + "|" + event.getResourceAddress(), new ContextChange(token, event));
+        if (!updateScheduled) {
+            updateScheduled = true;
+            scheduler.scheduleFinally(new Scheduler.ScheduledCommand() {
+                @Override
+                public void execute() {
+                    updateScheduled = false;
+                    applyChanges();
+                }
+            });
+        }
+    }
+
+    private void applyChanges() {
+        List<ContextChange> changes = new ArrayList<>(pendingChanges.values());
+        pendingChanges.clear();
+        index();
+
+        for (ContextChange change : changes) {
+            Set<String> ids = widgetsByToken.get(change.token);
+            if (ids == null || ids.isEmpty()) {
+                continue; // no widgets for this token: no need to resolve the context
+            }
+
+            String addressTemplate = change.event.getResourceAddress();
+            SecurityContext context = change.event.getSecurityContext();
+            if (context == null) {
+                context = resolver.resolve(change.token, change.event);
+            }
+
+            // update widgets (if attached and filter applies)
+            // copy the IDs: widgets might (un)register themselves while being updated
+            for (String id : new ArrayList<>(ids)) {
+                SecurityContextAware widget = widgets.get(id);
+                if (widget == null) {
+                    continue;
+                }
+                boolean update = true;
+                if (widget.getFilter() != null) {
+                    update = widget.getFilter().equals(addressTemplate);
+                }
+                if (update && widget.isAttached()) {
+                    widget.updateSecurityContext(context);
+                }
+            }
+        }
+    }
+
+    /**
+     * (Re)indexes all widgets whose token has changed since they have been indexed.
+     */
+    private void index() {
+        for (Map.Entry<String, SecurityContextAware> entry : widgets.entrySet()) {
+            String id = entry.getKey();
+            String token = entry.getValue().getToken();
+            String indexed = widgetTokens.get(id);
+            if (token == null ? indexed != null : !token.equals(indexed)) {
+                unindex(id);
+                if (token != null) {
+                    Set<String> ids = widgetsByToken.get(token);
+                    if (ids == null) {
+                        ids = new LinkedHashSet<>();
+                        widgetsByToken.put(token, ids);
+                    }
+                    ids.add(id);
+                    widgetTokens.put(id, token);
+                }
+            }
+        }
+    }
+
+    private void unindex(final String id) {
+        String token = widgetTokens.remove(id);
+        if (token != null) {
+            Set<String> ids = widgetsByToken.get(token);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    widgetsByToken.remove(token);
+                }
+            }
+        }
+    }
+
+
+    private static class ContextChange {
+
+        final String token;
+        final SecurityContextChangedEvent event;
+
+        ContextChange(final String token, final SecurityContextChangedEvent event) {
+            this.token = token;
+            this.event = event;
+        }
+    }
+}
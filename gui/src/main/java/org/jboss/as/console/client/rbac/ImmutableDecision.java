@@ -0,0 +1,74 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.console.client.rbac;
+
+import org.jboss.ballroom.client.rbac.AuthorisationDecision;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An authorisation decision which cannot be modified. Used for decisions which are shared between callers, e.g. the
+ * decisions compiled by a sealed {@link SecurityContextImpl}. Callers which need to modify a decision have to create
+ * their own copy.
+ */
+final class ImmutableDecision extends AuthorisationDecision {
+
+    static final ImmutableDecision GRANTED = new ImmutableDecision(true, Collections.<String>emptyList());
+    static final ImmutableDecision DENIED = new ImmutableDecision(false, Collections.<String>emptyList());
+
+    /**
+     * @return an immutable copy of the given decision
+     */
+    static ImmutableDecision of(AuthorisationDecision decision) {
+        if (decision instanceof ImmutableDecision) {
+            return (ImmutableDecision) decision;
+        }
+        if (!decision.hasErrorMessages()) {
+            return decision.isGranted() ? GRANTED : DENIED;
+        }
+        return new ImmutableDecision(decision.isGranted(), new ArrayList<String>(decision.getErrorMessages()));
+    }
+
+    private final List<String> errorMessages;
+
+    private ImmutableDecision(boolean granted, List<String> errorMessages) {
+        super(granted);
+        this.errorMessages = Collections.unmodifiableList(errorMessages);
+    }
+
+    @Override
+    public void setGranted(boolean granted) {
+        throw new UnsupportedOperationException("Authorisation decision cannot be modified");
+    }
+
+    @Override
+    public List<String> getErrorMessages() {
+        return errorMessages;
+    }
+
+    @Override
+    public boolean hasErrorMessages() {
+        return !errorMessages.isEmpty();
+    }
+}
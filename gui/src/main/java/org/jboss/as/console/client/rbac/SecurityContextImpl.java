@@ -6,12 +6,18 @@ import org.jboss.ballroom.client.rbac.AuthorisationDecision;
 import org.jboss.ballroom.client.rbac.SecurityContext;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
 /**
  * The security context has access to the authorisation meta data and provides policies to reason over it.
  * Each security context is associated with a specific {@link com.gwtplatform.mvp.client.proxy.PlaceRequest}.
+ * <p/>
+ * When the context is {@linkplain #seal() sealed}, the aggregated decisions over all required resources are compiled
+ * into a lookup table. Widgets ask for privileges per attribute and per row, so afterwards each decision is a
+ * single map lookup and doesn't create new {@link AuthorisationDecision} instances. Since the decisions are shared
+ * between all callers, they're {@linkplain ImmutableDecision immutable}.
  *
  * @see org.jboss.ballroom.client.rbac.SecurityService
  * @see com.gwtplatform.mvp.client.proxy.PlaceManager
@@ -21,6 +27,38 @@ import java.util.Set;
  */
 public class SecurityContextImpl implements SecurityContext {
 
+    static final AuthorisationDecision GRANTED = ImmutableDecision.GRANTED;
+    static final AuthorisationDecision DENIED = ImmutableDecision.DENIED;
+
+    private static final Priviledge READ = new Priviledge() {
+        @Override
+        public boolean isGranted(Constraints c) {
+
+            boolean readable = c.isReadResource();
+            if(!readable)
+                Log.info("read privilege denied for: " + c.getResourceAddress());
+            return readable;
+        }
+    };
+
+    private static final Priviledge WRITE = new Priviledge() {
+        @Override
+        public boolean isGranted(Constraints c) {
+            boolean writable = c.isWriteResource();
+            if(!writable)
+                Log.info("write privilege denied for: "+c.getResourceAddress());
+
+            return writable;
+        }
+    };
+
+    private static final Priviledge ANY = new Priviledge() {
+        @Override
+        public boolean isGranted(Constraints c) {
+            return true;
+        }
+    };
+
     /**
      * the place name token (url)
      */
@@ -45,6 +83,12 @@ public class SecurityContextImpl implements SecurityContext {
      */
     private boolean sealed;
 
+    /**
+     * The decisions compiled when the context is sealed. {@code null} if the context is not sealed yet or could not
+     * be compiled. In that case the decisions are evaluated on each call.
+     */
+    private DecisionTable decisions;
+
     public SecurityContextImpl(String nameToken, Set<ResourceRef> requiredResources) {
         this.nameToken = nameToken;
         this.requiredResources = requiredResources;
@@ -101,63 +145,59 @@ public class SecurityContextImpl implements SecurityContext {
      * @return
      */
     public AuthorisationDecision getReadPriviledge() {
-
-        return checkPriviledge(new Priviledge() {
-            @Override
-            public boolean isGranted(Constraints c) {
-
-                boolean readable = c.isReadResource();
-                if(!readable)
-                    Log.info("read privilege denied for: " + c.getResourceAddress());
-                return readable;
-            }
-        }, false);
-
+        return decisions != null ? decisions.read : checkPriviledge(READ, false);
     }
 
     @Override
     public AuthorisationDecision getReadPrivilege(String resourceAddress) {
         Constraints constraints = getConstraints(resourceAddress, false);
-        return new AuthorisationDecision(constraints.isReadResource());
+        return constraints.isReadResource() ? GRANTED : DENIED;
     }
 
     @Override
     public AuthorisationDecision getWritePriviledge() {
-        return checkPriviledge(new Priviledge() {
-            @Override
-            public boolean isGranted(Constraints c) {
-                boolean writable = c.isWriteResource();
-                if(!writable)
-                    Log.info("write privilege denied for: "+c.getResourceAddress());
-
-                return writable;
-            }
-        }, false);
+        return decisions != null ? decisions.write : checkPriviledge(WRITE, false);
     }
 
     @Override
     public AuthorisationDecision getWritePrivilege(String resourceAddress) {
         Constraints constraints = getConstraints(resourceAddress, false);
-        return new AuthorisationDecision(constraints.isWriteResource());
+        return constraints.isWriteResource() ? GRANTED : DENIED;
     }
 
     public AuthorisationDecision getAttributeWritePriviledge(final String name) {
-        return checkPriviledge(new Priviledge() {
+        if (decisions != null) {
+            AuthorisationDecision decision = decisions.attributeWrite.get(name);
+            return decision != null ? decision : decisions.anyAttribute;
+        }
+        return checkPriviledge(attributeWrite(name), true);
+    }
+
+    @Override
+    public AuthorisationDecision getAttributeReadPriviledge(final String name) {
+        if (decisions != null) {
+            AuthorisationDecision decision = decisions.attributeRead.get(name);
+            return decision != null ? decision : decisions.anyAttribute;
+        }
+        return checkPriviledge(attributeRead(name), true);
+    }
+
+    private Priviledge attributeWrite(final String name) {
+        return new Priviledge() {
             @Override
             public boolean isGranted(Constraints c) {
                 return c.isAttributeWrite(name);
             }
-        }, true);
+        };
     }
 
-    @Override
-    public AuthorisationDecision getAttributeReadPriviledge(final String name) {
-        return checkPriviledge(new Priviledge() {
-             @Override
-             public boolean isGranted(Constraints c) {
-                 return c.isAttributeRead(name);
-             }
-         }, true);
+    private Priviledge attributeRead(final String name) {
+        return new Priviledge() {
+            @Override
+            public boolean isGranted(Constraints c) {
+                return c.isAttributeRead(name);
+            }
+        };
     }
 
     @Override
@@ -169,7 +209,7 @@ public class SecurityContextImpl implements SecurityContext {
         if(null==attributePerm)
             throw new RuntimeException("No such attribute: "+ attributeName);
 
-        return new AuthorisationDecision(attributePerm.isWrite());
+        return attributePerm.isWrite() ? GRANTED : DENIED;
     }
 
     @Override
@@ -180,12 +220,14 @@ public class SecurityContextImpl implements SecurityContext {
         if(null==attributePerm)
             throw new RuntimeException("No such attribute: "+ attributeName);
 
-        return new AuthorisationDecision(attributePerm.isRead());
+        return attributePerm.isRead() ? GRANTED : DENIED;
     }
 
     private Constraints getConstraints(String resourceAddress, boolean includeOptional) {
         Constraints constraints;
-        if (includeOptional) {
+        if (includeOptional && decisions != null) {
+            constraints = decisions.constraints.get(resourceAddress);
+        } else if (includeOptional) {
             constraints = accessConstraints.containsKey(resourceAddress) ?
                     accessConstraints.get(resourceAddress) : optionalConstraints.get(resourceAddress);
         } else {
@@ -229,17 +271,60 @@ public class SecurityContextImpl implements SecurityContext {
     public void seal() {
         this.sealed = true;
 
-        // TODO: move all policies that can be evaluated once into this method
+        try {
+            decisions = compile();
+        } catch (RuntimeException e) {
+            // e.g. missing constraints: report them when the decision is requested
+            Log.warn("Unable to compile security context for " + nameToken + ": " + e.getMessage());
+            decisions = null;
+        }
+    }
+
+    /**
+     * Evaluates all policies which don't depend on call parameters once. Attribute decisions are evaluated for all
+     * attributes with explicit permissions. Attributes without explicit permissions share the same decision.
+     */
+    private DecisionTable compile() {
+        DecisionTable table = new DecisionTable();
+        table.read = ImmutableDecision.of(checkPriviledge(READ, false));
+        table.write = ImmutableDecision.of(checkPriviledge(WRITE, false));
+        table.anyAttribute = ImmutableDecision.of(checkPriviledge(ANY, true));
+
+        Set<String> attributeNames = new HashSet<String>();
+        for (ResourceRef ref : requiredResources) {
+            if (!ref.optional) {
+                attributeNames.addAll(getConstraints(ref.address, true).getAttributeNames());
+            }
+        }
+        for (String name : attributeNames) {
+            table.attributeRead.put(name, ImmutableDecision.of(checkPriviledge(attributeRead(name), true)));
+            table.attributeWrite.put(name, ImmutableDecision.of(checkPriviledge(attributeWrite(name), true)));
+        }
+
+        // required constraints take precedence over optional ones
+        table.constraints.putAll(optionalConstraints);
+        table.constraints.putAll(accessConstraints);
+        return table;
     }
 
     @Override
     public AuthorisationDecision getOperationPriviledge(final String resourceAddress, final String operationName) {
 
         Constraints constraints = getConstraints(resourceAddress, true);
-        boolean execPerm = constraints.isOperationExec(resourceAddress, operationName);
-        AuthorisationDecision descision = new AuthorisationDecision(true);
-        descision.setGranted(execPerm);
-        return descision;
+        return constraints.isOperationExec(resourceAddress, operationName) ? GRANTED : DENIED;
+    }
+
+    /**
+     * The decisions of a sealed context
+     */
+    private static class DecisionTable {
+
+        AuthorisationDecision read;
+        AuthorisationDecision write;
+        AuthorisationDecision anyAttribute;
+        final Map<String, AuthorisationDecision> attributeRead = new HashMap<String, AuthorisationDecision>();
+        final Map<String, AuthorisationDecision> attributeWrite = new HashMap<String, AuthorisationDecision>();
+        final Map<String, Constraints> constraints = new HashMap<String, Constraints>();
     }
 
     /**
@@ -259,7 +344,7 @@ public class SecurityContextImpl implements SecurityContext {
 
         @Override
         public AuthorisationDecision getReadPriviledge() {
-            return new AuthorisationDecision(constraints.isReadResource());
+            return constraints.isReadResource() ? GRANTED : DENIED;
         }
 
         @Override
@@ -269,7 +354,7 @@ public class SecurityContextImpl implements SecurityContext {
 
         @Override
         public AuthorisationDecision getWritePriviledge() {
-            return new AuthorisationDecision(constraints.isWriteResource());
+            return constraints.isWriteResource() ? GRANTED : DENIED;
         }
 
 
@@ -282,7 +367,7 @@ public class SecurityContextImpl implements SecurityContext {
         public AuthorisationDecision getAttributeWritePriviledge(final String attributeName) {
             Constraints.AttributePerm attributePerm = constraints.attributePermissions.get(attributeName);
             if (attributePerm == null) { throw new RuntimeException("No such attribute: " + attributeName); }
-            return new AuthorisationDecision(attributePerm.isWrite());
+            return attributePerm.isWrite() ? GRANTED : DENIED;
         }
 
         @Override
@@ -295,7 +380,7 @@ public class SecurityContextImpl implements SecurityContext {
         public AuthorisationDecision getAttributeReadPriviledge(String attributeName) {
             Constraints.AttributePerm attributePerm = constraints.attributePermissions.get(attributeName);
             if (attributePerm == null) { throw new RuntimeException("No such attribute: " + attributeName); }
-            return new AuthorisationDecision(attributePerm.isRead());
+            return attributePerm.isRead() ? GRANTED : DENIED;
         }
 
         @Override
@@ -305,10 +390,7 @@ public class SecurityContextImpl implements SecurityContext {
 
         @Override
         public AuthorisationDecision getOperationPriviledge(final String resourceAddress, final String operationName) {
-            boolean execPerm = constraints.isOperationExec(this.resourceAddress, operationName);
-            AuthorisationDecision descision = new AuthorisationDecision(true);
-            descision.setGranted(execPerm);
-            return descision;
+            return constraints.isOperationExec(this.resourceAddress, operationName) ? GRANTED : DENIED;
         }
 
         /**
@@ -14,6 +14,13 @@ import java.util.Set;
  */
 public interface SecurityFramework extends SecurityService {
 
+    /**
+     * Notified when a security context has been flushed.
+     */
+    interface FlushHandler {
+        void onFlush(String id);
+    }
+
     /**
      * Get the security context associated with the current {@link com.gwtplatform.mvp.client.proxy.PlaceRequest}
      * @see com.gwtplatform.mvp.client.proxy.PlaceManager
@@ -55,4 +62,12 @@ public interface SecurityFramework extends SecurityService {
      */
     void flushContext(String id);
 
+    /**
+     * Registers a handler which is notified when a context is {@linkplain #flushContext(String) flushed}, e.g. to
+     * drop security contexts which have been loaded in advance.
+     *
+     * @param handler
+     */
+    void addFlushHandler(FlushHandler handler);
+
 }
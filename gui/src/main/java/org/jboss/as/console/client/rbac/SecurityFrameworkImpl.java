@@ -1,6 +1,7 @@
 package org.jboss.as.console.client.rbac;
 
 import com.allen_sauer.gwt.log.client.Log;
+import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.user.client.rpc.AsyncCallback;
 import com.google.web.bindery.event.shared.EventBus;
 import com.gwtplatform.mvp.client.Presenter;
@@ -27,6 +28,7 @@ import org.jboss.dmr.client.dispatch.impl.DMRResponse;
 import org.useware.kernel.gui.behaviour.FilteringStatementContext;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -39,6 +41,9 @@ import static org.jboss.dmr.client.ModelDescriptionConstants.*;
 
 /**
  * The security manager creates and provides a {@link SecurityContext} per place
+ * <p/>
+ * Registered {@link SecurityContextAware} widgets and security context changes are handled by
+ * {@link ContextAwareWidgets}.
  *
  * @see com.gwtplatform.mvp.client.proxy.PlaceManager
  *
@@ -66,7 +71,8 @@ public class SecurityFrameworkImpl implements SecurityFramework, SecurityContext
     protected final ContextKeyResolver keyResolver;
 
     private final FilteringStatementContext filteringStatementContext;
-    private final Map<String, SecurityContextAware> contextAwareWidgets;
+    private final ContextAwareWidgets contextAwareWidgets;
+    private final List<FlushHandler> flushHandlers;
 
     protected Map<String, SecurityContext> contextMapping = new HashMap<String, SecurityContext>();
 
@@ -82,7 +88,14 @@ public class SecurityFrameworkImpl implements SecurityFramework, SecurityContext
         this.statementContext = statementContext;
         this.coreGUIContext = coreGUIContext;
         this.keyResolver = new PlaceSecurityResolver();
-        this.contextAwareWidgets = new HashMap<>();
+        this.contextAwareWidgets = new ContextAwareWidgets(Scheduler.get(),
+                new ContextAwareWidgets.ContextResolver() {
+                    @Override
+                    public SecurityContext resolve(final String token, final SecurityContextChangedEvent event) {
+                        return resolveContext(token, event);
+                    }
+                });
+        this.flushHandlers = new ArrayList<>();
         this.filteringStatementContext = new FilteringStatementContext(
                 statementContext,
                 new FilteringStatementContext.Filter() {
@@ -140,12 +153,12 @@ public class SecurityFrameworkImpl implements SecurityFramework, SecurityContext
 
     @Override
     public void registerWidget(final String id, final SecurityContextAware widget) {
-        contextAwareWidgets.put(id, widget);
+        contextAwareWidgets.register(id, widget);
     }
 
     @Override
     public void unregisterWidget(final String id) {
-        contextAwareWidgets.remove(id);
+        contextAwareWidgets.unregister(id);
     }
 
     @Override
@@ -157,42 +170,21 @@ public class SecurityFrameworkImpl implements SecurityFramework, SecurityContext
             throw new IllegalArgumentException("Source needs to be presenter place");
 
         final String token = ((Place)presenter.getProxy()).getNameToken();
+        contextAwareWidgets.onChange(token, event);
+    }
 
-        SecurityContext context = event.getSecurityContext();
-        String addressTemplate = event.getResourceAddress();
-
-        if (context == null) {
-
-            ModelNode addressNode = AddressMapping.fromString(addressTemplate)
-                    .asResource(coreGUIContext, event.getWildcards()
-                    );
-
-            String resourceAddress = normalize(addressNode.get(ADDRESS));
-
-            context = getSecurityContext(token);
+    private SecurityContext resolveContext(final String token, final SecurityContextChangedEvent event) {
+        ModelNode addressNode = AddressMapping.fromString(event.getResourceAddress())
+                .asResource(coreGUIContext, event.getWildcards());
+        String resourceAddress = normalize(addressNode.get(ADDRESS));
 
-            // look for child context
-            if (context.hasChildContext(resourceAddress)) {
-                context = context.getChildContext(resourceAddress);
-            }
+        SecurityContext context = getSecurityContext(token);
 
+        // look for child context
+        if (context.hasChildContext(resourceAddress)) {
+            context = context.getChildContext(resourceAddress);
         }
-
-        // update widgets (if attached and filter applies)
-        for (Map.Entry<String, SecurityContextAware> entry : contextAwareWidgets.entrySet()) {
-
-            SecurityContextAware widget = entry.getValue();
-            if(widget.getToken().equals(token)) {   // only touch the ones that matter
-                boolean update = true;
-                if (widget.getFilter() != null) {
-                    update = widget.getFilter().equals(addressTemplate);
-                }
-                if (update && widget.isAttached()) {
-                    widget.updateSecurityContext(context);
-                }
-            }
-        }
-
+        return context;
     }
 
     public void createSecurityContext(final String id, final AsyncCallback<SecurityContext> callback) {
@@ -511,6 +503,14 @@ public class SecurityFrameworkImpl implements SecurityFramework, SecurityContext
     @Override
     public void flushContext(String nameToken) {
         contextMapping.remove(nameToken);
+        for (FlushHandler handler : flushHandlers) {
+            handler.onFlush(nameToken);
+        }
+    }
+
+    @Override
+    public void addFlushHandler(FlushHandler handler) {
+        flushHandlers.add(handler);
     }
 
     @Override
@@ -44,10 +44,12 @@ public abstract class SecurityContextAwareVerticalPanel extends VerticalPanel im
     public SecurityContextAwareVerticalPanel() {
         this.id = Document.get().createUniqueId();
         getElement().setId(id);
-        SECURITY_SERVICE.registerWidget(id, this);
         token = SECURITY_SERVICE.resolveToken();
     }
 
+    /**
+     * The panel is only registered while it's attached: Detached widgets are not updated anyway.
+     */
     @Override
     protected void onLoad() {
         SECURITY_SERVICE.registerWidget(id, this);
@@ -0,0 +1,99 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.console.client.search;
+
+import com.google.gwt.json.client.JSONArray;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory cache for the documents of an {@link Index}. The cache is filled lazily: Documents are cached when they're
+ * added to the index or when they're decoded for the first time. Chunks read from the local storage are cached in
+ * their parsed form, so that each chunk is parsed only once.
+ * <p/>
+ * Documents and chunks are kept in LRU order: If the cache is full, the least recently used entry is dropped. A
+ * dropped document is decoded again from its chunk when it's needed.
+ */
+class DocumentCache {
+
+    /**
+     * Default max. number of cached documents (the hits of about 20 queries)
+     */
+    static final int MAX_DOCUMENTS = 1000;
+
+    /**
+     * Default max. number of cached chunks
+     */
+    static final int MAX_CHUNKS = 20;
+
+    private final Map<Long, Document> documents;
+    private final Map<Long, JSONArray> chunks;
+
+    DocumentCache() {
+        this(MAX_DOCUMENTS, MAX_CHUNKS);
+    }
+
+    DocumentCache(final int maxDocuments, final int maxChunks) {
+        documents = new LinkedHashMap<Long, Document>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Document> eldest) {
+                return size() > maxDocuments;
+            }
+        };
+        chunks = new LinkedHashMap<Long, JSONArray>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, JSONArray> eldest) {
+                return size() > maxChunks;
+            }
+        };
+    }
+
+    Document get(long id) {
+        return documents.get(id);
+    }
+
+    void put(Document document) {
+        documents.put(document.getId(), document);
+    }
+
+    JSONArray getChunk(long chunk) {
+        return chunks.get(chunk);
+    }
+
+    void putChunk(long chunk, JSONArray array) {
+        chunks.put(chunk, array);
+    }
+
+    void invalidate() {
+        documents.clear();
+        chunks.clear();
+    }
+
+    int size() {
+        return documents.size();
+    }
+
+    int chunks() {
+        return chunks.size();
+    }
+}
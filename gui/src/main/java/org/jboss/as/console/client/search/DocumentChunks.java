@@ -0,0 +1,81 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2013 Red Hat Inc. and/or its affiliates and other contributors
+ * as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a
+ * full listing of individual contributors.
+ *
+ * This copyrighted material is made available to anyone wishing to use,
+ * modify, copy, or redistribute it subject to the terms and conditions
+ * of the GNU Lesser General Public License, v. 2.1.
+ * This program is distributed in the hope that it will be useful, but WITHOUT A
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * You should have received a copy of the GNU Lesser General Public License,
+ * v.2.1 along with this distribution; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA  02110-1301, USA.
+ */
+package org.jboss.as.console.client.search;
+
+/**
+ * Maps the documents of an {@link Index} to the chunks they're stored in. Document ids are assigned sequentially,
+ * so the document with id {@code n} is stored at offset {@code n % CHUNK_SIZE} of chunk {@code n / CHUNK_SIZE}.
+ * The methods which take the number of documents are used with the id counter of the index.
+ */
+final class DocumentChunks {
+
+    /**
+     * Number of documents stored in one local storage item
+     */
+    static final int CHUNK_SIZE = 50;
+
+    private DocumentChunks() {
+    }
+
+    /**
+     * @return the chunk which holds the specified document
+     */
+    static long chunk(long id) {
+        return id / CHUNK_SIZE;
+    }
+
+    /**
+     * @return the offset of the specified document in its chunk
+     */
+    static int offset(long id) {
+        return (int) (id % CHUNK_SIZE);
+    }
+
+    /**
+     * @return the number of chunks needed for the specified number of documents
+     */
+    static long count(long documents) {
+        return (documents + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    /**
+     * @return the chunk which takes the next document
+     */
+    static long current(long documents) {
+        return documents / CHUNK_SIZE;
+    }
+
+    /**
+     * @return the chunk which holds the last document. Must not be called without documents.
+     */
+    static long last(long documents) {
+        return (documents - 1) / CHUNK_SIZE;
+    }
+
+    /**
+     * @return {@code true} if the last chunk has room for more documents
+     */
+    static boolean isPartial(long documents) {
+        return documents % CHUNK_SIZE != 0;
+    }
+
+    static boolean isFull(int size) {
+        return size == CHUNK_SIZE;
+    }
+}
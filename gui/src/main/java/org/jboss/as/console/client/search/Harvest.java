@@ -1,5 +1,14 @@
 package org.jboss.as.console.client.search;
 
+import com.allen_sauer.gwt.log.client.Log;
+import com.google.gwt.json.client.JSONArray;
+import com.google.gwt.json.client.JSONException;
+import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.json.client.JSONParser;
+import com.google.gwt.json.client.JSONValue;
+import com.google.gwt.resources.client.ResourceCallback;
+import com.google.gwt.resources.client.ResourceException;
+import com.google.gwt.resources.client.TextResource;
 import com.google.gwt.user.client.rpc.AsyncCallback;
 import org.jboss.as.console.client.Console;
 import org.jboss.as.console.client.core.BootstrapContext;
@@ -10,6 +19,7 @@ import org.jboss.as.console.mbui.model.mapping.AddressMapping;
 import org.jboss.dmr.client.ModelNode;
 import org.jboss.dmr.client.ModelType;
 import org.jboss.dmr.client.dispatch.DispatchAsync;
+import org.jboss.dmr.client.dispatch.Priority;
 import org.jboss.dmr.client.dispatch.impl.DMRAction;
 import org.jboss.dmr.client.dispatch.impl.DMRResponse;
 import org.jboss.gwt.flow.client.*;
@@ -21,7 +31,13 @@ import java.util.*;
 import static org.jboss.dmr.client.ModelDescriptionConstants.*;
 
 /**
- * Creates search indexes.
+ * Creates search indexes. The index is initialized with the prebuilt index generated at build time. Only resources
+ * which are not part of the prebuilt index are read using read-resource-description. The prebuilt index covers
+ * only the resources of the snapshot in {@code gui/src/main/search/model-descriptions.txt}, so resources of
+ * extensions and of the tokens missing in the snapshot are still read.
+ * <p/>
+ * Each resource is marked as harvested in the index. If a previous harvest was interrupted, the harvest resumes with
+ * the remaining resources.
  *
  * @author Heiko Braun
  */
@@ -71,9 +87,72 @@ public class Harvest {
         run(handler, Footer.PROGRESS_ELEMENT);
     }
 
-    public void run(final Handler handler, Progress progress) {
+    public void run(final Handler handler, final Progress progress) {
         handler.onStart();
 
+        if (!index.isEmpty()) {
+            // resume an interrupted harvest: the prebuilt index is already part of the index
+            harvest(handler, progress);
+            return;
+        }
+        try {
+            SearchResources.INSTANCE.prebuiltIndex().getText(new ResourceCallback<TextResource>() {
+                @Override
+                public void onError(ResourceException e) {
+                    Log.error("Unable to load prebuilt search index: " + e.getMessage());
+                    harvest(handler, progress);
+                }
+
+                @Override
+                public void onSuccess(TextResource resource) {
+                    addPrebuilt(handler, resource.getText());
+                    harvest(handler, progress);
+                }
+            });
+        } catch (ResourceException e) {
+            Log.error("Unable to load prebuilt search index: " + e.getMessage());
+            harvest(handler, progress);
+        }
+    }
+
+    /**
+     * Adds the prebuilt documents of the current operation mode to the index and marks the resources covered by the
+     * prebuilt index as harvested.
+     */
+    private void addPrebuilt(Handler handler, String json) {
+        JSONObject prebuilt;
+        try {
+            prebuilt = member(JSONParser.parseStrict(json).isObject(),
+                    bootstrap.isStandalone() ? "standalone" : "domain");
+        } catch (JSONException e) {
+            // fall back to a full harvest
+            Log.error("Unable to parse prebuilt search index: " + e.getMessage());
+            return;
+        }
+
+        if (prebuilt != null) {
+            for (Document document : index.addPrebuilt(prebuilt)) {
+                // no address available for prebuilt documents
+                handler.onHarvest(document.getToken(), null, document.getDescription());
+            }
+            JSONObject resources = member(prebuilt, "resources");
+            if (resources != null) {
+                for (String token : resources.keySet()) {
+                    JSONArray tokenResources = resources.get(token).isArray();
+                    for (int i = 0; tokenResources != null && i < tokenResources.size(); i++) {
+                        index.markHarvested(token, tokenResources.get(i).isString().stringValue());
+                    }
+                }
+            }
+        }
+    }
+
+    private JSONObject member(JSONObject object, String name) {
+        JSONValue value = object != null ? object.get(name) : null;
+        return value != null ? value.isObject() : null;
+    }
+
+    private void harvest(final Handler handler, Progress progress) {
         Set<Function<Map<String, SearchIndexData>>> functions = new HashSet<Function<Map<String, SearchIndexData>>>();
         for (final String token : searchIndexRegistry.getTokens(bootstrap.isStandalone())) {
             final Set<String> resources = searchIndexRegistry.getResources(token);
@@ -81,6 +160,8 @@ public class Harvest {
             for (final String resource : resources) {
                 // TODO
                 if (resource.startsWith("opt:")) { continue; }
+                // part of the prebuilt index or harvested before the harvest was interrupted
+                if (index.isHarvested(token, resource)) { continue; }
 
                 final ModelNode op = AddressMapping.fromString(resource).asResource(filteringStatementContext);
                 // skip unrecognized addresses
@@ -94,7 +175,9 @@ public class Harvest {
                     @Override
                     public void execute(final Control<Map<String, SearchIndexData>> control) {
 
-                        dispatcher.execute(new DMRAction(op), new AsyncCallback<DMRResponse>() {
+                        // the harvest must not be interrupted, otherwise an incomplete index would be saved
+                        DMRAction action = new DMRAction(op).setPriority(Priority.BACKGROUND).setKeepOnNavigation(true);
+                        dispatcher.execute(action, new AsyncCallback<DMRResponse>() {
                             @Override
                             public void onFailure(Throwable caught) {
                                 System.out.println("Skipped " + token + " > " + resource);
@@ -135,6 +218,7 @@ public class Harvest {
                                     } catch (Throwable e) {
                                         System.out.println("Skipped " + token + " > " + resource + ": " + e.getMessage());
                                     }
+                                    index.markHarvested(token, resource);
                                 }
                                 control.proceed();
                             }
@@ -214,6 +298,9 @@ public class Harvest {
 
         boolean shouldHarvest(String token, String address, String description);
 
+        /**
+         * Called for each indexed description. The address is {@code null} for descriptions from the prebuilt index.
+         */
         void onHarvest(String token, String address, String description);
 
         void onFinish();
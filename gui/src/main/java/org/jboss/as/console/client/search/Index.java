@@ -19,42 +19,88 @@
 package org.jboss.as.console.client.search;
 
 import com.allen_sauer.gwt.log.client.Log;
+import com.google.gwt.core.client.Duration;
 import com.google.gwt.core.client.JavaScriptException;
 import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.json.client.JSONArray;
+import com.google.gwt.json.client.JSONException;
+import com.google.gwt.json.client.JSONNumber;
 import com.google.gwt.json.client.JSONObject;
+import com.google.gwt.json.client.JSONParser;
 import com.google.gwt.json.client.JSONString;
+import com.google.gwt.json.client.JSONValue;
 import com.google.gwt.storage.client.Storage;
 import com.google.gwt.storage.client.StorageEvent;
-import com.google.web.bindery.autobean.shared.AutoBean;
 import com.google.web.bindery.autobean.shared.AutoBeanCodex;
-import com.google.web.bindery.autobean.shared.AutoBeanUtils;
+import org.jboss.as.console.client.ScriptLoader;
 import org.jboss.as.console.client.shared.BeanFactory;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 
 /**
  * An index which builds on <a href="http://lunrjs.com/">http://lunrjs.com/</a>. The index and the related raw
  * documents are persisted in the local storage.
+ * <p/>
+ * The index is built incrementally: Added documents are queued and added to lunr in time slices of
+ * {@link #TIME_SLICE} ms, so that the UI stays responsive. The documents are stored in chunks of
+ * {@link DocumentChunks#CHUNK_SIZE} documents using a compact array based serialization. Together with each chunk
+ * the harvested resources are stored. The lunr index itself is only stored once when the index is
+ * {@linkplain #save() saved}. If the harvest is interrupted, the index is rebuilt from the stored chunks when it's
+ * used the next time and the harvest can resume with the resources which were not
+ * {@linkplain #isHarvested(String, String) harvested} so far.
+ * <p/>
+ * Search results are resolved using a {@link DocumentCache}. Only the first {@link #MAX_HITS} hits of a query are
+ * resolved.
+ * <p/>
+ * lunr is loaded on demand by the {@link ScriptLoader}. Creating the index and querying its state doesn't require
+ * lunr. The lunr index is loaded or rebuilt when it's used for the first time, i.e. callers have to wait for
+ * {@link ScriptLoader.Script#LUNR} before adding or searching documents.
  *
  * @author Harald Pehl
  */
 public class Index implements StorageEvent.Handler {
 
+    /**
+     * Max. time in ms spent in one slice to add queued documents to lunr
+     */
+    static final int TIME_SLICE = 20;
+
+    /**
+     * Max. number of hits returned by {@link #search(String)}
+     */
+    static final int MAX_HITS = 50;
+
     private final String prefix;
     private final BeanFactory beanFactory;
     private final Storage localStorage;
+    private final LinkedList<Document> queue;
+    private final Set<String> harvested;
+    private final DocumentCache cache;
+    private JSONArray chunk;
     private long idCounter;
+    private boolean complete;
+    private boolean indexing;
+    private boolean saveRequested;
     @SuppressWarnings("UnusedDeclaration") private JavaScriptObject indexRef;
 
     Index(final String prefix, final BeanFactory beanFactory) {
         this.prefix = prefix;
         this.beanFactory = beanFactory;
         this.localStorage = Storage.getLocalStorageIfSupported();
+        this.queue = new LinkedList<Document>();
+        this.harvested = new LinkedHashSet<String>();
+        this.cache = new DocumentCache();
+        this.chunk = new JSONArray();
         this.idCounter = 0;
+        this.complete = false;
 
         load();
         Storage.addStorageEventHandler(this);
@@ -65,8 +111,37 @@ public class Index implements StorageEvent.Handler {
                 .getItem(indexKey()) == null;
     }
 
+    /**
+     * @return {@code true} if the index was saved after a complete harvest, {@code false} if the harvest has not
+     * been started yet or was interrupted.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return {@code true} while there are documents which are not yet added to lunr
+     */
+    public boolean isIndexing() {
+        return !queue.isEmpty();
+    }
+
+    /**
+     * Marks the index as complete and saves the lunr index once all queued documents were added.
+     */
     public void save() {
-        localStorage.setItem(documentsKey(), String.valueOf(idCounter));
+        ensureIndex();
+        complete = true;
+        if (queue.isEmpty()) {
+            persist();
+        } else {
+            saveRequested = true;
+        }
+    }
+
+    private void persist() {
+        storeChunk();
+        localStorage.setItem(completeKey(), "true");
         saveInternal(indexKey());
         Log.info("Saved " + idCounter + " documents to index at " + indexKey());
     }
@@ -76,22 +151,63 @@ public class Index implements StorageEvent.Handler {
         localStorage.setItem(indexKey, jsonIndex)
     }-*/;
 
+    /**
+     * Reads the state of the index from the local storage. The lunr index itself is loaded or rebuilt on first use.
+     */
     public void load() {
+        indexRef = null;
         String item = localStorage.getItem(documentsKey());
         if (item != null) {
             idCounter = Long.parseLong(item);
         }
+        complete = localStorage.getItem(completeKey()) != null;
+        try {
+            if (DocumentChunks.isPartial(idCounter)) {
+                // the last chunk is not full yet: keep it in memory
+                JSONArray lastChunk = readChunk(DocumentChunks.current(idCounter));
+                chunk = lastChunk != null ? lastChunk : new JSONArray();
+            }
+            if (!complete) {
+                String harvestedJson = localStorage.getItem(harvestedKey());
+                if (harvestedJson != null) {
+                    JSONArray array = JSONParser.parseStrict(harvestedJson).isArray();
+                    for (int i = 0; array != null && i < array.size(); i++) {
+                        harvested.add(array.get(i).isString().stringValue());
+                    }
+                }
+            }
+        } catch (JSONException e) {
+            // load must be fail safe, so ignore any errors and reset
+            reset();
+        }
+    }
+
+    /**
+     * Loads or rebuilds the lunr index unless it's already available. Requires lunr.
+     */
+    private void ensureIndex() {
+        if (indexRef != null) {
+            return;
+        }
         try {
-            loadInternal(indexKey());
+            if (complete) {
+                loadInternal(indexKey());
+            }
             if (indexRef == null) {
-                // no index found in local storage
-                reset();
+                resetInternal();
+                if (idCounter != 0) {
+                    resume();
+                }
             } else {
                 Log.info("Loaded " + idCounter + " documents from index at " + indexKey());
             }
         } catch (JavaScriptException e) {
             // load must be fail safe, so ignore any errors and reset
             reset();
+            resetInternal();
+        } catch (JSONException e) {
+            reset();
+            resetInternal();
         }
     }
 
@@ -102,18 +218,48 @@ public class Index implements StorageEvent.Handler {
         }
     }-*/;
 
+    /**
+     * Rebuilds the lunr index from the stored chunks of an interrupted harvest.
+     */
+    private void resume() {
+        for (long c = 0; c < DocumentChunks.count(idCounter); c++) {
+            JSONArray storedChunk = readChunk(c);
+            for (int i = 0; storedChunk != null && i < storedChunk.size(); i++) {
+                Document document = decode(storedChunk.get(i).isArray());
+                cache.put(document);
+                queue.add(document);
+            }
+        }
+        scheduleIndexing();
+        Log.info("Resume index at " + indexKey() + " with " + idCounter + " documents and " + harvested
+                .size() + " harvested resources");
+    }
+
     /**
      * Resets the index
      */
     public void reset() {
+        for (long c = 0; c < DocumentChunks.count(idCounter); c++) {
+            localStorage.removeItem(chunkKey(c));
+        }
+        // documents stored by older versions
         for (long i = 0; i < idCounter; i++) {
-            localStorage.removeItem(key(i));
+            localStorage.removeItem(prefix + "doc_" + i);
         }
         idCounter = 0;
+        complete = false;
+        saveRequested = false;
+        queue.clear();
+        harvested.clear();
+        cache.invalidate();
+        chunk = new JSONArray();
         localStorage.removeItem(documentsKey());
         localStorage.removeItem(indexKey());
+        localStorage.removeItem(harvestedKey());
+        localStorage.removeItem(completeKey());
 
-        resetInternal();
+        // recreated on first use
+        indexRef = null;
         Log.info("Reset index to " + indexKey());
     }
 
@@ -127,6 +273,7 @@ public class Index implements StorageEvent.Handler {
     }-*/;
 
     public void add(final String token, final Set<String> keywords, final String description) {
+        ensureIndex();
         long id = idCounter++;
 
         Document document = beanFactory.indexDocument().as();
@@ -134,10 +281,106 @@ public class Index implements StorageEvent.Handler {
         document.setToken(token);
         document.setDescription(description);
         document.setKeywords(keywords);
-        AutoBean<Document> autoBean = AutoBeanUtils.getAutoBean(document);
-        String json = AutoBeanCodex.encode(autoBean).getPayload();
-        localStorage.setItem(key(id), json);
 
+        chunk.set(chunk.size(), encode(document));
+        if (DocumentChunks.isFull(chunk.size())) {
+            storeChunk();
+            chunk = new JSONArray();
+        }
+        cache.put(document);
+        queue.add(document);
+        scheduleIndexing();
+    }
+
+    /**
+     * Marks a resource as harvested. Harvested resources are stored together with the documents and skipped when
+     * an interrupted harvest is resumed.
+     */
+    public void markHarvested(final String token, final String resource) {
+        harvested.add(harvestedKey(token, resource));
+    }
+
+    public boolean isHarvested(final String token, final String resource) {
+        return harvested.contains(harvestedKey(token, resource));
+    }
+
+    /**
+     * Adds the documents of an index which was prebuilt at build time. If this index is empty and the prebuilt index
+     * contains a serialized lunr index, the lunr index is used as is. Otherwise the documents are added one by one.
+     *
+     * @param prebuilt the prebuilt index of one operation mode as generated by the {@code NameTokenProcessor}
+     *
+     * @return the added documents
+     */
+    public List<Document> addPrebuilt(final JSONObject prebuilt) {
+        ensureIndex();
+        List<Document> documents = new ArrayList<Document>();
+        JSONValue documentsValue = prebuilt.get("documents");
+        JSONArray jsonDocuments = documentsValue != null ? documentsValue.isArray() : null;
+        if (jsonDocuments == null || jsonDocuments.size() == 0) {
+            return documents;
+        }
+
+        JSONValue indexValue = prebuilt.get("index");
+        JSONObject jsonIndex = indexValue != null ? indexValue.isObject() : null;
+        if (idCounter == 0 && jsonIndex != null) {
+            for (int i = 0; i < jsonDocuments.size(); i++) {
+                String json = jsonDocuments.get(i).toString();
+                Document document = AutoBeanCodex.decode(beanFactory, Document.class, json).as();
+                chunk.set(chunk.size(), encode(document));
+                if (DocumentChunks.isFull(chunk.size())) {
+                    idCounter = document.getId() + 1;
+                    storeChunk();
+                    chunk = new JSONArray();
+                }
+                idCounter = Math.max(idCounter, document.getId() + 1);
+                cache.put(document);
+                documents.add(document);
+            }
+            loadPrebuiltInternal(jsonIndex.getJavaScriptObject());
+        } else {
+            for (int i = 0; i < jsonDocuments.size(); i++) {
+                String json = jsonDocuments.get(i).toString();
+                Document document = AutoBeanCodex.decode(beanFactory, Document.class, json).as();
+                add(document.getToken(), document.getKeywords(), document.getDescription());
+                documents.add(document);
+            }
+        }
+        Log.info("Added " + documents.size() + " prebuilt documents to index at " + indexKey());
+        return documents;
+    }
+
+    private native void loadPrebuiltInternal(JavaScriptObject jsonIndex) /*-{
+        this.@org.jboss.as.console.client.search.Index::indexRef = $wnd.lunr.Index.load(jsonIndex);
+    }-*/;
+
+    private void scheduleIndexing() {
+        if (!indexing && !queue.isEmpty()) {
+            indexing = true;
+            Scheduler.get().scheduleIncremental(new Scheduler.RepeatingCommand() {
+                @Override
+                public boolean execute() {
+                    Duration slice = new Duration();
+                    while (!queue.isEmpty() && slice.elapsedMillis() < TIME_SLICE) {
+                        Document document = queue.removeFirst();
+                        addInternal(String.valueOf(document.getId()), document.getToken(),
+                                joinKeywords(document.getKeywords()), document.getDescription());
+                    }
+                    if (queue.isEmpty()) {
+                        indexing = false;
+                        if (saveRequested) {
+                            saveRequested = false;
+                            persist();
+                        }
+                        return false;
+                    }
+                    return true;
+                }
+            });
+        }
+    }
+
+    private String joinKeywords(final Set<String> keywords) {
         String keywordsValue = null;
         if (keywords != null && !keywords.isEmpty()) {
             StringBuilder builder = new StringBuilder();
@@ -150,7 +393,7 @@ public class Index implements StorageEvent.Handler {
             }
             keywordsValue = builder.toString();
         }
-        addInternal(String.valueOf(id), token, keywordsValue, description);
+        return keywordsValue;
     }
 
     private native void addInternal(final String id, final String token, final String keywords, final String description) /*-{
@@ -171,18 +414,24 @@ public class Index implements StorageEvent.Handler {
     }-*/;
 
     public List<Document> search(final String text) {
+        return search(text, MAX_HITS);
+    }
+
+    /**
+     * Searches the index. The hits are ordered by their score. Only the first {@code maxHits} hits are resolved.
+     */
+    public List<Document> search(final String text, final int maxHits) {
+        ensureIndex();
         List<Document> results = new ArrayList<Document>();
         JsArray jsonResult = searchInternal(text);
         if (jsonResult != null) {
-            for (int i = 0; i < jsonResult.length(); i++) {
+            for (int i = 0; i < jsonResult.length() && results.size() < maxHits; i++) {
                 JSONObject json = new JSONObject(jsonResult.get(i));
                 JSONString jsonId = json.get("ref").isString();
                 if (jsonId != null) {
-                    long id = Long.parseLong(jsonId.stringValue());
-                    String documentJson = localStorage.getItem(key(id));
-                    if (documentJson != null) {
-                        AutoBean<Document> autoBean = AutoBeanCodex.decode(beanFactory, Document.class, documentJson);
-                        results.add(autoBean.as());
+                    Document document = document(Long.parseLong(jsonId.stringValue()));
+                    if (document != null) {
+                        results.add(document);
                     }
                 }
             }
@@ -194,13 +443,98 @@ public class Index implements StorageEvent.Handler {
         return this.@org.jboss.as.console.client.search.Index::indexRef.search(text);
     }-*/;
 
+    private Document document(final long id) {
+        Document document = cache.get(id);
+        if (document == null) {
+            long chunkIndex = DocumentChunks.chunk(id);
+            boolean current = chunkIndex == DocumentChunks.current(idCounter);
+            JSONArray documentChunk = current ? chunk : cache.getChunk(chunkIndex);
+            if (documentChunk == null) {
+                documentChunk = readChunk(chunkIndex);
+                if (documentChunk != null) {
+                    cache.putChunk(chunkIndex, documentChunk);
+                }
+            }
+            int offset = DocumentChunks.offset(id);
+            if (documentChunk != null && offset < documentChunk.size()) {
+                document = decode(documentChunk.get(offset).isArray());
+                cache.put(document);
+            }
+        }
+        return document;
+    }
+
+
+    // ------------------------------------------------------ storage
+
+    /**
+     * Writes the current chunk and the harvested resources.
+     */
+    private void storeChunk() {
+        if (chunk.size() != 0) {
+            localStorage.setItem(chunkKey(DocumentChunks.last(idCounter)), chunk.toString());
+        }
+        JSONArray harvestedArray = new JSONArray();
+        for (String resource : harvested) {
+            harvestedArray.set(harvestedArray.size(), new JSONString(resource));
+        }
+        localStorage.setItem(harvestedKey(), harvestedArray.toString());
+        localStorage.setItem(documentsKey(), String.valueOf(idCounter));
+    }
+
+    private JSONArray readChunk(final long chunkIndex) {
+        String json = localStorage.getItem(chunkKey(chunkIndex));
+        return json != null ? JSONParser.parseStrict(json).isArray() : null;
+    }
+
+    /**
+     * Encodes a document as {@code [id, token, description, [keywords]]}.
+     */
+    private JSONArray encode(final Document document) {
+        JSONArray keywords = new JSONArray();
+        if (document.getKeywords() != null) {
+            for (String keyword : document.getKeywords()) {
+                keywords.set(keywords.size(), new JSONString(keyword));
+            }
+        }
+        JSONArray array = new JSONArray();
+        array.set(0, new JSONNumber(document.getId()));
+        array.set(1, new JSONString(document.getToken()));
+        array.set(2, new JSONString(document.getDescription()));
+        array.set(3, keywords);
+        return array;
+    }
+
+    private Document decode(final JSONArray array) {
+        Set<String> keywords = new HashSet<String>();
+        JSONArray jsonKeywords = array.get(3).isArray();
+        for (int i = 0; jsonKeywords != null && i < jsonKeywords.size(); i++) {
+            keywords.add(jsonKeywords.get(i).isString().stringValue());
+        }
+        Document document = beanFactory.indexDocument().as();
+        document.setId((long) array.get(0).isNumber().doubleValue());
+        document.setToken(array.get(1).isString().stringValue());
+        document.setDescription(array.get(2).isString().stringValue());
+        document.setKeywords(keywords);
+        return document;
+    }
+
     @Override
     public void onStorageChange(final StorageEvent event) {
-        boolean deletedFromLocalStorage = event.getStorageArea() == localStorage && event.getNewValue() == null && event
-                .getOldValue() == null;
-        if (deletedFromLocalStorage && event.getKey().equals(indexKey()) && !isEmpty()) {
-            // the index was removed from the local storage by some external code - let's start from scratch.
-            reset();
+        if (event.getStorageArea() != localStorage) {
+            return;
+        }
+        if (event.getKey() == null) {
+            // local storage was cleared
+            cache.invalidate();
+        } else if (event.getKey().startsWith(prefix)) {
+            // the index was modified by another window
+            cache.invalidate();
+            boolean deleted = event.getNewValue() == null && event.getOldValue() == null;
+            if (deleted && event.getKey().equals(indexKey()) && !isEmpty()) {
+                // the index was removed from the local storage by some external code - let's start from scratch.
+                reset();
+            }
         }
     }
 
@@ -208,7 +542,13 @@ public class Index implements StorageEvent.Handler {
 
     private String documentsKey() {return prefix + "docs";}
 
-    private String key(final long id) {return prefix + "doc_" + id;}
+    private String harvestedKey() {return prefix + "harvested";}
+
+    private String completeKey() {return prefix + "complete";}
+
+    private String chunkKey(final long chunk) {return prefix + "chunk_" + chunk;}
+
+    private String harvestedKey(final String token, final String resource) {return token + "|" + resource;}
 
     @Override
     public String toString() {
@@ -28,6 +28,7 @@ import com.google.gwt.event.dom.client.KeyUpHandler;
 import com.google.gwt.safehtml.client.SafeHtmlTemplates;
 import com.google.gwt.safehtml.shared.SafeHtml;
 import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
+import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.ui.*;
 import com.google.gwt.view.client.CellPreviewEvent;
 import com.google.gwt.view.client.ListDataProvider;
@@ -52,6 +53,11 @@ class SearchPopup extends DefaultWindow {
 
     private static final TokenGroupTemplate TEMPLATE = GWT.create(TokenGroupTemplate.class);
 
+    /**
+     * Time in ms to wait for further keystrokes before the index is queried
+     */
+    private static final int DEBOUNCE = 150;
+
     private final Harvest harvest;
     private final Index index;
 
@@ -63,6 +69,7 @@ class SearchPopup extends DefaultWindow {
     private final TextBox textBox;
     private final HTML numberOfResults;
     private final PlaceManager placeManager;
+    private final Timer queryTimer;
 
     SearchPopup(final Harvest harvest, final Index index, final PlaceManager placeManager) {
         super("Search");
@@ -71,6 +78,12 @@ class SearchPopup extends DefaultWindow {
         this.harvest = harvest;
         this.index = index;
         this.placeManager = placeManager;
+        this.queryTimer = new Timer() {
+            @Override
+            public void run() {
+                executeQuery();
+            }
+        };
 
         deck = new DeckPanel();
         VerticalPanel indexPanel = new VerticalPanel();
@@ -95,9 +108,11 @@ class SearchPopup extends DefaultWindow {
             @Override
             public void onKeyUp(KeyUpEvent keyUpEvent) {
                 if (keyUpEvent.isDownArrow() && !resultProvider.getList().isEmpty()) {
+                    queryTimer.cancel();
                     resultList.setFocus(true);
                 } else {
-                    executeQuery();
+                    // don't query the index for each keystroke
+                    queryTimer.schedule(DEBOUNCE);
                 }
             }
         });
@@ -146,6 +161,7 @@ class SearchPopup extends DefaultWindow {
     private void navigate() {
         TokenGroup selection = resultSelectionModel.getSelectedObject();
         if (selection != null) {
+            queryTimer.cancel();
             hide();
             placeManager.revealPlace(new PlaceRequest.Builder().nameToken(selection.getToken()).build());
         }
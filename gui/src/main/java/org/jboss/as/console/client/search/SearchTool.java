@@ -27,7 +27,9 @@ import com.google.gwt.user.client.ui.Composite;
 import com.google.gwt.user.client.ui.HTML;
 import com.gwtplatform.mvp.client.proxy.PlaceManager;
 import org.jboss.as.console.client.Console;
+import org.jboss.as.console.client.ScriptLoader;
 import org.jboss.as.console.client.core.bootstrap.hal.GlobalShortcuts;
+import org.jboss.as.console.client.domain.model.SimpleCallback;
 
 /**
  * The global search tool. Some kind of 'presenter' which takes care of both on demand indexing and searching.
@@ -70,14 +72,21 @@ public class SearchTool extends Composite {
         popup.setGlassEnabled(true);
         popup.center();
 
-        Scheduler.get().scheduleDeferred(new Scheduler.ScheduledCommand() {
+        // lunr is loaded on first use
+        Console.MODULES.getScriptLoader().load(ScriptLoader.Script.LUNR).then(new SimpleCallback<Void>() {
             @Override
-            public void execute() {
-                if (index.isEmpty()) {
-                    popup.index();
-                } else {
-                    popup.showSearchPage();
-                }
+            public void onSuccess(Void result) {
+                Scheduler.get().scheduleDeferred(new Scheduler.ScheduledCommand() {
+                    @Override
+                    public void execute() {
+                        // not indexed yet or the last harvest was interrupted
+                        if (!index.isComplete()) {
+                            popup.index();
+                        } else {
+                            popup.showSearchPage();
+                        }
+                    }
+                });
             }
         });
     }
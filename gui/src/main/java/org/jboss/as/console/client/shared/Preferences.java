@@ -36,7 +36,8 @@ public class Preferences
         LOCALE("locale", "Locale", "en"),
         ANALYTICS("analytics", "Enable Usage Data Collection?", "true"),
         RUN_AS_ROLE("run_as_role", "Run as role", null),
-        SECURITY_CONTEXT("securityCache", "Cache Security Context?", "true");
+        SECURITY_CONTEXT("securityCache", "Cache Security Context?", "true"),
+        JSON_WIRE_FORMAT("jsonWireFormat", "Use JSON wire format?", "false");
 
 
         private String token;
@@ -10,6 +10,9 @@ import com.google.gwt.user.client.ui.HTML;
 import com.google.gwt.user.client.ui.HorizontalPanel;
 import com.google.gwt.user.client.ui.VerticalPanel;
 import com.google.gwt.user.client.ui.Widget;
+import org.jboss.as.console.client.Console;
+import org.jboss.as.console.client.ScriptLoader;
+import org.jboss.as.console.client.domain.model.SimpleCallback;
 import org.jboss.as.console.client.shared.runtime.Metric;
 import org.jboss.as.console.client.shared.runtime.Sampler;
 import org.thechiselgroup.choosel.protovis.client.PV;
@@ -28,6 +31,9 @@ import org.thechiselgroup.choosel.protovis.client.jsutil.JsUtils;
 import static org.thechiselgroup.choosel.protovis.client.PVAlignment.*;
 
 /**
+ * Bullet graphs based on protovis. Protovis is loaded when the first graph is shown. Samples which arrive before,
+ * are rendered as soon as the graph is available.
+ *
  * @author Heiko Braun
  * @date 8/1/13
  */
@@ -40,6 +46,7 @@ public class BulletGraphView implements Sampler {
 
     private HorizontalPanel container;
     private PVPanel vis = null;
+    private JsArrayGeneric<Bullet> pendingBullets = null;
     private Grid grid;
 
     private boolean embeddedUse = false;
@@ -139,6 +146,20 @@ public class BulletGraphView implements Sampler {
 
         container.add(grid);
 
+        // protovis is loaded on first use
+        Console.MODULES.getScriptLoader().load(ScriptLoader.Script.PROTOVIS).then(new SimpleCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                addGraph();
+            }
+        });
+
+        desc.add(container);
+
+        return desc;
+    }
+
+    private void addGraph() {
         ProtovisWidget graphWidget = new ProtovisWidget();
         graphWidget.initPVPanel();
         vis = createVisualization(graphWidget);
@@ -146,24 +167,34 @@ public class BulletGraphView implements Sampler {
         Scheduler.get().scheduleDeferred(new Scheduler.ScheduledCommand() {
             @Override
             public void execute() {
-                renderDefault();    // the 'empty' display
+                if (pendingBullets != null) {
+                    render(pendingBullets);
+                    pendingBullets = null;
+                } else {
+                    renderDefault();    // the 'empty' display
+                }
             }
         });
 
         container.add(graphWidget);
         graphWidget.getElement().getParentElement().setAttribute("align", "center");
         graphWidget.getElement().getParentElement().setAttribute("width", "80%");
-
-        desc.add(container);
-
-        return desc;
     }
 
     private void renderDefault(){
+        if (vis == null) {
+            pendingBullets = null;
+            return;
+        }
         vis.data(generateDefaultData()).render();
     }
 
     private void render(JsArrayGeneric<Bullet> bullets){
+        if (vis == null) {
+            // rendered once protovis is available
+            pendingBullets = bullets;
+            return;
+        }
         vis.data(bullets).render();
     }
 
@@ -35,6 +35,7 @@ import edu.ycp.cs.dh.acegwt.client.ace.AceEditor;
 import org.jboss.as.console.client.shared.runtime.logging.store.LogFile;
 import org.jboss.ballroom.client.widgets.tools.ToolButton;
 import org.jboss.ballroom.client.widgets.tools.ToolStrip;
+import org.jboss.gwt.circuit.Action;
 
 import static com.google.gwt.dom.client.Style.Unit.EM;
 import static com.google.gwt.dom.client.Style.Unit.PX;
@@ -46,7 +47,7 @@ import static org.jboss.as.console.client.shared.util.IdHelper.setId;
  *
  * @author Harald Pehl
  */
-public class LogFilePanel extends Composite implements LogFilesId {
+public class LogFilePanel extends Composite implements LogFilesId, LogFileDisplay {
 
     private final static int HEADER_HEIGHT = 48 + 35+20;
     private final static int TOOLS_HEIGHT = 32;
@@ -108,7 +109,8 @@ public class LogFilePanel extends Composite implements LogFilesId {
         setStyleName("rhs-content-panel");
     }
 
-    public void refresh(LogFile logFile) {
+    @Override
+    public void refresh(LogFile logFile, Action action) {
         editor.setText(logFile.getContent());
     }
 
@@ -118,6 +120,7 @@ public class LogFilePanel extends Composite implements LogFilesId {
         resizeHandler.removeHandler();
     }
 
+    @Override
     public void onResize() {
         Scheduler.get().scheduleDeferred(new Scheduler.ScheduledCommand() {
             @Override
@@ -132,6 +135,7 @@ public class LogFilePanel extends Composite implements LogFilesId {
         });
     }
 
+    @Override
     public String getName() {
         return name;
     }
@@ -38,7 +38,6 @@ import org.jboss.as.console.client.v3.stores.domain.HostStore;
 import org.jboss.as.console.client.v3.stores.domain.actions.SelectServerInstance;
 import org.jboss.as.console.spi.AccessControl;
 import org.jboss.as.console.spi.SearchIndex;
-import org.jboss.ballroom.client.widgets.window.Feedback;
 import org.jboss.dmr.client.ModelNode;
 import org.jboss.gwt.circuit.Action;
 import org.jboss.gwt.circuit.Dispatcher;
@@ -57,13 +56,13 @@ public class LogFilesPresenter extends CircuitPresenter<LogFilesPresenter.MyView
     public interface MyView extends View, HasPresenter<LogFilesPresenter> { // @formatter:off
         void list(List<ModelNode> logFiles);
         void open(LogFile logFile);
-        void refresh(LogFile logFile);
+        void refresh(LogFile logFile, Action action);
         boolean isLogFileSelected();
     } // @formatter:on
 
 
     /**
-     * If log files are bigger than this threshold a confirmation dialog is displayed.
+     * Log files bigger than this threshold are not streamed as a whole, but read in chunks.
      */
     public static final int LOG_FILE_SIZE_THRESHOLD = 15000000; // bytes
 
@@ -107,6 +106,12 @@ public class LogFilesPresenter extends CircuitPresenter<LogFilesPresenter.MyView
             streamingProgress.done();
             getView().open(logStore.getActiveLogFile());
 
+        } else if (action instanceof BrowseLogFile) {
+            getView().open(logStore.getActiveLogFile());
+
+        } else if (action instanceof ScrollLogFile || action instanceof FindInLogFile) {
+            getView().refresh(logStore.getActiveLogFile(), action);
+
         } else if (action instanceof SelectLogFile) {
             getView().open(logStore.getActiveLogFile());
 
@@ -120,6 +125,16 @@ public class LogFilesPresenter extends CircuitPresenter<LogFilesPresenter.MyView
         if (action instanceof StreamLogFile) {
             Console.info(reason);
             streamingProgress.done();
+
+        } else if (action instanceof BrowseLogFile) {
+            Console.error("Unable to open log file", reason);
+
+        } else if (action instanceof ScrollLogFile || action instanceof FindInLogFile) {
+            Console.error("Unable to read log file", reason);
+            if (logStore.getActiveLogFile() != null) {
+                // reset pending scroll or search requests of the view
+                getView().refresh(logStore.getActiveLogFile(), action);
+            }
         }
     }
 
@@ -142,17 +157,8 @@ public class LogFilesPresenter extends CircuitPresenter<LogFilesPresenter.MyView
             this.circuit.dispatch(new SelectLogFile(logFile));
         } else {
             if (fileSize > LOG_FILE_SIZE_THRESHOLD) {
-                Feedback.confirm(
-                        "Download Log File",
-                        "Downloading this log file may take some time. Do you want to proceed?",
-                        new Feedback.ConfirmationHandler() {
-                            @Override
-                            public void onConfirmation(boolean isConfirmed) {
-                                if (isConfirmed) {
-                                    streamingProgress.monitor(logFile);
-                                }
-                            }
-                        });
+                // too big to be kept in memory and in the DOM
+                this.circuit.dispatch(new BrowseLogFile(logFile, fileSize));
             } else {
                 streamingProgress.monitor(logFile);
             }
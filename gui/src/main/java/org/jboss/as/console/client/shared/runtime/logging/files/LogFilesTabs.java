@@ -32,6 +32,7 @@ import org.jboss.as.console.client.shared.runtime.logging.store.CloseLogFile;
 import org.jboss.as.console.client.shared.runtime.logging.store.LogFile;
 import org.jboss.as.console.client.shared.runtime.logging.store.SelectLogFile;
 import org.jboss.as.console.client.widgets.tabs.DefaultTabLayoutPanel;
+import org.jboss.gwt.circuit.Action;
 import org.jboss.gwt.circuit.Dispatcher;
 
 /**
@@ -39,26 +40,28 @@ import org.jboss.gwt.circuit.Dispatcher;
  */
 public class LogFilesTabs extends Composite {
 
+    private final Dispatcher circuit;
     private final DefaultTabLayoutPanel tabLayout;
 
     public LogFilesTabs(final Dispatcher circuit) {
+        this.circuit = circuit;
         this.tabLayout = new DefaultTabLayoutPanel(40, Style.Unit.PX, true, true);
         this.tabLayout.addSelectionHandler(new SelectionHandler<Integer>() {
             @Override
             public void onSelection(SelectionEvent<Integer> event) {
-                LogFilePanel logFilePanel = selectedLogFilePanel();
-                if (logFilePanel != null) {
-                    circuit.dispatch(new SelectLogFile(logFilePanel.getName()));
-                    logFilePanel.onResize();
+                LogFileDisplay display = selectedLogFile();
+                if (display != null) {
+                    circuit.dispatch(new SelectLogFile(display.getName()));
+                    display.onResize();
                 }
             }
         });
         this.tabLayout.addCloseHandler(new CloseHandler<Widget>() {
             @Override
             public void onClose(CloseEvent<Widget> event) {
-                if (event.getTarget() instanceof LogFilePanel) {
-                    LogFilePanel logFilePanel = (LogFilePanel) event.getTarget();
-                    circuit.dispatch(new CloseLogFile(logFilePanel.getName()));
+                if (event.getTarget() instanceof LogFileDisplay) {
+                    LogFileDisplay display = (LogFileDisplay) event.getTarget();
+                    circuit.dispatch(new CloseLogFile(display.getName()));
                 }
             }
         });
@@ -69,15 +72,19 @@ public class LogFilesTabs extends Composite {
 
     public void open(LogFile logFile) {
         if (!tabLayout.contains(logFile.getName())) {
-            tabLayout.add(new LogFilePanel(logFile), logFile.getName());
+            if (logFile.isWindowed()) {
+                tabLayout.add(new LogWindowPanel(circuit, logFile), logFile.getName());
+            } else {
+                tabLayout.add(new LogFilePanel(logFile), logFile.getName());
+            }
         }
         tabLayout.selectTab(logFile.getName());
     }
 
-    public void refresh(LogFile logFile) {
-        LogFilePanel logFilePanel = selectedLogFilePanel();
-        if (logFilePanel != null) {
-            logFilePanel.refresh(logFile);
+    public void refresh(LogFile logFile, Action action) {
+        LogFileDisplay display = selectedLogFile();
+        if (display != null && display.getName().equals(logFile.getName())) {
+            display.refresh(logFile, action);
         }
     }
 
@@ -85,10 +92,10 @@ public class LogFilesTabs extends Composite {
         tabLayout.add(child, text);
     }
 
-    LogFilePanel selectedLogFilePanel() {
+    LogFileDisplay selectedLogFile() {
         Widget widget = tabLayout.getWidget(tabLayout.getSelectedIndex());
-        if (widget instanceof LogFilePanel) {
-            return (LogFilePanel) widget;
+        if (widget instanceof LogFileDisplay) {
+            return (LogFileDisplay) widget;
         }
         return null;
     }
@@ -26,6 +26,7 @@ import com.google.inject.Inject;
 import org.jboss.as.console.client.core.SuspendableViewImpl;
 import org.jboss.as.console.client.shared.runtime.logging.store.LogFile;
 import org.jboss.dmr.client.ModelNode;
+import org.jboss.gwt.circuit.Action;
 import org.jboss.gwt.circuit.Dispatcher;
 
 import java.util.List;
@@ -67,12 +68,12 @@ public class LogFilesView extends SuspendableViewImpl implements LogFilesPresent
     }
 
     @Override
-    public void refresh(LogFile logFile) {
-        logFilesTabs.refresh(logFile);
+    public void refresh(LogFile logFile, Action action) {
+        logFilesTabs.refresh(logFile, action);
     }
 
     @Override
     public boolean isLogFileSelected() {
-        return logFilesTabs.selectedLogFilePanel() != null;
+        return logFilesTabs.selectedLogFile() != null;
     }
 }
@@ -0,0 +1,421 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.console.client.shared.runtime.logging.files;
+
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.event.dom.client.ClickEvent;
+import com.google.gwt.event.dom.client.ClickHandler;
+import com.google.gwt.event.dom.client.KeyCodes;
+import com.google.gwt.event.dom.client.KeyDownEvent;
+import com.google.gwt.event.dom.client.KeyDownHandler;
+import com.google.gwt.event.dom.client.MouseWheelEvent;
+import com.google.gwt.event.dom.client.MouseWheelHandler;
+import com.google.gwt.event.dom.client.ScrollEvent;
+import com.google.gwt.event.dom.client.ScrollHandler;
+import com.google.gwt.event.logical.shared.ResizeEvent;
+import com.google.gwt.event.logical.shared.ResizeHandler;
+import com.google.gwt.event.shared.HandlerRegistration;
+import com.google.gwt.safehtml.shared.SafeHtmlBuilder;
+import com.google.gwt.safehtml.shared.SafeHtmlUtils;
+import com.google.gwt.user.client.Window;
+import com.google.gwt.user.client.ui.*;
+import org.jboss.as.console.client.shared.runtime.logging.store.FindInLogFile;
+import org.jboss.as.console.client.shared.runtime.logging.store.LogChunks;
+import org.jboss.as.console.client.shared.runtime.logging.store.LogFile;
+import org.jboss.as.console.client.shared.runtime.logging.store.ScrollLogFile;
+import org.jboss.ballroom.client.widgets.tools.ToolButton;
+import org.jboss.ballroom.client.widgets.tools.ToolStrip;
+import org.jboss.gwt.circuit.Action;
+import org.jboss.gwt.circuit.Dispatcher;
+
+import java.util.List;
+
+import static com.google.gwt.dom.client.Style.Unit.EM;
+import static com.google.gwt.dom.client.Style.Unit.PCT;
+import static com.google.gwt.dom.client.Style.Unit.PX;
+import static com.google.gwt.dom.client.Style.VerticalAlign.MIDDLE;
+import static org.jboss.as.console.client.shared.util.IdHelper.setId;
+
+/**
+ * Shows a log file which is too big to be streamed as a whole. Only the visible lines are part of the DOM. They're
+ * read on demand using {@link ScrollLogFile}. The scroll bar next to the lines represents the whole log file and
+ * scrolls by line number.
+ * <p/>
+ * The search runs on the server side ranges of the log file: Each {@link FindInLogFile} action searches a limited
+ * number of lines. If there's no match, the search is continued until there's a match, the end of the log file is
+ * reached or the user stops the search.
+ */
+public class LogWindowPanel extends Composite implements LogFilesId, LogFileDisplay {
+
+    private final static int HEADER_HEIGHT = 48 + 35 + 20;
+    private final static int TOOLS_HEIGHT = 32 + 24;
+    private final static int MARGIN_BOTTOM = 20;
+    private final static int LINE_HEIGHT = 17; // px, see .hal-LogWindow
+    private final static int MAX_SCROLL_HEIGHT = 1000000; // px, browsers limit the height of elements
+    private final static int WHEEL_LINES = 3;
+
+    private final Dispatcher circuit;
+    private final String name;
+    private final VerticalPanel panel;
+    private final HTML lines;
+    private final ScrollPanel scrollBar;
+    private final FlowPanel scrollContent;
+    private final TextBox findTextBox;
+    private final ToolButton stop;
+    private final Label status;
+    private final HandlerRegistration resizeHandler;
+
+    private LogFile logFile;
+    private int visibleLines;
+    private boolean scrolling;
+    private int requestedLine;
+    private boolean ignoreScroll;
+    private String pattern;
+    private boolean searching;
+
+    public LogWindowPanel(final Dispatcher circuit, final LogFile logFile) {
+        this.circuit = circuit;
+        this.name = logFile.getName();
+        this.logFile = logFile;
+        this.visibleLines = logFile.getLines().size();
+        this.requestedLine = -1;
+
+        panel = new VerticalPanel();
+        panel.setStyleName("rhs-content-panel");
+        panel.add(new HTML("<h3>" + SafeHtmlUtils.htmlEscape(logFile.getName()) + "</h3>"));
+
+        // search & go to line
+        findTextBox = new TextBox();
+        findTextBox.getElement().setAttribute("placeholder", "Find");
+        findTextBox.addKeyDownHandler(new KeyDownHandler() {
+            @Override
+            public void onKeyDown(KeyDownEvent event) {
+                if (event.getNativeKeyCode() == KeyCodes.KEY_ENTER) {
+                    find(true, false);
+                } else if (event.getNativeKeyCode() == KeyCodes.KEY_ESCAPE) {
+                    stopSearch();
+                }
+            }
+        });
+        setId(findTextBox, BASE_ID, "window_find_input");
+
+        ToolButton findButton = new ToolButton("Find", new ClickHandler() {
+            @Override
+            public void onClick(ClickEvent event) {
+                find(true, false);
+            }
+        });
+        setId(findButton, BASE_ID, "window_find");
+
+        Button findPrev = new Button(SafeHtmlUtils.fromSafeConstant("<i class=\"icon-angle-left\"></i>"));
+        findPrev.addStyleName("toolstrip-button");
+        findPrev.addClickHandler(new ClickHandler() {
+            @Override
+            public void onClick(ClickEvent event) {
+                find(false, true);
+            }
+        });
+        setId(findPrev, BASE_ID, "window_prev_match");
+
+        Button findNext = new Button(SafeHtmlUtils.fromSafeConstant("<i class=\"icon-angle-right\"></i>"));
+        findNext.addStyleName("toolstrip-button");
+        findNext.addClickHandler(new ClickHandler() {
+            @Override
+            public void onClick(ClickEvent event) {
+                find(true, true);
+            }
+        });
+        setId(findNext, BASE_ID, "window_next_match");
+
+        stop = new ToolButton("Stop", new ClickHandler() {
+            @Override
+            public void onClick(ClickEvent event) {
+                stopSearch();
+            }
+        });
+        stop.setEnabled(false);
+        setId(stop, BASE_ID, "window_stop_find");
+
+        final TextBox lineTextBox = new TextBox();
+        lineTextBox.getElement().setAttribute("placeholder", "Go to line");
+        lineTextBox.addKeyDownHandler(new KeyDownHandler() {
+            @Override
+            public void onKeyDown(KeyDownEvent event) {
+                if (event.getNativeKeyCode() == KeyCodes.KEY_ENTER) {
+                    try {
+                        scrollTo(Integer.parseInt(lineTextBox.getValue().trim()) - 1);
+                    } catch (NumberFormatException e) {
+                        lineTextBox.setValue("");
+                    }
+                }
+            }
+        });
+        setId(lineTextBox, BASE_ID, "window_go_to_line");
+
+        ToolStrip searchTools = new ToolStrip();
+        searchTools.addToolWidget(findTextBox);
+        searchTools.addToolButton(findButton);
+        searchTools.addToolWidget(findPrev);
+        searchTools.addToolWidget(findNext);
+        searchTools.addToolButton(stop);
+        searchTools.addToolWidgetRight(lineTextBox);
+        searchTools.getElement().getStyle().setPaddingLeft(0, PX);
+        searchTools.getElement().getStyle().setMarginBottom(0.5, EM);
+        findTextBox.getElement().getStyle().setWidth(30, EM);
+        findTextBox.getElement().getStyle().setMarginRight(1, EM);
+        findTextBox.getElement().getStyle().setMarginBottom(0, PX);
+        findTextBox.getElement().getParentElement().getStyle().setVerticalAlign(MIDDLE);
+        findButton.getElement().getStyle().setMarginLeft(1, EM);
+        findButton.getElement().getStyle().setHeight(25, PX);
+        findButton.getElement().getParentElement().getStyle().setVerticalAlign(MIDDLE);
+        findPrev.getElement().getStyle().setHeight(25, PX);
+        findPrev.getElement().getParentElement().getStyle().setVerticalAlign(MIDDLE);
+        findNext.getElement().getStyle().setHeight(25, PX);
+        findNext.getElement().getParentElement().getStyle().setVerticalAlign(MIDDLE);
+        lineTextBox.getElement().getStyle().setWidth(8, EM);
+        lineTextBox.getElement().getStyle().setMarginBottom(0, PX);
+        panel.add(searchTools);
+
+        // lines & scroll bar
+        lines = new HTML();
+        lines.addStyleName("hal-LogWindow");
+        lines.addDomHandler(new MouseWheelHandler() {
+            @Override
+            public void onMouseWheel(MouseWheelEvent event) {
+                event.preventDefault();
+                int delta = event.getDeltaY() > 0 ? WHEEL_LINES : -WHEEL_LINES;
+                scrollTo(LogWindowPanel.this.logFile.getSkipped() + delta);
+            }
+        }, MouseWheelEvent.getType());
+
+        scrollContent = new FlowPanel();
+        scrollContent.getElement().getStyle().setWidth(1, PX);
+        scrollBar = new ScrollPanel(scrollContent);
+        scrollBar.addStyleName("hal-LogWindow__scrollbar");
+        scrollBar.addScrollHandler(new ScrollHandler() {
+            @Override
+            public void onScroll(ScrollEvent event) {
+                if (ignoreScroll) {
+                    ignoreScroll = false;
+                } else {
+                    scrollTo(lineAt(scrollBar.getVerticalScrollPosition()));
+                }
+            }
+        });
+
+        HorizontalPanel linesPanel = new HorizontalPanel();
+        linesPanel.setStyleName("fill-layout-width");
+        linesPanel.add(lines);
+        linesPanel.add(scrollBar);
+        lines.getElement().getParentElement().getStyle().setWidth(100, PCT);
+        panel.add(linesPanel);
+
+        status = new Label();
+        status.addStyleName("hal-LogWindow__status");
+        panel.add(status);
+
+        resizeHandler = Window.addResizeHandler(new ResizeHandler() {
+            @Override
+            public void onResize(ResizeEvent event) {
+                LogWindowPanel.this.onResize();
+            }
+        });
+        initWidget(panel);
+        setStyleName("rhs-content-panel");
+
+        render();
+    }
+
+    @Override
+    public void refresh(LogFile logFile, Action action) {
+        this.logFile = logFile;
+        render();
+
+        if (action instanceof ScrollLogFile) {
+            scrolling = false;
+            if (requestedLine != -1) {
+                // the user scrolled while the last request was pending
+                dispatchScroll();
+            }
+
+        } else if (action instanceof FindInLogFile) {
+            FindInLogFile find = (FindInLogFile) action;
+            if (!searching || !find.getPattern().equals(pattern)) {
+                return; // stopped or replaced by another search
+            }
+            LogChunks chunks = logFile.getChunks();
+            if (chunks.getResume() != -1) {
+                circuit.dispatch(new FindInLogFile(find.getPattern(), chunks.getResume(), find.isForward()));
+            } else {
+                stopSearch();
+                if (chunks.getMatch() == -1) {
+                    status.setText("No match for \"" + pattern + "\"");
+                }
+            }
+        }
+    }
+
+    @Override
+    protected void onUnload() {
+        resizeHandler.removeHandler();
+    }
+
+    @Override
+    public void onResize() {
+        Scheduler.get().scheduleDeferred(new Scheduler.ScheduledCommand() {
+            @Override
+            public void execute() {
+                int panelHeight = panel.getElement().getParentElement().getOffsetHeight();
+                int linesHeight = panelHeight - HEADER_HEIGHT - TOOLS_HEIGHT - MARGIN_BOTTOM;
+
+                if (panelHeight > 0) {
+                    lines.setHeight(linesHeight + "px");
+                    scrollBar.setHeight(linesHeight + "px");
+                    int newVisibleLines = Math.max(1, linesHeight / LINE_HEIGHT);
+                    if (newVisibleLines != visibleLines) {
+                        visibleLines = newVisibleLines;
+                        scrollTo(logFile.getSkipped());
+                    }
+                    updateScrollBar();
+                }
+            }
+        });
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+
+    // ------------------------------------------------------ scroll
+
+    private void scrollTo(int line) {
+        requestedLine = Math.max(0, line);
+        if (!scrolling) {
+            dispatchScroll();
+        }
+    }
+
+    private void dispatchScroll() {
+        int line = requestedLine;
+        requestedLine = -1;
+        scrolling = true;
+        circuit.dispatch(new ScrollLogFile(line, visibleLines));
+    }
+
+    private int scrollableLines() {
+        return Math.max(0, logFile.getChunks().getLineCount() - visibleLines);
+    }
+
+    private int lineAt(int position) {
+        int maxPosition = scrollBar.getMaximumVerticalScrollPosition();
+        if (maxPosition <= 0) {
+            return 0;
+        }
+        return (int) ((double) position / maxPosition * scrollableLines());
+    }
+
+    private int positionOf(int line) {
+        int scrollableLines = scrollableLines();
+        if (scrollableLines == 0) {
+            return 0;
+        }
+        return (int) ((double) line / scrollableLines * scrollBar.getMaximumVerticalScrollPosition());
+    }
+
+    private void updateScrollBar() {
+        long height = (long) logFile.getChunks().getLineCount() * LINE_HEIGHT;
+        scrollContent.setHeight(Math.min(height, MAX_SCROLL_HEIGHT) + "px");
+
+        int position = positionOf(logFile.getSkipped());
+        if (scrollBar.getMaximumVerticalScrollPosition() > 0 && position != scrollBar.getVerticalScrollPosition()) {
+            ignoreScroll = true;
+            scrollBar.setVerticalScrollPosition(position);
+        }
+    }
+
+
+    // ------------------------------------------------------ search
+
+    private void find(boolean forward, boolean again) {
+        String value = findTextBox.getValue();
+        if (value == null || value.trim().length() == 0) {
+            return;
+        }
+
+        int from = logFile.getSkipped();
+        int match = logFile.getChunks().getMatch();
+        if (again && match != -1 && value.equals(pattern)) {
+            from = forward ? match + 1 : match - 1;
+        }
+        pattern = value;
+        searching = true;
+        stop.setEnabled(true);
+        status.setText("Searching \"" + pattern + "\"...");
+        circuit.dispatch(new FindInLogFile(pattern, from, forward));
+    }
+
+    private void stopSearch() {
+        searching = false;
+        stop.setEnabled(false);
+    }
+
+
+    // ------------------------------------------------------ render
+
+    private void render() {
+        int first = logFile.getSkipped();
+        int match = logFile.getChunks().getMatch();
+        List<String> window = logFile.getLines();
+
+        SafeHtmlBuilder builder = new SafeHtmlBuilder();
+        for (int i = 0; i < window.size(); i++) {
+            int line = first + i;
+            builder.appendHtmlConstant(line == match ?
+                    "<div class=\"hal-LogWindow__line hal-LogWindow__match\">" : "<div class=\"hal-LogWindow__line\">");
+            builder.appendHtmlConstant("<span class=\"hal-LogWindow__number\">").append(line + 1)
+                    .appendHtmlConstant("</span>");
+            builder.appendEscaped(window.get(i));
+            builder.appendHtmlConstant("</div>");
+        }
+        lines.setHTML(builder.toSafeHtml());
+
+        updateScrollBar();
+        updateStatus();
+    }
+
+    private void updateStatus() {
+        LogChunks chunks = logFile.getChunks();
+        String lineCount = (chunks.isLineCountExact() ? "" : "~") + chunks.getLineCount();
+
+        if (searching && chunks.getResume() != -1) {
+            status.setText("Searching \"" + pattern + "\" at line " + (chunks.getResume() + 1) + " of " + lineCount);
+        } else if (logFile.getLines().isEmpty()) {
+            status.setText("No lines");
+        } else {
+            int first = logFile.getSkipped() + 1;
+            int last = logFile.getSkipped() + logFile.getLines().size();
+            status.setText("Lines " + first + " - " + last + " of " + lineCount);
+        }
+    }
+}
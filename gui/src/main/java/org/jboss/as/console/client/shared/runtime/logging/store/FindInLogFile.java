@@ -0,0 +1,71 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.console.client.shared.runtime.logging.store;
+
+import org.jboss.gwt.circuit.Action;
+
+/**
+ * Searches the active log file starting at the specified line. Only applicable for log files opened by
+ * {@link BrowseLogFile}. A single action searches a limited number of lines. If there's no match within these lines,
+ * the search has to be continued at {@link LogChunks#getResume()}.
+ */
+public class FindInLogFile implements Action {
+
+    private final String pattern;
+    private final int line;
+    private final boolean forward;
+
+    public FindInLogFile(String pattern, int line, boolean forward) {
+        this.pattern = pattern;
+        this.line = line;
+        this.forward = forward;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FindInLogFile)) return false;
+
+        FindInLogFile that = (FindInLogFile) o;
+        return line == that.line && forward == that.forward && pattern.equals(that.pattern);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = pattern.hashCode();
+        result = 31 * result + line;
+        result = 31 * result + (forward ? 1 : 0);
+        return result;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public boolean isForward() {
+        return forward;
+    }
+}
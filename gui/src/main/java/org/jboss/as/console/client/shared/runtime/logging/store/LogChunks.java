@@ -0,0 +1,229 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.console.client.shared.runtime.logging.store;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Holds parts of a log file which is too big to be streamed as a whole. The log file is read in chunks of
+ * {@link #CHUNK_SIZE} lines using the {@code skip} and {@code lines} parameters of the {@code read-log-file}
+ * operation. At most {@link #MAX_CHUNKS} chunks are kept. If there are more chunks, the least recently used chunk
+ * is evicted.
+ * <p/>
+ * Until the end of the log file was read, the number of lines is estimated from the file size and the average line
+ * length of the cached chunks. If the file size changes, the chunks are adjusted using {@link #resize(int)}.
+ */
+public class LogChunks {
+
+    public final static int CHUNK_SIZE = 500; // lines
+    final static int MAX_CHUNKS = 20;
+    private final static int DEFAULT_LINE_LENGTH = 120; // bytes, used until the first chunk was read
+
+    private int fileSize;
+    private final Map<Integer, List<String>> chunks;
+
+    /**
+     * The number of lines which are known to exist
+     */
+    private int minLines;
+
+    /**
+     * The number of lines which are known not to be exceeded
+     */
+    private int maxLines;
+
+    /**
+     * The line of the last match, -1 if there's no match
+     */
+    private int match;
+
+    /**
+     * The line where an unfinished search has to be continued, -1 if the search is finished
+     */
+    private int resume;
+
+    public LogChunks(int fileSize) {
+        this.fileSize = fileSize;
+        this.chunks = new LinkedHashMap<Integer, List<String>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<String>> eldest) {
+                return size() > MAX_CHUNKS;
+            }
+        };
+        this.minLines = 0;
+        this.maxLines = Integer.MAX_VALUE;
+        this.match = -1;
+        this.resume = -1;
+    }
+
+    @Override
+    public String toString() {
+        return "LogChunks(" + chunks.keySet() + ", " + (isLineCountExact() ? "" : "~") + getLineCount() + " lines)";
+    }
+
+    void put(int index, List<String> lines) {
+        chunks.put(index, new ArrayList<>(lines));
+        int end = index * CHUNK_SIZE + lines.size();
+        if (!lines.isEmpty()) {
+            minLines = max(minLines, end);
+        }
+        if (lines.size() < CHUNK_SIZE) {
+            maxLines = min(maxLines, end);
+        }
+    }
+
+    /**
+     * Adjusts the chunks to a changed file size. If the file grew, the chunk at the end of the file is dropped, since
+     * it has more lines by now, and the number of lines is no longer known. If the file shrank, it was rotated or
+     * truncated and all chunks are dropped.
+     */
+    void resize(int fileSize) {
+        if (fileSize < this.fileSize) {
+            chunks.clear();
+            minLines = 0;
+            searched(-1, -1);
+        } else if (maxLines != Integer.MAX_VALUE) {
+            int tail = maxLines / CHUNK_SIZE;
+            if (maxLines % CHUNK_SIZE == 0 && tail > 0 && !chunks.containsKey(tail)) {
+                // the end of the file is at the chunk boundary
+                tail--;
+            }
+            chunks.remove(tail);
+            minLines = min(minLines, tail * CHUNK_SIZE);
+        }
+        maxLines = Integer.MAX_VALUE;
+        this.fileSize = fileSize;
+    }
+
+    boolean contains(int index) {
+        return chunks.containsKey(index);
+    }
+
+    /**
+     * @return the indexes of the chunks which are necessary to show the lines {@code [from, to)}, but which are
+     * not cached.
+     */
+    List<Integer> missing(int from, int to) {
+        List<Integer> missing = new ArrayList<>();
+        for (int index = from / CHUNK_SIZE; index <= (to - 1) / CHUNK_SIZE; index++) {
+            if (!isAfterEnd(index * CHUNK_SIZE) && !chunks.containsKey(index)) {
+                missing.add(index);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * @return the cached lines {@code [from, to)}. Stops at the first line which is not cached.
+     */
+    List<String> lines(int from, int to) {
+        List<String> lines = new ArrayList<>();
+        for (int line = from; line < to; ) {
+            List<String> chunk = chunks.get(line / CHUNK_SIZE);
+            int offset = line % CHUNK_SIZE;
+            if (chunk == null || offset >= chunk.size()) {
+                break;
+            }
+            int count = min(chunk.size() - offset, to - line);
+            lines.addAll(chunk.subList(offset, offset + count));
+            line += count;
+        }
+        return lines;
+    }
+
+    /**
+     * Searches the cached chunk which contains the specified line. The search starts at the specified line and stops
+     * at the chunk boundary. Lines are matched case insensitive.
+     *
+     * @return the matching line or -1 if there's no match in the chunk
+     */
+    int find(int line, String pattern, boolean forward) {
+        List<String> chunk = chunks.get(line / CHUNK_SIZE);
+        if (chunk != null) {
+            String lowerCasePattern = pattern.toLowerCase();
+            int first = line - line % CHUNK_SIZE;
+            int step = forward ? 1 : -1;
+            for (int i = line % CHUNK_SIZE; i >= 0 && i < chunk.size(); i += step) {
+                if (chunk.get(i).toLowerCase().contains(lowerCasePattern)) {
+                    return first + i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    void searched(int match, int resume) {
+        this.match = match;
+        this.resume = resume;
+    }
+
+    boolean isAfterEnd(int line) {
+        return line >= maxLines;
+    }
+
+    public boolean isLineCountExact() {
+        return minLines == maxLines;
+    }
+
+    /**
+     * @return the number of lines if the end of the log file was read, an estimation otherwise. If the estimation
+     * turns out to be too high, subsequent reads at the estimated end narrow down the number of lines.
+     */
+    public int getLineCount() {
+        if (isLineCountExact()) {
+            return minLines;
+        }
+        int chars = 0;
+        int lines = 0;
+        for (List<String> chunk : chunks.values()) {
+            for (String line : chunk) {
+                chars += line.length() + 1;
+            }
+            lines += chunk.size();
+        }
+        int averageLength = lines == 0 ? DEFAULT_LINE_LENGTH : max(1, chars / lines);
+        int estimate = fileSize / averageLength;
+        if (estimate >= maxLines) {
+            // the estimation is known to be too high: bisect the range of possible line counts
+            estimate = minLines + (maxLines - minLines) / 2;
+        }
+        return max(minLines, estimate);
+    }
+
+    public int getFileSize() {
+        return fileSize;
+    }
+
+    public int getMatch() {
+        return match;
+    }
+
+    public int getResume() {
+        return resume;
+    }
+}
@@ -41,6 +41,7 @@ public class LogFile {
     private final String name;
     private final List<String> lines;
     private final String content;
+    private final LogChunks chunks;
     private int fileSize;
 
     private Position position;
@@ -53,6 +54,7 @@ public class LogFile {
         this.name = name;
         this.lines = new ArrayList<>();
         this.content = null;
+        this.chunks = null;
         this.lines.addAll(lines);
         this.fileSize = fileSize;
 
@@ -67,6 +69,7 @@ public class LogFile {
         this.name = name;
         this.lines = Collections.emptyList();
         this.content = content;
+        this.chunks = null;
         this.fileSize = getNumBytes();
 
         this.position = Position.TAIL;
@@ -76,6 +79,23 @@ public class LogFile {
         this.stale = false;
     }
 
+    /**
+     * Creates a log file which is read in chunks. The lines hold the window which is currently displayed.
+     */
+    public LogFile(String name, LogChunks chunks) {
+        this.name = name;
+        this.lines = new ArrayList<>();
+        this.content = null;
+        this.chunks = chunks;
+        this.fileSize = chunks.getFileSize();
+
+        this.position = Position.HEAD;
+        this.readFrom = Position.HEAD;
+        this.skipped = 0;
+        this.follow = false;
+        this.stale = false;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -133,6 +153,21 @@ public class LogFile {
         }
     }
 
+    /**
+     * Sets the window of a log file which is read in chunks.
+     *
+     * @param line  the first line of the window
+     * @param lines the lines of the window
+     */
+    void setWindow(int line, List<String> lines) {
+        if (isWindowed()) {
+            this.lines.clear();
+            this.lines.addAll(lines);
+            this.position = line == 0 ? Position.HEAD : Position.LINE_NUMBER;
+            this.skipped = line;
+        }
+    }
+
     public String getName() {
         return name;
     }
@@ -158,11 +193,19 @@ public class LogFile {
     }
 
     public boolean isPaged() {
-        return content == null;
+        return content == null && chunks == null;
+    }
+
+    public boolean isWindowed() {
+        return chunks != null;
+    }
+
+    public LogChunks getChunks() {
+        return chunks;
     }
 
     public String getContent() {
-        return isPaged() ? Joiner.on('\n').join(lines) : content;
+        return content == null ? Joiner.on('\n').join(lines) : content;
     }
 
     public int getNumBytes() {
@@ -176,6 +219,19 @@ public class LogFile {
         }
     }
 
+    /**
+     * Appends lines. If there are more than {@code capacity} lines afterwards, the oldest lines are dropped.
+     */
+    void appendLines(List<String> newLines, int capacity) {
+        if (isPaged()) {
+            this.lines.addAll(newLines);
+            int overflow = this.lines.size() - capacity;
+            if (overflow > 0) {
+                this.lines.subList(0, overflow).clear();
+            }
+        }
+    }
+
     public List<String> getLines() {
         return lines;
     }
@@ -205,7 +261,7 @@ public class LogFile {
     }
 
     public int getFileSize() {
-        return fileSize;
+        return chunks != null ? chunks.getFileSize() : fileSize;
     }
 
     public void setFileSize(int fileSize) {
@@ -46,6 +46,7 @@ import org.jboss.gwt.circuit.meta.Process;
 import org.jboss.gwt.circuit.meta.Store;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
@@ -72,6 +73,10 @@ public class LogStore extends ChangeSupport {
 
     private final static int PAGE_SIZE = 25;
     private final static int FOLLOW_INTERVAL = 1200; // ms
+    private final static int MAX_FOLLOW_BACKOFF = 8; // number of follow intervals
+    private final static int MIN_DELTA_LINES = 5;
+    private final static int OVERLAP_LINES = 2;
+    private final static int MAX_SEARCH_CHUNKS = 10; // number of chunks searched by one FindInLogFile action
 
     private final HostStore hostStore;
     private final DispatchAsync dispatcher;
@@ -118,6 +123,11 @@ public class LogStore extends ChangeSupport {
      */
     protected boolean pauseFollow;
 
+    /**
+     * The command which follows the active log file. There's at most one running command.
+     */
+    protected RefreshLogFile follower;
+
     @Inject
     public LogStore(HostStore hostStore, DispatchAsync dispatcher, Scheduler scheduler, BootstrapContext bootstrap) {
         this.hostStore = hostStore;
@@ -258,6 +268,194 @@ public class LogStore extends ChangeSupport {
         }
     }
 
+    @Process(actionType = BrowseLogFile.class)
+    public void browseLogFile(final BrowseLogFile action, final Dispatcher.Channel channel) {
+        final LogFile logFile = states.get(action.getName());
+
+        if (logFile == null) {
+            final LogFile newLogFile = new LogFile(action.getName(), new LogChunks(action.getFileSize()));
+            readWindow(newLogFile, 0, pageSize, new AsyncCallback<Void>() {
+                @Override
+                public void onFailure(Throwable caught) {
+                    channel.nack(caught);
+                }
+
+                @Override
+                public void onSuccess(Void result) {
+                    states.put(action.getName(), newLogFile);
+                    activate(newLogFile);
+                    channel.ack();
+                }
+            });
+
+        } else {
+            // already open, just activate
+            activate(logFile);
+            channel.ack();
+        }
+    }
+
+    @Process(actionType = ScrollLogFile.class)
+    public void scroll(final ScrollLogFile action, final Dispatcher.Channel channel) {
+        if (activeLogFile == null || !activeLogFile.isWindowed()) {
+            channel.nack(new IllegalStateException("Unable to scroll: No active log file or log file is not read in chunks!"));
+            return;
+        }
+        final LogFile logFile = activeLogFile;
+        final int lines = max(1, action.getLines());
+        final LogChunks chunks = logFile.getChunks();
+        if (chunks.isLineCountExact() && action.getLine() + lines >= chunks.getLineCount()) {
+            // scrolled to the end: the file might have grown since the end was read
+            final ModelNode op = readFileSizeOp(logFile.getName());
+            dispatcher.execute(new DMRAction(op, false), new AsyncCallback<DMRResponse>() {
+                @Override
+                public void onFailure(Throwable caught) {
+                    // show what's known
+                    readWindow(logFile, action.getLine(), lines, ackOrNack(channel));
+                }
+
+                @Override
+                public void onSuccess(DMRResponse result) {
+                    ModelNode response = result.get();
+                    if (!response.isFailure()) {
+                        // same as readFileSize()
+                        int size = max(1, response.get(RESULT).asInt());
+                        if (size != chunks.getFileSize()) {
+                            chunks.resize(size);
+                        }
+                    }
+                    readWindow(logFile, action.getLine(), lines, ackOrNack(channel));
+                }
+            });
+        } else {
+            readWindow(logFile, action.getLine(), lines, ackOrNack(channel));
+        }
+    }
+
+    @Process(actionType = FindInLogFile.class)
+    public void find(final FindInLogFile action, final Dispatcher.Channel channel) {
+        if (activeLogFile == null || !activeLogFile.isWindowed()) {
+            channel.nack(new IllegalStateException("Unable to find: No active log file or log file is not read in chunks!"));
+            return;
+        }
+        activeLogFile.getChunks().searched(-1, -1);
+        find(activeLogFile, action, action.getLine(), MAX_SEARCH_CHUNKS, channel);
+    }
+
+    /**
+     * Moves the window of the log file to the specified line. Missing chunks are read in one composite operation.
+     * If the line is after the end of the log file, the window is moved to the last lines.
+     */
+    private void readWindow(final LogFile logFile, final int line, final int lines, final AsyncCallback<Void> callback) {
+        final LogChunks chunks = logFile.getChunks();
+        final int from = max(0, Math.min(line, chunks.getLineCount() - lines));
+        final List<Integer> missing = chunks.missing(from, from + lines);
+
+        if (missing.isEmpty()) {
+            logFile.setWindow(from, chunks.lines(from, from + lines));
+            callback.onSuccess(null);
+
+        } else {
+            final ModelNode op = readChunksOp(logFile.getName(), missing);
+            dispatcher.execute(new DMRAction(op), new AsyncCallback<DMRResponse>() {
+                @Override
+                public void onFailure(Throwable caught) {
+                    callback.onFailure(caught);
+                }
+
+                @Override
+                public void onSuccess(DMRResponse result) {
+                    ModelNode response = result.get();
+                    if (response.isFailure()) {
+                        callback.onFailure(new RuntimeException("Failed to read " + logFile + " using " + op + ": " +
+                                response.getFailureDescription()));
+                    } else {
+                        ModelNode compResult = response.get(RESULT);
+                        for (int i = 0; i < missing.size(); i++) {
+                            chunks.put(missing.get(i), readLines(compResult, "step-" + (i + 1)));
+                        }
+                        // the line count might be known by now, so start over
+                        readWindow(logFile, line, lines, callback);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Searches at most {@code chunkBudget} chunks starting at the specified line. Cached chunks are searched first,
+     * missing chunks are read one after another. If there's a match, the window is moved to the matching line. If
+     * there's no match within the budget, the line to continue the search is stored in {@link LogChunks#getResume()}.
+     */
+    private void find(final LogFile logFile, final FindInLogFile action, final int line, final int chunkBudget,
+            final Dispatcher.Channel channel) {
+        final LogChunks chunks = logFile.getChunks();
+        int current = line;
+        int budget = chunkBudget;
+
+        while (current >= 0 && !chunks.isAfterEnd(current)) {
+            if (budget == 0) {
+                chunks.searched(-1, current);
+                channel.ack();
+                return;
+            }
+
+            final int index = current / LogChunks.CHUNK_SIZE;
+            if (!chunks.contains(index)) {
+                final int next = current;
+                final int nextBudget = budget;
+                final ModelNode op = readChunksOp(logFile.getName(), Collections.singletonList(index));
+                dispatcher.execute(new DMRAction(op), new AsyncCallback<DMRResponse>() {
+                    @Override
+                    public void onFailure(Throwable caught) {
+                        channel.nack(caught);
+                    }
+
+                    @Override
+                    public void onSuccess(DMRResponse result) {
+                        ModelNode response = result.get();
+                        if (response.isFailure()) {
+                            channel.nack(new RuntimeException("Failed to search " + logFile + " using " + op + ": " +
+                                    response.getFailureDescription()));
+                        } else {
+                            chunks.put(index, readLines(response.get(RESULT), "step-1"));
+                            find(logFile, action, next, nextBudget, channel);
+                        }
+                    }
+                });
+                return;
+            }
+
+            int match = chunks.find(current, action.getPattern(), action.isForward());
+            if (match != -1) {
+                chunks.searched(match, -1);
+                int lines = logFile.getLines().isEmpty() ? pageSize : logFile.getLines().size();
+                readWindow(logFile, match - lines / 2, lines, ackOrNack(channel));
+                return;
+            }
+            current = action.isForward() ? (index + 1) * LogChunks.CHUNK_SIZE : index * LogChunks.CHUNK_SIZE - 1;
+            budget--;
+        }
+
+        // reached the head or tail of the log file without a match
+        chunks.searched(-1, -1);
+        channel.ack();
+    }
+
+    private AsyncCallback<Void> ackOrNack(final Dispatcher.Channel channel) {
+        return new AsyncCallback<Void>() {
+            @Override
+            public void onFailure(Throwable caught) {
+                channel.nack(caught);
+            }
+
+            @Override
+            public void onSuccess(Void result) {
+                channel.ack();
+            }
+        };
+    }
+
     @Process(actionType = DownloadLogFile.class)
     public void downloadLogFile(final DownloadLogFile action, final Dispatcher.Channel channel) {
         Window.open(streamUrl(action.getName()), "", "");
@@ -498,7 +696,14 @@ public class LogStore extends ChangeSupport {
     }
 
     private void startFollowing(LogFile logFile) {
-        scheduler.scheduleFixedDelay(new RefreshLogFile(logFile.getName()), FOLLOW_INTERVAL);
+        if (follower != null && follower.isRunning() && follower.name.equals(logFile.getName())) {
+            return; // already following
+        }
+        if (follower != null) {
+            follower.stop();
+        }
+        follower = new RefreshLogFile(logFile.getName());
+        scheduler.scheduleFixedDelay(follower, FOLLOW_INTERVAL);
     }
 
     private String streamUrl(final String name) {
@@ -542,6 +747,56 @@ public class LogStore extends ChangeSupport {
         return op;
     }
 
+    private ModelNode readFileSizeOp(String logFile) {
+        final ModelNode op = new ModelNode();
+        op.get(ADDRESS).set(baseAddress());
+        op.get(ADDRESS).add("log-file", logFile);
+        op.get(OP).set(READ_ATTRIBUTE_OPERATION);
+        op.get(NAME).set(FILE_SIZE);
+        return op;
+    }
+
+    /**
+     * Reads the file size together with the last {@code lines} lines.
+     */
+    private ModelNode readDeltaOp(String logFile, int lines) {
+        final ModelNode readLogFileOp = readLogFileOp(logFile);
+        readLogFileOp.get("lines").set(lines);
+        readLogFileOp.get("tail").set(true);
+
+        final ModelNode comp = new ModelNode();
+        comp.get(ADDRESS).setEmptyList();
+        comp.get(OP).set(COMPOSITE);
+
+        List<ModelNode> steps = new LinkedList<>();
+        steps.add(readFileSizeOp(logFile));
+        steps.add(readLogFileOp);
+        comp.get(STEPS).set(steps);
+
+        return comp;
+    }
+
+    /**
+     * Reads the specified chunks of {@link LogChunks#CHUNK_SIZE} lines, one step per chunk.
+     */
+    private ModelNode readChunksOp(String logFile, List<Integer> indexes) {
+        final ModelNode comp = new ModelNode();
+        comp.get(ADDRESS).setEmptyList();
+        comp.get(OP).set(COMPOSITE);
+
+        List<ModelNode> steps = new LinkedList<>();
+        for (Integer index : indexes) {
+            ModelNode op = readLogFileOp(logFile);
+            op.get("lines").set(LogChunks.CHUNK_SIZE);
+            op.get("skip").set(index * LogChunks.CHUNK_SIZE);
+            op.get("tail").set(false);
+            steps.add(op);
+        }
+        comp.get(STEPS).set(steps);
+
+        return comp;
+    }
+
     private ModelNode wrapInComposite(ModelNode readLogFileOp) {
         final ModelNode comp = new ModelNode();
         comp.get(ADDRESS).setEmptyList();
@@ -580,8 +835,12 @@ public class LogStore extends ChangeSupport {
     }
 
     private List<String> readLines(ModelNode compResult) {
+        return readLines(compResult, "step-2");
+    }
+
+    private List<String> readLines(ModelNode compResult, String step) {
         List<String> extractedLines = new ArrayList<>();
-        ModelNode stepResult = compResult.get("step-2");
+        ModelNode stepResult = compResult.get(step);
         if (stepResult.get(RESULT).isDefined()) {
             for (ModelNode node : stepResult.get(RESULT).asList()) {
                 extractedLines.add(node.asString());
@@ -631,49 +890,263 @@ public class LogStore extends ChangeSupport {
 
     // ------------------------------------------------------ polling
 
-    private class RefreshLogFile implements Scheduler.RepeatingCommand {
+    /**
+     * Follows a log file. Rather than reading the tail every {@link #FOLLOW_INTERVAL} ms, the command probes the file
+     * size using a {@code read-attribute} operation and reads the tail only if the size changed. While the log file
+     * keeps changing, the tail is read directly. While it doesn't change, the probes back off up to
+     * {@link #MAX_FOLLOW_BACKOFF} intervals. There's only one pending request at any time.
+     * <p/>
+     * The file size of the {@link LogFile} acts as cursor: If the file grew, only the number of lines estimated from
+     * the new bytes (plus some overlapping lines) is read. The overlapping lines are used to find the new lines, which
+     * are appended to the lines of the log file. The new lines have to account for the new bytes. If they don't, the
+     * lines don't overlap, or the file shrank because it was rotated, the complete page is reloaded.
+     * <p/>
+     * The management endpoint streams a snapshot of the log file and closes the response afterwards. So there's no
+     * server push to follow a log file and polling remains the only option. The polling operations bypass the DMR
+     * cache.
+     */
+    class RefreshLogFile implements Scheduler.RepeatingCommand {
 
         private final String name;
+        private boolean running;
+        private boolean pending;
+        private boolean changing;
+        private int lastDelta;
+        private int backoff;
+        private int skip;
 
         private RefreshLogFile(String name) {
             this.name = name;
+            this.running = true;
         }
 
         @Override
         public boolean execute() {
-            if (isValid()) {
-                final ModelNode op = readLogFileOp(name);
-                op.get("tail").set(true);
-                dispatcher.execute(new DMRAction(wrapInComposite(op)), new AsyncCallback<DMRResponse>() {
-                    @Override
-                    public void onFailure(Throwable caught) {
-                        // noop
+            if (!isValid()) {
+                running = false;
+                return false;
+            }
+            if (pending) {
+                return true;
+            }
+            if (skip > 0) {
+                skip--;
+                return true;
+            }
+            if (changing) {
+                // expect about as many lines as last time
+                readDelta(max(MIN_DELTA_LINES, 2 * lastDelta) + OVERLAP_LINES);
+            } else {
+                probe();
+            }
+            return true;
+        }
+
+        private void probe() {
+            pending = true;
+            final ModelNode op = readFileSizeOp(name);
+            dispatcher.execute(new DMRAction(op, false), new AsyncCallback<DMRResponse>() {
+                @Override
+                public void onFailure(Throwable caught) {
+                    pending = false;
+                }
+
+                @Override
+                public void onSuccess(DMRResponse result) {
+                    pending = false;
+                    ModelNode response = result.get();
+                    if (!response.isFailure() && isValid()) {
+                        // same as readFileSize()
+                        int size = max(1, response.get(RESULT).asInt());
+                        LogFile logFile = states.get(name);
+                        if (size == logFile.getFileSize()) {
+                            idle();
+                        } else if (size < logFile.getFileSize() || !logFile.isTail()) {
+                            reload();
+                        } else {
+                            readDelta(estimateLines(logFile, size - logFile.getFileSize()) + OVERLAP_LINES);
+                        }
                     }
+                }
+            });
+        }
 
-                    @Override
-                    public void onSuccess(DMRResponse result) {
-                        ModelNode response = result.get();
-                        if (!response.isFailure()) {
-                            if (isValid()) {
-                                ModelNode compResult = response.get(RESULT);
-                                int fileSize = readFileSize(name, compResult);
-                                List<String> lines = readLines(compResult);
-                                LogFile logFile = states.get(name);
-                                logFile.setFileSize(fileSize);
-                                logFile.setLines(lines);
-                                logFile.goTo(Position.TAIL);
+        private void readDelta(int lines) {
+            if (lines > pageSize) {
+                // reading the whole page is not more expensive
+                reload();
+                return;
+            }
+
+            pending = true;
+            final ModelNode op = readDeltaOp(name, lines);
+            dispatcher.execute(new DMRAction(op, false), new AsyncCallback<DMRResponse>() {
+                @Override
+                public void onFailure(Throwable caught) {
+                    pending = false;
+                }
+
+                @Override
+                public void onSuccess(DMRResponse result) {
+                    pending = false;
+                    ModelNode response = result.get();
+                    if (!response.isFailure() && isValid()) {
+                        ModelNode compResult = response.get(RESULT);
+                        int size = max(1, compResult.get("step-1").get(RESULT).asInt());
+                        List<String> lines = readLines(compResult);
+                        LogFile logFile = states.get(name);
+
+                        if (size == logFile.getFileSize()) {
+                            changing = false;
+                            idle();
+                        } else if (size < logFile.getFileSize() || !logFile.isTail()) {
+                            reload();
+                        } else {
+                            int overlap = overlap(logFile.getLines(), lines, size - logFile.getFileSize());
+                            if (overlap < 0) {
+                                // missed some lines or ambiguous overlap
+                                reload();
+                            } else {
+                                List<String> newLines = lines.subList(overlap, lines.size());
+                                logFile.appendLines(newLines, pageSize);
+                                logFile.setFileSize(size);
                                 fireChange(new FollowLogFile());
+                                changed(newLines.size());
                             }
                         }
                     }
-                });
+                }
+            });
+        }
+
+        private void reload() {
+            pending = true;
+            final ModelNode op = readLogFileOp(name);
+            op.get("tail").set(true);
+            dispatcher.execute(new DMRAction(wrapInComposite(op), false), new AsyncCallback<DMRResponse>() {
+                @Override
+                public void onFailure(Throwable caught) {
+                    pending = false;
+                }
+
+                @Override
+                public void onSuccess(DMRResponse result) {
+                    pending = false;
+                    ModelNode response = result.get();
+                    if (!response.isFailure()) {
+                        if (isValid()) {
+                            ModelNode compResult = response.get(RESULT);
+                            int size = readFileSize(name, compResult);
+                            List<String> lines = readLines(compResult);
+                            LogFile logFile = states.get(name);
+                            boolean sizeChanged = size != logFile.getFileSize();
+                            logFile.setFileSize(size);
+                            logFile.setLines(lines);
+                            logFile.goTo(Position.TAIL);
+                            fireChange(new FollowLogFile());
+
+                            if (sizeChanged) {
+                                changed(lines.size());
+                            } else {
+                                changing = false;
+                                idle();
+                            }
+                        }
+                    }
+                }
+            });
+        }
+
+        /**
+         * Estimates the number of lines for the specified number of bytes based on the current lines.
+         */
+        private int estimateLines(LogFile logFile, int bytes) {
+            int chars = 0;
+            List<String> lines = logFile.getLines();
+            for (String line : lines) {
+                chars += line.length() + 1;
+            }
+            if (lines.isEmpty() || chars == 0) {
+                return pageSize;
+            }
+            int averageLength = max(1, chars / lines.size());
+            return (bytes + averageLength - 1) / averageLength;
+        }
+
+        /**
+         * Returns the number of leading lines in {@code delta} which are equal to the last lines in {@code lines}.
+         * Repeated lines can overlap in more than one way. So the remaining (new) lines must account for exactly
+         * {@code bytes} bytes, the number of bytes the file grew.
+         *
+         * @return the number of overlapping lines, 0 if there are no lines yet and -1 if the lines don't overlap
+         */
+        private int overlap(List<String> lines, List<String> delta, int bytes) {
+            if (lines.isEmpty()) {
+                return 0;
+            }
+            for (int count = Math.min(lines.size(), delta.size()); count >= 0; count--) {
+                if (delta.subList(0, count).equals(lines.subList(lines.size() - count, lines.size()))
+                        && matches(delta.subList(count, delta.size()), bytes)) {
+                    return count;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return whether the lines plus their line separators (either LF or CR LF) take exactly {@code bytes} bytes
+         * in UTF-8
+         */
+        private boolean matches(List<String> lines, int bytes) {
+            long length = 0;
+            for (String line : lines) {
+                length += utf8Length(line);
             }
-            return isValid();
+            return bytes == length + lines.size() || bytes == length + 2 * lines.size();
+        }
+
+        private int utf8Length(String line) {
+            int length = 0;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (c < 0x80) {
+                    length++;
+                } else if (c < 0x800) {
+                    length += 2;
+                } else if (Character.isHighSurrogate(c)) {
+                    // surrogate pair: four bytes for both chars
+                    length += 4;
+                    i++;
+                } else {
+                    length += 3;
+                }
+            }
+            return length;
+        }
+
+        private void changed(int lines) {
+            changing = true;
+            lastDelta = lines;
+            backoff = 0;
+            skip = 0;
+        }
+
+        private void idle() {
+            backoff = backoff == 0 ? 1 : Math.min(backoff * 2, MAX_FOLLOW_BACKOFF);
+            skip = backoff - 1;
         }
 
         private boolean isValid() {
             LogFile logFile = states.get(name);
-            return logFile != null && logFile == activeLogFile && logFile.isFollow() && !pauseFollow;
+            return running && logFile != null && logFile == activeLogFile && logFile.isFollow() && !pauseFollow;
+        }
+
+        boolean isRunning() {
+            return running;
+        }
+
+        void stop() {
+            running = false;
         }
     }
 }
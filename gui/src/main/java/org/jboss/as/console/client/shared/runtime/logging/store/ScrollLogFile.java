@@ -0,0 +1,65 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.console.client.shared.runtime.logging.store;
+
+import org.jboss.gwt.circuit.Action;
+
+/**
+ * Moves the window of the active log file to the specified line. Only applicable for log files opened by
+ * {@link BrowseLogFile}.
+ */
+public class ScrollLogFile implements Action {
+
+    private final int line;
+    private final int lines;
+
+    /**
+     * @param line  the first line of the window (zero based)
+     * @param lines the number of lines in the window
+     */
+    public ScrollLogFile(int line, int lines) {
+        this.line = line;
+        this.lines = lines;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ScrollLogFile)) return false;
+
+        ScrollLogFile that = (ScrollLogFile) o;
+        return line == that.line && lines == that.lines;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * line + lines;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getLines() {
+        return lines;
+    }
+}
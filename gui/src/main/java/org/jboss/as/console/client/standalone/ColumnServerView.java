@@ -20,6 +20,7 @@ import com.gwtplatform.mvp.client.proxy.PlaceManager;
 import com.gwtplatform.mvp.shared.proxy.PlaceRequest;
 import org.jboss.as.console.client.Console;
 import org.jboss.as.console.client.core.NameTokens;
+import org.jboss.as.console.client.core.RequiredResourcesPrefetcher;
 import org.jboss.as.console.client.core.SuspendableViewImpl;
 import org.jboss.as.console.client.plugins.SubsystemExtensionMetaData;
 import org.jboss.as.console.client.plugins.SubsystemRegistry;
@@ -32,6 +33,7 @@ import org.jboss.as.console.client.widgets.nav.v3.FinderColumn;
 import org.jboss.as.console.client.widgets.nav.v3.FinderItem;
 import org.jboss.as.console.client.widgets.nav.v3.MenuDelegate;
 import org.jboss.as.console.client.widgets.nav.v3.PreviewFactory;
+import org.jboss.as.console.client.widgets.nav.v3.TokenProvider;
 import org.jboss.as.console.client.widgets.nav.v3.ValueProvider;
 import org.jboss.ballroom.client.layout.LHSNavTreeItem;
 
@@ -83,7 +85,8 @@ public class ColumnServerView extends SuspendableViewImpl
 
 
     @Inject
-    public ColumnServerView(final PlaceManager placeManager, PreviewContentFactory contentFactory) {
+    public ColumnServerView(final PlaceManager placeManager, PreviewContentFactory contentFactory,
+            RequiredResourcesPrefetcher prefetcher) {
         super();
         this.placeManager = placeManager;
         this.contentFactory = contentFactory;
@@ -234,6 +237,13 @@ public class ColumnServerView extends SuspendableViewImpl
             }
         });
 
+        subsystems.setTokenProvider(new TokenProvider<SubsystemLink>() {
+            @Override
+            public String getToken(SubsystemLink item) {
+                return item.getToken();
+            }
+        }, prefetcher);
+
         subsystems.setMenuItems(new MenuDelegate<SubsystemLink>("View", new ContextualCommand<SubsystemLink>() {
             @Override
             public void executeOn(final SubsystemLink link) {
@@ -35,6 +35,7 @@ import com.gwtplatform.mvp.client.proxy.ProxyPlace;
 import com.gwtplatform.mvp.client.proxy.RevealContentEvent;
 import com.gwtplatform.mvp.client.proxy.RevealContentHandler;
 import org.jboss.as.console.client.Console;
+import org.jboss.as.console.client.ScriptLoader;
 import org.jboss.as.console.client.core.MainLayoutPresenter;
 import org.jboss.as.console.client.domain.model.SimpleCallback;
 import org.jboss.as.console.client.rbac.SecurityFramework;
@@ -153,14 +154,21 @@ public class RepositoryPresenter
     public void onVisualize()
     {
 
-        Dialog dialog = new DialogXML().unmarshall(getView().getText());
-        DialogVisualization visualization = new DialogVisualization(dialog);
-        DefaultWindow window = new DefaultWindow("Dialog: "+dialog.getId());
-        window.setWidth(800);
-        window.setHeight(600);
-        ScrollPanel widgets = new ScrollPanel(visualization.getChart());
-        window.setWidget(widgets);
-        window.center();
+        final Dialog dialog = new DialogXML().unmarshall(getView().getText());
+
+        // the visualization API is loaded on first use
+        Console.MODULES.getScriptLoader().load(ScriptLoader.Script.GOOGLE_VIZ).then(new SimpleCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                DialogVisualization visualization = new DialogVisualization(dialog);
+                DefaultWindow window = new DefaultWindow("Dialog: "+dialog.getId());
+                window.setWidth(800);
+                window.setHeight(600);
+                ScrollPanel widgets = new ScrollPanel(visualization.getChart());
+                window.setWidget(widgets);
+                window.center();
+            }
+        });
     }
 
     public void onReify(final String name)
@@ -21,21 +21,33 @@
  */
 package org.jboss.as.console.client.v3;
 
+import com.google.inject.Inject;
 import org.jboss.as.console.client.v3.dmr.AddressTemplate;
+import org.jboss.as.console.client.v3.dmr.DescriptionStore;
 import org.jboss.as.console.client.v3.dmr.ResourceDescription;
 
 import java.util.HashMap;
 import java.util.Map;
 
 /**
+ * Registry for the resource descriptions of the current session. Descriptions are backed by a persistent
+ * {@link DescriptionStore}, so that they don't need to be read from the server again in later sessions.
+ *
  * @author Harald Pehl
  */
 public class ResourceDescriptionRegistry {
 
     private final Map<AddressTemplate, ResourceDescription> registry;
+    private final DescriptionStore store;
+
+    @Inject
+    public ResourceDescriptionRegistry(DescriptionStore store) {
+        this.registry = new HashMap<>();
+        this.store = store;
+    }
 
-    public ResourceDescriptionRegistry() {
-        registry = new HashMap<>();
+    public DescriptionStore getStore() {
+        return store;
     }
 
     public void add(AddressTemplate addressTemplate, ResourceDescription description) {
@@ -0,0 +1,402 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.console.client.v3.dmr;
+
+import com.allen_sauer.gwt.log.client.Log;
+import com.google.gwt.core.client.JavaScriptException;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.storage.client.Storage;
+import com.google.inject.Inject;
+import org.jboss.as.console.client.core.BootstrapContext;
+import org.jboss.as.console.client.core.settings.ModelVersions;
+import org.jboss.dmr.client.ModelNode;
+import org.jboss.dmr.client.ModelType;
+import org.jboss.dmr.client.dispatch.DMRCache;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.jboss.as.console.client.v3.dmr.ResourceDescription.ACCESS_CONTROL;
+
+/**
+ * Persistent cache for resource descriptions, shared across browser sessions. Descriptions only change if the
+ * management model of the server changes, so they're stored in the local storage using a key made of
+ * <ul>
+ * <li>the management model version and release version of the server,</li>
+ * <li>the effective roles of the user and</li>
+ * <li>the normalized read-resource-description operation, which includes the address template.</li>
+ * </ul>
+ * The access control meta data is <em>not</em> stored: It depends on the RBAC configuration, which can change at
+ * any time without changing the key. Callers have to read the access control part from the server (using
+ * {@code access-control=trim-descriptions}) whenever they use a stored description.
+ * <p>
+ * Entries of other versions are purged when the store is initialized. The store keeps to a fixed budget and
+ * evicts the least recently used entries if the budget or the storage quota is exceeded.
+ */
+public class DescriptionStore {
+
+    private static final String PREFIX = "hal.rrd.";
+    private static final String VERSION_KEY = PREFIX + "version";
+    private static final String INDEX_KEY = PREFIX + "index";
+
+    /**
+     * Part of the version key. Needs to be increased if the format of the stored entries changes.
+     */
+    private static final String FORMAT = "2";
+
+    /**
+     * Budget in characters. Leaves enough room in the local storage for the search index and the preferences.
+     */
+    static final int DEFAULT_BUDGET = 2 * 1024 * 1024;
+
+    private final ModelVersions modelVersions;
+    private final BootstrapContext bootstrapContext;
+    private final LocalStorage storage;
+    private final Scheduler scheduler;
+    private final int budget;
+
+    /** Storage keys in LRU order with the size of their values */
+    private final LinkedHashMap<String, Integer> index;
+    private boolean initialized;
+    private boolean enabled;
+    private boolean indexDirty;
+    private int size;
+    private int hits;
+    private int misses;
+
+    @Inject
+    public DescriptionStore(ModelVersions modelVersions, BootstrapContext bootstrapContext) {
+        this(modelVersions, bootstrapContext, LocalStorage.Impl.create(), Scheduler.get(), DEFAULT_BUDGET);
+    }
+
+    DescriptionStore(ModelVersions modelVersions, BootstrapContext bootstrapContext, LocalStorage storage,
+            Scheduler scheduler, int budget) {
+        this.modelVersions = modelVersions;
+        this.bootstrapContext = bootstrapContext;
+        this.storage = storage;
+        this.scheduler = scheduler;
+        this.budget = budget;
+        this.index = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+
+    // ------------------------------------------------------ public API
+
+    /**
+     * @return the (composite step) result of the given read-resource-description operation without the access
+     * control meta data or null if there's no such entry.
+     */
+    public ModelNode get(ModelNode operation) {
+        if (!init()) {
+            return null;
+        }
+        String key = storageKey(operation);
+        if (index.get(key) != null) {
+            String value = storage.getItem(key);
+            String fullKey = fullKey(operation);
+            if (value != null && value.startsWith(fullKey + "\n")) {
+                try {
+                    ModelNode result = ModelNode.fromBase64(value.substring(fullKey.length() + 1));
+                    hits++;
+                    scheduleIndexWrite();
+                    return result;
+                } catch (Throwable t) {
+                    Log.error("Unable to read cached resource description for " + operation.get("address"), t);
+                }
+            }
+            remove(key);
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Stores the result of the given read-resource-description operation. The access control meta data is removed
+     * before the result is stored, the given result is not modified.
+     */
+    public void put(ModelNode operation, ModelNode result) {
+        if (!init()) {
+            return;
+        }
+        String key = storageKey(operation);
+        String value = fullKey(operation) + "\n" + withoutAccessControl(result).toBase64String();
+        if (value.length() > budget / 4) {
+            // don't let a single description sweep the store
+            return;
+        }
+
+        remove(key);
+        while (size + value.length() > budget && !index.isEmpty()) {
+            evictEldest();
+        }
+        if (!setItem(key, value)) {
+            // quota exceeded: free half of the store and try once more
+            int target = size / 2;
+            while (size > target && !index.isEmpty()) {
+                evictEldest();
+            }
+            if (!setItem(key, value)) {
+                return;
+            }
+        }
+        index.put(key, value.length());
+        size += value.length();
+        scheduleIndexWrite();
+    }
+
+    public void clear() {
+        if (storage != null) {
+            List<String> keys = new ArrayList<>();
+            for (int i = 0; i < storage.getLength(); i++) {
+                String key = storage.key(i);
+                if (key != null && key.startsWith(PREFIX)) {
+                    keys.add(key);
+                }
+            }
+            for (String key : keys) {
+                storage.removeItem(key);
+            }
+        }
+        index.clear();
+        size = 0;
+        initialized = false;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public int getHits() {
+        return hits;
+    }
+
+    public int getMisses() {
+        return misses;
+    }
+
+
+    // ------------------------------------------------------ internals
+
+    /**
+     * @return a copy of the given description without the {@code access-control} nodes (of the resource itself and
+     * of all nested child descriptions)
+     */
+    static ModelNode withoutAccessControl(ModelNode description) {
+        ModelNode copy = description.clone();
+        removeAccessControl(copy);
+        return copy;
+    }
+
+    private static void removeAccessControl(ModelNode node) {
+        if (node.getType() == ModelType.OBJECT) {
+            if (node.has(ACCESS_CONTROL)) {
+                node.remove(ACCESS_CONTROL);
+            }
+            for (String key : node.keys()) {
+                removeAccessControl(node.get(key));
+            }
+        } else if (node.getType() == ModelType.LIST) {
+            for (ModelNode element : node.asList()) {
+                removeAccessControl(element);
+            }
+        }
+    }
+
+    /**
+     * Initializes the store on first use, when the bootstrap has determined the server version and the roles.
+     *
+     * @return whether the store can be used
+     */
+    private boolean init() {
+        if (!initialized) {
+            String version = versionKey();
+            enabled = storage != null && version != null;
+            if (enabled) {
+                if (!version.equals(storage.getItem(VERSION_KEY))) {
+                    clear();
+                    setItem(VERSION_KEY, version);
+                } else {
+                    readIndex();
+                }
+            }
+            initialized = true;
+        }
+        return enabled;
+    }
+
+    private String versionKey() {
+        String managementVersion = modelVersions.get(ModelVersions.SERVER_MANAGEMENT_VERSION);
+        if (managementVersion == null) {
+            return null;
+        }
+        return FORMAT + ":" + managementVersion + "/" + modelVersions.get(ModelVersions.SERVER_RELEASE_VERSION);
+    }
+
+    private String roleKey() {
+        Set<String> roles = new TreeSet<>();
+        if (bootstrapContext.getRoles() != null) {
+            roles.addAll(bootstrapContext.getRoles());
+        }
+        StringBuilder builder = new StringBuilder();
+        for (String role : roles) {
+            builder.append(role).append(',');
+        }
+        if (bootstrapContext.getRunAs() != null) {
+            builder.append("run-as=").append(bootstrapContext.getRunAs());
+        }
+        return builder.toString();
+    }
+
+    String fullKey(ModelNode operation) {
+        return roleKey() + "|" + DMRCache.key(operation, null);
+    }
+
+    String storageKey(ModelNode operation) {
+        // the full key is stored along with the value to detect hash collisions
+        return PREFIX + Integer.toHexString(fullKey(operation).hashCode());
+    }
+
+    private boolean setItem(String key, String value) {
+        try {
+            storage.setItem(key, value);
+            return true;
+        } catch (JavaScriptException e) {
+            Log.error("Unable to store resource description: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void remove(String key) {
+        Integer removed = index.remove(key);
+        if (removed != null) {
+            size -= removed;
+            storage.removeItem(key);
+        }
+    }
+
+    private void evictEldest() {
+        Iterator<Map.Entry<String, Integer>> iterator = index.entrySet().iterator();
+        Map.Entry<String, Integer> eldest = iterator.next();
+        iterator.remove();
+        size -= eldest.getValue();
+        storage.removeItem(eldest.getKey());
+    }
+
+    private void readIndex() {
+        String value = storage.getItem(INDEX_KEY);
+        if (value == null) {
+            return;
+        }
+        for (String line : value.split("\n")) {
+            int space = line.indexOf(' ');
+            if (space != -1) {
+                String key = line.substring(space + 1);
+                int length = Integer.parseInt(line.substring(0, space));
+                index.put(key, length);
+                size += length;
+            }
+        }
+    }
+
+    private void scheduleIndexWrite() {
+        if (!indexDirty) {
+            indexDirty = true;
+            scheduler.scheduleDeferred(new Scheduler.ScheduledCommand() {
+                @Override
+                public void execute() {
+                    indexDirty = false;
+                    StringBuilder builder = new StringBuilder();
+                    for (Map.Entry<String, Integer> entry : index.entrySet()) {
+                        builder.append(entry.getValue()).append(' ').append(entry.getKey()).append('\n');
+                    }
+                    setItem(INDEX_KEY, builder.toString());
+                }
+            });
+        }
+    }
+
+
+    // ------------------------------------------------------ storage
+
+    /**
+     * The subset of the local storage used by the store.
+     */
+    interface LocalStorage {
+
+        String getItem(String key);
+
+        void setItem(String key, String value);
+
+        void removeItem(String key);
+
+        int getLength();
+
+        String key(int index);
+
+        class Impl implements LocalStorage {
+
+            /**
+             * @return the local storage of the browser or null if it's not supported
+             */
+            static LocalStorage create() {
+                Storage storage = Storage.getLocalStorageIfSupported();
+                return storage != null ? new Impl(storage) : null;
+            }
+
+            private final Storage storage;
+
+            private Impl(Storage storage) {
+                this.storage = storage;
+            }
+
+            @Override
+            public String getItem(String key) {
+                return storage.getItem(key);
+            }
+
+            @Override
+            public void setItem(String key, String value) {
+                storage.setItem(key, value);
+            }
+
+            @Override
+            public void removeItem(String key) {
+                storage.removeItem(key);
+            }
+
+            @Override
+            public int getLength() {
+                return storage.getLength();
+            }
+
+            @Override
+            public String key(int index) {
+                return storage.key(index);
+            }
+        }
+    }
+}
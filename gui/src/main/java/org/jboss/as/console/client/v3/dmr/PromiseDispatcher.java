@@ -0,0 +1,111 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.console.client.v3.dmr;
+
+import com.google.gwt.user.client.rpc.AsyncCallback;
+import com.google.inject.Inject;
+import org.jboss.dmr.client.ModelNode;
+import org.jboss.dmr.client.dispatch.DispatchAsync;
+import org.jboss.dmr.client.dispatch.DispatchRequest;
+import org.jboss.dmr.client.dispatch.impl.DMRAction;
+import org.jboss.dmr.client.dispatch.impl.DMRResponse;
+import org.jboss.gwt.flow.client.Cancellable;
+import org.jboss.gwt.flow.client.Promise;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Executes DMR operations and returns {@link Promise}s instead of taking callbacks. Cancelling a promise cancels
+ * the underlying {@link DispatchRequest}.
+ * <p/>
+ * Operations which are executed together (e.g. using {@link #executeAll(int, List)} or several calls to
+ * {@link #execute(ModelNode)} in the same event loop) go through the dispatcher at once and can be batched into
+ * one composite operation.
+ */
+public class PromiseDispatcher {
+
+    private final DispatchAsync dispatcher;
+
+    @Inject
+    public PromiseDispatcher(DispatchAsync dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * @return a promise which is fulfilled with the response or rejected if the operation failed.
+     */
+    public Promise<ModelNode> execute(ModelNode operation) {
+        return execute(new DMRAction(operation));
+    }
+
+    public Promise<ModelNode> execute(DMRAction action) {
+        final Promise<ModelNode> promise = new Promise<>();
+        final DispatchRequest request = dispatcher.execute(action, new AsyncCallback<DMRResponse>() {
+            @Override
+            public void onFailure(Throwable caught) {
+                promise.reject(caught);
+            }
+
+            @Override
+            public void onSuccess(DMRResponse result) {
+                ModelNode response = result.get();
+                if (response.isFailure()) {
+                    promise.reject(new RuntimeException("Operation failed: " + response.getFailureDescription()));
+                } else {
+                    promise.resolve(response);
+                }
+            }
+        });
+        promise.onCancel(new Cancellable() {
+            @Override
+            public void cancel() {
+                request.cancel();
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return !request.isPending();
+            }
+        });
+        return promise;
+    }
+
+    /**
+     * Executes the operations with at most {@code limit} of them running at the same time.
+     *
+     * @return a promise which is fulfilled with the responses (in the same order as the operations) or rejected
+     * with the first failure
+     */
+    public Promise<List<ModelNode>> executeAll(int limit, List<ModelNode> operations) {
+        List<Promise.Task<ModelNode>> tasks = new ArrayList<>();
+        for (final ModelNode operation : operations) {
+            tasks.add(new Promise.Task<ModelNode>() {
+                @Override
+                public Promise<ModelNode> start() {
+                    return execute(operation);
+                }
+            });
+        }
+        return Promise.all(limit, tasks);
+    }
+}
@@ -1,23 +1,58 @@
 package org.jboss.as.console.client.v3.stores;
 
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.event.dom.client.ClickEvent;
+import com.google.gwt.event.dom.client.ClickHandler;
+import com.google.gwt.event.logical.shared.AttachEvent;
 import com.google.gwt.user.client.ui.InlineLabel;
 import com.google.gwt.user.client.ui.IsWidget;
+import com.google.gwt.user.client.ui.TextArea;
 import com.google.gwt.user.client.ui.VerticalPanel;
 import com.google.gwt.user.client.ui.Widget;
+import org.jboss.ballroom.client.widgets.window.DefaultWindow;
+import org.jboss.dmr.client.dispatch.DispatchMetrics;
+import org.jboss.dmr.client.dispatch.impl.RequestQueue;
 import org.jboss.gwt.circuit.Action;
 import org.jboss.gwt.circuit.dag.DAGDispatcher;
 
+import java.util.List;
+
 public class DiagnosticsView implements DAGDispatcher.Diagnostics, IsWidget {
 
+    private static final int METRICS_REFRESH = 2000;
+
+    private final DispatchMetrics metrics;
+    private final RequestQueue queue;
     private InlineLabel info;
+    private InlineLabel metricsInfo;
     private int dispatched;
     private int executed;
     private int acked;
     private int nacked;
     private boolean locked;
+    private boolean refreshing;
 
-    public DiagnosticsView() {
+    public DiagnosticsView(DispatchMetrics metrics, RequestQueue queue) {
+        this.metrics = metrics;
+        this.queue = queue;
         this.info = new InlineLabel();
+        this.metricsInfo = new InlineLabel();
+        this.metricsInfo.addStyleName("diagnostics");
+        this.metricsInfo.setTitle("Click to export the DMR metrics as JSON");
+        this.metricsInfo.addClickHandler(new ClickHandler() {
+            @Override
+            public void onClick(ClickEvent event) {
+                showMetrics();
+            }
+        });
+        this.metricsInfo.addAttachHandler(new AttachEvent.Handler() {
+            @Override
+            public void onAttachOrDetach(AttachEvent event) {
+                if (event.isAttached()) {
+                    startRefresh();
+                }
+            }
+        });
     }
 
     @Override
@@ -25,11 +60,85 @@ public class DiagnosticsView implements DAGDispatcher.Diagnostics, IsWidget {
         VerticalPanel layout = new VerticalPanel();
         //layout.getElement().setAttribute("style", "width:100%;");
         layout.add(info);
+        layout.add(metricsInfo);
 
         return layout;
     }
 
+    public DispatchMetrics getMetrics() {
+        return metrics;
+    }
+
+    public String exportMetrics() {
+        return metrics.toJSON();
+    }
+
+    /**
+     * Refreshes the metrics periodically as long as the view is attached and visible.
+     */
+    private void startRefresh() {
+        if (refreshing || !isShowing()) {
+            return;
+        }
+        refreshing = true;
+        refreshMetrics();
+        Scheduler.get().scheduleFixedDelay(new Scheduler.RepeatingCommand() {
+            @Override
+            public boolean execute() {
+                refreshing = isShowing();
+                if (refreshing) {
+                    refreshMetrics();
+                }
+                return refreshing;
+            }
+        }, METRICS_REFRESH);
+    }
+
+    private boolean isShowing() {
+        if (!metricsInfo.isAttached()) {
+            return false;
+        }
+        for (Widget widget = metricsInfo; widget != null; widget = widget.getParent()) {
+            if (!widget.isVisible()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void refreshMetrics() {
+        StringBuilder message = new StringBuilder().append("dmr requests: ").append(metrics.getRequests())
+                .append(", cache hits: ").append(metrics.getCacheHits())
+                .append(", running: ").append(queue.getRunning())
+                .append(", queued: ").append(queue.getDepth())
+                .append(", received: ").append(metrics.getResponseBytes() / 1024).append(" KB");
+        List<DispatchMetrics.OperationMetrics> operations = metrics.getOperations();
+        if (!operations.isEmpty()) {
+            DispatchMetrics.OperationMetrics top = operations.get(0);
+            message.append(", most expensive: ").append(top.getOperation()).append(" (")
+                    .append(top.getTotalTime()).append(" ms)");
+        }
+        metricsInfo.setText(message.toString());
+    }
+
+    private void showMetrics() {
+        TextArea json = new TextArea();
+        json.setText(exportMetrics());
+        json.setReadOnly(true);
+        json.setSize("100%", "100%");
+
+        DefaultWindow window = new DefaultWindow("DMR Metrics");
+        window.setWidth(640);
+        window.setHeight(480);
+        window.trapWidget(json);
+        window.setGlassEnabled(true);
+        window.center();
+    }
+
     public void refresh() {
+        // resume the metrics refresh if the view has been shown again
+        startRefresh();
+
         StringBuilder message = new StringBuilder().append("dispatched: ").append(dispatched).append(", executed: ")
                 .append(executed).append(", acked: ").append(acked).append(", nacked: ").append(nacked);
         if (locked) {
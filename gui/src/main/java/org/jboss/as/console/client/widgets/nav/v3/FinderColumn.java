@@ -33,9 +33,11 @@ import com.google.gwt.view.client.SelectionChangeEvent;
 import com.google.gwt.view.client.SingleSelectionModel;
 import com.gwtplatform.mvp.client.proxy.PlaceManager;
 import org.jboss.as.console.client.Console;
+import org.jboss.as.console.client.core.RequiredResourcesPrefetcher;
 import org.jboss.as.console.client.domain.model.SimpleCallback;
 import org.jboss.ballroom.client.widgets.tables.DefaultCellTable;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -58,6 +60,8 @@ public class FinderColumn<T> {
     private MenuDelegate[] topMenuItems = new MenuDelegate[]{};
     private HTML headerTitle;
     private ValueProvider<T> valueProvider;
+    private TokenProvider<T> tokenProvider;
+    private RequiredResourcesPrefetcher prefetcher;
 
     public enum FinderId { DEPLOYMENT, CONFIGURATION, RUNTIME}
     private boolean showSize = false;
@@ -161,6 +165,15 @@ public class FinderColumn<T> {
             public void onRowHover(RowHoverEvent event) {
                 TableRowElement hoveringRow = event.getHoveringRow();
 
+                // the hovered item is the most likely next one
+                if(tokenProvider!=null && !event.isUnHover()) {
+                    int index = hoveringRow.getSectionRowIndex();
+                    if(index >= 0 && index < cellTable.getVisibleItemCount()) {
+                        T item = cellTable.getVisibleItem(index);
+                        prefetcher.prefetch(tokenProvider.getToken(item));
+                    }
+                }
+
                 // skip empty menus
                 if(menuItems.length==0) return;
 
@@ -418,6 +431,19 @@ public class FinderColumn<T> {
         return this;
     }
 
+    /**
+     * provides the name tokens of the items.
+     * if given, the security context and resource descriptions of the tokens are prefetched when the column is idle.
+     * @param tokenProvider
+     * @param prefetcher
+     * @return
+     */
+    public FinderColumn<T> setTokenProvider(TokenProvider<T> tokenProvider, RequiredResourcesPrefetcher prefetcher) {
+        this.tokenProvider = tokenProvider;
+        this.prefetcher = prefetcher;
+        return this;
+    }
+
     public void addSelectionChangeHandler(SelectionChangeEvent.Handler handler) {
         selectionModel.addSelectionChangeHandler(handler);
     }
@@ -528,6 +554,14 @@ public class FinderColumn<T> {
         cellTable.setRowCount(records.size(), true);
         cellTable.setRowData(0, records);
 
+        if(tokenProvider!=null) {
+            List<String> tokens = new ArrayList<>();
+            for (T record : records) {
+                tokens.add(tokenProvider.getToken(record));
+            }
+            prefetcher.prefetch(tokens);
+        }
+
         if(!plain) {
             if(showSize)
                 headerTitle.setHTML(title+" ("+records.size()+")");
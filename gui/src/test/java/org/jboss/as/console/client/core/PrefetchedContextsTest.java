@@ -0,0 +1,67 @@
+package org.jboss.as.console.client.core;
+
+import org.jboss.ballroom.client.rbac.SecurityContext;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class PrefetchedContextsTest {
+
+    private PrefetchedContexts contexts;
+
+    @Before
+    public void setUp() {
+        contexts = new PrefetchedContexts(2);
+    }
+
+
+    // ------------------------------------------------------ test methods
+
+    @Test
+    public void useOnce() {
+        SecurityContext context = mock(SecurityContext.class);
+        contexts.put("a", context);
+        assertTrue(contexts.contains("a"));
+
+        assertSame(context, contexts.remove("a"));
+        assertFalse(contexts.contains("a"));
+        assertNull(contexts.remove("a"));
+    }
+
+    @Test
+    public void dropLeastRecentlyPrefetched() {
+        contexts.put("a", mock(SecurityContext.class));
+        contexts.put("b", mock(SecurityContext.class));
+        contexts.put("c", mock(SecurityContext.class));
+
+        assertEquals(2, contexts.size());
+        assertFalse(contexts.contains("a"));
+        assertTrue(contexts.contains("b"));
+        assertTrue(contexts.contains("c"));
+    }
+
+    @Test
+    public void prefetchAgain() {
+        SecurityContext fresh = mock(SecurityContext.class);
+        contexts.put("a", mock(SecurityContext.class));
+        contexts.put("b", mock(SecurityContext.class));
+        contexts.put("a", fresh);
+        contexts.put("c", mock(SecurityContext.class));
+
+        // "a" has been prefetched again and is more recent than "b"
+        assertFalse(contexts.contains("b"));
+        assertSame(fresh, contexts.remove("a"));
+    }
+
+    @Test
+    public void lookupDoesNotRefresh() {
+        contexts.put("a", mock(SecurityContext.class));
+        contexts.put("b", mock(SecurityContext.class));
+        assertTrue(contexts.contains("a"));
+        contexts.put("c", mock(SecurityContext.class));
+
+        assertFalse(contexts.contains("a"));
+    }
+}
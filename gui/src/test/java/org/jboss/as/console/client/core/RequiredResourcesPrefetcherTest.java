@@ -0,0 +1,214 @@
+package org.jboss.as.console.client.core;
+
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+import com.google.web.bindery.event.shared.EventBus;
+import com.gwtplatform.mvp.client.proxy.NavigationEvent;
+import org.jboss.as.console.client.plugins.RequiredResourcesRegistry;
+import org.jboss.dmr.client.dispatch.impl.DMRHandler;
+import org.jboss.dmr.client.dispatch.impl.RequestQueue;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class RequiredResourcesPrefetcherTest {
+
+    private EventBus eventBus;
+    private RequiredResourcesProcessor processor;
+    private RequiredResourcesRegistry requiredResourcesRegistry;
+    private NameTokenRegistry nameTokenRegistry;
+    private RequestQueue queue;
+    private Scheduler scheduler;
+    private RequiredResourcesPrefetcher prefetcher;
+
+    @Before
+    public void setUp() {
+        eventBus = mock(EventBus.class);
+        processor = mock(RequiredResourcesProcessor.class);
+        requiredResourcesRegistry = mock(RequiredResourcesRegistry.class);
+        when(requiredResourcesRegistry.getResources(anyString()))
+                .thenReturn(Collections.singleton("{selected.profile}/subsystem=foo"));
+        nameTokenRegistry = new NameTokenRegistry();
+        queue = mock(RequestQueue.class);
+        DMRHandler dmrHandler = mock(DMRHandler.class);
+        when(dmrHandler.getQueue()).thenReturn(queue);
+        scheduler = mock(Scheduler.class);
+
+        prefetcher = new RequiredResourcesPrefetcher(eventBus, processor, requiredResourcesRegistry,
+                nameTokenRegistry, dmrHandler, scheduler);
+    }
+
+
+    // ------------------------------------------------------ test methods
+
+    @Test
+    public void registerNavigationHandler() {
+        verify(eventBus).addHandler(NavigationEvent.getType(), prefetcher);
+    }
+
+    @Test
+    public void waitUntilIdle() {
+        prefetcher.prefetch(Arrays.asList("a", "b"));
+        Scheduler.RepeatingCommand command = scheduled();
+
+        // busy: try again later
+        when(queue.getRunning()).thenReturn(1);
+        assertTrue(command.execute());
+        when(queue.getRunning()).thenReturn(0);
+        when(queue.getDepth()).thenReturn(1);
+        assertTrue(command.execute());
+        verify(processor, never()).prefetch(anyString(), any(AsyncCallback.class));
+
+        when(queue.getDepth()).thenReturn(0);
+        assertFalse(command.execute());
+        assertEquals(Collections.singletonList("a"), started());
+        assertEquals(1, prefetcher.getPending());
+        assertEquals(1, prefetcher.getPrefetched());
+    }
+
+    @Test
+    public void oneAfterTheOther() {
+        prefetcher.prefetch(Arrays.asList("a", "b"));
+        assertFalse(scheduled().execute());
+
+        // nothing is scheduled while a token is loaded
+        prefetcher.prefetch(Collections.singletonList("c"));
+        verify(scheduler, times(1)).scheduleFixedDelay(any(Scheduler.RepeatingCommand.class), anyInt());
+
+        finish("a");
+        assertFalse(scheduled().execute());
+        assertEquals(Arrays.asList("a", "b"), started());
+        finish("b");
+        assertFalse(scheduled().execute());
+        assertEquals(Arrays.asList("a", "b", "c"), started());
+        assertEquals(0, prefetcher.getPending());
+    }
+
+    @Test
+    public void maxPending() {
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 2 * RequiredResourcesPrefetcher.MAX_PENDING; i++) {
+            tokens.add("token-" + i);
+        }
+        prefetcher.prefetch(tokens);
+        assertEquals(RequiredResourcesPrefetcher.MAX_PENDING, prefetcher.getPending());
+
+        // a hovered token goes first and drops the last pending token
+        prefetcher.prefetch("hovered");
+        assertEquals(RequiredResourcesPrefetcher.MAX_PENDING, prefetcher.getPending());
+        assertFalse(scheduled().execute());
+        assertEquals(Collections.singletonList("hovered"), started());
+    }
+
+    @Test
+    public void moveToFront() {
+        prefetcher.prefetch(Arrays.asList("a", "b", "c"));
+        prefetcher.prefetch("c");
+        assertEquals(3, prefetcher.getPending());
+
+        assertFalse(scheduled().execute());
+        finish("c");
+        assertFalse(scheduled().execute());
+        assertEquals(Arrays.asList("c", "a"), started());
+    }
+
+    @Test
+    public void cancelOnNavigation() {
+        prefetcher.prefetch(Arrays.asList("a", "b"));
+        Scheduler.RepeatingCommand command = scheduled();
+
+        prefetcher.onNavigation(new NavigationEvent(null));
+        assertEquals(0, prefetcher.getPending());
+        assertFalse(command.execute());
+        verify(processor, never()).prefetch(anyString(), any(AsyncCallback.class));
+    }
+
+    @Test
+    public void finishRunningAfterNavigation() {
+        prefetcher.prefetch(Arrays.asList("a", "b"));
+        assertFalse(scheduled().execute());
+
+        // the running token is finished, but the pending ones are dropped
+        prefetcher.onNavigation(new NavigationEvent(null));
+        finish("a");
+        verify(scheduler, times(1)).scheduleFixedDelay(any(Scheduler.RepeatingCommand.class), anyInt());
+        assertEquals(Collections.singletonList("a"), started());
+    }
+
+    @Test
+    public void ignoreTokens() {
+        nameTokenRegistry.revealed("revealed");
+        when(processor.isPrefetched("prefetched")).thenReturn(true);
+        when(requiredResourcesRegistry.getResources("plain")).thenReturn(Collections.<String>emptySet());
+
+        prefetcher.prefetch(Arrays.asList("revealed", "prefetched", "plain", null));
+        prefetcher.prefetch("revealed");
+        assertEquals(0, prefetcher.getPending());
+        verifyZeroInteractions(scheduler);
+    }
+
+    @Test
+    public void skipRevealedInTheMeantime() {
+        prefetcher.prefetch(Arrays.asList("a", "b"));
+        nameTokenRegistry.revealed("a");
+        assertFalse(scheduled().execute());
+
+        // "a" is skipped and "b" is scheduled right away
+        assertTrue(started().isEmpty());
+        assertFalse(scheduled().execute());
+        assertEquals(Collections.singletonList("b"), started());
+    }
+
+    @Test
+    public void disable() {
+        prefetcher.prefetch(Arrays.asList("a", "b"));
+        prefetcher.setEnabled(false);
+        assertEquals(0, prefetcher.getPending());
+
+        prefetcher.prefetch(Arrays.asList("a", "b"));
+        assertEquals(0, prefetcher.getPending());
+    }
+
+
+    // ------------------------------------------------------ helper methods
+
+    /**
+     * @return the most recently scheduled command
+     */
+    private Scheduler.RepeatingCommand scheduled() {
+        ArgumentCaptor<Scheduler.RepeatingCommand> command = ArgumentCaptor.forClass(Scheduler.RepeatingCommand.class);
+        verify(scheduler, atLeastOnce())
+                .scheduleFixedDelay(command.capture(), eq(RequiredResourcesPrefetcher.IDLE_DELAY));
+        List<Scheduler.RepeatingCommand> commands = command.getAllValues();
+        return commands.get(commands.size() - 1);
+    }
+
+    /**
+     * @return the tokens which have been passed to the processor
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> started() {
+        ArgumentCaptor<String> token = ArgumentCaptor.forClass(String.class);
+        verify(processor, atLeast(0)).prefetch(token.capture(), any(AsyncCallback.class));
+        return token.getAllValues();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void finish(String token) {
+        ArgumentCaptor<AsyncCallback> callback = ArgumentCaptor.forClass(AsyncCallback.class);
+        verify(processor).prefetch(eq(token), callback.capture());
+        callback.getValue().onSuccess(null);
+    }
+}
@@ -0,0 +1,67 @@
+package org.jboss.as.console.client.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.jboss.as.console.client.core.RequiredResourcesProcessor.*;
+import static org.junit.Assert.*;
+
+public class RequiredResourcesProcessorTest {
+
+    // ------------------------------------------------------ test methods
+
+    @Test
+    public void spreadAcrossParallelRequests() {
+        // 8 resources without measured payload: 2 per composite, one composite per parallel request
+        assertEquals(2, batchSize(8, 0));
+        assertEquals(1, batchSize(1, 0));
+        assertEquals(1, batchSize(PARALLEL_REQUESTS, 0));
+    }
+
+    @Test
+    public void defaultBatchSize() {
+        assertEquals(DEFAULT_BATCH_SIZE, batchSize(100, 0));
+    }
+
+    @Test
+    public void batchSizeByPayload() {
+        // small payloads allow larger composites up to the maximum batch size
+        assertEquals(10, batchSize(40, 1024));
+        assertEquals(MAX_BATCH_SIZE, batchSize(100, 1024));
+
+        // large payloads require smaller composites
+        assertEquals(4, batchSize(100, MAX_PAYLOAD / 4));
+        assertEquals(1, batchSize(100, MAX_PAYLOAD * 2));
+    }
+
+    @Test
+    public void partitionEvenly() {
+        List<List<String>> batches = partition(Arrays.asList("a", "b", "c", "d"), 2);
+        assertEquals(Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("c", "d")), batches);
+    }
+
+    @Test
+    public void partitionRemainder() {
+        List<List<String>> batches = partition(Arrays.asList("a", "b", "c", "d", "e"), 3);
+        assertEquals(Arrays.asList(Arrays.asList("a", "b", "c"), Arrays.asList("d", "e")), batches);
+    }
+
+    @Test
+    public void partitionEmpty() {
+        assertTrue(partition(Collections.<String>emptyList(), 3).isEmpty());
+    }
+
+    @Test
+    public void partitionByBatchSize() {
+        List<String> resources = Collections.nCopies(100, "resource");
+        List<List<String>> batches = partition(resources, batchSize(resources.size(), 0));
+
+        // more composites than parallel requests: the processor runs them with a limit
+        assertEquals(34, batches.size());
+        assertTrue(batches.size() > PARALLEL_REQUESTS);
+        assertEquals(1, batches.get(33).size());
+    }
+}
@@ -0,0 +1,205 @@
+package org.jboss.as.console.client.core.bootstrap.hal;
+
+import org.jboss.as.console.client.core.BootstrapContext;
+import org.jboss.dmr.client.dispatch.Diagnostics;
+import org.jboss.gwt.flow.client.Control;
+import org.jboss.gwt.flow.client.Outcome;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class BootstrapGraphTest {
+
+    private Diagnostics diagnostics;
+    private BootstrapGraph graph;
+    private BootstrapContext context;
+    private RecordingOutcome outcome;
+    private List<String> started;
+
+    @Before
+    public void setUp() {
+        diagnostics = mock(Diagnostics.class);
+        graph = new BootstrapGraph(diagnostics);
+        context = new BootstrapContext();
+        outcome = new RecordingOutcome();
+        started = new ArrayList<>();
+    }
+
+
+    // ------------------------------------------------------ test methods
+
+    @Test
+    public void empty() {
+        graph.execute(context, outcome);
+        assertSame(context, outcome.success);
+    }
+
+    @Test
+    public void independentSteps() {
+        RecordingStep a = step("a");
+        RecordingStep b = step("b");
+        graph.add("a", a).add("b", b);
+        graph.execute(context, outcome);
+
+        // both steps run without waiting for each other
+        assertEquals(Arrays.asList("a", "b"), started);
+        b.control.proceed();
+        assertNull(outcome.success);
+        a.control.proceed();
+        assertSame(context, outcome.success);
+        assertSame(context, a.control.getContext());
+    }
+
+    @Test
+    public void dependencies() {
+        RecordingStep a = step("a");
+        RecordingStep b = step("b");
+        RecordingStep c = step("c");
+        RecordingStep d = step("d");
+        graph.add("a", a)
+                .add("b", b)
+                .add("c", c, a, b)
+                .add("d", d, c);
+        graph.execute(context, outcome);
+        assertEquals(Arrays.asList("a", "b"), started);
+
+        // c waits for all of its dependencies
+        a.control.proceed();
+        assertEquals(Arrays.asList("a", "b"), started);
+        b.control.proceed();
+        assertEquals(Arrays.asList("a", "b", "c"), started);
+        c.control.proceed();
+        assertEquals(Arrays.asList("a", "b", "c", "d"), started);
+        assertNull(outcome.success);
+        d.control.proceed();
+        assertSame(context, outcome.success);
+    }
+
+    @Test
+    public void proceedTwice() {
+        RecordingStep a = step("a");
+        RecordingStep b = step("b");
+        graph.add("a", a).add("b", b);
+        graph.execute(context, outcome);
+
+        // a step which proceeds twice must not finish the graph
+        a.control.proceed();
+        a.control.proceed();
+        assertNull(outcome.success);
+        b.control.proceed();
+        assertSame(context, outcome.success);
+    }
+
+    @Test
+    public void abort() {
+        RecordingStep a = step("a");
+        RecordingStep b = step("b");
+        RecordingStep c = step("c");
+        graph.add("a", a).add("b", b).add("c", c, a, b);
+        graph.execute(context, outcome);
+
+        b.control.abort();
+        assertSame(context, outcome.failure);
+        assertTrue(a.control.isCancelled());
+
+        // no further steps are started and the outcome is called once
+        a.control.proceed();
+        a.control.abort();
+        assertEquals(Arrays.asList("a", "b"), started);
+        assertEquals(1, outcome.calls);
+        assertNull(outcome.success);
+    }
+
+    @Test
+    public void duplicateStep() {
+        RecordingStep a = step("a");
+        graph.add("a", a);
+        try {
+            graph.add("a", a);
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException expected) {
+            assertEquals(1, graph.size());
+        }
+    }
+
+    @Test
+    public void unknownDependency() {
+        try {
+            graph.add("b", step("b"), step("a"));
+            fail("IllegalArgumentException expected");
+        } catch (IllegalArgumentException expected) {
+            assertEquals(0, graph.size());
+        }
+    }
+
+    @Test
+    public void diagnostics() {
+        when(diagnostics.isEnabled()).thenReturn(true);
+        RecordingStep a = step("a");
+        RecordingStep b = step("b");
+        graph.add("a", a).add("b", b);
+        graph.execute(context, outcome);
+        a.control.proceed();
+        b.control.abort();
+
+        verify(diagnostics).logEvent(eq(BootstrapGraph.DIAGNOSTICS_MODULE), eq("a"), anyString(), anyDouble(),
+                eq("begin"));
+        verify(diagnostics).logEvent(eq(BootstrapGraph.DIAGNOSTICS_MODULE), eq("a"), anyString(), anyDouble(),
+                eq("end"));
+        verify(diagnostics).logEvent(eq(BootstrapGraph.DIAGNOSTICS_MODULE), eq("b"), anyString(), anyDouble(),
+                eq("error"));
+    }
+
+
+    // ------------------------------------------------------ helper methods
+
+    private RecordingStep step(String name) {
+        return new RecordingStep(name);
+    }
+
+
+    private class RecordingStep implements BootstrapStep {
+
+        final String name;
+        Control<BootstrapContext> control;
+
+        RecordingStep(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void execute(Control<BootstrapContext> control) {
+            this.control = control;
+            started.add(name);
+        }
+    }
+
+
+    private static class RecordingOutcome implements Outcome<BootstrapContext> {
+
+        BootstrapContext success;
+        BootstrapContext failure;
+        int calls;
+
+        @Override
+        public void onFailure(BootstrapContext context) {
+            failure = context;
+            calls++;
+        }
+
+        @Override
+        public void onSuccess(BootstrapContext context) {
+            success = context;
+            calls++;
+        }
+    }
+}
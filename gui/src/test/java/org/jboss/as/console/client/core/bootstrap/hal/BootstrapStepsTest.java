@@ -0,0 +1,85 @@
+package org.jboss.as.console.client.core.bootstrap.hal;
+
+import org.jboss.as.console.client.core.BootstrapContext;
+import org.jboss.dmr.client.dispatch.Diagnostics;
+import org.jboss.gwt.flow.client.Control;
+import org.jboss.gwt.flow.client.Outcome;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class BootstrapStepsTest {
+
+    private ExecutionMode executionMode;
+    private TrackExecutionMode trackExecutionMode;
+    private LoadCompatMatrix loadCompatMatrix;
+    private RegisterSubsystems registerSubsystems;
+    private EagerLoadProfiles eagerLoadProfiles;
+    private HostStoreInit hostStoreInit;
+    private ServerStoreInit serverStoreInit;
+    private EagerLoadGroups eagerLoadGroups;
+    private BootstrapGraph graph;
+
+    @Before
+    public void setUp() {
+        executionMode = mock(ExecutionMode.class);
+        trackExecutionMode = mock(TrackExecutionMode.class);
+        loadCompatMatrix = mock(LoadCompatMatrix.class);
+        registerSubsystems = mock(RegisterSubsystems.class);
+        eagerLoadProfiles = mock(EagerLoadProfiles.class);
+        hostStoreInit = mock(HostStoreInit.class);
+        serverStoreInit = mock(ServerStoreInit.class);
+        eagerLoadGroups = mock(EagerLoadGroups.class);
+
+        BootstrapSteps steps = new BootstrapSteps(executionMode, trackExecutionMode, loadCompatMatrix,
+                registerSubsystems, eagerLoadProfiles, hostStoreInit, serverStoreInit, eagerLoadGroups);
+        graph = steps.graph(new BootstrapGraph(mock(Diagnostics.class)));
+    }
+
+
+    // ------------------------------------------------------ test methods
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void order() {
+        Outcome<BootstrapContext> outcome = mock(Outcome.class);
+        BootstrapContext context = new BootstrapContext();
+        assertEquals(8, graph.size());
+        graph.execute(context, outcome);
+
+        // steps without dependencies are started right away
+        proceed(loadCompatMatrix);
+        proceed(registerSubsystems);
+        verifyZeroInteractions(trackExecutionMode, eagerLoadProfiles, hostStoreInit, serverStoreInit,
+                eagerLoadGroups);
+
+        // most steps need to know the execution mode
+        proceed(executionMode);
+        proceed(trackExecutionMode);
+        proceed(eagerLoadProfiles);
+        proceed(eagerLoadGroups);
+        verifyZeroInteractions(serverStoreInit);
+
+        proceed(hostStoreInit);
+        verify(outcome, never()).onSuccess(context);
+        proceed(serverStoreInit);
+        verify(outcome).onSuccess(context);
+        verify(outcome, never()).onFailure(context);
+    }
+
+
+    // ------------------------------------------------------ helper methods
+
+    /**
+     * Verifies that the step has been started and finishes it.
+     */
+    @SuppressWarnings("unchecked")
+    private void proceed(BootstrapStep step) {
+        ArgumentCaptor<Control> control = ArgumentCaptor.forClass(Control.class);
+        verify(step).execute(control.capture());
+        control.getValue().proceed();
+    }
+}
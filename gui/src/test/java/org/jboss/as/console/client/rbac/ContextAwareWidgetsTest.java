@@ -0,0 +1,197 @@
+package org.jboss.as.console.client.rbac;
+
+import com.google.gwt.core.client.Scheduler;
+import org.jboss.ballroom.client.rbac.SecurityContext;
+import org.jboss.ballroom.client.rbac.SecurityContextAware;
+import org.jboss.ballroom.client.rbac.SecurityContextChangedEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class ContextAwareWidgetsTest {
+
+    private Scheduler scheduler;
+    private ContextAwareWidgets.ContextResolver resolver;
+    private ContextAwareWidgets widgets;
+
+    @Before
+    public void setUp() {
+        scheduler = mock(Scheduler.class);
+        resolver = mock(ContextAwareWidgets.ContextResolver.class);
+        widgets = new ContextAwareWidgets(scheduler, resolver);
+    }
+
+
+    // ------------------------------------------------------ test methods
+
+    @Test
+    public void lookup() {
+        widgets.register("a1", widget("a"));
+        widgets.register("a2", widget("a"));
+        widgets.register("b1", widget("b"));
+
+        assertEquals(new HashSet<>(Arrays.asList("a1", "a2")), widgets.lookup("a"));
+        assertEquals(Collections.singleton("b1"), widgets.lookup("b"));
+        assertTrue(widgets.lookup("c").isEmpty());
+    }
+
+    @Test
+    public void tokenNotYetKnown() {
+        SecurityContextAware widget = widget(null);
+        widgets.register("w", widget);
+        assertTrue(widgets.lookup("a").isEmpty());
+
+        when(widget.getToken()).thenReturn("a");
+        assertEquals(Collections.singleton("w"), widgets.lookup("a"));
+    }
+
+    @Test
+    public void reindexChangedToken() {
+        SecurityContextAware widget = widget("a");
+        widgets.register("w", widget);
+        assertEquals(Collections.singleton("w"), widgets.lookup("a"));
+
+        when(widget.getToken()).thenReturn("b");
+        assertTrue(widgets.lookup("a").isEmpty());
+        assertEquals(Collections.singleton("w"), widgets.lookup("b"));
+    }
+
+    @Test
+    public void unregister() {
+        widgets.register("w", widget("a"));
+        widgets.lookup("a");
+        widgets.unregister("w");
+        assertTrue(widgets.lookup("a").isEmpty());
+    }
+
+    @Test
+    public void coalesceChanges() {
+        SecurityContextAware widget = widget("a");
+        widgets.register("w", widget);
+        SecurityContext stale = mock(SecurityContext.class);
+        SecurityContext fresh = mock(SecurityContext.class);
+
+        widgets.onChange("a", event("/foo=*", stale));
+        widgets.onChange("a", event("/foo=*", fresh));
+        verify(widget, never()).updateSecurityContext(any(SecurityContext.class));
+
+        // a single update with the latest context at the end of the event loop
+        scheduled().execute();
+        verify(scheduler, times(1)).scheduleFinally(any(Scheduler.ScheduledCommand.class));
+        verify(widget).updateSecurityContext(fresh);
+        verify(widget, never()).updateSecurityContext(stale);
+    }
+
+    @Test
+    public void scheduleAgainAfterApplied() {
+        widgets.register("w", widget("a"));
+        widgets.onChange("a", event("/foo=*", mock(SecurityContext.class)));
+        scheduled().execute();
+
+        widgets.onChange("a", event("/foo=*", mock(SecurityContext.class)));
+        verify(scheduler, times(2)).scheduleFinally(any(Scheduler.ScheduledCommand.class));
+    }
+
+    @Test
+    public void changesPerAddress() {
+        SecurityContextAware unfiltered = widget("a");
+        SecurityContextAware filtered = widget("a");
+        when(filtered.getFilter()).thenReturn("/bar=*");
+        widgets.register("unfiltered", unfiltered);
+        widgets.register("filtered", filtered);
+        SecurityContext foo = mock(SecurityContext.class);
+        SecurityContext bar = mock(SecurityContext.class);
+
+        widgets.onChange("a", event("/foo=*", foo));
+        widgets.onChange("a", event("/bar=*", bar));
+        scheduled().execute();
+
+        verify(unfiltered).updateSecurityContext(foo);
+        verify(unfiltered).updateSecurityContext(bar);
+        verify(filtered).updateSecurityContext(bar);
+        verify(filtered, never()).updateSecurityContext(foo);
+    }
+
+    @Test
+    public void skipDetached() {
+        SecurityContextAware widget = widget("a");
+        when(widget.isAttached()).thenReturn(false);
+        widgets.register("w", widget);
+
+        widgets.onChange("a", event("/foo=*", mock(SecurityContext.class)));
+        scheduled().execute();
+        verify(widget, never()).updateSecurityContext(any(SecurityContext.class));
+    }
+
+    @Test
+    public void resolveContext() {
+        SecurityContextAware widget = widget("a");
+        widgets.register("w", widget);
+        SecurityContext resolved = mock(SecurityContext.class);
+        SecurityContextChangedEvent event = event("/foo=*", null);
+        when(resolver.resolve("a", event)).thenReturn(resolved);
+
+        widgets.onChange("a", event);
+        scheduled().execute();
+        verify(widget).updateSecurityContext(resolved);
+    }
+
+    @Test
+    public void dontResolveWithoutWidgets() {
+        widgets.register("w", widget("a"));
+        widgets.onChange("b", event("/foo=*", null));
+        scheduled().execute();
+        verifyZeroInteractions(resolver);
+    }
+
+    @Test
+    public void applyToChangedToken() {
+        SecurityContextAware widget = widget("a");
+        widgets.register("w", widget);
+        widgets.lookup("a");
+
+        // the token changes after the widget has been indexed
+        when(widget.getToken()).thenReturn("b");
+        SecurityContext context = mock(SecurityContext.class);
+        widgets.onChange("a", event("/foo=*", mock(SecurityContext.class)));
+        widgets.onChange("b", event("/foo=*", context));
+        scheduled().execute();
+
+        verify(widget, times(1)).updateSecurityContext(any(SecurityContext.class));
+        verify(widget).updateSecurityContext(context);
+    }
+
+
+    // ------------------------------------------------------ helper methods
+
+    private SecurityContextAware widget(String token) {
+        SecurityContextAware widget = mock(SecurityContextAware.class);
+        when(widget.getToken()).thenReturn(token);
+        when(widget.isAttached()).thenReturn(true);
+        return widget;
+    }
+
+    private SecurityContextChangedEvent event(String address, SecurityContext context) {
+        SecurityContextChangedEvent event = mock(SecurityContextChangedEvent.class);
+        when(event.getResourceAddress()).thenReturn(address);
+        when(event.getSecurityContext()).thenReturn(context);
+        return event;
+    }
+
+    /**
+     * @return the most recently scheduled command
+     */
+    private Scheduler.ScheduledCommand scheduled() {
+        ArgumentCaptor<Scheduler.ScheduledCommand> command = ArgumentCaptor.forClass(Scheduler.ScheduledCommand.class);
+        verify(scheduler, atLeastOnce()).scheduleFinally(command.capture());
+        return command.getValue();
+    }
+}
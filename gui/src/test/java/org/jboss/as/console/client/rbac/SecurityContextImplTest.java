@@ -0,0 +1,179 @@
+package org.jboss.as.console.client.rbac;
+
+import org.jboss.ballroom.client.rbac.AuthorisationDecision;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class SecurityContextImplTest {
+
+    private Constraints datasources;
+    private Constraints logging;
+    private Constraints optional;
+
+    @Before
+    public void setUp() {
+        datasources = new Constraints("/subsystem=datasources");
+        datasources.setReadResource(true);
+        datasources.setWriteResource(true);
+        datasources.setAttributeRead("jndi-name", true);
+        datasources.setAttributeWrite("jndi-name", true);
+        datasources.setAttributeRead("password", false);
+        datasources.setAttributeWrite("password", false);
+        datasources.setOperationExec("/subsystem=datasources", "add", true);
+
+        logging = new Constraints("/subsystem=logging");
+        logging.setReadResource(true);
+        logging.setWriteResource(false);
+
+        optional = new Constraints("/subsystem=jpa");
+        optional.setReadResource(false);
+        optional.setWriteResource(false);
+        optional.setOperationExec("/subsystem=jpa", "add", false);
+    }
+
+
+    // ------------------------------------------------------ decisions
+
+    @Test
+    public void resourceDecisions() {
+        SecurityContextImpl context = context();
+        assertTrue(context.getReadPriviledge().isGranted());
+
+        AuthorisationDecision write = context.getWritePriviledge();
+        assertFalse(write.isGranted());
+        assertEquals(1, write.getErrorMessages().size());
+        assertEquals("/subsystem=logging", write.getErrorMessages().get(0));
+    }
+
+    @Test
+    public void attributeDecisions() {
+        SecurityContextImpl context = context();
+        assertTrue(context.getAttributeReadPriviledge("jndi-name").isGranted());
+        assertTrue(context.getAttributeWritePriviledge("jndi-name").isGranted());
+        assertFalse(context.getAttributeReadPriviledge("password").isGranted());
+        assertFalse(context.getAttributeWritePriviledge("password").isGranted());
+
+        // attributes without explicit permissions share the same decision
+        assertTrue(context.getAttributeReadPriviledge("unknown").isGranted());
+        assertSame(context.getAttributeReadPriviledge("unknown"), context.getAttributeWritePriviledge("other"));
+    }
+
+    @Test
+    public void optionalConstraints() {
+        SecurityContextImpl context = context();
+        // optional constraints are looked up for attributes and operations only
+        assertFalse(context.getOperationPriviledge("/subsystem=jpa", "add").isGranted());
+        try {
+            context.getReadPrivilege("/subsystem=jpa");
+            fail("RuntimeException expected");
+        } catch (RuntimeException expected) {
+        }
+        assertTrue(context.getOperationPriviledge("/subsystem=datasources", "add").isGranted());
+        assertFalse(context.getOperationPriviledge("/subsystem=datasources", "remove").isGranted());
+    }
+
+    @Test
+    public void sameDecisionWhenSealed() {
+        SecurityContextImpl context = context();
+        assertSame(context.getReadPriviledge(), context.getReadPriviledge());
+        assertSame(context.getWritePriviledge(), context.getWritePriviledge());
+        assertSame(context.getAttributeReadPriviledge("password"), context.getAttributeReadPriviledge("password"));
+    }
+
+    @Test
+    public void missingConstraints() {
+        Set<ResourceRef> refs = new HashSet<>();
+        refs.add(new ResourceRef("/subsystem=datasources"));
+        refs.add(new ResourceRef("/subsystem=logging"));
+        SecurityContextImpl context = new SecurityContextImpl("test", refs);
+        context.setConstraints("/subsystem=datasources", datasources);
+        context.seal();
+
+        // the decisions cannot be compiled and are evaluated on each call
+        try {
+            context.getReadPriviledge();
+            fail("RuntimeException expected");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("/subsystem=logging"));
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void notSealed() {
+        Set<ResourceRef> refs = new HashSet<>();
+        refs.add(new ResourceRef("/subsystem=datasources"));
+        SecurityContextImpl context = new SecurityContextImpl("test", refs);
+        context.setConstraints("/subsystem=datasources", datasources);
+        context.getReadPriviledge();
+    }
+
+
+    // ------------------------------------------------------ immutable decisions
+
+    @Test
+    public void sharedDecisionsCannotBeModified() {
+        SecurityContextImpl context = context();
+        AuthorisationDecision[] decisions = {
+                context.getReadPriviledge(),
+                context.getWritePriviledge(),
+                context.getAttributeReadPriviledge("password"),
+                context.getAttributeWritePriviledge("unknown"),
+                context.getWritePrivilege("/subsystem=logging"),
+                context.getOperationPriviledge("/subsystem=datasources", "add")
+        };
+        for (AuthorisationDecision decision : decisions) {
+            boolean granted = decision.isGranted();
+            try {
+                decision.setGranted(!granted);
+                fail("UnsupportedOperationException expected");
+            } catch (UnsupportedOperationException expected) {
+                assertEquals(granted, decision.isGranted());
+            }
+            try {
+                decision.getErrorMessages().add("foo");
+                fail("UnsupportedOperationException expected");
+            } catch (UnsupportedOperationException expected) {
+                assertFalse(decision.getErrorMessages().contains("foo"));
+            }
+        }
+
+        // a fresh context still gets the right decisions
+        assertTrue(context().getReadPriviledge().isGranted());
+        assertFalse(context().getWritePriviledge().isGranted());
+    }
+
+    @Test
+    public void copyOfMutableDecision() {
+        AuthorisationDecision decision = new AuthorisationDecision(false);
+        decision.getErrorMessages().add("/subsystem=logging");
+        AuthorisationDecision copy = ImmutableDecision.of(decision);
+
+        decision.getErrorMessages().clear();
+        decision.setGranted(true);
+        assertFalse(copy.isGranted());
+        assertEquals(1, copy.getErrorMessages().size());
+        assertSame(copy, ImmutableDecision.of(copy));
+        assertSame(ImmutableDecision.GRANTED, ImmutableDecision.of(new AuthorisationDecision(true)));
+    }
+
+
+    // ------------------------------------------------------ helper methods
+
+    private SecurityContextImpl context() {
+        Set<ResourceRef> refs = new HashSet<>();
+        refs.add(new ResourceRef("/subsystem=datasources"));
+        refs.add(new ResourceRef("/subsystem=logging"));
+        refs.add(new ResourceRef("opt://subsystem=jpa"));
+        SecurityContextImpl context = new SecurityContextImpl("test", refs);
+        context.setConstraints("/subsystem=datasources", datasources);
+        context.setConstraints("/subsystem=logging", logging);
+        context.setOptionalConstraints("/subsystem=jpa", optional);
+        context.seal();
+        return context;
+    }
+}
@@ -0,0 +1,122 @@
+package org.jboss.as.console.client.search;
+
+import com.google.gwt.json.client.JSONArray;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DocumentCacheTest {
+
+    private DocumentCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new DocumentCache();
+    }
+
+
+    // ------------------------------------------------------ test methods
+
+    @Test
+    public void documents() {
+        Document first = document(0);
+        Document second = document(DocumentChunks.CHUNK_SIZE);
+        cache.put(first);
+        cache.put(second);
+
+        assertEquals(2, cache.size());
+        assertSame(first, cache.get(0));
+        assertSame(second, cache.get(DocumentChunks.CHUNK_SIZE));
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    public void replaceDocument() {
+        Document stale = document(42);
+        Document fresh = document(42);
+        cache.put(stale);
+        cache.put(fresh);
+
+        assertEquals(1, cache.size());
+        assertSame(fresh, cache.get(42));
+    }
+
+    @Test
+    public void chunks() {
+        JSONArray chunk = mock(JSONArray.class);
+        cache.putChunk(1, chunk);
+
+        // parsed chunks don't count as documents
+        assertEquals(0, cache.size());
+        assertSame(chunk, cache.getChunk(1));
+        assertNull(cache.getChunk(0));
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() {
+        cache = new DocumentCache(2, 2);
+        cache.put(document(1));
+        cache.put(document(2));
+        cache.put(document(3));
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get(1));
+        assertNotNull(cache.get(2));
+        assertNotNull(cache.get(3));
+    }
+
+    @Test
+    public void hitKeepsDocument() {
+        cache = new DocumentCache(2, 2);
+        Document first = document(1);
+        cache.put(first);
+        cache.put(document(2));
+
+        // the hit makes the first document the most recently used one
+        assertSame(first, cache.get(1));
+        cache.put(document(3));
+
+        assertSame(first, cache.get(1));
+        assertNull(cache.get(2));
+        assertNotNull(cache.get(3));
+    }
+
+    @Test
+    public void evictChunks() {
+        cache = new DocumentCache(2, 2);
+        JSONArray first = mock(JSONArray.class);
+        cache.putChunk(0, first);
+        cache.putChunk(1, mock(JSONArray.class));
+        assertSame(first, cache.getChunk(0));
+        cache.putChunk(2, mock(JSONArray.class));
+
+        assertEquals(2, cache.chunks());
+        assertSame(first, cache.getChunk(0));
+        assertNull(cache.getChunk(1));
+        assertNotNull(cache.getChunk(2));
+    }
+
+    @Test
+    public void invalidate() {
+        cache.put(document(0));
+        cache.putChunk(0, mock(JSONArray.class));
+        cache.invalidate();
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.chunks());
+        assertNull(cache.get(0));
+        assertNull(cache.getChunk(0));
+    }
+
+
+    // ------------------------------------------------------ helper methods
+
+    private Document document(long id) {
+        Document document = mock(Document.class);
+        when(document.getId()).thenReturn(id);
+        return document;
+    }
+}
@@ -0,0 +1,67 @@
+package org.jboss.as.console.client.search;
+
+import org.junit.Test;
+
+import static org.jboss.as.console.client.search.DocumentChunks.*;
+import static org.junit.Assert.*;
+
+public class DocumentChunksTest {
+
+    // ------------------------------------------------------ test methods
+
+    @Test
+    public void chunkAndOffset() {
+        assertEquals(0, chunk(0));
+        assertEquals(0, offset(0));
+        assertEquals(0, chunk(CHUNK_SIZE - 1));
+        assertEquals(CHUNK_SIZE - 1, offset(CHUNK_SIZE - 1));
+        assertEquals(1, chunk(CHUNK_SIZE));
+        assertEquals(0, offset(CHUNK_SIZE));
+        assertEquals(2, chunk(2 * CHUNK_SIZE + 7));
+        assertEquals(7, offset(2 * CHUNK_SIZE + 7));
+    }
+
+    @Test
+    public void noDocuments() {
+        assertEquals(0, count(0));
+        assertEquals(0, current(0));
+        assertFalse(isPartial(0));
+    }
+
+    @Test
+    public void partialChunk() {
+        long documents = CHUNK_SIZE + 1;
+        assertEquals(2, count(documents));
+        assertTrue(isPartial(documents));
+        // the next document goes to the partial chunk, which also holds the last document
+        assertEquals(1, current(documents));
+        assertEquals(1, last(documents));
+        assertEquals(chunk(documents - 1), last(documents));
+    }
+
+    @Test
+    public void fullChunk() {
+        long documents = 2 * CHUNK_SIZE;
+        assertEquals(2, count(documents));
+        assertFalse(isPartial(documents));
+        // the next document starts a new chunk
+        assertEquals(2, current(documents));
+        assertEquals(1, last(documents));
+        assertEquals(chunk(documents), current(documents));
+    }
+
+    @Test
+    public void countCoversAllDocuments() {
+        for (long documents = 1; documents <= 3 * CHUNK_SIZE; documents++) {
+            assertEquals(chunk(documents - 1) + 1, count(documents));
+            assertEquals(chunk(documents - 1), last(documents));
+        }
+    }
+
+    @Test
+    public void full() {
+        assertFalse(isFull(0));
+        assertFalse(isFull(CHUNK_SIZE - 1));
+        assertTrue(isFull(CHUNK_SIZE));
+    }
+}
@@ -1,34 +1,49 @@
 package org.jboss.as.console.client.shared.runtime.logging.store;
 
 import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.user.client.rpc.AsyncCallback;
 import org.jboss.as.console.client.core.BootstrapContext;
 import org.jboss.as.console.client.shared.runtime.logging.viewer.Position;
 import org.jboss.dmr.client.ModelNode;
 import org.jboss.dmr.client.StaticDispatcher;
 import org.jboss.dmr.client.StaticDmrResponse;
+import org.jboss.dmr.client.dispatch.Action;
+import org.jboss.dmr.client.dispatch.ActionHandler;
+import org.jboss.dmr.client.dispatch.DMRCache;
+import org.jboss.dmr.client.dispatch.DispatchMetrics;
+import org.jboss.dmr.client.dispatch.DispatchRequest;
+import org.jboss.dmr.client.dispatch.HandlerMapping;
+import org.jboss.dmr.client.dispatch.impl.DMRAction;
+import org.jboss.dmr.client.dispatch.impl.DMRResponse;
+import org.jboss.dmr.client.dispatch.impl.DispatchAsyncImpl;
 import org.jboss.gwt.circuit.NoopChannel;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import static org.jboss.as.console.client.shared.runtime.logging.viewer.Direction.*;
+import static org.jboss.dmr.client.ModelDescriptionConstants.OUTCOME;
 import static org.jboss.dmr.client.ModelDescriptionConstants.RESULT;
+import static org.jboss.dmr.client.ModelDescriptionConstants.SUCCESS;
 import static org.junit.Assert.*;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 public class LogStoreTest {
 
+    private Scheduler scheduler;
     private StaticDispatcher dispatcher;
     private LogStore store;
 
     @Before
     public void setUp() {
         BootstrapContext bootstrap = mock(BootstrapContext.class);
-        Scheduler scheduler = mock(Scheduler.class);
+        scheduler = mock(Scheduler.class);
         when(bootstrap.isStandalone()).thenReturn(true);
 
         dispatcher = new StaticDispatcher();
@@ -475,6 +490,196 @@ public class LogStoreTest {
         assertTrue(activeLogFile.isFollow());
     }
 
+    @Test
+    public void followOnce() {
+        LogFile logFile = new LogFile("server.log", Collections.<String>emptyList(), 42);
+        logFile.setFollow(true);
+        store.states.put(logFile.getName(), logFile);
+
+        store.activate(logFile);
+        store.activate(logFile);
+
+        verify(scheduler, times(1)).scheduleFixedDelay(any(Scheduler.RepeatingCommand.class), anyInt());
+    }
+
+    @Test
+    public void followUnchanged() {
+        Scheduler.RepeatingCommand follower = follower();
+
+        dispatcher.push(StaticDmrResponse.ok(new ModelNode().set(42)));
+        assertTrue(follower.execute());
+
+        // only the file size was read
+        ModelNode operation = dispatcher.getLastOperation();
+        assertEquals("read-attribute", operation.get("operation").asString());
+        assertEquals("file-size", operation.get("name").asString());
+        assertTrue(store.getActiveLogFile().getLines().isEmpty());
+
+        // back off: probe, skip one interval, probe
+        // (a skipped interval would fail on an empty results stack otherwise)
+        dispatcher.push(StaticDmrResponse.ok(new ModelNode().set(42)));
+        assertTrue(follower.execute());
+        assertTrue(follower.execute());
+        dispatcher.push(StaticDmrResponse.ok(new ModelNode().set(42)));
+        assertTrue(follower.execute());
+        assertEquals("read-attribute", dispatcher.getLastOperation().get("operation").asString());
+    }
+
+    @Test
+    public void followChanged() {
+        Scheduler.RepeatingCommand follower = follower();
+
+        // no lines yet: read the whole page
+        // results are popped from a stack: push the tail first
+        dispatcher.push(StaticDmrResponse.ok(comp(logFileNodes("server.log", 43), linesNode(0, 2))));
+        dispatcher.push(StaticDmrResponse.ok(new ModelNode().set(43)));
+        assertTrue(follower.execute());
+
+        ModelNode operation = dispatcher.getLastOperation().get("steps").asList().get(1);
+        assertEquals("read-log-file", operation.get("operation").asString());
+        assertTrue(operation.get("tail").asBoolean());
+        LogFile activeLogFile = store.getActiveLogFile();
+        assertEquals(43, activeLogFile.getFileSize());
+        assertLines(activeLogFile.getContent(), 0, 1);
+
+        // the log file is changing: read the delta without probing
+        dispatcher.push(StaticDmrResponse.ok(comp(new ModelNode().set(50), linesNode(1, 3))));
+        assertTrue(follower.execute());
+
+        List<ModelNode> steps = dispatcher.getLastOperation().get("steps").asList();
+        assertEquals("read-attribute", steps.get(0).get("operation").asString());
+        assertEquals("read-log-file", steps.get(1).get("operation").asString());
+        assertTrue(steps.get(1).get("lines").asInt() < 25);
+        assertEquals(50, activeLogFile.getFileSize());
+        assertLines(activeLogFile.getContent(), 0, 1, 2);
+    }
+
+    @Test
+    public void followDelta() {
+        Scheduler.RepeatingCommand follower = follower(lines(10));
+
+        dispatcher.push(StaticDmrResponse.ok(comp(new ModelNode().set(58), linesNode(8, 12))));
+        dispatcher.push(StaticDmrResponse.ok(new ModelNode().set(58)));
+        assertTrue(follower.execute());
+
+        ModelNode operation = dispatcher.getLastOperation().get("steps").asList().get(1);
+        assertTrue(operation.get("lines").asInt() < 25);
+        LogFile activeLogFile = store.getActiveLogFile();
+        assertEquals(58, activeLogFile.getFileSize());
+        assertLines(activeLogFile.getContent(), 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11);
+    }
+
+    @Test
+    public void followRepeatedLines() {
+        Scheduler.RepeatingCommand follower = follower(Arrays.asList("start", "x", "x"));
+
+        // two more "x" lines (4 bytes) were appended: the delta overlaps by one line, not by two
+        dispatcher.push(StaticDmrResponse.ok(comp(new ModelNode().set(46), repeated("x", 3))));
+        dispatcher.push(StaticDmrResponse.ok(new ModelNode().set(46)));
+        assertTrue(follower.execute());
+
+        LogFile activeLogFile = store.getActiveLogFile();
+        assertEquals(46, activeLogFile.getFileSize());
+        assertEquals(Arrays.asList("start", "x", "x", "x", "x"), activeLogFile.getLines());
+    }
+
+    @Test
+    public void followUnaccountedBytes() {
+        Scheduler.RepeatingCommand follower = follower(lines(10));
+
+        // the new lines don't account for the new bytes: reload the page
+        dispatcher.push(StaticDmrResponse.ok(comp(logFileNodes("server.log", 90), linesNode(0, 12))));
+        dispatcher.push(StaticDmrResponse.ok(comp(new ModelNode().set(90), linesNode(8, 12))));
+        dispatcher.push(StaticDmrResponse.ok(new ModelNode().set(90)));
+        assertTrue(follower.execute());
+
+        LogFile activeLogFile = store.getActiveLogFile();
+        assertEquals(90, activeLogFile.getFileSize());
+        assertLines(activeLogFile.getContent(), 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11);
+        List<ModelNode> steps = dispatcher.getLastOperation().get("steps").asList();
+        assertTrue(steps.get(1).get("tail").asBoolean());
+    }
+
+    @Test
+    public void followMissedLines() {
+        Scheduler.RepeatingCommand follower = follower(lines(10));
+
+        // the delta doesn't overlap: reload the page
+        dispatcher.push(StaticDmrResponse.ok(comp(logFileNodes("server.log", 50), linesNode(20, 22))));
+        dispatcher.push(StaticDmrResponse.ok(comp(new ModelNode().set(50), linesNode(15, 22))));
+        dispatcher.push(StaticDmrResponse.ok(new ModelNode().set(50)));
+        assertTrue(follower.execute());
+
+        LogFile activeLogFile = store.getActiveLogFile();
+        assertEquals(50, activeLogFile.getFileSize());
+        assertLines(activeLogFile.getContent(), 20, 21);
+    }
+
+    @Test
+    public void followRotated() {
+        Scheduler.RepeatingCommand follower = follower(lines(10));
+
+        // the file shrank: reload the page
+        dispatcher.push(StaticDmrResponse.ok(comp(logFileNodes("server.log", 10), linesNode(0, 1))));
+        dispatcher.push(StaticDmrResponse.ok(new ModelNode().set(10)));
+        assertTrue(follower.execute());
+
+        LogFile activeLogFile = store.getActiveLogFile();
+        assertEquals(10, activeLogFile.getFileSize());
+        assertLines(activeLogFile.getContent(), 0);
+    }
+
+    @Test
+    public void followThroughCache() {
+        // use the real dispatcher and cache instead of the static dispatcher
+        ScriptedHandler handler = new ScriptedHandler();
+        DMRCache cache = new DMRCache();
+        HandlerMapping mapping = mock(HandlerMapping.class);
+        when(mapping.resolve(any(Action.class))).thenReturn(handler);
+        BootstrapContext bootstrap = mock(BootstrapContext.class);
+        when(bootstrap.isStandalone()).thenReturn(true);
+        store = new LogStore(null, new DispatchAsyncImpl(mapping, cache, new DispatchMetrics()), scheduler, bootstrap);
+        Scheduler.RepeatingCommand follower = follower(lines(10));
+
+        // unchanged: probe, skip one interval, probe again
+        handler.respond(new ModelNode().set(42));
+        handler.respond(new ModelNode().set(42));
+        assertTrue(follower.execute());
+        assertTrue(follower.execute());
+        assertTrue(follower.execute());
+        assertEquals(2, handler.actions.size());
+
+        // the file grew: the probe must not be answered from the cache and the delta is read right away
+        handler.respond(new ModelNode().set(58));
+        handler.respond(comp(new ModelNode().set(58), linesNode(8, 12)));
+        assertTrue(follower.execute());
+        assertEquals(4, handler.actions.size());
+        assertEquals(58, store.getActiveLogFile().getFileSize());
+        assertLines(store.getActiveLogFile().getContent(), 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11);
+
+        for (DMRAction action : handler.actions) {
+            assertFalse(action.isCachable());
+        }
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    public void appendLines() {
+        LogFile logFile = new LogFile("server.log", lines(3), 42);
+        logFile.appendLines(lines(3, 5), 4);
+        assertLines(logFile.getContent(), 1, 2, 3, 4);
+    }
+
+    @Test
+    public void followPaused() {
+        Scheduler.RepeatingCommand follower = follower();
+
+        store.pauseFollow(NoopChannel.INSTANCE);
+
+        assertFalse(follower.execute());
+    }
+
     @Test
     public void pauseFollow() {
         LogFile logFile = new LogFile("server.log", Collections.<String>emptyList(), 0);
@@ -505,9 +710,178 @@ public class LogStoreTest {
         assertFalse(activeLogFile.isFollow());
     }
 
+    @Test
+    public void browseLogFile() {
+        LogFile activeLogFile = browse(linesNode(0, LogChunks.CHUNK_SIZE));
+
+        ModelNode operation = dispatcher.getLastOperation().get("steps").asList().get(0);
+        assertEquals("read-log-file", operation.get("operation").asString());
+        assertEquals(0, operation.get("skip").asInt());
+        assertEquals(LogChunks.CHUNK_SIZE, operation.get("lines").asInt());
+        assertFalse(operation.get("tail").asBoolean());
+
+        assertNotNull(activeLogFile);
+        assertTrue(activeLogFile.isWindowed());
+        assertFalse(activeLogFile.isFollow());
+        assertTrue(activeLogFile.isHead());
+        assertEquals(0, activeLogFile.getSkipped());
+        assertEquals(lines(0, 25), activeLogFile.getLines());
+    }
+
+    @Test
+    public void scrollLogFile() {
+        LogFile activeLogFile = browse(linesNode(0, LogChunks.CHUNK_SIZE));
+
+        // cached: must not dispatch a DMR operation
+        store.scroll(new ScrollLogFile(100, 30), NoopChannel.INSTANCE);
+        assertEquals(100, activeLogFile.getSkipped());
+        assertEquals(lines(100, 130), activeLogFile.getLines());
+
+        // crosses the chunk boundary: reads the next chunk only
+        dispatcher.push(StaticDmrResponse.ok(chunks(linesNode(LogChunks.CHUNK_SIZE, 2 * LogChunks.CHUNK_SIZE))));
+        store.scroll(new ScrollLogFile(490, 20), NoopChannel.INSTANCE);
+        List<ModelNode> steps = dispatcher.getLastOperation().get("steps").asList();
+        assertEquals(1, steps.size());
+        assertEquals(LogChunks.CHUNK_SIZE, steps.get(0).get("skip").asInt());
+        assertEquals(490, activeLogFile.getSkipped());
+        assertEquals(lines(490, 510), activeLogFile.getLines());
+    }
+
+    @Test
+    public void scrollAfterEnd() {
+        LogFile activeLogFile = browse(linesNode(0, 300));
+
+        // the log file has less lines than a chunk: the number of lines is known
+        assertTrue(activeLogFile.getChunks().isLineCountExact());
+        // the file size is probed, but hasn't changed
+        dispatcher.push(StaticDmrResponse.ok(new ModelNode().set(1000000)));
+        store.scroll(new ScrollLogFile(1000, 25), NoopChannel.INSTANCE);
+        assertEquals("read-attribute", dispatcher.getLastOperation().get("operation").asString());
+        assertEquals(275, activeLogFile.getSkipped());
+        assertEquals(lines(275, 300), activeLogFile.getLines());
+    }
+
+    @Test
+    public void scrollAfterGrowth() {
+        LogFile activeLogFile = browse(linesNode(0, 300));
+
+        // results are popped from a stack: push the first chunk first
+        dispatcher.push(StaticDmrResponse.ok(chunks(linesNode(0, 310))));
+        dispatcher.push(StaticDmrResponse.ok(chunks(new ModelNode().setEmptyList())));
+        dispatcher.push(StaticDmrResponse.ok(new ModelNode().set(1000100)));
+        store.scroll(new ScrollLogFile(1000, 25), NoopChannel.INSTANCE);
+
+        // the file grew: the last chunk is read again
+        LogChunks chunks = activeLogFile.getChunks();
+        assertEquals(1000100, activeLogFile.getFileSize());
+        assertTrue(chunks.isLineCountExact());
+        assertEquals(310, chunks.getLineCount());
+        assertEquals(285, activeLogFile.getSkipped());
+        assertEquals(lines(285, 310), activeLogFile.getLines());
+    }
+
+    @Test
+    public void findInLogFile() {
+        LogFile activeLogFile = browse(linesNode(0, LogChunks.CHUNK_SIZE));
+
+        // no match in the cached chunk: read the next chunk
+        dispatcher.push(StaticDmrResponse.ok(chunks(linesNode(LogChunks.CHUNK_SIZE, 2 * LogChunks.CHUNK_SIZE))));
+        store.find(new FindInLogFile("LINE 742", 0, true), NoopChannel.INSTANCE);
+
+        LogChunks chunks = activeLogFile.getChunks();
+        assertEquals(742, chunks.getMatch());
+        assertEquals(-1, chunks.getResume());
+        // the match is in the middle of the window
+        assertEquals(730, activeLogFile.getSkipped());
+        assertEquals(lines(730, 755), activeLogFile.getLines());
+
+        // backwards using the cached chunks
+        store.find(new FindInLogFile("line 12", 741, false), NoopChannel.INSTANCE);
+        assertEquals(129, chunks.getMatch());
+    }
+
+    @Test
+    public void findResume() {
+        LogFile activeLogFile = browse(linesNode(0, LogChunks.CHUNK_SIZE));
+
+        // results are popped from a stack: push the last chunk first
+        for (int i = 9; i > 0; i--) {
+            dispatcher.push(StaticDmrResponse.ok(chunks(linesNode(i * LogChunks.CHUNK_SIZE,
+                    (i + 1) * LogChunks.CHUNK_SIZE))));
+        }
+        store.find(new FindInLogFile("foo", 0, true), NoopChannel.INSTANCE);
+
+        // a single action searches a limited number of chunks
+        LogChunks chunks = activeLogFile.getChunks();
+        assertEquals(-1, chunks.getMatch());
+        assertEquals(10 * LogChunks.CHUNK_SIZE, chunks.getResume());
+        assertEquals(0, activeLogFile.getSkipped());
+    }
+
+    @Test
+    public void resizeChunks() {
+        LogChunks chunks = new LogChunks(42);
+        chunks.put(0, lines(0, LogChunks.CHUNK_SIZE));
+        chunks.put(1, lines(LogChunks.CHUNK_SIZE, LogChunks.CHUNK_SIZE + 100));
+        assertTrue(chunks.isLineCountExact());
+
+        // grown: drop the last chunk only
+        chunks.resize(50);
+        assertEquals(50, chunks.getFileSize());
+        assertFalse(chunks.isLineCountExact());
+        assertTrue(chunks.contains(0));
+        assertFalse(chunks.contains(1));
+        assertEquals(Collections.singletonList(1), chunks.missing(LogChunks.CHUNK_SIZE, LogChunks.CHUNK_SIZE + 1));
+
+        // shrunk: drop all chunks
+        chunks.resize(10);
+        assertEquals(10, chunks.getFileSize());
+        assertFalse(chunks.contains(0));
+    }
+
+    @Test
+    public void resizeChunksAtBoundary() {
+        LogChunks chunks = new LogChunks(42);
+        chunks.put(0, lines(0, LogChunks.CHUNK_SIZE));
+        chunks.put(1, Collections.<String>emptyList());
+        assertTrue(chunks.isLineCountExact());
+
+        // the end of the file was read as an empty chunk
+        chunks.resize(50);
+        assertTrue(chunks.contains(0));
+        assertFalse(chunks.contains(1));
+        assertFalse(chunks.isAfterEnd(LogChunks.CHUNK_SIZE));
+    }
+
+    @Test
+    public void evictChunks() {
+        LogChunks chunks = new LogChunks(42);
+        for (int i = 0; i < LogChunks.MAX_CHUNKS; i++) {
+            chunks.put(i, lines(i * LogChunks.CHUNK_SIZE, (i + 1) * LogChunks.CHUNK_SIZE));
+        }
+        // use the first chunk, so that the second chunk is the least recently used one
+        assertEquals(lines(0, 1), chunks.lines(0, 1));
+        chunks.put(LogChunks.MAX_CHUNKS, lines(LogChunks.MAX_CHUNKS * LogChunks.CHUNK_SIZE,
+                (LogChunks.MAX_CHUNKS + 1) * LogChunks.CHUNK_SIZE));
+
+        assertTrue(chunks.contains(0));
+        assertFalse(chunks.contains(1));
+        assertEquals(Collections.singletonList(1), chunks.missing(LogChunks.CHUNK_SIZE, LogChunks.CHUNK_SIZE + 1));
+    }
+
 
     // ------------------------------------------------------ node factory methods
 
+    private ModelNode chunks(ModelNode... linesNodes) {
+        ModelNode comp = new ModelNode();
+        for (int i = 0; i < linesNodes.length; i++) {
+            ModelNode step = new ModelNode();
+            step.get(RESULT).set(linesNodes[i]);
+            comp.get("step-" + (i + 1)).set(step);
+        }
+        return comp;
+    }
+
     private ModelNode comp(ModelNode logFileNodes, ModelNode linesNode) {
         ModelNode step1 = new ModelNode();
         step1.get(RESULT).set(logFileNodes);
@@ -520,6 +894,14 @@ public class LogStoreTest {
         return comp;
     }
 
+    private ModelNode logFileNodes(String name, int fileSize) {
+        ModelNode node = new ModelNode();
+        ModelNode logFile = logFileNode(name);
+        logFile.get("file-size").set(fileSize);
+        node.get(name).set(logFile);
+        return node;
+    }
+
     private ModelNode logFileNodes(String... names) {
         ModelNode node = new ModelNode();
         for (String name : names) {
@@ -536,16 +918,32 @@ public class LogStoreTest {
     }
 
     private ModelNode linesNode(int numberOfLines) {
+        return linesNode(0, numberOfLines);
+    }
+
+    private ModelNode linesNode(int from, int to) {
         ModelNode node = new ModelNode();
-        for (String line : lines(numberOfLines)) {
+        for (String line : lines(from, to)) {
+            node.add(line);
+        }
+        return node;
+    }
+
+    private ModelNode repeated(String line, int times) {
+        ModelNode node = new ModelNode();
+        for (int i = 0; i < times; i++) {
             node.add(line);
         }
         return node;
     }
 
     private List<String> lines(int numberOfLines) {
+        return lines(0, numberOfLines);
+    }
+
+    private List<String> lines(int from, int to) {
         List<String> lines = new LinkedList<>();
-        for (int i = 0; i < numberOfLines; i++) {
+        for (int i = from; i < to; i++) {
             lines.add("line " + i);
         }
         return lines;
@@ -554,6 +952,56 @@ public class LogStoreTest {
 
     // ------------------------------------------------------ helper methods
 
+    /**
+     * Answers the operations in the order of {@link #respond(ModelNode)}.
+     */
+    private static class ScriptedHandler implements ActionHandler<DMRAction, DMRResponse> {
+
+        final List<DMRAction> actions = new LinkedList<>();
+        final LinkedList<ModelNode> results = new LinkedList<>();
+
+        void respond(ModelNode result) {
+            results.add(result);
+        }
+
+        @Override
+        public DispatchRequest execute(DMRAction action, AsyncCallback<DMRResponse> callback,
+                Map<String, String> properties) {
+            actions.add(action);
+            ModelNode response = new ModelNode();
+            response.get(OUTCOME).set(SUCCESS);
+            response.get(RESULT).set(results.removeFirst());
+            callback.onSuccess(new DMRResponse(response));
+            return null;
+        }
+
+        @Override
+        public DispatchRequest undo(DMRAction action, DMRResponse result, AsyncCallback<Void> callback) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private LogFile browse(ModelNode firstChunk) {
+        dispatcher.push(StaticDmrResponse.ok(chunks(firstChunk)));
+        store.browseLogFile(new BrowseLogFile("server.log", 1000000), NoopChannel.INSTANCE);
+        return store.getActiveLogFile();
+    }
+
+    private Scheduler.RepeatingCommand follower() {
+        return follower(Collections.<String>emptyList());
+    }
+
+    private Scheduler.RepeatingCommand follower(List<String> lines) {
+        LogFile logFile = new LogFile("server.log", lines, 42);
+        logFile.setFollow(true);
+        store.states.put(logFile.getName(), logFile);
+        store.activate(logFile);
+
+        ArgumentCaptor<Scheduler.RepeatingCommand> command = ArgumentCaptor.forClass(Scheduler.RepeatingCommand.class);
+        verify(scheduler).scheduleFixedDelay(command.capture(), anyInt());
+        return command.getValue();
+    }
+
     private void assertLines(String content, int... lines) {
         StringBuilder builder = new StringBuilder();
         for (int i = 0; i < lines.length; i++) {
@@ -0,0 +1,325 @@
+package org.jboss.as.console.client.v3.dmr;
+
+import com.google.gwt.core.client.JavaScriptException;
+import com.google.gwt.core.client.Scheduler;
+import org.jboss.as.console.client.core.BootstrapContext;
+import org.jboss.as.console.client.core.settings.ModelVersions;
+import org.jboss.dmr.client.ModelNode;
+import org.jboss.dmr.client.ModelType;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.jboss.dmr.client.ModelDescriptionConstants.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class DescriptionStoreTest {
+
+    private ModelVersions modelVersions;
+    private BootstrapContext bootstrapContext;
+    private Scheduler scheduler;
+    private MapStorage storage;
+
+    @Before
+    public void setUp() {
+        modelVersions = new ModelVersions();
+        modelVersions.put(ModelVersions.SERVER_MANAGEMENT_VERSION, "3.0.0");
+        modelVersions.put(ModelVersions.SERVER_RELEASE_VERSION, "9.0.0.Final");
+        bootstrapContext = mock(BootstrapContext.class);
+        when(bootstrapContext.getRoles()).thenReturn(new HashSet<>(Arrays.asList("Operator", "Monitor")));
+        scheduler = mock(Scheduler.class);
+        storage = new MapStorage(Integer.MAX_VALUE);
+    }
+
+
+    // ------------------------------------------------------ key
+
+    @Test
+    public void keyIgnoresRoleOrder() {
+        DescriptionStore store = store(DescriptionStore.DEFAULT_BUDGET);
+        String key = store.fullKey(rrd("datasources"));
+
+        when(bootstrapContext.getRoles()).thenReturn(new HashSet<>(Arrays.asList("Monitor", "Operator")));
+        assertEquals(key, store.fullKey(rrd("datasources")));
+        assertEquals(store.storageKey(rrd("datasources")), store.storageKey(rrd("datasources")));
+    }
+
+    @Test
+    public void keyDistinguishesRolesAndRunAs() {
+        DescriptionStore store = store(DescriptionStore.DEFAULT_BUDGET);
+        String key = store.fullKey(rrd("datasources"));
+
+        when(bootstrapContext.getRoles()).thenReturn(new HashSet<>(Arrays.asList("Monitor")));
+        String monitor = store.fullKey(rrd("datasources"));
+        assertNotEquals(key, monitor);
+
+        when(bootstrapContext.getRunAs()).thenReturn("Monitor");
+        assertNotEquals(monitor, store.fullKey(rrd("datasources")));
+    }
+
+    @Test
+    public void keyDistinguishesOperations() {
+        DescriptionStore store = store(DescriptionStore.DEFAULT_BUDGET);
+        ModelNode recursive = rrd("datasources");
+        recursive.get("recursive-depth").set(2);
+
+        assertNotEquals(store.fullKey(rrd("datasources")), store.fullKey(rrd("logging")));
+        assertNotEquals(store.fullKey(rrd("datasources")), store.fullKey(recursive));
+    }
+
+
+    // ------------------------------------------------------ access control
+
+    @Test
+    public void accessControlIsNotStored() {
+        DescriptionStore store = store(DescriptionStore.DEFAULT_BUDGET);
+        ModelNode result = description("datasources");
+        store.put(rrd("datasources"), result);
+
+        ModelNode stored = store.get(rrd("datasources"));
+        assertNotNull(stored);
+        assertEquals("datasources", stored.get(DESCRIPTION).asString());
+        assertFalse(stored.has("access-control"));
+        ModelNode child = stored.get(CHILDREN, "data-source", MODEL_DESCRIPTION, "*");
+        assertTrue(child.hasDefined(DESCRIPTION));
+        assertFalse(child.has("access-control"));
+
+        // the given result is not modified
+        assertTrue(result.hasDefined("access-control"));
+        assertTrue(result.get(CHILDREN, "data-source", MODEL_DESCRIPTION, "*").hasDefined("access-control"));
+    }
+
+    @Test
+    public void accessControlInWildcardResult() {
+        ModelNode step = new ModelNode();
+        step.get(ADDRESS).add(SUBSYSTEM, "datasources");
+        step.get(OUTCOME).set(SUCCESS);
+        step.get(RESULT).set(description("datasources"));
+        ModelNode result = new ModelNode();
+        result.add(step);
+
+        ModelNode stripped = DescriptionStore.withoutAccessControl(result);
+        assertEquals(ModelType.LIST, stripped.getType());
+        assertFalse(stripped.get(0).get(RESULT).has("access-control"));
+        assertTrue(stripped.get(0).get(RESULT).hasDefined(DESCRIPTION));
+    }
+
+
+    // ------------------------------------------------------ get / put
+
+    @Test
+    public void hitAndMiss() {
+        DescriptionStore store = store(DescriptionStore.DEFAULT_BUDGET);
+        assertNull(store.get(rrd("datasources")));
+        store.put(rrd("datasources"), description("datasources"));
+        assertNotNull(store.get(rrd("datasources")));
+
+        assertEquals(1, store.size());
+        assertEquals(1, store.getHits());
+        assertEquals(1, store.getMisses());
+    }
+
+    @Test
+    public void otherRolesMiss() {
+        DescriptionStore store = store(DescriptionStore.DEFAULT_BUDGET);
+        store.put(rrd("datasources"), description("datasources"));
+
+        when(bootstrapContext.getRunAs()).thenReturn("Monitor");
+        assertNull(store.get(rrd("datasources")));
+    }
+
+    @Test
+    public void indexSurvivesSession() {
+        DescriptionStore store = store(DescriptionStore.DEFAULT_BUDGET);
+        store.put(rrd("datasources"), description("datasources"));
+        writeIndex();
+
+        DescriptionStore next = store(DescriptionStore.DEFAULT_BUDGET);
+        assertNotNull(next.get(rrd("datasources")));
+        assertEquals(1, next.size());
+    }
+
+    @Test
+    public void versionChangePurges() {
+        DescriptionStore store = store(DescriptionStore.DEFAULT_BUDGET);
+        store.put(rrd("datasources"), description("datasources"));
+        writeIndex();
+
+        modelVersions.put(ModelVersions.SERVER_RELEASE_VERSION, "10.0.0.Final");
+        DescriptionStore next = store(DescriptionStore.DEFAULT_BUDGET);
+        assertNull(next.get(rrd("datasources")));
+        assertEquals(0, next.size());
+        // only the version remains
+        assertEquals(1, storage.getLength());
+    }
+
+    @Test
+    public void noVersionNoStore() {
+        modelVersions.clear();
+        DescriptionStore store = store(DescriptionStore.DEFAULT_BUDGET);
+        store.put(rrd("datasources"), description("datasources"));
+
+        assertNull(store.get(rrd("datasources")));
+        assertEquals(0, storage.getLength());
+    }
+
+
+    // ------------------------------------------------------ eviction
+
+    @Test
+    public void evictLeastRecentlyUsed() {
+        // a single entry may take up to a quarter of the budget
+        DescriptionStore store = store(4 * entrySize() + entrySize() / 2);
+        for (String name : new String[]{"a", "b", "c", "d"}) {
+            store.put(rrd(name), description(name));
+        }
+        assertNotNull(store.get(rrd("a")));
+
+        store.put(rrd("e"), description("e"));
+        assertEquals(4, store.size());
+        assertNull(store.get(rrd("b")));
+        assertFalse(storage.items.containsKey(store.storageKey(rrd("b"))));
+        for (String name : new String[]{"a", "c", "d", "e"}) {
+            assertNotNull(store.get(rrd(name)));
+        }
+    }
+
+    @Test
+    public void replaceDoesNotEvict() {
+        DescriptionStore store = store(4 * entrySize() + entrySize() / 2);
+        for (String name : new String[]{"a", "b", "c", "d"}) {
+            store.put(rrd(name), description(name));
+        }
+        store.put(rrd("a"), description("a"));
+        assertEquals(4, store.size());
+    }
+
+    @Test
+    public void tooLarge() {
+        DescriptionStore store = store(4 * entrySize() - 1);
+        store.put(rrd("a"), description("a"));
+        assertEquals(0, store.size());
+        assertNull(store.get(rrd("a")));
+    }
+
+    @Test
+    public void quotaExceeded() {
+        storage = new MapStorage(3 * entrySize() + entrySize() / 2);
+        DescriptionStore store = store(DescriptionStore.DEFAULT_BUDGET);
+        for (String name : new String[]{"a", "b", "c"}) {
+            store.put(rrd(name), description(name));
+        }
+        assertEquals(3, store.size());
+
+        // the storage is full: half of the store is evicted to make room for "d"
+        store.put(rrd("d"), description("d"));
+        assertEquals(2, store.size());
+        assertNull(store.get(rrd("a")));
+        assertNull(store.get(rrd("b")));
+        assertNotNull(store.get(rrd("c")));
+        assertNotNull(store.get(rrd("d")));
+    }
+
+
+    // ------------------------------------------------------ helper methods
+
+    private DescriptionStore store(int budget) {
+        return new DescriptionStore(modelVersions, bootstrapContext, storage, scheduler, budget);
+    }
+
+    private void writeIndex() {
+        ArgumentCaptor<Scheduler.ScheduledCommand> command = ArgumentCaptor.forClass(Scheduler.ScheduledCommand.class);
+        verify(scheduler, atLeastOnce()).scheduleDeferred(command.capture());
+        command.getValue().execute();
+    }
+
+    /**
+     * @return the size of an entry of {@link #description(String)} with a single letter name
+     */
+    private int entrySize() {
+        DescriptionStore store = new DescriptionStore(modelVersions, bootstrapContext, new MapStorage(Integer.MAX_VALUE),
+                scheduler, DescriptionStore.DEFAULT_BUDGET);
+        return store.fullKey(rrd("x")).length() + 1 +
+                DescriptionStore.withoutAccessControl(description("x")).toBase64String().length();
+    }
+
+    private ModelNode rrd(String subsystem) {
+        ModelNode operation = new ModelNode();
+        operation.get(OP).set(READ_RESOURCE_DESCRIPTION_OPERATION);
+        operation.get(ADDRESS).add(SUBSYSTEM, subsystem);
+        operation.get(OPERATIONS).set(true);
+        operation.get("access-control").set("combined-descriptions");
+        return operation;
+    }
+
+    private ModelNode description(String name) {
+        ModelNode description = new ModelNode();
+        description.get(DESCRIPTION).set(name);
+        description.get(ATTRIBUTES, "enabled", TYPE).set(ModelType.BOOLEAN);
+        description.get("access-control").set(accessControl());
+        ModelNode child = description.get(CHILDREN, "data-source", MODEL_DESCRIPTION, "*");
+        child.get(DESCRIPTION).set(name + " child");
+        child.get("access-control").set(accessControl());
+        return description;
+    }
+
+    private ModelNode accessControl() {
+        ModelNode accessControl = new ModelNode();
+        accessControl.get("default", ATTRIBUTES, "enabled", "read").set(true);
+        accessControl.get("default", ATTRIBUTES, "enabled", "write").set(false);
+        accessControl.get("exceptions").setEmptyObject();
+        return accessControl;
+    }
+
+
+    private static class MapStorage implements DescriptionStore.LocalStorage {
+
+        final Map<String, String> items = new LinkedHashMap<>();
+        final int quota;
+
+        MapStorage(int quota) {
+            this.quota = quota;
+        }
+
+        @Override
+        public String getItem(String key) {
+            return items.get(key);
+        }
+
+        @Override
+        public void setItem(String key, String value) {
+            int size = value.length();
+            for (Map.Entry<String, String> entry : items.entrySet()) {
+                if (!entry.getKey().equals(key) && entry.getKey().startsWith("hal.rrd.") &&
+                        !entry.getKey().equals("hal.rrd.version") && !entry.getKey().equals("hal.rrd.index")) {
+                    size += entry.getValue().length();
+                }
+            }
+            if (size > quota) {
+                throw new JavaScriptException("QuotaExceededError", "quota exceeded");
+            }
+            items.put(key, value);
+        }
+
+        @Override
+        public void removeItem(String key) {
+            items.remove(key);
+        }
+
+        @Override
+        public int getLength() {
+            return items.size();
+        }
+
+        @Override
+        public String key(int index) {
+            return items.keySet().toArray(new String[items.size()])[index];
+        }
+    }
+}
@@ -31,15 +31,26 @@ import org.jboss.as.console.spi.OperationMode;
 import org.jboss.as.console.spi.RequiredResources;
 import org.jboss.as.console.spi.SearchIndex;
 
+import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.Processor;
 import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.TypeElement;
+import javax.script.ScriptException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Supplier;
 
 import static java.util.Arrays.asList;
@@ -56,12 +67,17 @@ import static org.jboss.as.console.spi.OperationMode.Mode.STANDALONE;
  * <dd>Same as above. Used for backward compatibility.
  * The {@code @AccessControl} is deprecated and should be replaced by {@code @RequiredResources}</dd>
  * <dt>{@code @SearchIndex}</dt>
- * <dd>All keywords are collected and stored in an implementation of {@link SearchIndexRegistry}</dd>
+ * <dd>All keywords are collected and stored in an implementation of {@link SearchIndexRegistry}. In addition a
+ * prebuilt search index is generated as static resource. The descriptions are taken from the snapshot specified by
+ * the option {@value #SEARCH_SNAPSHOT_OPTION}. If the option {@value #SEARCH_LUNR_OPTION} points to the lunr
+ * script and the JDK provides a JavaScript engine, the lunr index itself is built as well. See
+ * {@link PrebuiltSearchIndex} for details.</dd>
  * </dl>
  *
  * @author Harald Pehl
  */
 @AutoService(Processor.class)
+@SupportedOptions({NameTokenProcessor.SEARCH_SNAPSHOT_OPTION, NameTokenProcessor.SEARCH_LUNR_OPTION})
 @SupportedAnnotationTypes("com.gwtplatform.mvp.client.annotations.NameToken")
 public class NameTokenProcessor extends AbstractHalProcessor {
 
@@ -73,12 +89,26 @@ public class NameTokenProcessor extends AbstractHalProcessor {
     static final String SEARCH_INDEX_PACKAGE = "org.jboss.as.console.client.plugins";
     static final String SEARCH_INDEX_CLASS = "SearchIndexRegistryImpl";
 
+    static final String PREBUILT_SEARCH_INDEX_TEMPLATE = "PrebuiltSearchIndex.ftl";
+    static final String PREBUILT_SEARCH_INDEX_PACKAGE = "org.jboss.as.console.client.search";
+    static final String PREBUILT_SEARCH_INDEX_RESOURCE = "PrebuiltSearchIndex.json";
+    static final String SEARCH_SNAPSHOT_OPTION = "search.snapshot";
+    static final String SEARCH_LUNR_OPTION = "search.lunr";
+
     private final Set<NameTokenInfo> tokenInfos;
+    private String snapshot;
+    private String lunr;
 
     public NameTokenProcessor() {
         tokenInfos = new HashSet<>();
     }
 
+    @Override
+    protected void afterInit(ProcessingEnvironment processingEnv) {
+        snapshot = processingEnv.getOptions().get(SEARCH_SNAPSHOT_OPTION);
+        lunr = processingEnv.getOptions().get(SEARCH_LUNR_OPTION);
+    }
+
     @Override
     protected boolean onProcess(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
         for (Element e : roundEnv.getElementsAnnotatedWith(NameToken.class)) {
@@ -130,11 +160,65 @@ public class NameTokenProcessor extends AbstractHalProcessor {
 
             info("Successfully generated name token registries [%s] and [%s].",
                     REQUIRED_RESOURCES_CLASS, SEARCH_INDEX_CLASS);
+
+            debug("Generating prebuilt search index");
+            prebuiltSearchIndex();
             tokenInfos.clear();
         }
         return false;
     }
 
+    private void prebuiltSearchIndex() {
+        Map<String, String> descriptions = Collections.emptyMap();
+        if (snapshot != null) {
+            try {
+                descriptions = PrebuiltSearchIndex.readSnapshot(Paths.get(snapshot));
+            } catch (IOException e) {
+                throw new GenerationException("Unable to read search snapshot " + snapshot + ": " + e.getMessage());
+            }
+        } else {
+            info("No search snapshot specified. Use the option \"%s\" to prebuild the search index.",
+                    SEARCH_SNAPSHOT_OPTION);
+        }
+
+        List<PrebuiltSearchIndex> indexes = asList(
+                new PrebuiltSearchIndex("standalone", true, tokenInfos, descriptions),
+                new PrebuiltSearchIndex("domain", false, tokenInfos, descriptions));
+        Set<String> unmatched = new TreeSet<>(descriptions.keySet());
+        for (PrebuiltSearchIndex index : indexes) {
+            unmatched.removeAll(index.getMatched());
+        }
+        if (!unmatched.isEmpty()) {
+            // most likely a typo or a resource which is no longer used
+            info("%d resources of the search snapshot don't match any required resource: %s", unmatched.size(),
+                    unmatched);
+        }
+        if (lunr != null && !descriptions.isEmpty()) {
+            try {
+                Path lunrPath = Paths.get(lunr);
+                String script = new String(Files.readAllBytes(lunrPath), StandardCharsets.UTF_8);
+                for (PrebuiltSearchIndex index : indexes) {
+                    if (!index.buildIndex(script)) {
+                        info("No JavaScript engine available. The search index will be built at runtime.");
+                        break;
+                    }
+                }
+            } catch (IOException | ScriptException | NoSuchMethodException e) {
+                // not fatal: the index is built from the prebuilt documents at runtime
+                info("Unable to build lunr index using %s: %s", lunr, e.getMessage());
+            }
+        }
+
+        resource(PREBUILT_SEARCH_INDEX_TEMPLATE, PREBUILT_SEARCH_INDEX_PACKAGE, PREBUILT_SEARCH_INDEX_RESOURCE,
+                () -> {
+                    Map<String, Object> context = new HashMap<>();
+                    context.put("indexes", indexes);
+                    return context;
+                });
+        info("Successfully generated prebuilt search index [%s] with %d descriptions.",
+                PREBUILT_SEARCH_INDEX_RESOURCE, descriptions.size());
+    }
+
     private Supplier<Map<String, Object>> context(final String packageName, final String className) {
         return () -> {
             Map<String, Object> context = new HashMap<>();
@@ -0,0 +1,248 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2010, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.hal.processors;
+
+import org.jboss.hal.processors.NameTokenProcessor.NameTokenInfo;
+
+import javax.script.Invocable;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static java.util.stream.Collectors.joining;
+
+/**
+ * The search index of one operation mode built from a snapshot of resource descriptions. Contains the search
+ * documents, the resources covered by the snapshot and - if a JavaScript engine is available - the serialized
+ * <a href="http://lunrjs.com/">lunr</a> index.
+ * <p/>
+ * The snapshot is a plain text file with one description per line:
+ * <pre>
+ *     # comment
+ *     {selected.profile}/subsystem=datasources|The data-sources subsystem, used to declare JDBC data-sources
+ * </pre>
+ * The resources have to match the resources used in {@code @RequiredResources} and {@code @AccessControl}. Both
+ * the resources of the snapshot and the resources of the annotations are {@linkplain #normalize(String) normalized}
+ * before they're compared, so leading and trailing slashes don't matter.
+ * <p/>
+ * The snapshot doesn't have to be complete. The tokens and resources covered by the snapshot are part of the
+ * generated resource, so that the harvest at runtime reads only the descriptions of the remaining resources.
+ */
+public class PrebuiltSearchIndex {
+
+    /**
+     * Helper functions to build the index. The fields must match the fields in
+     * {@code org.jboss.as.console.client.search.Index}.
+     */
+    private static final String LUNR_HELPER = "" +
+            "var prebuiltIndex = lunr(function () {\n" +
+            "    this.field('keywords', {boost: 3});\n" +
+            "    this.field('token');\n" +
+            "    this.field('desc');\n" +
+            "    this.ref('id');\n" +
+            "});\n" +
+            "function addDocument(id, token, keywords, desc) {\n" +
+            "    var document = {id: id, token: token, desc: desc};\n" +
+            "    if (keywords != null) { document.keywords = keywords; }\n" +
+            "    prebuiltIndex.add(document);\n" +
+            "}\n" +
+            "function serializeIndex() {\n" +
+            "    return JSON.stringify(prebuiltIndex);\n" +
+            "}\n";
+
+    /**
+     * Removes leading and trailing slashes, so that {@code /{selected.profile}/subsystem=datasources} and
+     * {@code {selected.profile}/subsystem=datasources} refer to the same snapshot entry.
+     */
+    static String normalize(String resource) {
+        int start = 0;
+        int end = resource.length();
+        while (start < end && resource.charAt(start) == '/') {
+            start++;
+        }
+        while (end > start && resource.charAt(end - 1) == '/') {
+            end--;
+        }
+        return resource.substring(start, end);
+    }
+
+    /**
+     * Reads the snapshot of resource descriptions.
+     *
+     * @param snapshot the path to the snapshot file
+     * @return a map with normalized resources as keys and descriptions as values
+     */
+    static Map<String, String> readSnapshot(Path snapshot) throws IOException {
+        Map<String, String> descriptions = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(snapshot, StandardCharsets.UTF_8)) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            int separator = trimmed.indexOf('|');
+            if (separator > 0 && separator < trimmed.length() - 1) {
+                descriptions.put(normalize(trimmed.substring(0, separator).trim()),
+                        trimmed.substring(separator + 1).trim());
+            }
+        }
+        return descriptions;
+    }
+
+
+    private final String name;
+    private final List<SearchDocument> documents;
+    private final Map<String, Set<String>> resources;
+    private final Set<String> matched;
+    private String index;
+
+    /**
+     * Creates the documents for all tokens of the specified operation mode. Mirrors the harvest at runtime: Optional
+     * resources and duplicate descriptions of the same token are skipped. The resources covered by the snapshot are
+     * kept as they're used in the annotations, since the harvest compares them as is.
+     */
+    PrebuiltSearchIndex(String name, boolean standalone, Collection<NameTokenInfo> tokenInfos,
+            Map<String, String> descriptions) {
+        this.name = name;
+        this.documents = new ArrayList<>();
+        this.resources = new LinkedHashMap<>();
+        this.matched = new HashSet<>();
+
+        long id = 0;
+        for (NameTokenInfo tokenInfo : tokenInfos) {
+            if (tokenInfo.isExclude() || (standalone && tokenInfo.isDomainOnly()) ||
+                    (!standalone && tokenInfo.isStandaloneOnly())) {
+                continue;
+            }
+            Set<String> tokenDescriptions = new HashSet<>();
+            for (String resource : new TreeSet<>(tokenInfo.getResources())) {
+                if (resource.startsWith("opt:")) {
+                    continue;
+                }
+                String normalized = normalize(resource);
+                String description = descriptions.get(normalized);
+                if (description != null) {
+                    matched.add(normalized);
+                    if (tokenDescriptions.add(description)) {
+                        documents.add(new SearchDocument(id++, tokenInfo.getToken(),
+                                new TreeSet<>(tokenInfo.getKeywords()), description));
+                    }
+                    resources.computeIfAbsent(tokenInfo.getToken(), token -> new TreeSet<>()).add(resource);
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the lunr index using the JavaScript engine of the JDK.
+     *
+     * @param lunr the lunr script
+     * @return {@code true} if the index was built, {@code false} if there's no JavaScript engine available
+     */
+    boolean buildIndex(String lunr) throws ScriptException, NoSuchMethodException {
+        ScriptEngine engine = new ScriptEngineManager().getEngineByName("nashorn");
+        if (engine == null) {
+            return false;
+        }
+        engine.eval(lunr);
+        engine.eval(LUNR_HELPER);
+        Invocable invocable = (Invocable) engine;
+        for (SearchDocument document : documents) {
+            String keywords = document.getKeywords().isEmpty() ? null : document.getKeywords().stream()
+                    .collect(joining(" "));
+            invocable.invokeFunction("addDocument", String.valueOf(document.getId()), document.getToken(), keywords,
+                    document.getDescription());
+        }
+        index = (String) invocable.invokeFunction("serializeIndex");
+        return true;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<SearchDocument> getDocuments() {
+        return documents;
+    }
+
+    public Map<String, Set<String>> getResources() {
+        return resources;
+    }
+
+    /**
+     * @return the normalized snapshot resources which match at least one resource of this operation mode
+     */
+    public Set<String> getMatched() {
+        return matched;
+    }
+
+    public String getIndex() {
+        return index;
+    }
+
+    public boolean isIndexed() {
+        return index != null;
+    }
+
+
+    public static class SearchDocument {
+
+        private final long id;
+        private final String token;
+        private final Set<String> keywords;
+        private final String description;
+
+        SearchDocument(long id, String token, Set<String> keywords, String description) {
+            this.id = id;
+            this.token = token;
+            this.keywords = keywords;
+            this.description = description;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public Set<String> getKeywords() {
+            return keywords;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+}
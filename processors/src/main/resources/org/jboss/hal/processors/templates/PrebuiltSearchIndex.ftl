@@ -0,0 +1,18 @@
+<#-- @ftlvariable name="indexes" type="java.util.List<org.jboss.hal.processors.PrebuiltSearchIndex>" -->
+{
+<#list indexes as index>
+    "${index.name}": {
+        "documents": [
+        <#list index.documents as document>
+            {"id": ${document.id?c}, "token": "${document.token?json_string}", "description": "${document.description?json_string}", "keywords": [<#list document.keywords as keyword>"${keyword?json_string}"<#if keyword_has_next>, </#if></#list>]}<#if document_has_next>,</#if>
+        </#list>
+        ],
+        "resources": {
+        <#list index.resources?keys as token>
+            "${token?json_string}": [<#list index.resources[token] as resource>"${resource?json_string}"<#if resource_has_next>, </#if></#list>]<#if token_has_next>,</#if>
+        </#list>
+        },
+        "index": <#if index.indexed>${index.index}<#else>null</#if>
+    }<#if index_has_next>,</#if>
+</#list>
+}
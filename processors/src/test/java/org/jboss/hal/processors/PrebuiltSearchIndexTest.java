@@ -0,0 +1,159 @@
+package org.jboss.hal.processors;
+
+import org.jboss.hal.processors.NameTokenProcessor.NameTokenInfo;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.*;
+
+public class PrebuiltSearchIndexTest {
+
+    private Map<String, String> descriptions;
+
+    @Before
+    public void setUp() {
+        descriptions = new LinkedHashMap<>();
+        descriptions.put("{selected.profile}/subsystem=datasources/data-source=*", "A JDBC data-source");
+        descriptions.put("{selected.profile}/subsystem=datasources/xa-data-source=*", "A JDBC XA data-source");
+        descriptions.put("interface=*", "A named \"network\" interface");
+    }
+
+
+    // ------------------------------------------------------ test methods
+
+    @Test
+    public void normalize() {
+        assertEquals("subsystem=foo", PrebuiltSearchIndex.normalize("/subsystem=foo/"));
+        assertEquals("{selected.profile}/subsystem=foo",
+                PrebuiltSearchIndex.normalize("{selected.profile}/subsystem=foo"));
+        assertEquals("", PrebuiltSearchIndex.normalize("//"));
+    }
+
+    @Test
+    public void readSnapshot() throws IOException {
+        Path snapshot = Files.createTempFile("model-descriptions", ".txt");
+        try {
+            Files.write(snapshot, asList(
+                    "# comment",
+                    "",
+                    "/interface=*/|A named network interface",
+                    "path=*|A named filesystem path|with a pipe",
+                    "malformed",
+                    "socket-binding-group=*|"), StandardCharsets.UTF_8);
+
+            Map<String, String> snapshotDescriptions = PrebuiltSearchIndex.readSnapshot(snapshot);
+            assertEquals(asList("interface=*", "path=*"), asList(snapshotDescriptions.keySet().toArray()));
+            assertEquals("A named network interface", snapshotDescriptions.get("interface=*"));
+            assertEquals("A named filesystem path|with a pipe", snapshotDescriptions.get("path=*"));
+        } finally {
+            Files.delete(snapshot);
+        }
+    }
+
+    @Test
+    public void documents() {
+        NameTokenInfo datasources = token("datasources", "/{selected.profile}/subsystem=datasources/data-source=*",
+                "{selected.profile}/subsystem=datasources/xa-data-source=*",
+                "opt://{selected.profile}/subsystem=datasources/jdbc-driver=*");
+        datasources.addKeywords(new String[]{"jdbc"});
+
+        PrebuiltSearchIndex index = new PrebuiltSearchIndex("standalone", true,
+                Collections.singletonList(datasources), descriptions);
+        List<PrebuiltSearchIndex.SearchDocument> documents = index.getDocuments();
+        assertEquals(2, documents.size());
+        assertEquals(0, documents.get(0).getId());
+        assertEquals("datasources", documents.get(0).getToken());
+        assertEquals(Collections.singleton("jdbc"), documents.get(0).getKeywords());
+        assertEquals(1, documents.get(1).getId());
+
+        // the resources are kept as they're used in the annotations
+        assertEquals(Collections.singleton("datasources"), index.getResources().keySet());
+        assertTrue(index.getResources().get("datasources")
+                .contains("/{selected.profile}/subsystem=datasources/data-source=*"));
+        assertEquals(2, index.getResources().get("datasources").size());
+        assertEquals(2, index.getMatched().size());
+    }
+
+    @Test
+    public void skipDuplicateDescriptions() {
+        descriptions.put("{selected.profile}/subsystem=datasources", "A JDBC data-source");
+        NameTokenInfo datasources = token("datasources", "{selected.profile}/subsystem=datasources",
+                "{selected.profile}/subsystem=datasources/data-source=*");
+
+        PrebuiltSearchIndex index = new PrebuiltSearchIndex("standalone", true,
+                Collections.singletonList(datasources), descriptions);
+        assertEquals(1, index.getDocuments().size());
+        assertEquals(2, index.getResources().get("datasources").size());
+    }
+
+    @Test
+    public void operationMode() {
+        NameTokenInfo excluded = token("excluded", "interface=*");
+        excluded.setExclude(true);
+        NameTokenInfo domain = token("domain", "interface=*");
+        domain.setDomainOnly(true);
+        NameTokenInfo standalone = token("standalone", "interface=*");
+        standalone.setStandaloneOnly(true);
+        List<NameTokenInfo> tokens = asList(excluded, domain, standalone);
+
+        PrebuiltSearchIndex standaloneIndex = new PrebuiltSearchIndex("standalone", true, tokens, descriptions);
+        assertEquals(Collections.singleton("standalone"), standaloneIndex.getResources().keySet());
+        PrebuiltSearchIndex domainIndex = new PrebuiltSearchIndex("domain", false, tokens, descriptions);
+        assertEquals(Collections.singleton("domain"), domainIndex.getResources().keySet());
+    }
+
+    @Test
+    public void uncoveredResources() {
+        NameTokenInfo jms = token("jms", "{selected.profile}/subsystem=messaging-activemq");
+
+        PrebuiltSearchIndex index = new PrebuiltSearchIndex("standalone", true, Collections.singletonList(jms),
+                descriptions);
+        assertTrue(index.getDocuments().isEmpty());
+        assertTrue(index.getResources().isEmpty());
+        assertTrue(index.getMatched().isEmpty());
+    }
+
+    @Test
+    public void output() {
+        NameTokenInfo interfaces = token("interfaces", "interface=*");
+        interfaces.addKeywords(new String[]{"network", "ip"});
+        List<NameTokenInfo> tokens = Collections.singletonList(interfaces);
+        final List<PrebuiltSearchIndex> indexes = Arrays.asList(
+                new PrebuiltSearchIndex("standalone", true, tokens, descriptions),
+                new PrebuiltSearchIndex("domain", false, tokens, descriptions));
+
+        String json = new NameTokenProcessor().generate(NameTokenProcessor.PREBUILT_SEARCH_INDEX_TEMPLATE, () -> {
+            Map<String, Object> context = new HashMap<>();
+            context.put("indexes", indexes);
+            return context;
+        }).toString().replaceAll("\\s+", " ");
+
+        assertTrue(json.contains("\"standalone\": { \"documents\": [ {\"id\": 0, \"token\": \"interfaces\", " +
+                "\"description\": \"A named \\\"network\\\" interface\", \"keywords\": [\"ip\", \"network\"]} ]"));
+        assertTrue(json.contains("\"resources\": { \"interfaces\": [\"interface=*\"] }"));
+        assertTrue(json.contains("\"domain\": {"));
+        // no lunr index without a JavaScript engine and lunr script
+        assertTrue(json.contains("\"index\": null"));
+    }
+
+
+    // ------------------------------------------------------ helper methods
+
+    private NameTokenInfo token(String token, String... resources) {
+        NameTokenInfo info = new NameTokenInfo(token);
+        info.addResources(resources);
+        return info;
+    }
+}